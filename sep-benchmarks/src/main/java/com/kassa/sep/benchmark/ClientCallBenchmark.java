@@ -0,0 +1,96 @@
+package com.kassa.sep.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.web.client.RestClient;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.SepProperties;
+import com.kassa.sep.config.RestConfig;
+import com.kassa.sep.config.SepRestClientTransport;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+/**
+ * Full {@link SepClient} call path against a {@link LoopbackSepGateway}: request building, the interceptor
+ * chain, JSON encoding, the pooled HTTP round trip and response decoding.
+ * <p>
+ * {@code chain=none} calls a client without interceptors; {@code chain=default} uses the auto-configured client
+ * with its default interceptors (retry, circuit breaker, bulkhead, request coalescing). Subtracting the loopback
+ * round trip measured with {@code chain=none} from a real deployment's latency shows what the starter adds.
+ * {@code codec} selects the {@code sep.http.codec} used for the request and response bodies.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ClientCallBenchmark {
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  @Param({ "none", "default" })
+  public String chain;
+
+  @Param({ "streaming", "jackson" })
+  public String codec;
+
+  private LoopbackSepGateway gateway;
+  private AnnotationConfigApplicationContext context;
+  private SepClient client;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    gateway = LoopbackSepGateway.start(8);
+    context = new AnnotationConfigApplicationContext();
+    context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+      "sep.base-url", gateway.baseUrl(),
+      "sep.terminal-id", "2015",
+      "sep.http.codec", codec)));
+    context.register(SepConfiguration.class);
+    context.refresh();
+    client = "none".equals(chain)
+      ? new SepClient(new SepRestClientTransport(context.getBean(RestConfig.REST_CLIENT_BEAN, RestClient.class)),
+        context.getBean(SepProperties.class).clientSettings(), List.of())
+      : context.getBean(SepClient.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+    gateway.close();
+  }
+
+  @Benchmark
+  public SepTokenResponse requestToken() {
+    return client.requestToken(120_000L, "ORDER-" + SEQUENCE.incrementAndGet(),
+      "https://shop.example.com/payment/callback", null);
+  }
+
+  @Benchmark
+  public SepVerifyTransactionResponse verifyTransaction() {
+    return client.verifyTransaction("REF-" + SEQUENCE.incrementAndGet());
+  }
+}
@@ -0,0 +1,59 @@
+package com.kassa.sep.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.exception.SepGatewayException;
+
+/**
+ * Lookup of gateway codes and construction of {@link SepGatewayException}, which happen on every failed call.
+ * Codes are parameterized with the first and last constants and an unknown value, since the lookups are linear.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeLookupBenchmark {
+
+  /** Token error codes: first constant, last constant, unknown. */
+  @State(Scope.Benchmark)
+  public static class ErrorCodes {
+    @Param({ "-", "21", "99" })
+    public String code;
+  }
+
+  /** Verify/reverse result codes: first constant, last constant, unknown. */
+  @State(Scope.Benchmark)
+  public static class ResultCodes {
+    @Param({ "-2", "-106", "42" })
+    public int code;
+  }
+
+  @Benchmark
+  public SepErrorCode errorCodeFromCode(ErrorCodes codes) {
+    return SepErrorCode.fromCode(codes.code);
+  }
+
+  @Benchmark
+  public SepResultCode resultCodeFromCode(ResultCodes codes) {
+    return SepResultCode.fromCode(codes.code);
+  }
+
+  @Benchmark
+  public SepGatewayException gatewayException(ErrorCodes codes) {
+    return new SepGatewayException(codes.code, "Gateway error");
+  }
+}
@@ -0,0 +1,113 @@
+package com.kassa.sep.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.kassa.sep.codec.SepJsonCodec;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Encoding of the SEP request DTOs and decoding of the response DTOs, with Jackson data binding (using a mapper
+ * configured like the one behind the starter's {@code RestClient}) and with the starter's {@link SepJsonCodec}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoCodecBenchmark {
+  private JsonMapper mapper;
+  private SepJsonCodec codec;
+  private SepTokenRequest tokenRequest;
+  private SepVerifyTransactionRequest verifyRequest;
+
+  @Setup
+  public void setUp() {
+    mapper = JsonMapper.builder()
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .build();
+    codec = new SepJsonCodec(List.of("2015"));
+    tokenRequest = SepTokenRequest.builder()
+      .action("token")
+      .terminalId("2015")
+      .amount(120_000L)
+      .resNum("ORDER-2024-000001")
+      .redirectUrl("https://shop.example.com/payment/callback")
+      .cellNumber("9120000000")
+      .build();
+    verifyRequest = SepVerifyTransactionRequest.builder()
+      .refNum("jTXtDOOtm6Zmgs4Z4XEo9VrEz3Kh9Q")
+      .terminalNumber(2015)
+      .build();
+  }
+
+  @Benchmark
+  public byte[] serializeTokenRequest() {
+    return mapper.writeValueAsBytes(tokenRequest);
+  }
+
+  @Benchmark
+  public byte[] serializeVerifyRequest() {
+    return mapper.writeValueAsBytes(verifyRequest);
+  }
+
+  @Benchmark
+  public SepTokenResponse deserializeTokenResponse() {
+    return mapper.readValue(SepPayloads.TOKEN_SUCCESS_BYTES, SepTokenResponse.class);
+  }
+
+  @Benchmark
+  public SepVerifyTransactionResponse deserializeVerifyResponse() {
+    return mapper.readValue(SepPayloads.VERIFY_SUCCESS_BYTES, SepVerifyTransactionResponse.class);
+  }
+
+  @Benchmark
+  public SepTransactionDetail deserializeTransactionDetail() {
+    return mapper.readValue(SepPayloads.TRANSACTION_DETAIL_BYTES, SepTransactionDetail.class);
+  }
+
+  @Benchmark
+  public byte[] codecSerializeTokenRequest() {
+    return codec.write(tokenRequest);
+  }
+
+  @Benchmark
+  public byte[] codecSerializeVerifyRequest() {
+    return codec.write(verifyRequest);
+  }
+
+  @Benchmark
+  public SepTokenResponse codecDeserializeTokenResponse() {
+    return codec.read(SepTokenResponse.class, new ByteArrayInputStream(SepPayloads.TOKEN_SUCCESS_BYTES));
+  }
+
+  @Benchmark
+  public SepVerifyTransactionResponse codecDeserializeVerifyResponse() {
+    return codec.read(SepVerifyTransactionResponse.class, new ByteArrayInputStream(SepPayloads.VERIFY_SUCCESS_BYTES));
+  }
+
+  @Benchmark
+  public SepTransactionDetail codecDeserializeTransactionDetail() {
+    return codec.read(SepTransactionDetail.class, new ByteArrayInputStream(SepPayloads.TRANSACTION_DETAIL_BYTES));
+  }
+}
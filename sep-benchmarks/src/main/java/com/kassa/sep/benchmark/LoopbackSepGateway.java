@@ -0,0 +1,74 @@
+package com.kassa.sep.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal in-process SEP gateway on the loopback interface. It answers the token, verify and reverse endpoints
+ * with fixed success payloads, so a benchmark measures the client's own overhead plus a loopback round trip.
+ */
+final class LoopbackSepGateway implements AutoCloseable {
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private LoopbackSepGateway(HttpServer server, ExecutorService executor) {
+    this.server = server;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts the stub on an ephemeral loopback port.
+   *
+   * @param threads number of threads serving requests
+   * @return the running stub
+   * @throws IOException if the port cannot be bound
+   */
+  static LoopbackSepGateway start(int threads) throws IOException {
+    // without TCP_NODELAY the server's split header/body writes stall on delayed ACKs (~40ms per call)
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    server.setExecutor(executor);
+    server.createContext("/onlinepg/onlinepg", exchange -> respond(exchange, SepPayloads.TOKEN_SUCCESS_BYTES));
+    server.createContext("/verifyTxnRandomSessionkey/ipg/VerifyTransaction",
+      exchange -> respond(exchange, SepPayloads.VERIFY_SUCCESS_BYTES));
+    server.createContext("/verifyTxnRandomSessionkey/ipg/ReverseTransaction",
+      exchange -> respond(exchange, SepPayloads.VERIFY_SUCCESS_BYTES));
+    server.start();
+    return new LoopbackSepGateway(server, executor);
+  }
+
+  /**
+   * Base URL of the stub, e.g. {@code http://127.0.0.1:41234}.
+   *
+   * @return the base URL
+   */
+  String baseUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
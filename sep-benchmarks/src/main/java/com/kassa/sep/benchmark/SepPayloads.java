@@ -0,0 +1,29 @@
+package com.kassa.sep.benchmark;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Representative SEP gateway payloads shared by the benchmarks and the loopback stub.
+ */
+final class SepPayloads {
+  static final String TOKEN_SUCCESS = "{\"status\":1,\"token\":\"2c3c1fefac5a48geb9f9be7e445dd9b2\"}";
+
+  static final String TOKEN_ERROR = "{\"status\":-1,\"errorCode\":\"5\",\"errorDesc\":\"پارامترهای ارسالی نامعتبر است\"}";
+
+  static final String TRANSACTION_DETAIL = "{\"RRN\":\"14226761817\",\"RefNum\":\"jTXtDOOtm6Zmgs4Z4XEo9VrEz3Kh9Q\","
+    + "\"MaskedPan\":\"621986****8080\",\"HashedPan\":\"a0ed2d5b2a1f9bd5b3c4b2f0e1d9c8b7a6f5e4d3c2b1a0f9e8d7c6b5a4f3e2d1\","
+    + "\"TerminalNumber\":2015,\"OrginalAmount\":1000,\"AffectiveAmount\":1000,"
+    + "\"StraceDate\":\"2019-09-16 18:11:56\",\"StraceNo\":\"100428\"}";
+
+  static final String VERIFY_SUCCESS = "{\"TransactionDetail\":" + TRANSACTION_DETAIL
+    + ",\"ResultCode\":0,\"ResultDescription\":\"عملیات با موفقیت انجام شد\",\"Success\":true}";
+
+  static final byte[] TOKEN_SUCCESS_BYTES = TOKEN_SUCCESS.getBytes(StandardCharsets.UTF_8);
+
+  static final byte[] VERIFY_SUCCESS_BYTES = VERIFY_SUCCESS.getBytes(StandardCharsets.UTF_8);
+
+  static final byte[] TRANSACTION_DETAIL_BYTES = TRANSACTION_DETAIL.getBytes(StandardCharsets.UTF_8);
+
+  private SepPayloads() {
+  }
+}
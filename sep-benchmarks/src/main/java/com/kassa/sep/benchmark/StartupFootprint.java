@@ -0,0 +1,113 @@
+package com.kassa.sep.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.transport.SepHttpClientTransport;
+
+/**
+ * Startup time and memory footprint of a plain {@code sep-core} client compared with the Spring Boot starter.
+ * <p>
+ * Each mode runs in a fresh JVM that starts a {@link LoopbackSepGateway}, builds a client and verifies one
+ * payment: {@code core} uses a {@link SepClient} over {@link SepHttpClientTransport}, {@code spring} refreshes a
+ * context with the auto-configuration and uses its client. The JVM then reports its uptime at the end of the first
+ * verify, the heap in use after a full GC and the number of loaded classes. Without arguments, both modes are
+ * forked {@value #DEFAULT_RUNS} times each with the JVM and classpath of the runner, and the medians are printed.
+ */
+public final class StartupFootprint {
+  private static final int DEFAULT_RUNS = 5;
+  private static final String[] MODES = { "core", "spring" };
+
+  private StartupFootprint() {
+  }
+
+  /**
+   * Measures one mode in this JVM, or compares all modes in forked JVMs.
+   *
+   * @param args {@code core} or {@code spring} to measure one mode; otherwise an optional number of runs per mode
+   * @throws Exception if a measurement fails
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 1 && List.of(MODES).contains(args[0])) {
+      measure(args[0]);
+    } else {
+      compare(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS);
+    }
+  }
+
+  private static void measure(String mode) throws Exception {
+    try (LoopbackSepGateway gateway = LoopbackSepGateway.start(1)) {
+      AnnotationConfigApplicationContext context = null;
+      SepClient client;
+      if ("core".equals(mode)) {
+        SepClientSettings settings = SepClientSettings.of(gateway.baseUrl(), "2015");
+        client = new SepClient(SepHttpClientTransport.create(settings), settings);
+      } else {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("footprint", Map.of(
+          "sep.base-url", gateway.baseUrl(),
+          "sep.terminal-id", "2015")));
+        context.register(SepConfiguration.class);
+        context.refresh();
+        client = context.getBean(SepClient.class);
+      }
+      client.verifyTransaction("REF-1");
+      long startupMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+      System.gc();
+      System.gc();
+      long heapBytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      int classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+      // printed before the context is closed, so everything it holds is still reachable
+      System.out.println(startupMillis + " " + heapBytes + " " + classes);
+      if (context != null) {
+        context.close();
+      }
+    }
+  }
+
+  private static void compare(int runs) throws IOException, InterruptedException {
+    String java = ProcessHandle.current().info().command().orElse("java");
+    String classpath = System.getProperty("java.class.path");
+    System.out.printf("%-8s %14s %14s %14s%n", "mode", "startup (ms)", "heap (KiB)", "classes");
+    for (String mode : MODES) {
+      List<long[]> samples = new ArrayList<>();
+      for (int run = 0; run < runs; run++) {
+        Process process = new ProcessBuilder(java, "-cp", classpath, StartupFootprint.class.getName(), mode)
+          .redirectError(ProcessBuilder.Redirect.DISCARD)
+          .start();
+        String line;
+        try (BufferedReader out = new BufferedReader(
+            new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+          // the result is the only line of three numbers; the Spring context may log to stdout as well
+          line = out.lines().filter(output -> output.matches("\\d+ \\d+ \\d+")).reduce((first, last) -> last)
+            .orElse("");
+        }
+        if (process.waitFor() != 0) {
+          throw new IllegalStateException("Measurement of mode " + mode + " failed");
+        }
+        String[] fields = line.trim().split(" ");
+        samples.add(new long[] { Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]) });
+      }
+      System.out.printf("%-8s %14d %14d %14d%n", mode, median(samples, 0), median(samples, 1) / 1024,
+        median(samples, 2));
+    }
+  }
+
+  private static long median(List<long[]> samples, int field) {
+    long[] values = samples.stream().mapToLong(sample -> sample[field]).sorted().toArray();
+    return values[values.length / 2];
+  }
+}
@@ -0,0 +1,190 @@
+package com.kassa.sep;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Non-blocking facade over {@link SepClient}.
+ * <p>
+ * Each call runs on the given executor (virtual threads on Java 21+, see
+ * {@link com.kassa.sep.config.SepExecutors}) and completes the returned future with the gateway response, or
+ * exceptionally with the same {@link SepGatewayException} / {@link com.kassa.sep.exception.SepTransportException}
+ * the blocking client throws.
+ * The number of gateway calls in flight is capped by {@code maxConcurrency}; further calls wait for a free slot
+ * on their executor thread, never on the caller's thread, and fail with {@link SepDeadlineExceededException} if
+ * their deadline passes first. A call the executor rejects completes its future exceptionally with the
+ * {@link java.util.concurrent.RejectedExecutionException}.
+ */
+public class SepAsyncClient {
+  private final SepClient client;
+  private final Executor executor;
+  private final Semaphore permits;
+
+  /**
+   * Creates the async client.
+   *
+   * @param client         the blocking client performing the gateway calls
+   * @param executor       executor running the calls
+   * @param maxConcurrency maximum number of gateway calls in flight
+   */
+  public SepAsyncClient(SepClient client, Executor executor, int maxConcurrency) {
+    this.client = client;
+    this.executor = executor;
+    this.permits = new Semaphore(maxConcurrency);
+  }
+
+  /**
+   * Asynchronously requests a payment token. See {@link SepClient#requestToken(long, String, String, String)}.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @return a future completed with the token response
+   */
+  public CompletableFuture<SepTokenResponse> requestToken(long amount, String resNum, String redirectUrl,
+      String cellNumber) {
+    return submit(SepOperation.TOKEN, SepDeadline.none(), () -> client.requestToken(amount, resNum, redirectUrl, cellNumber));
+  }
+
+  /**
+   * Asynchronously requests a payment token before a deadline. See
+   * {@link SepClient#requestToken(long, String, String, String, SepDeadline)}.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @param deadline    time by which the call must complete, including the wait for a concurrency slot
+   * @return a future completed with the token response
+   */
+  public CompletableFuture<SepTokenResponse> requestToken(long amount, String resNum, String redirectUrl,
+      String cellNumber, SepDeadline deadline) {
+    return submit(SepOperation.TOKEN, deadline, () -> client.requestToken(amount, resNum, redirectUrl, cellNumber, deadline));
+  }
+
+  /**
+   * Asynchronously verifies a transaction. See {@link SepClient#verifyTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway callback
+   * @return a future completed with the verify response
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> verifyTransaction(String refNum) {
+    return submit(SepOperation.VERIFY, SepDeadline.none(), () -> client.verifyTransaction(refNum));
+  }
+
+  /**
+   * Asynchronously verifies a transaction before a deadline. See
+   * {@link SepClient#verifyTransaction(String, SepDeadline)}.
+   *
+   * @param refNum   reference number (RefNum) from the gateway callback
+   * @param deadline time by which the call must complete, including the wait for a concurrency slot
+   * @return a future completed with the verify response
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> verifyTransaction(String refNum, SepDeadline deadline) {
+    return submit(SepOperation.VERIFY, deadline, () -> client.verifyTransaction(refNum, deadline));
+  }
+
+  /**
+   * Asynchronously reverses a transaction. See {@link SepClient#reverseTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway
+   * @return a future completed with the reverse response
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> reverseTransaction(String refNum) {
+    return submit(SepOperation.REVERSE, SepDeadline.none(), () -> client.reverseTransaction(refNum));
+  }
+
+  /**
+   * Asynchronously reverses a transaction before a deadline. See
+   * {@link SepClient#reverseTransaction(String, SepDeadline)}.
+   *
+   * @param refNum   reference number (RefNum) from the gateway
+   * @param deadline time by which the call must complete, including the wait for a concurrency slot
+   * @return a future completed with the reverse response
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> reverseTransaction(String refNum, SepDeadline deadline) {
+    return submit(SepOperation.REVERSE, deadline, () -> client.reverseTransaction(refNum, deadline));
+  }
+
+  /**
+   * Asynchronously requests a payment token without failing for gateway errors. See
+   * {@link SepClient#tryRequestToken(long, String, String, String)}.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @return a future completed with the result of the call
+   */
+  public CompletableFuture<SepResult<SepTokenResponse>> tryRequestToken(long amount, String resNum,
+      String redirectUrl, String cellNumber) {
+    return submit(SepOperation.TOKEN, SepDeadline.none(), () -> client.tryRequestToken(amount, resNum, redirectUrl, cellNumber));
+  }
+
+  /**
+   * Asynchronously verifies a transaction without failing for gateway errors. See
+   * {@link SepClient#tryVerifyTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway callback
+   * @return a future completed with the result of the call
+   */
+  public CompletableFuture<SepResult<SepVerifyTransactionResponse>> tryVerifyTransaction(String refNum) {
+    return submit(SepOperation.VERIFY, SepDeadline.none(), () -> client.tryVerifyTransaction(refNum));
+  }
+
+  /**
+   * Asynchronously reverses a transaction without failing for gateway errors. See
+   * {@link SepClient#tryReverseTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway
+   * @return a future completed with the result of the call
+   */
+  public CompletableFuture<SepResult<SepVerifyTransactionResponse>> tryReverseTransaction(String refNum) {
+    return submit(SepOperation.REVERSE, SepDeadline.none(), () -> client.tryReverseTransaction(refNum));
+  }
+
+  /**
+   * Number of gateway calls that can still start without waiting.
+   *
+   * @return free concurrency slots
+   */
+  public int availableConcurrency() {
+    return permits.availablePermits();
+  }
+
+  private <T> CompletableFuture<T> submit(SepOperation operation, SepDeadline deadline, Supplier<T> call) {
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          if (!permits.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+            throw new SepDeadlineExceededException(operation);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CompletionException(e);
+        }
+        try {
+          return call.get();
+        } finally {
+          permits.release();
+        }
+      }, executor);
+    } catch (RejectedExecutionException e) {
+      // a saturated bounded pool rejects on the caller's thread
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
@@ -0,0 +1,434 @@
+package com.kassa.sep;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepRejectedException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.recorder.SepFlightRecorder;
+import com.kassa.sep.resilience.SepLatencyTracker;
+import com.kassa.sep.transport.SepTransport;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+public class SepClient {
+  private static final String TOKEN_PATH = "/onlinepg/onlinepg";
+  private static final String VERIFY_PATH = "/verifyTxnRandomSessionkey/ipg/VerifyTransaction";
+  private static final String REVERSE_PATH = "/verifyTxnRandomSessionkey/ipg/ReverseTransaction";
+  private static final String ACTION_TOKEN = "token";
+
+  private final SepTransport transport;
+  private final SepClientSettings settings;
+  private final List<SepCallInterceptor> interceptors;
+  private final SepFlightRecorder flightRecorder;
+  private final SepLatencyTracker latencies;
+  private final SepClientSettings.AdaptiveTimeout adaptiveTimeout;
+  private final long minTimeoutNanos;
+  private final long maxTimeoutNanos;
+  private final Integer terminalNumber;
+  private final String redirectUrlPrefix;
+
+  /**
+   * Creates a client without interceptors.
+   *
+   * @param transport transport to the gateway, e.g. {@link com.kassa.sep.transport.SepHttpClientTransport}
+   * @param settings  SEP client settings
+   */
+  public SepClient(SepTransport transport, SepClientSettings settings) {
+    this(transport, settings, List.of());
+  }
+
+  /**
+   * Creates a client whose gateway calls pass through the given interceptors.
+   *
+   * @param transport    transport to the gateway
+   * @param settings     SEP client settings
+   * @param interceptors call interceptors; applied in ascending {@link SepCallInterceptor#getOrder()}. A
+   *                     {@link SepFlightRecorder} among them also dumps the exchanges of calls failing with a
+   *                     {@link SepGatewayException}.
+   */
+  public SepClient(SepTransport transport, SepClientSettings settings, List<SepCallInterceptor> interceptors) {
+    this(transport, settings, interceptors, new SepLatencyTracker(settings.adaptiveTimeout().window(),
+      settings.adaptiveTimeout().minSamples()));
+  }
+
+  /**
+   * Creates a client whose gateway calls pass through the given interceptors and whose attempt latencies are
+   * recorded in the given tracker.
+   *
+   * @param transport    transport to the gateway; it applies the per-attempt timeouts the client asks for
+   * @param settings     SEP client settings
+   * @param interceptors call interceptors; applied in ascending {@link SepCallInterceptor#getOrder()}
+   * @param latencies    tracker of attempt latencies, from which adaptive timeouts are derived; may be shared with
+   *                     other clients and a {@link com.kassa.sep.resilience.SepHedgingInterceptor}
+   */
+  public SepClient(SepTransport transport, SepClientSettings settings, List<SepCallInterceptor> interceptors,
+      SepLatencyTracker latencies) {
+    this.transport = transport;
+    this.settings = settings;
+    this.interceptors = interceptors.stream()
+      .sorted(Comparator.comparingInt(SepCallInterceptor::getOrder))
+      .toList();
+    this.flightRecorder = this.interceptors.stream()
+      .filter(SepFlightRecorder.class::isInstance)
+      .map(SepFlightRecorder.class::cast)
+      .findFirst()
+      .orElse(null);
+    this.terminalNumber = parseTerminalNumber(settings.terminalId());
+    this.redirectUrlPrefix = settings.baseUrl() + "/OnlinePG/SendToken?token=";
+    this.latencies = latencies;
+    this.adaptiveTimeout = settings.adaptiveTimeout();
+    this.minTimeoutNanos = adaptiveTimeout.minTimeout().toNanos();
+    this.maxTimeoutNanos = settings.responseTimeout().toNanos();
+  }
+
+  /**
+   * Requests a payment token from the SEP gateway for the given transaction.
+   * The token is used to redirect the user to the gateway payment page.
+   * <p>
+   * On success (status = 1), returns a response containing the token.
+   * On error (status != 1, typically -1), throws {@link SepGatewayException} with error details.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number (e.g. "9120000000"), may be null
+   * @return the gateway response containing status and token (only on success)
+   * @throws SepGatewayException   if the gateway returns an error response
+   * @throws SepTransportException if the HTTP request fails
+   */
+  public SepTokenResponse requestToken(long amount, String resNum, String redirectUrl, String cellNumber) {
+    return requestToken(amount, resNum, redirectUrl, cellNumber, SepDeadline.none());
+  }
+
+  /**
+   * Requests a payment token, failing with {@link SepDeadlineExceededException} if the call cannot complete
+   * before the given deadline.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @param deadline    time by which the call, including retries, must complete
+   * @return the gateway response containing status and token
+   * @throws SepGatewayException   if the gateway returns an error response
+   * @throws SepTransportException if the HTTP request fails
+   * @see #requestToken(long, String, String, String)
+   */
+  public SepTokenResponse requestToken(long amount, String resNum, String redirectUrl, String cellNumber,
+      SepDeadline deadline) {
+    var call = tokenCall(amount, resNum, redirectUrl, cellNumber, deadline);
+    return orElseThrow(call, token(call), "SEP Gateway error");
+  }
+
+  /**
+   * Requests a payment token without throwing for gateway errors.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @return the token response, the gateway error, or the transport error that ended the call
+   * @see #requestToken(long, String, String, String)
+   */
+  public SepResult<SepTokenResponse> tryRequestToken(long amount, String resNum, String redirectUrl,
+      String cellNumber) {
+    return tryRequestToken(amount, resNum, redirectUrl, cellNumber, SepDeadline.none());
+  }
+
+  /**
+   * Requests a payment token before a deadline without throwing for gateway errors.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @param deadline    time by which the call, including retries, must complete
+   * @return the token response, the gateway error, or the transport error that ended the call
+   * @see #requestToken(long, String, String, String, SepDeadline)
+   */
+  public SepResult<SepTokenResponse> tryRequestToken(long amount, String resNum, String redirectUrl,
+      String cellNumber, SepDeadline deadline) {
+    return token(tokenCall(amount, resNum, redirectUrl, cellNumber, deadline));
+  }
+
+  public String getRedirectUrl(String token) {
+    return redirectUrlPrefix + token;
+  }
+  
+  /**
+   * Verifies a transaction with the SEP gateway using the reference number
+   * returned after the user completes payment.
+   * <p>
+   * On success (Success = true, ResultCode = 0), returns the response including
+   * transaction detail. On error, throws {@link SepGatewayException}.
+   *
+   * @param refNum reference number (RefNum) from the gateway callback
+   * @return the verify transaction response including transaction detail on success
+   * @throws SepGatewayException   if verification fails (Success = false or ResultCode != 0)
+   * @throws SepTransportException if the HTTP request fails
+   */
+  public SepVerifyTransactionResponse verifyTransaction(String refNum) {
+    return verifyTransaction(refNum, SepDeadline.none());
+  }
+
+  /**
+   * Verifies a transaction, failing with {@link SepDeadlineExceededException} if the call cannot complete before
+   * the given deadline.
+   *
+   * @param refNum   reference number (RefNum) from the gateway callback
+   * @param deadline time by which the call, including retries and hedging, must complete
+   * @return the verify transaction response including transaction detail on success
+   * @throws SepGatewayException   if verification fails
+   * @throws SepTransportException if the HTTP request fails
+   * @see #verifyTransaction(String)
+   */
+  public SepVerifyTransactionResponse verifyTransaction(String refNum, SepDeadline deadline) {
+    var call = transactionCall(SepOperation.VERIFY, refNum, deadline);
+    return orElseThrow(call, transaction(call, VERIFY_PATH, "Verification failed"), "SEP Verify error");
+  }
+
+  /**
+   * Verifies a transaction without throwing for gateway errors, e.g. {@code DUPLICATE_REQUEST} for a callback
+   * verified before.
+   *
+   * @param refNum reference number (RefNum) from the gateway callback
+   * @return the verify response, the gateway error, or the transport error that ended the call
+   * @see #verifyTransaction(String)
+   */
+  public SepResult<SepVerifyTransactionResponse> tryVerifyTransaction(String refNum) {
+    return tryVerifyTransaction(refNum, SepDeadline.none());
+  }
+
+  /**
+   * Verifies a transaction before a deadline without throwing for gateway errors.
+   *
+   * @param refNum   reference number (RefNum) from the gateway callback
+   * @param deadline time by which the call, including retries and hedging, must complete
+   * @return the verify response, the gateway error, or the transport error that ended the call
+   * @see #verifyTransaction(String, SepDeadline)
+   */
+  public SepResult<SepVerifyTransactionResponse> tryVerifyTransaction(String refNum, SepDeadline deadline) {
+    return transaction(transactionCall(SepOperation.VERIFY, refNum, deadline), VERIFY_PATH, "Verification failed");
+  }
+
+  /**
+   * Reverses (refunds) a transaction with the SEP gateway using the reference number.
+   * <p>
+   * On success (Success = true, ResultCode = 0), returns the response including
+   * transaction detail. On error, throws {@link SepGatewayException}.
+   * Result codes are documented in {@link com.kassa.sep.dto.SepResultCode}.
+   *
+   * @param refNum reference number (RefNum) from the gateway
+   * @return the response including transaction detail on success
+   * @throws SepGatewayException   if reverse fails (Success = false or ResultCode != 0)
+   * @throws SepTransportException if the HTTP request fails
+   */
+  public SepVerifyTransactionResponse reverseTransaction(String refNum) {
+    return reverseTransaction(refNum, SepDeadline.none());
+  }
+
+  /**
+   * Reverses a transaction, failing with {@link SepDeadlineExceededException} if the call cannot complete before
+   * the given deadline.
+   *
+   * @param refNum   reference number (RefNum) from the gateway
+   * @param deadline time by which the call, including retries, must complete
+   * @return the response including transaction detail on success
+   * @throws SepGatewayException   if reverse fails
+   * @throws SepTransportException if the HTTP request fails
+   * @see #reverseTransaction(String)
+   */
+  public SepVerifyTransactionResponse reverseTransaction(String refNum, SepDeadline deadline) {
+    var call = transactionCall(SepOperation.REVERSE, refNum, deadline);
+    return orElseThrow(call, transaction(call, REVERSE_PATH, "Reverse failed"), "SEP Reverse error");
+  }
+
+  /**
+   * Reverses a transaction without throwing for gateway errors.
+   *
+   * @param refNum reference number (RefNum) from the gateway
+   * @return the reverse response, the gateway error, or the transport error that ended the call
+   * @see #reverseTransaction(String)
+   */
+  public SepResult<SepVerifyTransactionResponse> tryReverseTransaction(String refNum) {
+    return tryReverseTransaction(refNum, SepDeadline.none());
+  }
+
+  /**
+   * Reverses a transaction before a deadline without throwing for gateway errors.
+   *
+   * @param refNum   reference number (RefNum) from the gateway
+   * @param deadline time by which the call, including retries, must complete
+   * @return the reverse response, the gateway error, or the transport error that ended the call
+   * @see #reverseTransaction(String, SepDeadline)
+   */
+  public SepResult<SepVerifyTransactionResponse> tryReverseTransaction(String refNum, SepDeadline deadline) {
+    return transaction(transactionCall(SepOperation.REVERSE, refNum, deadline), REVERSE_PATH, "Reverse failed");
+  }
+
+  private SepCall<SepTokenResponse> tokenCall(long amount, String resNum, String redirectUrl, String cellNumber,
+      SepDeadline deadline) {
+    var request = SepTokenRequest.builder()
+      .action(ACTION_TOKEN)
+      .terminalId(settings.terminalId())
+      .amount(amount)
+      .resNum(resNum)
+      .redirectUrl(redirectUrl)
+      .cellNumber(cellNumber)
+      .build();
+    return new SepCall<>(SepOperation.TOKEN, settings.terminalId(), resNum, request, SepTokenResponse.class,
+      deadline);
+  }
+
+  private SepCall<SepVerifyTransactionResponse> transactionCall(SepOperation operation, String refNum,
+      SepDeadline deadline) {
+    var request = SepVerifyTransactionRequest.builder()
+      .refNum(refNum)
+      .terminalNumber(terminalNumber())
+      .build();
+    return new SepCall<>(operation, settings.terminalId(), refNum, request, SepVerifyTransactionResponse.class,
+      deadline);
+  }
+
+  private SepResult<SepTokenResponse> token(SepCall<SepTokenResponse> call) {
+    SepTokenResponse response;
+    try {
+      response = execute(call, TOKEN_PATH);
+    } catch (SepRejectedException e) {
+      return new SepResult.Rejected<>(e.getErrorCode(), e);
+    } catch (SepGatewayException e) {
+      return new SepResult.GatewayError<>(e.getErrorCode(), e.getErrorDesc(), null);
+    } catch (SepTransportException e) {
+      return new SepResult.TransportError<>(e);
+    }
+    if (response.isSuccess()) {
+      return new SepResult.Success<>(response);
+    }
+    return new SepResult.GatewayError<>(response.getErrorCode(), response.getErrorDesc(), response);
+  }
+
+  private SepResult<SepVerifyTransactionResponse> transaction(SepCall<SepVerifyTransactionResponse> call,
+      String path, String failure) {
+    SepVerifyTransactionResponse response;
+    try {
+      response = execute(call, path);
+    } catch (SepRejectedException e) {
+      return new SepResult.Rejected<>(e.getErrorCode(), e);
+    } catch (SepGatewayException e) {
+      return new SepResult.GatewayError<>(e.getErrorCode(), e.getErrorDesc(), null);
+    } catch (SepTransportException e) {
+      return new SepResult.TransportError<>(e);
+    }
+    if (response.isSuccess()) {
+      return new SepResult.Success<>(response);
+    }
+    String code = response.getResultCode() != null ? String.valueOf(response.getResultCode()) : "UNKNOWN";
+    String desc = response.getResultDescription() != null ? response.getResultDescription() : failure;
+    return new SepResult.GatewayError<>(code, desc, response);
+  }
+
+  /**
+   * Unwraps the result of a throwing method: gateway error answers are logged, dumped by the flight recorder and
+   * thrown; missing responses (dumped when they happened), rejections and transport errors are thrown as they are.
+   */
+  private <T> T orElseThrow(SepCall<T> call, SepResult<T> result, String label) {
+    if (result instanceof SepResult.GatewayError<T> error && error.response() != null) {
+      log.error("{}: code={}, desc={}", label, error.code(), error.description());
+      throw gatewayError(call, error.code(), error.description());
+    }
+    return result.orElseThrow();
+  }
+
+  private Integer terminalNumber() {
+    // a non-numeric terminal id fails here, as before, rather than when the client is created
+    return terminalNumber != null ? terminalNumber : Integer.valueOf(settings.terminalId());
+  }
+
+  private static Integer parseTerminalNumber(String terminalId) {
+    try {
+      return terminalId != null ? Integer.valueOf(terminalId) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private <T> T execute(SepCall<T> call, String path) {
+    SepCallExecution<T> exchange = c -> {
+      long timeout = attemptTimeout(c);
+      long start = System.nanoTime();
+      T response;
+      try {
+        response = transport.post(path, c.request(), c.responseType(), timeout);
+      } finally {
+        // failed and timed-out attempts count too, so a slowing gateway raises the percentiles
+        latencies.record(c.terminalId(), c.operation(), System.nanoTime() - start);
+      }
+      if (response == null) {
+        throw new SepGatewayException("UNKNOWN", "No response received from gateway");
+      }
+      return response;
+    };
+    try {
+      return proceed(0, call, exchange);
+    } catch (SepGatewayException e) {
+      if (flightRecorder != null) {
+        flightRecorder.dump(call, e);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Response timeout of the next attempt of a call: the adaptive timeout once enough latencies were observed,
+   * cut to what is left of the call's deadline.
+   *
+   * @return the timeout in nanoseconds, or -1 to keep the client's configured one
+   */
+  private long attemptTimeout(SepCall<?> call) {
+    long timeout = -1;
+    if (adaptiveTimeout.enabled()) {
+      Duration latency = latencies.percentile(call.terminalId(), call.operation(), adaptiveTimeout.percentile());
+      if (latency != null) {
+        long adaptive = (long) (latency.toNanos() * adaptiveTimeout.multiplier());
+        timeout = Math.min(maxTimeoutNanos, Math.max(minTimeoutNanos, adaptive));
+      }
+    }
+    if (call.deadline().isBounded()) {
+      long remaining = call.deadline().remainingNanos();
+      if (remaining <= 0) {
+        throw new SepDeadlineExceededException(call.operation());
+      }
+      timeout = Math.min(timeout < 0 ? maxTimeoutNanos : timeout, remaining);
+    }
+    return timeout;
+  }
+
+  private SepGatewayException gatewayError(SepCall<?> call, String code, String desc) {
+    SepGatewayException error = new SepGatewayException(code, desc);
+    if (flightRecorder != null) {
+      flightRecorder.dump(call, error);
+    }
+    return error;
+  }
+
+  private <T> T proceed(int index, SepCall<T> call, SepCallExecution<T> exchange) {
+    if (index == interceptors.size()) {
+      return exchange.execute(call);
+    }
+    return interceptors.get(index).intercept(call, next -> proceed(index + 1, next, exchange));
+  }
+}
@@ -0,0 +1,64 @@
+package com.kassa.sep;
+
+import java.time.Duration;
+
+/**
+ * Settings of a {@link SepClient}. The Spring Boot starter derives them from {@code sep.*}; plain Java applications
+ * start from {@link #of(String, String)}.
+ *
+ * @param baseUrl         base URL of the gateway, e.g. {@code https://sep.shaparak.ir}; used for the redirect URL
+ * @param terminalId      terminal identifier assigned by the gateway
+ * @param responseTimeout how long an attempt waits for the response; the upper bound of adaptive timeouts
+ * @param adaptiveTimeout response timeouts derived from observed latency
+ */
+public record SepClientSettings(
+  String baseUrl,
+  String terminalId,
+  Duration responseTimeout,
+  AdaptiveTimeout adaptiveTimeout) {
+
+  /**
+   * Settings with a 15-second response timeout and without adaptive timeouts.
+   *
+   * @param baseUrl    base URL of the gateway
+   * @param terminalId terminal identifier assigned by the gateway
+   * @return the settings
+   */
+  public static SepClientSettings of(String baseUrl, String terminalId) {
+    return new SepClientSettings(baseUrl, terminalId, Duration.ofSeconds(15), AdaptiveTimeout.DISABLED);
+  }
+
+  /**
+   * Copies these settings with adaptive timeouts.
+   *
+   * @param adaptiveTimeout the adaptive timeout settings
+   * @return the copied settings
+   */
+  public SepClientSettings withAdaptiveTimeout(AdaptiveTimeout adaptiveTimeout) {
+    return new SepClientSettings(baseUrl, terminalId, responseTimeout, adaptiveTimeout);
+  }
+
+  /**
+   * Response timeouts derived from the latency percentiles of each terminal and operation, tracked by the
+   * {@link com.kassa.sep.resilience.SepLatencyTracker}.
+   *
+   * @param enabled    whether attempts wait as long as observed latency suggests rather than the fixed timeout
+   * @param percentile latency percentile the timeout is derived from
+   * @param multiplier factor applied to the percentile
+   * @param minTimeout lower bound of the timeout; the response timeout is the upper bound
+   * @param window     number of recent attempts per terminal and operation the percentiles are computed over
+   * @param minSamples attempts needed before percentiles are used
+   */
+  public record AdaptiveTimeout(
+    boolean enabled,
+    double percentile,
+    double multiplier,
+    Duration minTimeout,
+    int window,
+    int minSamples) {
+
+    /** Adaptive timeouts turned off, with the defaults of the starter's {@code sep.adaptive-timeout}. */
+    public static final AdaptiveTimeout DISABLED = new AdaptiveTimeout(false, 0.99, 2.0, Duration.ofSeconds(1), 1024,
+      100);
+  }
+}
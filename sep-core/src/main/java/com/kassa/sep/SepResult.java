@@ -0,0 +1,117 @@
+package com.kassa.sep;
+
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepRejectedException;
+import com.kassa.sep.exception.SepTransportException;
+
+/**
+ * Outcome of a SEP gateway call made through the non-throwing methods of {@link SepClient}
+ * ({@code tryRequestToken}, {@code tryVerifyTransaction}, {@code tryReverseTransaction}).
+ * <p>
+ * Payment flows fail routinely: payers cancel, sessions expire, callbacks are verified twice. A gateway error is
+ * therefore returned as a {@link GatewayError} value instead of a thrown {@link SepGatewayException}, so flows in
+ * which most calls fail pay neither for the stack trace nor for the message of an exception. A call rejected locally
+ * is returned as a {@link Rejected}, and a failed exchange as a {@link TransportError}; both hold the exception the
+ * throwing methods would have thrown.
+ *
+ * @param <T> gateway response type
+ */
+public sealed interface SepResult<T>
+    permits SepResult.Success, SepResult.GatewayError, SepResult.Rejected, SepResult.TransportError {
+
+  /**
+   * Whether the gateway answered successfully.
+   *
+   * @return true for a {@link Success}
+   */
+  boolean isSuccess();
+
+  /**
+   * Returns the successful response, or throws what the throwing methods of {@link SepClient} throw.
+   *
+   * @return the gateway response
+   * @throws SepGatewayException if the gateway answered with an error or no response
+   * @throws SepRejectedException if the call was rejected locally
+   * @throws SepTransportException if the HTTP request failed
+   */
+  T orElseThrow();
+
+  /**
+   * The gateway answered successfully.
+   *
+   * @param response the gateway response
+   * @param <T>      gateway response type
+   */
+  record Success<T>(T response) implements SepResult<T> {
+    @Override
+    public boolean isSuccess() {
+      return true;
+    }
+
+    @Override
+    public T orElseThrow() {
+      return response;
+    }
+  }
+
+  /**
+   * The gateway answered with an error, or with no response at all ({@code UNKNOWN}).
+   *
+   * @param code        the gateway's error code: {@code errorCode} of a token response, {@code ResultCode} of a
+   *                    verify/reverse response ({@code UNKNOWN} if it has none)
+   * @param description the gateway's error description
+   * @param response    the gateway response, null if there was none; use it for the code as
+   *                    {@link com.kassa.sep.dto.SepErrorCode} or {@link com.kassa.sep.dto.SepResultCode}
+   * @param <T>         gateway response type
+   */
+  record GatewayError<T>(String code, String description, T response) implements SepResult<T> {
+    @Override
+    public boolean isSuccess() {
+      return false;
+    }
+
+    @Override
+    public T orElseThrow() {
+      throw new SepGatewayException(code, description);
+    }
+  }
+
+  /**
+   * The call was rejected locally, without a gateway answer: by a circuit breaker, bulkhead, rate limiter, its
+   * deadline, or the lease of another node.
+   *
+   * @param code  the rejection's error code, e.g. {@link com.kassa.sep.exception.SepCircuitOpenException#ERROR_CODE}
+   * @param error the rejection
+   * @param <T>   gateway response type
+   */
+  record Rejected<T>(String code, SepRejectedException error) implements SepResult<T> {
+    @Override
+    public boolean isSuccess() {
+      return false;
+    }
+
+    @Override
+    public T orElseThrow() {
+      throw error;
+    }
+  }
+
+  /**
+   * The exchange with the gateway failed: the connection failed or timed out, the gateway answered with an HTTP
+   * error status, or its response could not be read.
+   *
+   * @param error the exception that ended the call
+   * @param <T>   gateway response type
+   */
+  record TransportError<T>(SepTransportException error) implements SepResult<T> {
+    @Override
+    public boolean isSuccess() {
+      return false;
+    }
+
+    @Override
+    public T orElseThrow() {
+      throw error;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.kassa.sep.batch;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk verify/reverse on top of {@link SepClient}, e.g. to recover callbacks after an outage before the
+ * gateway's 30-minute verify window ({@link com.kassa.sep.dto.SepResultCode#TRANSACTION_EXPIRED}) closes.
+ * <p>
+ * Calls fan out on the given executor with at most {@code parallelism} in flight; each call is bounded by
+ * {@code callDeadline}, which starts when the call is submitted and is passed down to the client, so that retries,
+ * hedges and response timeouts stop with it rather than running on after the call was given up. The submitting
+ * thread waits for a free slot within the same deadline; a call that gets none, or times out, fails with
+ * {@link SepDeadlineExceededException}. Errors never abort the batch: every reference number is reported in the
+ * returned {@link SepBatchReport}, together with the batch throughput. When the submitting thread is interrupted,
+ * the calls not submitted yet fail with a {@link CancellationException}.
+ */
+@Slf4j
+public class SepBatchClient {
+  private final SepClient client;
+  private final Executor executor;
+  private final int parallelism;
+  private final Duration callDeadline;
+
+  /**
+   * Creates the bulk client.
+   *
+   * @param client       the client performing each gateway call
+   * @param executor     executor running the calls
+   * @param parallelism  maximum number of calls in flight
+   * @param callDeadline deadline of a single call
+   */
+  public SepBatchClient(SepClient client, Executor executor, int parallelism, Duration callDeadline) {
+    this.client = client;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.callDeadline = callDeadline;
+  }
+
+  /**
+   * Verifies all given reference numbers. Duplicates are verified once.
+   *
+   * @param refNums reference numbers from gateway callbacks
+   * @return the per-RefNum results and throughput of the batch
+   */
+  public SepBatchReport verifyTransactions(Collection<String> refNums) {
+    return run(SepOperation.VERIFY, refNums, client::verifyTransaction);
+  }
+
+  /**
+   * Reverses all given reference numbers. Duplicates are reversed once.
+   *
+   * @param refNums reference numbers to reverse
+   * @return the per-RefNum results and throughput of the batch
+   */
+  public SepBatchReport reverseTransactions(Collection<String> refNums) {
+    return run(SepOperation.REVERSE, refNums, client::reverseTransaction);
+  }
+
+  private SepBatchReport run(SepOperation operation, Collection<String> refNums,
+      BiFunction<String, SepDeadline, SepVerifyTransactionResponse> call) {
+    long start = System.nanoTime();
+    Semaphore permits = new Semaphore(parallelism);
+    Map<String, CompletableFuture<SepBatchResult>> pending = new LinkedHashMap<>();
+    CancellationException interrupted = null;
+
+    for (String refNum : refNums) {
+      if (pending.containsKey(refNum)) {
+        continue;
+      }
+      // the wait for a free slot counts against the call's deadline
+      SepDeadline deadline = SepDeadline.after(callDeadline);
+      RuntimeException notSubmitted = interrupted;
+      if (notSubmitted == null) {
+        try {
+          if (!permits.tryAcquire(deadline.remainingNanos(), TimeUnit.NANOSECONDS)) {
+            notSubmitted = new SepDeadlineExceededException(operation);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          interrupted = new CancellationException("SEP bulk " + operation + " interrupted");
+          notSubmitted = interrupted;
+        }
+      }
+      if (notSubmitted != null) {
+        pending.put(refNum, CompletableFuture.completedFuture(SepBatchResult.failure(refNum, notSubmitted)));
+        continue;
+      }
+      CompletableFuture<SepVerifyTransactionResponse> task;
+      try {
+        task = CompletableFuture.supplyAsync(() -> call.apply(refNum, deadline), executor);
+      } catch (RuntimeException e) {
+        permits.release();
+        pending.put(refNum, CompletableFuture.completedFuture(SepBatchResult.failure(refNum, e)));
+        continue;
+      }
+      task.whenComplete((response, error) -> permits.release());
+      pending.put(refNum, task.copy()
+        .orTimeout(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS)
+        .handle((response, error) -> error == null
+          ? SepBatchResult.success(refNum, response)
+          : SepBatchResult.failure(refNum, timeoutAware(operation, error))));
+    }
+
+    Map<String, SepBatchResult> results = new LinkedHashMap<>();
+    pending.forEach((refNum, result) -> results.put(refNum, result.join()));
+
+    SepBatchReport report = new SepBatchReport(results, Duration.ofNanos(System.nanoTime() - start));
+    log.info("SEP bulk {} finished: items={}, succeeded={}, failed={}, elapsed={}ms, throughput={} items/s",
+      operation.name().toLowerCase(Locale.ROOT), results.size(), report.succeeded(), report.failed(),
+      report.elapsed().toMillis(), String.format("%.1f", report.throughput()));
+    return report;
+  }
+
+  private static Throwable timeoutAware(SepOperation operation, Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    if (cause instanceof TimeoutException) {
+      return new SepDeadlineExceededException(operation);
+    }
+    return cause;
+  }
+}
@@ -0,0 +1,41 @@
+package com.kassa.sep.batch;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of a bulk verify/reverse operation.
+ *
+ * @param results one result per reference number, in the order the reference numbers were given
+ * @param elapsed wall-clock duration of the whole operation
+ */
+public record SepBatchReport(Map<String, SepBatchResult> results, Duration elapsed) {
+
+  /**
+   * Number of reference numbers whose call succeeded.
+   *
+   * @return the success count
+   */
+  public long succeeded() {
+    return results.values().stream().filter(SepBatchResult::isSuccess).count();
+  }
+
+  /**
+   * Number of reference numbers whose call failed or timed out.
+   *
+   * @return the failure count
+   */
+  public long failed() {
+    return results.size() - succeeded();
+  }
+
+  /**
+   * Throughput of the operation.
+   *
+   * @return processed items per second
+   */
+  public double throughput() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : results.size() * 1_000_000_000d / nanos;
+  }
+}
@@ -0,0 +1,73 @@
+package com.kassa.sep.batch;
+
+import java.util.concurrent.CompletionException;
+
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+
+/**
+ * Outcome of one item of a bulk verify/reverse operation.
+ * <p>
+ * Bulk operations never fail fast: every reference number yields exactly one result, holding either the
+ * successful gateway response or the error that ended its call.
+ *
+ * @param refNum     reference number (RefNum) the result belongs to
+ * @param response   gateway response on success, otherwise null
+ * @param resultCode gateway result code; {@link SepResultCode#SUCCESS} on success, null when unknown
+ *                   (e.g. on transport errors)
+ * @param error      the error that ended the call ({@link SepGatewayException} or transport error), otherwise null
+ */
+public record SepBatchResult(
+  String refNum,
+  SepVerifyTransactionResponse response,
+  SepResultCode resultCode,
+  RuntimeException error) {
+
+  /**
+   * Creates a successful result.
+   *
+   * @param refNum   reference number
+   * @param response the successful gateway response
+   * @return the result
+   */
+  public static SepBatchResult success(String refNum, SepVerifyTransactionResponse response) {
+    return new SepBatchResult(refNum, response, response.getResultCodeEnum(), null);
+  }
+
+  /**
+   * Creates a failed result. The result code is taken from the error when it is a {@link SepGatewayException}
+   * carrying a numeric verify/reverse result code. {@link CompletionException} wrappers are unwrapped.
+   *
+   * @param refNum reference number
+   * @param error  the error that ended the call
+   * @return the result
+   */
+  public static SepBatchResult failure(String refNum, Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    RuntimeException exception = error instanceof RuntimeException runtime ? runtime : new IllegalStateException(error);
+    return new SepBatchResult(refNum, null, resultCodeOf(exception), exception);
+  }
+
+  /**
+   * Whether the call for this reference number succeeded.
+   *
+   * @return true if a successful response is present
+   */
+  public boolean isSuccess() {
+    return error == null && response != null;
+  }
+
+  private static SepResultCode resultCodeOf(RuntimeException error) {
+    if (!(error instanceof SepGatewayException gatewayException) || gatewayException.getErrorCode() == null) {
+      return null;
+    }
+    try {
+      return SepResultCode.fromCode(Integer.parseInt(gatewayException.getErrorCode()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.kassa.sep.cache;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Concurrent map whose entries expire after a fixed time-to-live and whose size is bounded.
+ * When the bound is exceeded the oldest entries are evicted first. Expired entries are dropped lazily on read
+ * and while inserting; there is no background thread.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class ExpiringMap<K, V> {
+  private final ConcurrentHashMap<K, Timed<V>> entries = new ConcurrentHashMap<>();
+  private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+  private final int maximumSize;
+  private final long ttlNanos;
+
+  ExpiringMap(int maximumSize, Duration ttl) {
+    this.maximumSize = maximumSize;
+    this.ttlNanos = ttl.toNanos();
+  }
+
+  V get(K key) {
+    Timed<V> entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.value();
+  }
+
+  void put(K key, V value) {
+    long now = System.nanoTime();
+    if (entries.put(key, new Timed<>(value, now)) == null) {
+      insertionOrder.add(key);
+    }
+    trim(now);
+  }
+
+  /**
+   * Associates the value with the key unless a live value is already present.
+   *
+   * @return the live value already present, or null if the given value was stored
+   */
+  V putIfAbsent(K key, V value) {
+    long now = System.nanoTime();
+    Timed<V> stored = entries.compute(key,
+      (k, current) -> current != null && now - current.createdAt() <= ttlNanos ? current : new Timed<>(value, now));
+    if (stored.value() != value) {
+      return stored.value();
+    }
+    insertionOrder.add(key);
+    trim(now);
+    return null;
+  }
+
+  void remove(K key) {
+    entries.remove(key);
+  }
+
+  void remove(K key, V value) {
+    entries.computeIfPresent(key, (k, current) -> current.value() == value ? null : current);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  private void trim(long now) {
+    // the queue is ordered by insertion, so expired, removed and overflowing entries are all at its head
+    K eldest;
+    while ((eldest = insertionOrder.peek()) != null) {
+      Timed<V> entry = entries.get(eldest);
+      boolean stale = entry == null || now - entry.createdAt() > ttlNanos;
+      if (!stale && entries.size() <= maximumSize) {
+        break;
+      }
+      if (insertionOrder.remove(eldest) && entry != null) {
+        entries.remove(eldest, entry);
+      }
+    }
+  }
+
+  private record Timed<V>(V value, long createdAt) {
+  }
+}
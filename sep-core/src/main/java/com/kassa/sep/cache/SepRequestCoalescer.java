@@ -0,0 +1,105 @@
+package com.kassa.sep.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Single-flight coalescing of concurrent verify/reverse calls for the same RefNum.
+ * <p>
+ * The first caller of (operation, terminal, RefNum) performs the gateway call; callers arriving while it is in
+ * flight wait for it and receive the same response, or the same exception. This avoids sending a second request
+ * that the gateway would only answer with {@link com.kassa.sep.dto.SepResultCode#DUPLICATE_REQUEST}. A waiting
+ * caller whose own deadline passes first fails with {@link SepDeadlineExceededException}.
+ * Coordination happens per key in a {@link ConcurrentHashMap}; there is no global lock.
+ */
+public class SepRequestCoalescer implements SepCallInterceptor {
+  private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    if (call.operation() == SepOperation.TOKEN) {
+      return execution.execute(call);
+    }
+
+    Key key = new Key(call.operation(), call.terminalId(), call.key());
+    CompletableFuture<Object> leader = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+    if (existing != null) {
+      coalesced.increment();
+      return call.responseType().cast(await(existing, call));
+    }
+
+    try {
+      T response = execution.execute(call);
+      leader.complete(response);
+      return response;
+    } catch (RuntimeException | Error e) {
+      leader.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, leader);
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_COALESCING;
+  }
+
+  /**
+   * Number of calls that joined an in-flight call instead of reaching the gateway.
+   *
+   * @return the coalesced call count
+   */
+  public long coalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Number of distinct calls currently in flight.
+   *
+   * @return the in-flight call count
+   */
+  public int inFlightCount() {
+    return inFlight.size();
+  }
+
+  private static Object await(CompletableFuture<Object> future, SepCall<?> call) {
+    try {
+      if (!call.deadline().isBounded()) {
+        return future.join();
+      }
+      // a follower gives up at its own deadline; the leader's call goes on
+      return future.get(call.deadline().remainingNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new SepDeadlineExceededException(call.operation());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SepGatewayException("UNKNOWN", "Interrupted while waiting for the coalesced call");
+    } catch (CompletionException | ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw new CompletionException(e.getCause());
+    }
+  }
+
+  private record Key(SepOperation operation, String terminalId, String refNum) {
+  }
+}
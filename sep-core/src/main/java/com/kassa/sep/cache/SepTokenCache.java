@@ -0,0 +1,146 @@
+package com.kassa.sep.cache;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Idempotent token issuance keyed by ResNum.
+ * <p>
+ * A token request for a (ResNum, amount, redirect URL) tuple that is already in flight or was issued within
+ * {@code ttl} shares that request's outcome instead of calling the gateway again, so checkout retries and page
+ * refreshes reuse one token. A ResNum reused with a <em>different</em> amount is rejected locally with
+ * {@link SepErrorCode#INVALID_PARAMETERS}, without a network call. Unsuccessful token responses are not cached.
+ */
+@Slf4j
+public class SepTokenCache implements SepCallInterceptor {
+  private final ExpiringMap<Key, Entry> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Creates the cache.
+   *
+   * @param maximumSize maximum number of cached ResNums
+   * @param ttl         how long an issued token is reused
+   */
+  public SepTokenCache(int maximumSize, Duration ttl) {
+    this.entries = new ExpiringMap<>(maximumSize, ttl);
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    if (call.operation() != SepOperation.TOKEN) {
+      return execution.execute(call);
+    }
+
+    SepTokenRequest request = (SepTokenRequest) call.request();
+    Key key = new Key(call.terminalId(), call.key());
+    Entry candidate = new Entry(request.getAmount(), request.getRedirectUrl(), new CompletableFuture<>());
+    Entry existing = entries.putIfAbsent(key, candidate);
+    if (existing != null) {
+      if (!Objects.equals(existing.amount(), request.getAmount())) {
+        rejected.increment();
+        log.warn("SEP token request rejected: ResNum {} already used with a different amount", call.key());
+        return call.responseType().cast(SepTokenResponse.builder()
+          .status(-1)
+          .errorCode(SepErrorCode.INVALID_PARAMETERS.getCode())
+          .errorDesc("ResNum " + call.key() + " was already used with a different amount")
+          .build());
+      }
+      if (Objects.equals(existing.redirectUrl(), request.getRedirectUrl())) {
+        hits.increment();
+        return call.responseType().cast(await(existing.response()));
+      }
+      entries.put(key, candidate);
+    }
+
+    misses.increment();
+    try {
+      T response = execution.execute(call);
+      SepTokenResponse token = (SepTokenResponse) response;
+      candidate.response().complete(token);
+      if (!token.isSuccess()) {
+        entries.remove(key, candidate);
+      }
+      return response;
+    } catch (RuntimeException | Error e) {
+      candidate.response().completeExceptionally(e);
+      entries.remove(key, candidate);
+      throw e;
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_TOKEN_CACHE;
+  }
+
+  /**
+   * Looks up the token issued for a ResNum, e.g. to rebuild the gateway redirect URL with
+   * {@link com.kassa.sep.SepClient#getRedirectUrl(String)} without another gateway call.
+   *
+   * @param terminalId terminal the token was issued for
+   * @param resNum     merchant reservation number
+   * @return the successful token response, if issued within the TTL and no longer in flight
+   */
+  public Optional<SepTokenResponse> find(String terminalId, String resNum) {
+    Entry entry = entries.get(new Key(terminalId, resNum));
+    if (entry == null || !entry.response().isDone() || entry.response().isCompletedExceptionally()) {
+      return Optional.empty();
+    }
+    SepTokenResponse response = entry.response().join();
+    return response.isSuccess() ? Optional.of(response) : Optional.empty();
+  }
+
+  /**
+   * Takes a snapshot of the cache counters.
+   *
+   * @return the cache statistics
+   */
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), rejected.sum(), entries.size());
+  }
+
+  private static SepTokenResponse await(CompletableFuture<SepTokenResponse> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private record Key(String terminalId, String resNum) {
+  }
+
+  private record Entry(Long amount, String redirectUrl, CompletableFuture<SepTokenResponse> response) {
+  }
+
+  /**
+   * Snapshot of the token cache counters.
+   *
+   * @param hits     token requests answered by an in-flight or cached token
+   * @param misses   token requests sent to the gateway
+   * @param rejected token requests rejected because the ResNum was reused with a different amount
+   * @param size     number of cached ResNums
+   */
+  public record Stats(long hits, long misses, long rejected, int size) {
+  }
+}
@@ -0,0 +1,148 @@
+package com.kassa.sep.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded in-memory cache of successful verify outcomes, keyed by terminal and RefNum.
+ * <p>
+ * A RefNum is commonly verified several times (browser callback, client retry, reconciliation). Once a verify
+ * succeeded, repeat verifies are answered locally, and a {@link SepResultCode#DUPLICATE_REQUEST} reply for a
+ * RefNum verified by a concurrent caller is resolved from the cache instead of failing. A successful reverse
+ * evicts the RefNum. Entries expire after {@code ttl} (by default the gateway's 30-minute verify window); when
+ * more than {@code maximumSize} entries are held, the oldest are evicted first.
+ */
+@Slf4j
+public class SepVerificationCache implements SepCallInterceptor {
+  private final ExpiringMap<Key, SepVerifyTransactionResponse> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder duplicatesResolved = new LongAdder();
+
+  /**
+   * Creates the cache.
+   *
+   * @param maximumSize maximum number of cached RefNums
+   * @param ttl         how long a verify outcome is kept
+   */
+  public SepVerificationCache(int maximumSize, Duration ttl) {
+    this.entries = new ExpiringMap<>(maximumSize, ttl);
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    Key key = new Key(call.terminalId(), call.key());
+    if (call.operation() == SepOperation.REVERSE) {
+      T response = execution.execute(call);
+      if (((SepVerifyTransactionResponse) response).isSuccess()) {
+        entries.remove(key);
+      }
+      return response;
+    }
+    if (call.operation() != SepOperation.VERIFY) {
+      return execution.execute(call);
+    }
+
+    SepVerifyTransactionResponse cached = entries.get(key);
+    if (cached != null) {
+      hits.increment();
+      return call.responseType().cast(cached);
+    }
+    misses.increment();
+
+    T response = execution.execute(call);
+    SepVerifyTransactionResponse verify = (SepVerifyTransactionResponse) response;
+    if (verify.isSuccess()) {
+      entries.put(key, verify);
+    } else if (verify.getResultCodeEnum() == SepResultCode.DUPLICATE_REQUEST) {
+      SepVerifyTransactionResponse earlier = entries.get(key);
+      if (earlier != null) {
+        duplicatesResolved.increment();
+        log.debug("SEP verify of RefNum {} answered DUPLICATE_REQUEST, resolved from cache", call.key());
+        return call.responseType().cast(earlier);
+      }
+    }
+    return response;
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_CACHE;
+  }
+
+  /**
+   * Looks up the cached verify response of a RefNum.
+   *
+   * @param terminalId terminal the RefNum was verified for
+   * @param refNum     reference number
+   * @return the successful verify response, if cached and not expired
+   */
+  public Optional<SepVerifyTransactionResponse> find(String terminalId, String refNum) {
+    return Optional.ofNullable(entries.get(new Key(terminalId, refNum)));
+  }
+
+  /**
+   * Looks up the cached transaction detail of a RefNum.
+   *
+   * @param terminalId terminal the RefNum was verified for
+   * @param refNum     reference number
+   * @return the verified transaction detail, if cached and not expired
+   */
+  public Optional<SepTransactionDetail> findDetail(String terminalId, String refNum) {
+    return find(terminalId, refNum).map(SepVerifyTransactionResponse::getTransactionDetail);
+  }
+
+  /**
+   * Removes a RefNum from the cache.
+   *
+   * @param terminalId terminal the RefNum was verified for
+   * @param refNum     reference number
+   */
+  public void evict(String terminalId, String refNum) {
+    entries.remove(new Key(terminalId, refNum));
+  }
+
+  /**
+   * Takes a snapshot of the cache counters.
+   *
+   * @return the cache statistics
+   */
+  public Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), duplicatesResolved.sum(), entries.size());
+  }
+
+  private record Key(String terminalId, String refNum) {
+  }
+
+  /**
+   * Snapshot of the verification cache counters.
+   *
+   * @param hits               verifies answered from the cache
+   * @param misses             verifies sent to the gateway
+   * @param duplicatesResolved {@code DUPLICATE_REQUEST} replies resolved from the cache
+   * @param size               number of cached RefNums
+   */
+  public record Stats(long hits, long misses, long duplicatesResolved, int size) {
+
+    /**
+     * Fraction of verifies answered from the cache.
+     *
+     * @return a value between 0 and 1
+     */
+    public double hitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+}
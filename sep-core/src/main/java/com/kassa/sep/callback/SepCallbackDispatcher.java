@@ -0,0 +1,129 @@
+package com.kassa.sep.callback;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.routing.SepClientRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands payment callbacks off for verification, so the payer's browser is answered without waiting for the
+ * gateway round-trip.
+ * <p>
+ * A callback without a RefNum or with a non-OK {@code Status} is rejected locally and never verified. Any other
+ * callback is verified on the terminal that received the payment: through the {@link SepVerificationOutbox} when
+ * one is configured (the dispatch then returns once the RefNum is on disk), otherwise on the executor. When the
+ * executor is saturated the verify runs on the caller's thread instead of being dropped. Outcomes are reported to
+ * the {@link SepCallbackListener}s.
+ */
+@Slf4j
+public class SepCallbackDispatcher {
+  private final SepClientRegistry clients;
+  private final SepVerificationOutbox outbox;
+  private final Executor executor;
+  private final List<SepCallbackListener> listeners;
+
+  /**
+   * Creates the dispatcher.
+   *
+   * @param clients   clients of the terminals, chosen by the callback's terminal ID
+   * @param outbox    verification outbox, or null to verify on the executor
+   * @param executor  executor running the verify calls and listeners
+   * @param listeners receive the outcome of every callback
+   */
+  public SepCallbackDispatcher(SepClientRegistry clients, SepVerificationOutbox outbox, Executor executor,
+      List<SepCallbackListener> listeners) {
+    this.clients = clients;
+    this.outbox = outbox;
+    this.executor = executor;
+    this.listeners = List.copyOf(listeners);
+  }
+
+  /**
+   * Accepts or rejects a callback and starts its verification.
+   *
+   * @param callback the gateway callback
+   * @return true if the payment is being verified, false if the callback was rejected
+   */
+  public boolean dispatch(SepTransactionResponse callback) {
+    if (callback.getRefNum() == null || callback.getRefNum().isBlank() || !callback.isSuccess()) {
+      log.debug("Rejected SEP callback for ResNum {} with state {} ({})", callback.getResNum(), callback.getState(),
+        callback.getStatus());
+      execute(() -> reportRejected(callback));
+      return false;
+    }
+    if (outbox != null) {
+      outbox.submit(callback).whenComplete((verify, error) -> {
+        if (error != null) {
+          reportFailed(callback, error);
+        } else {
+          reportVerified(callback, verify);
+        }
+      });
+    } else {
+      execute(() -> verify(callback));
+    }
+    return true;
+  }
+
+  private void verify(SepTransactionResponse callback) {
+    SepVerifyTransactionResponse verify;
+    try {
+      verify = clients.verifyTransaction(callback);
+    } catch (RuntimeException e) {
+      log.error("SEP verify of {} failed: {}", callback.getRefNum(), e.toString());
+      reportFailed(callback, e);
+      return;
+    }
+    reportVerified(callback, verify);
+  }
+
+  private void execute(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      log.warn("SEP callback executor is saturated, running on the caller's thread");
+      task.run();
+    }
+  }
+
+  private void reportVerified(SepTransactionResponse callback, SepVerifyTransactionResponse verify) {
+    for (SepCallbackListener listener : listeners) {
+      try {
+        listener.onVerified(callback, verify);
+      } catch (RuntimeException e) {
+        log.warn("SEP callback listener {} failed for {}", listener, callback.getRefNum(), e);
+      }
+    }
+  }
+
+  private void reportRejected(SepTransactionResponse callback) {
+    for (SepCallbackListener listener : listeners) {
+      try {
+        listener.onRejected(callback);
+      } catch (RuntimeException e) {
+        log.warn("SEP callback listener {} failed for {}", listener, callback.getResNum(), e);
+      }
+    }
+  }
+
+  private void reportFailed(SepTransactionResponse callback, Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    RuntimeException exception = error instanceof RuntimeException runtime ? runtime : new IllegalStateException(error);
+    for (SepCallbackListener listener : listeners) {
+      try {
+        listener.onFailed(callback, exception);
+      } catch (RuntimeException e) {
+        log.warn("SEP callback listener {} failed for {}", listener, callback.getRefNum(), e);
+      }
+    }
+  }
+}
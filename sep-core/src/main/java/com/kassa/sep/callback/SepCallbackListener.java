@@ -0,0 +1,38 @@
+package com.kassa.sep.callback;
+
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+/**
+ * Receives the outcome of every payment callback handled by the {@link SepCallbackDispatcher}, e.g. to mark the
+ * donation as paid. Called on a worker thread after the payer's browser has been answered; exceptions are logged
+ * and otherwise ignored.
+ */
+@FunctionalInterface
+public interface SepCallbackListener {
+
+  /**
+   * Called when the gateway confirmed the payment.
+   *
+   * @param callback the gateway callback
+   * @param verify   the verify response
+   */
+  void onVerified(SepTransactionResponse callback, SepVerifyTransactionResponse verify);
+
+  /**
+   * Called when the callback reports an unsuccessful payment (e.g. cancelled by the payer); it is not verified.
+   *
+   * @param callback the gateway callback
+   */
+  default void onRejected(SepTransactionResponse callback) {
+  }
+
+  /**
+   * Called when the verify call failed.
+   *
+   * @param callback the gateway callback
+   * @param error    the {@link com.kassa.sep.exception.SepGatewayException} or transport error
+   */
+  default void onFailed(SepTransactionResponse callback, RuntimeException error) {
+  }
+}
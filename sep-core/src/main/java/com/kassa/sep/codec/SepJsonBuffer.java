@@ -0,0 +1,153 @@
+package com.kassa.sep.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that writes JSON tokens as UTF-8 without intermediate strings. Instances are reused per
+ * thread by {@link SepJsonCodec}, so they are not thread-safe.
+ */
+final class SepJsonBuffer {
+  private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+  private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+  private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+  private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+  private byte[] bytes;
+  private int size;
+
+  SepJsonBuffer(int capacity) {
+    this.bytes = new byte[capacity];
+  }
+
+  SepJsonBuffer reset() {
+    size = 0;
+    return this;
+  }
+
+  int capacity() {
+    return bytes.length;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(bytes, size);
+  }
+
+  SepJsonBuffer append(byte[] fragment) {
+    ensure(fragment.length);
+    System.arraycopy(fragment, 0, bytes, size, fragment.length);
+    size += fragment.length;
+    return this;
+  }
+
+  SepJsonBuffer appendNumber(Long value) {
+    return value == null ? append(NULL) : appendNumber(value.longValue());
+  }
+
+  SepJsonBuffer appendNumber(Integer value) {
+    return value == null ? append(NULL) : appendNumber(value.longValue());
+  }
+
+  SepJsonBuffer appendBoolean(Boolean value) {
+    return append(value == null ? NULL : value ? TRUE : FALSE);
+  }
+
+  SepJsonBuffer appendNumber(long value) {
+    if (value == Long.MIN_VALUE) {
+      return appendAscii(Long.toString(value));
+    }
+    ensure(20);
+    if (value < 0) {
+      bytes[size++] = '-';
+      value = -value;
+    }
+    int start = size;
+    do {
+      bytes[size++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    for (int i = start, j = size - 1; i < j; i++, j--) {
+      byte digit = bytes[i];
+      bytes[i] = bytes[j];
+      bytes[j] = digit;
+    }
+    return this;
+  }
+
+  /**
+   * Appends a JSON string literal (quoted and escaped), or {@code null}.
+   */
+  SepJsonBuffer appendString(String value) {
+    if (value == null) {
+      return append(NULL);
+    }
+    ensure(value.length() + 2);
+    bytes[size++] = '"';
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+        ensure(1);
+        bytes[size++] = (byte) c;
+      } else if (c < 0x80) {
+        appendEscaped(c);
+      } else if (c < 0x800) {
+        ensure(2);
+        bytes[size++] = (byte) (0xc0 | c >> 6);
+        bytes[size++] = (byte) (0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        ensure(4);
+        bytes[size++] = (byte) (0xf0 | codePoint >> 18);
+        bytes[size++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+        bytes[size++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+        bytes[size++] = (byte) (0x80 | codePoint & 0x3f);
+      } else if (Character.isSurrogate(c)) {
+        appendEscaped(c);
+      } else {
+        ensure(3);
+        bytes[size++] = (byte) (0xe0 | c >> 12);
+        bytes[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+        bytes[size++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+    ensure(1);
+    bytes[size++] = '"';
+    return this;
+  }
+
+  private void appendEscaped(char c) {
+    ensure(6);
+    bytes[size++] = '\\';
+    switch (c) {
+      case '"' -> bytes[size++] = '"';
+      case '\\' -> bytes[size++] = '\\';
+      case '\n' -> bytes[size++] = 'n';
+      case '\r' -> bytes[size++] = 'r';
+      case '\t' -> bytes[size++] = 't';
+      case '\b' -> bytes[size++] = 'b';
+      case '\f' -> bytes[size++] = 'f';
+      default -> {
+        bytes[size++] = 'u';
+        bytes[size++] = HEX[c >> 12 & 0xf];
+        bytes[size++] = HEX[c >> 8 & 0xf];
+        bytes[size++] = HEX[c >> 4 & 0xf];
+        bytes[size++] = HEX[c & 0xf];
+      }
+    }
+  }
+
+  private SepJsonBuffer appendAscii(String value) {
+    ensure(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      bytes[size++] = (byte) value.charAt(i);
+    }
+    return this;
+  }
+
+  private void ensure(int additional) {
+    if (size + additional > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+    }
+  }
+}
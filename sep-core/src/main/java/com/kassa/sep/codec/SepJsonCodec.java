@@ -0,0 +1,390 @@
+package com.kassa.sep.codec;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.exc.StreamReadException;
+import tools.jackson.core.json.JsonFactory;
+
+/**
+ * Reflection-free JSON codec for the SEP request and response DTOs.
+ * <p>
+ * Requests have a fixed, small shape, so they are written field by field into a per-thread buffer; the constant
+ * head of a token request and tail of a verify/reverse request are precomputed per terminal. Responses are read
+ * with Jackson's streaming parser straight into the DTO builders, without data binding or an intermediate tree.
+ * The output is byte-for-byte what Jackson data binding writes for these DTOs, and reading is as lenient as the
+ * default binding: unknown properties are skipped and scalars given as strings are coerced, and values the binding
+ * rejects (such as {@code "yes"} for a boolean or {@code "1.5"} for an integer) fail with a
+ * {@link tools.jackson.core.JacksonException}.
+ */
+public class SepJsonCodec {
+  private static final int MAX_CACHED_TERMINALS = 64;
+  private static final int MAX_REUSED_BUFFER = 8 * 1024;
+  private static final String ACTION_TOKEN = "token";
+
+  private static final byte[] TOKEN_ACTION = ascii("{\"action\":");
+  private static final byte[] TOKEN_TERMINAL_ID = ascii(",\"TerminalId\":");
+  private static final byte[] TOKEN_AMOUNT = ascii(",\"Amount\":");
+  private static final byte[] TOKEN_RES_NUM = ascii(",\"ResNum\":");
+  private static final byte[] TOKEN_REDIRECT_URL = ascii(",\"RedirectUrl\":");
+  private static final byte[] TOKEN_CELL_NUMBER = ascii(",\"CellNumber\":");
+  private static final byte[] VERIFY_REF_NUM = ascii("{\"RefNum\":");
+  private static final byte[] VERIFY_TERMINAL_NUMBER = ascii(",\"TerminalNumber\":");
+  private static final byte[] END_OBJECT = ascii("}");
+  private static final byte[] NULL = ascii("null");
+  private static final byte[] RESPONSE_DETAIL = ascii("{\"TransactionDetail\":");
+  private static final byte[] RESPONSE_RESULT_CODE = ascii(",\"ResultCode\":");
+  private static final byte[] RESPONSE_RESULT_DESCRIPTION = ascii(",\"ResultDescription\":");
+  private static final byte[] RESPONSE_SUCCESS = ascii(",\"Success\":");
+  private static final byte[] DETAIL_RRN = ascii("{\"RRN\":");
+  private static final byte[] DETAIL_REF_NUM = ascii(",\"RefNum\":");
+  private static final byte[] DETAIL_MASKED_PAN = ascii(",\"MaskedPan\":");
+  private static final byte[] DETAIL_HASHED_PAN = ascii(",\"HashedPan\":");
+  private static final byte[] DETAIL_TERMINAL_NUMBER = ascii(",\"TerminalNumber\":");
+  private static final byte[] DETAIL_ORGINAL_AMOUNT = ascii(",\"OrginalAmount\":");
+  private static final byte[] DETAIL_AFFECTIVE_AMOUNT = ascii(",\"AffectiveAmount\":");
+  private static final byte[] DETAIL_STRACE_DATE = ascii(",\"StraceDate\":");
+  private static final byte[] DETAIL_STRACE_NO = ascii(",\"StraceNo\":");
+
+  private static final ThreadLocal<SepJsonBuffer> BUFFERS = ThreadLocal.withInitial(() -> new SepJsonBuffer(512));
+
+  private final JsonFactory factory = new JsonFactory();
+  private final Map<String, byte[]> tokenHeads = new ConcurrentHashMap<>();
+  private final Map<Integer, byte[]> verifyTails = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the codec and precomputes the request fragments of the given terminals.
+   *
+   * @param terminalIds terminals the client sends requests for
+   */
+  public SepJsonCodec(Collection<String> terminalIds) {
+    for (String terminalId : terminalIds) {
+      tokenHeads.put(terminalId, tokenHead(ACTION_TOKEN, terminalId));
+      Integer terminalNumber = parseTerminalNumber(terminalId);
+      if (terminalNumber != null) {
+        verifyTails.put(terminalNumber, verifyTail(terminalNumber));
+      }
+    }
+  }
+
+  /**
+   * Whether requests of the given type can be written.
+   *
+   * @param type request type
+   * @return true for {@link SepTokenRequest} and {@link SepVerifyTransactionRequest}
+   */
+  public boolean canWrite(Class<?> type) {
+    return type == SepTokenRequest.class || type == SepVerifyTransactionRequest.class;
+  }
+
+  /**
+   * Whether responses of the given type can be read.
+   *
+   * @param type response type
+   * @return true for {@link SepTokenResponse}, {@link SepVerifyTransactionResponse} and
+   *         {@link SepTransactionDetail}
+   */
+  public boolean canRead(Class<?> type) {
+    return type == SepTokenResponse.class || type == SepVerifyTransactionResponse.class
+      || type == SepTransactionDetail.class;
+  }
+
+  /**
+   * Encodes a request.
+   *
+   * @param request a request of a type accepted by {@link #canWrite(Class)}
+   * @return the UTF-8 JSON body
+   */
+  public byte[] write(Object request) {
+    SepJsonBuffer buffer = BUFFERS.get().reset();
+    if (request instanceof SepTokenRequest token) {
+      writeToken(token, buffer);
+    } else if (request instanceof SepVerifyTransactionRequest verify) {
+      writeVerify(verify, buffer);
+    } else {
+      throw new IllegalArgumentException("Unsupported SEP request type: " + request.getClass().getName());
+    }
+    byte[] body = buffer.toByteArray();
+    if (buffer.capacity() > MAX_REUSED_BUFFER) {
+      BUFFERS.remove();
+    }
+    return body;
+  }
+
+  /**
+   * Encodes a verify/reverse response in the gateway's format, e.g. to store it for other nodes; it is read back
+   * with {@link #read(Class, InputStream)}.
+   *
+   * @param response the response
+   * @return the UTF-8 JSON body
+   */
+  public byte[] writeResponse(SepVerifyTransactionResponse response) {
+    SepJsonBuffer buffer = new SepJsonBuffer(256).append(RESPONSE_DETAIL);
+    SepTransactionDetail detail = response.getTransactionDetail();
+    if (detail == null) {
+      buffer.append(NULL);
+    } else {
+      buffer.append(DETAIL_RRN).appendString(detail.getRrn())
+        .append(DETAIL_REF_NUM).appendString(detail.getRefNum())
+        .append(DETAIL_MASKED_PAN).appendString(detail.getMaskedPan())
+        .append(DETAIL_HASHED_PAN).appendString(detail.getHashedPan())
+        .append(DETAIL_TERMINAL_NUMBER).appendNumber(detail.getTerminalNumber())
+        .append(DETAIL_ORGINAL_AMOUNT).appendNumber(detail.getOrginalAmount())
+        .append(DETAIL_AFFECTIVE_AMOUNT).appendNumber(detail.getAffectiveAmount())
+        .append(DETAIL_STRACE_DATE).appendString(detail.getStraceDate())
+        .append(DETAIL_STRACE_NO).appendString(detail.getStraceNo())
+        .append(END_OBJECT);
+    }
+    return buffer.append(RESPONSE_RESULT_CODE).appendNumber(response.getResultCode())
+      .append(RESPONSE_RESULT_DESCRIPTION).appendString(response.getResultDescription())
+      .append(RESPONSE_SUCCESS).appendBoolean(response.getSuccess())
+      .append(END_OBJECT)
+      .toByteArray();
+  }
+
+  /**
+   * Decodes a response.
+   *
+   * @param type a response type accepted by {@link #canRead(Class)}
+   * @param body the JSON body
+   * @param <T>  response type
+   * @return the response, or null if the body is empty
+   * @throws tools.jackson.core.JacksonException if the body is not valid JSON or has an unexpected shape
+   */
+  public <T> T read(Class<T> type, InputStream body) {
+    try (JsonParser parser = factory.createParser(ObjectReadContext.empty(), body)) {
+      JsonToken first = parser.nextToken();
+      if (first == null || first == JsonToken.VALUE_NULL) {
+        return null;
+      }
+      Object response;
+      if (type == SepTokenResponse.class) {
+        response = readToken(parser);
+      } else if (type == SepVerifyTransactionResponse.class) {
+        response = readVerify(parser);
+      } else if (type == SepTransactionDetail.class) {
+        response = readDetail(parser);
+      } else {
+        throw new IllegalArgumentException("Unsupported SEP response type: " + type.getName());
+      }
+      return type.cast(response);
+    }
+  }
+
+  private void writeToken(SepTokenRequest request, SepJsonBuffer buffer) {
+    byte[] head = ACTION_TOKEN.equals(request.getAction()) ? cachedTokenHead(request.getTerminalId()) : null;
+    if (head != null) {
+      buffer.append(head);
+    } else {
+      buffer.append(TOKEN_ACTION).appendString(request.getAction())
+        .append(TOKEN_TERMINAL_ID).appendString(request.getTerminalId())
+        .append(TOKEN_AMOUNT);
+    }
+    buffer.appendNumber(request.getAmount())
+      .append(TOKEN_RES_NUM).appendString(request.getResNum())
+      .append(TOKEN_REDIRECT_URL).appendString(request.getRedirectUrl())
+      .append(TOKEN_CELL_NUMBER).appendString(request.getCellNumber())
+      .append(END_OBJECT);
+  }
+
+  private void writeVerify(SepVerifyTransactionRequest request, SepJsonBuffer buffer) {
+    buffer.append(VERIFY_REF_NUM).appendString(request.getRefNum());
+    byte[] tail = request.getTerminalNumber() != null ? cachedVerifyTail(request.getTerminalNumber()) : null;
+    if (tail != null) {
+      buffer.append(tail);
+    } else {
+      buffer.append(VERIFY_TERMINAL_NUMBER).appendNumber(request.getTerminalNumber()).append(END_OBJECT);
+    }
+  }
+
+  private byte[] cachedTokenHead(String terminalId) {
+    if (terminalId == null) {
+      return null;
+    }
+    byte[] head = tokenHeads.get(terminalId);
+    if (head == null && tokenHeads.size() < MAX_CACHED_TERMINALS) {
+      head = tokenHeads.computeIfAbsent(terminalId, id -> tokenHead(ACTION_TOKEN, id));
+    }
+    return head;
+  }
+
+  private byte[] cachedVerifyTail(Integer terminalNumber) {
+    byte[] tail = verifyTails.get(terminalNumber);
+    if (tail == null && verifyTails.size() < MAX_CACHED_TERMINALS) {
+      tail = verifyTails.computeIfAbsent(terminalNumber, SepJsonCodec::verifyTail);
+    }
+    return tail;
+  }
+
+  private static SepTokenResponse readToken(JsonParser parser) {
+    expectObject(parser);
+    SepTokenResponse.SepTokenResponseBuilder response = SepTokenResponse.builder();
+    for (String name = parser.nextName(); name != null; name = parser.nextName()) {
+      switch (name) {
+        case "status" -> response.status(readInteger(parser));
+        case "token" -> response.token(readString(parser));
+        case "errorCode" -> response.errorCode(readString(parser));
+        case "errorDesc" -> response.errorDesc(readString(parser));
+        default -> skip(parser);
+      }
+    }
+    return response.build();
+  }
+
+  private static SepVerifyTransactionResponse readVerify(JsonParser parser) {
+    expectObject(parser);
+    SepVerifyTransactionResponse.SepVerifyTransactionResponseBuilder response = SepVerifyTransactionResponse.builder();
+    for (String name = parser.nextName(); name != null; name = parser.nextName()) {
+      switch (name) {
+        case "TransactionDetail" -> response.transactionDetail(
+          parser.nextToken() == JsonToken.VALUE_NULL ? null : readDetail(parser));
+        case "ResultCode" -> response.resultCode(readInteger(parser));
+        case "ResultDescription" -> response.resultDescription(readString(parser));
+        case "Success" -> response.success(readBoolean(parser));
+        default -> skip(parser);
+      }
+    }
+    return response.build();
+  }
+
+  private static SepTransactionDetail readDetail(JsonParser parser) {
+    expectObject(parser);
+    SepTransactionDetail.SepTransactionDetailBuilder detail = SepTransactionDetail.builder();
+    for (String name = parser.nextName(); name != null; name = parser.nextName()) {
+      switch (name) {
+        case "RRN" -> detail.rrn(readString(parser));
+        case "RefNum" -> detail.refNum(readString(parser));
+        case "MaskedPan" -> detail.maskedPan(readString(parser));
+        case "HashedPan" -> detail.hashedPan(readString(parser));
+        case "TerminalNumber" -> detail.terminalNumber(readInteger(parser));
+        case "OrginalAmount" -> detail.orginalAmount(readLong(parser));
+        case "AffectiveAmount" -> detail.affectiveAmount(readLong(parser));
+        case "StraceDate" -> detail.straceDate(readString(parser));
+        case "StraceNo" -> detail.straceNo(readString(parser));
+        default -> skip(parser);
+      }
+    }
+    return detail.build();
+  }
+
+  private static void expectObject(JsonParser parser) {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new StreamReadException(parser, "Expected a JSON object but found " + parser.currentToken());
+    }
+  }
+
+  private static void skip(JsonParser parser) {
+    parser.nextToken();
+    parser.skipChildren();
+  }
+
+  private static String readString(JsonParser parser) {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (!token.isScalarValue()) {
+      throw new StreamReadException(parser, "Expected a string for " + parser.currentName() + " but found " + token);
+    }
+    return parser.getString();
+  }
+
+  private static Integer readInteger(JsonParser parser) {
+    JsonToken token = parser.nextToken();
+    return switch (token) {
+      case VALUE_NULL -> null;
+      case VALUE_NUMBER_INT -> parser.getIntValue();
+      case VALUE_NUMBER_FLOAT -> (int) parser.getDoubleValue();
+      case VALUE_STRING -> {
+        Long value = parseLong(parser);
+        if (value != null && value != value.intValue()) {
+          throw new StreamReadException(parser, "Value " + value + " of " + parser.currentName()
+            + " is out of range of int");
+        }
+        yield value != null ? value.intValue() : null;
+      }
+      default -> throw new StreamReadException(parser,
+        "Expected a number for " + parser.currentName() + " but found " + token);
+    };
+  }
+
+  private static Long readLong(JsonParser parser) {
+    JsonToken token = parser.nextToken();
+    return switch (token) {
+      case VALUE_NULL -> null;
+      case VALUE_NUMBER_INT -> parser.getLongValue();
+      case VALUE_NUMBER_FLOAT -> (long) parser.getDoubleValue();
+      case VALUE_STRING -> parseLong(parser);
+      default -> throw new StreamReadException(parser,
+        "Expected a number for " + parser.currentName() + " but found " + token);
+    };
+  }
+
+  private static Boolean readBoolean(JsonParser parser) {
+    JsonToken token = parser.nextToken();
+    return switch (token) {
+      case VALUE_NULL -> null;
+      case VALUE_TRUE -> Boolean.TRUE;
+      case VALUE_FALSE -> Boolean.FALSE;
+      case VALUE_NUMBER_INT -> parser.getIntValue() != 0;
+      case VALUE_STRING -> switch (parser.getString().trim()) {
+        case "" -> null;
+        case "true", "True", "TRUE" -> Boolean.TRUE;
+        case "false", "False", "FALSE" -> Boolean.FALSE;
+        default -> throw new StreamReadException(parser,
+          "Expected a boolean for " + parser.currentName() + " but found \"" + parser.getString() + "\"");
+      };
+      default -> throw new StreamReadException(parser,
+        "Expected a boolean for " + parser.currentName() + " but found " + token);
+    };
+  }
+
+  private static Long parseLong(JsonParser parser) {
+    String text = parser.getString().trim();
+    if (text.isEmpty()) {
+      return null;
+    }
+    try {
+      return Long.valueOf(text);
+    } catch (NumberFormatException e) {
+      throw new StreamReadException(parser,
+        "Expected a number for " + parser.currentName() + " but found \"" + parser.getString() + "\"");
+    }
+  }
+
+  private static byte[] tokenHead(String action, String terminalId) {
+    return new SepJsonBuffer(64).append(TOKEN_ACTION).appendString(action)
+      .append(TOKEN_TERMINAL_ID).appendString(terminalId)
+      .append(TOKEN_AMOUNT)
+      .toByteArray();
+  }
+
+  private static byte[] verifyTail(Integer terminalNumber) {
+    return new SepJsonBuffer(32).append(VERIFY_TERMINAL_NUMBER).appendNumber(terminalNumber).append(END_OBJECT)
+      .toByteArray();
+  }
+
+  private static Integer parseTerminalNumber(String terminalId) {
+    try {
+      return terminalId != null ? Integer.valueOf(terminalId) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static byte[] ascii(String value) {
+    return value.getBytes(StandardCharsets.US_ASCII);
+  }
+}
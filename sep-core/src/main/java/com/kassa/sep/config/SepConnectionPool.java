@@ -0,0 +1,50 @@
+package com.kassa.sep.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Read-only view over the connection pool of the SEP HTTP client.
+ * Use it to monitor pool utilisation, e.g. from a health indicator or a metrics gauge. The Spring Boot starter
+ * provides one for the pool of each terminal's Apache HttpClient.
+ */
+public class SepConnectionPool {
+  private final Supplier<Stats> stats;
+
+  /**
+   * Creates a view over a connection pool.
+   *
+   * @param stats takes a snapshot of the pool counters
+   */
+  public SepConnectionPool(Supplier<Stats> stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Takes a snapshot of the pool counters across all routes.
+   *
+   * @return the current pool statistics
+   */
+  public Stats stats() {
+    return stats.get();
+  }
+
+  /**
+   * Snapshot of the SEP connection pool.
+   *
+   * @param leased    connections currently in use by a request
+   * @param pending   requests waiting for a free connection
+   * @param available idle connections kept alive for reuse
+   * @param max       maximum number of connections
+   */
+  public record Stats(int leased, int pending, int available, int max) {
+
+    /**
+     * Fraction of the pool currently leased.
+     *
+     * @return a value between 0 and 1
+     */
+    public double utilisation() {
+      return max == 0 ? 0 : (double) leased / max;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.kassa.sep.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Factory for the executors that run SEP gateway calls off the caller's thread.
+ * <p>
+ * On Java 21+ a virtual-thread-per-task executor is used, so a blocked gateway round-trip costs no platform thread.
+ * On older JVMs (the starter targets Java 17) it falls back to a bounded pool of daemon platform threads.
+ */
+@Slf4j
+public final class SepExecutors {
+
+  private SepExecutors() {
+  }
+
+  /**
+   * Creates an executor for SEP calls.
+   *
+   * @param name            thread name prefix (e.g. {@code sep-async})
+   * @param virtualThreads  whether to prefer virtual threads when the JVM supports them
+   * @param platformThreads size of the platform pool used as fallback
+   * @param queueCapacity   maximum number of queued tasks of the platform pool
+   * @return a new executor; the caller is responsible for shutting it down
+   */
+  public static ExecutorService create(String name, boolean virtualThreads, int platformThreads, int queueCapacity) {
+    if (virtualThreads) {
+      ExecutorService executor = virtualThreadPerTaskExecutor();
+      if (executor != null) {
+        log.debug("SEP executor '{}' uses virtual threads", name);
+        return executor;
+      }
+    }
+    log.debug("SEP executor '{}' uses {} platform threads", name, platformThreads);
+    return new ThreadPoolExecutor(platformThreads, platformThreads, 60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(queueCapacity), daemonThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Creates a thread factory producing named daemon threads ({@code <name>-1}, {@code <name>-2}, ...).
+   *
+   * @param name thread name prefix
+   * @return the thread factory
+   */
+  public static ThreadFactory daemonThreadFactory(String name) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  private static ExecutorService virtualThreadPerTaskExecutor() {
+    if (Runtime.version().feature() < 21) {
+      return null;
+    }
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.warn("Virtual threads are not available, falling back to platform threads", e);
+      return null;
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package com.kassa.sep.dto;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -40,6 +43,14 @@ public enum SepErrorCode {
   /** Multi-settle policy restrictions not met. */
   MULTISETTLE_POLICY_ERRORS("21", "MultisettlePolicyErrors", "محدودیت های مدل چند حسابی رعایت نشده");
 
+  private static final Map<String, SepErrorCode> BY_CODE = new HashMap<>();
+
+  static {
+    for (SepErrorCode errorCode : values()) {
+      BY_CODE.put(errorCode.code, errorCode);
+    }
+  }
+
   private final String code;
   private final String englishName;
   private final String persianDescription;
@@ -51,14 +62,6 @@ public enum SepErrorCode {
    * @return the matching SepErrorCode, or null if not found
    */
   public static SepErrorCode fromCode(String code) {
-    if (code == null) {
-      return null;
-    }
-    for (SepErrorCode errorCode : values()) {
-      if (errorCode.code.equals(code)) {
-        return errorCode;
-      }
-    }
-    return null;
+    return code != null ? BY_CODE.get(code) : null;
   }
 }
@@ -35,6 +35,23 @@ public enum SepResultCode {
   /** Request IP address is not allowed. */
   IP_NOT_ALLOWED(-106, "آدرس آی پی درخواستی غیرمجاز میباشد", "verify | reverse");
 
+  private static final int MIN_CODE;
+  private static final SepResultCode[] BY_CODE;
+
+  static {
+    int min = 0;
+    int max = 0;
+    for (SepResultCode rc : values()) {
+      min = Math.min(min, rc.code);
+      max = Math.max(max, rc.code);
+    }
+    MIN_CODE = min;
+    BY_CODE = new SepResultCode[max - min + 1];
+    for (SepResultCode rc : values()) {
+      BY_CODE[rc.code - min] = rc;
+    }
+  }
+
   private final int code;
   private final String description;
   private final String relatedApi;
@@ -46,12 +63,8 @@ public enum SepResultCode {
    * @return the matching SepResultCode, or null if not found
    */
   public static SepResultCode fromCode(int code) {
-    for (SepResultCode rc : values()) {
-      if (rc.code == code) {
-        return rc;
-      }
-    }
-    return null;
+    int index = code - MIN_CODE;
+    return index >= 0 && index < BY_CODE.length ? BY_CODE[index] : null;
   }
 
   /** Whether this result code indicates success. */
@@ -1,5 +1,7 @@
 package com.kassa.sep.dto;
 
+import java.util.Map;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.AllArgsConstructor;
@@ -10,6 +12,7 @@ import lombok.NoArgsConstructor;
 /**
  * Response from the SEP gateway for transaction verification/confirmation.
  * Contains transaction details including status, reference numbers, and payment information.
+ * This is also the payload of the callback the gateway redirects the payer to, see {@link #fromParameters(Map)}.
  */
 @Getter
 @Builder
@@ -74,4 +77,41 @@ public class SepTransactionResponse {
   public boolean isSuccess() {
     return Integer.valueOf(2).equals(status);
   }
+
+  /**
+   * Binds the form (or query) parameters of the gateway callback. Missing or malformed numbers are left null;
+   * the authoritative payment details come from the verify response.
+   *
+   * @param parameters callback parameters by their gateway names ({@code RefNum}, {@code ResNum}, {@code State},
+   *                   {@code Status}, ...)
+   * @return the callback
+   */
+  public static SepTransactionResponse fromParameters(Map<String, String> parameters) {
+    Long status = parseLong(parameters.get("Status"));
+    return SepTransactionResponse.builder()
+      .mid(parseLong(parameters.get("MID")))
+      .terminalId(parseLong(parameters.get("TerminalId")))
+      .state(parameters.get("State"))
+      .status(status != null && status == status.intValue() ? status.intValue() : null)
+      .rrn(parseLong(parameters.get("RRN")))
+      .refNum(parameters.get("RefNum"))
+      .resNum(parameters.get("ResNum"))
+      .traceNo(parseLong(parameters.get("TraceNo")))
+      .amount(parseLong(parameters.get("Amount")))
+      .wage(parseLong(parameters.get("Wage")))
+      .securePan(parameters.get("SecurePan"))
+      .hashedCardNumber(parameters.get("HashedCardNumber"))
+      .build();
+  }
+
+  private static Long parseLong(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 }
@@ -0,0 +1,21 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Thrown without calling the gateway when an operation already has its maximum number of calls in flight.
+ */
+public class SepBulkheadFullException extends SepRejectedException {
+  /** Error code reported by {@link #getErrorCode()}. */
+  public static final String ERROR_CODE = "BULKHEAD_FULL";
+
+  /**
+   * Creates a new bulkhead-full exception.
+   *
+   * @param operation     the operation whose bulkhead is full
+   * @param maxConcurrent the bulkhead size
+   */
+  public SepBulkheadFullException(SepOperation operation, int maxConcurrent) {
+    super(operation, ERROR_CODE, maxConcurrent + " " + operation + " calls already in flight");
+  }
+}
@@ -0,0 +1,29 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.Getter;
+
+/**
+ * Thrown without calling the gateway when another node holds the lease on the same operation and RefNum and has not
+ * published its outcome in time (see {@link com.kassa.sep.idempotency.SepIdempotencyStore}).
+ */
+@Getter
+public class SepCallInProgressException extends SepRejectedException {
+  /** Error code reported by {@link #getErrorCode()}. */
+  public static final String ERROR_CODE = "IN_PROGRESS";
+
+  private final String holder;
+
+  /**
+   * Creates a new call-in-progress exception.
+   *
+   * @param operation the operation in progress
+   * @param refNum    the reference number in progress
+   * @param holder    owner of the lease on the call
+   */
+  public SepCallInProgressException(SepOperation operation, String refNum, String holder) {
+    super(operation, ERROR_CODE, operation + " of " + refNum + " in progress on " + holder);
+    this.holder = holder;
+  }
+}
@@ -0,0 +1,21 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Thrown without calling the gateway when the circuit breaker of an operation is open,
+ * i.e. the gateway recently failed or answered too slowly for that operation.
+ */
+public class SepCircuitOpenException extends SepRejectedException {
+  /** Error code reported by {@link #getErrorCode()}. */
+  public static final String ERROR_CODE = "CIRCUIT_OPEN";
+
+  /**
+   * Creates a new circuit-open exception.
+   *
+   * @param operation the operation whose circuit is open
+   */
+  public SepCircuitOpenException(SepOperation operation) {
+    super(operation, ERROR_CODE, "Circuit breaker of " + operation + " is open");
+  }
+}
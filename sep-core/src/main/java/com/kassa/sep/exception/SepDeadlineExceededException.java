@@ -0,0 +1,21 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Thrown without calling the gateway when the deadline the caller gave a call has passed before an attempt could
+ * start.
+ */
+public class SepDeadlineExceededException extends SepRejectedException {
+  /** Error code reported by {@link #getErrorCode()}; the same code bulk operations report for timed-out items. */
+  public static final String ERROR_CODE = "TIMEOUT";
+
+  /**
+   * Creates a new deadline-exceeded exception.
+   *
+   * @param operation the operation whose deadline passed
+   */
+  public SepDeadlineExceededException(SepOperation operation) {
+    super(operation, ERROR_CODE, "Deadline of " + operation + " call exceeded");
+  }
+}
@@ -21,7 +21,7 @@ public class SepGatewayException extends RuntimeException {
    * @param errorDesc the error description in Persian
    */
   public SepGatewayException(String errorCode, String errorDesc) {
-    super(String.format("SEP Gateway Error [%s]: %s", errorCode, errorDesc));
+    super("SEP Gateway Error [" + errorCode + "]: " + errorDesc);
     this.errorCode = errorCode;
     this.errorDesc = errorDesc;
     this.errorCodeEnum = SepErrorCode.fromCode(errorCode);
@@ -35,7 +35,19 @@ public class SepGatewayException extends RuntimeException {
    * @param errorDesc  the error description in Persian
    */
   public SepGatewayException(String message, String errorCode, String errorDesc) {
-    super(message);
+    this(message, errorCode, errorDesc, true);
+  }
+
+  /**
+   * Creates a new SEP gateway exception with a custom message, optionally without a stack trace.
+   *
+   * @param message            custom error message
+   * @param errorCode          the error code string
+   * @param errorDesc          the error description
+   * @param writableStackTrace whether the stack trace is captured
+   */
+  protected SepGatewayException(String message, String errorCode, String errorDesc, boolean writableStackTrace) {
+    super(message, null, true, writableStackTrace);
     this.errorCode = errorCode;
     this.errorDesc = errorDesc;
     this.errorCodeEnum = SepErrorCode.fromCode(errorCode);
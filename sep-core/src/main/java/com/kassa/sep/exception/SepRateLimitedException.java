@@ -0,0 +1,22 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Thrown without calling the gateway when the client-side rate limiter of an operation has no permit due within
+ * its maximum wait, or its wait queue is full.
+ */
+public class SepRateLimitedException extends SepRejectedException {
+  /** Error code reported by {@link #getErrorCode()}. */
+  public static final String ERROR_CODE = "RATE_LIMITED";
+
+  /**
+   * Creates a new rate-limited exception.
+   *
+   * @param operation the rate-limited operation
+   * @param limiter   name of the limiter
+   */
+  public SepRateLimitedException(SepOperation operation, String limiter) {
+    super(operation, ERROR_CODE, "Rate limit of " + limiter + " exceeded");
+  }
+}
@@ -0,0 +1,27 @@
+package com.kassa.sep.exception;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.Getter;
+
+/**
+ * Base of the exceptions thrown without a gateway answer when a call is rejected locally: by a circuit breaker,
+ * bulkhead, rate limiter, its deadline, or the lease of another node. Rejections are routine under load, so they
+ * capture no stack trace.
+ */
+@Getter
+public abstract class SepRejectedException extends SepGatewayException {
+  private final SepOperation operation;
+
+  /**
+   * Creates a new rejection.
+   *
+   * @param operation the rejected operation
+   * @param errorCode the rejection's error code
+   * @param errorDesc description of the rejection
+   */
+  protected SepRejectedException(SepOperation operation, String errorCode, String errorDesc) {
+    super("SEP Gateway Error [" + errorCode + "]: " + errorDesc, errorCode, errorDesc, false);
+    this.operation = operation;
+  }
+}
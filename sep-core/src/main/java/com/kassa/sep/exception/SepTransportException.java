@@ -0,0 +1,41 @@
+package com.kassa.sep.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a SEP gateway call ended without a gateway answer: the connection failed or timed out, the gateway
+ * answered with an HTTP error status, or its response could not be read. Thrown by every
+ * {@link com.kassa.sep.transport.SepTransport}; the cause is the transport's own exception.
+ */
+@Getter
+public class SepTransportException extends RuntimeException {
+  private final int statusCode;
+  /** Whether no connection to the gateway could be established, so no request was sent. */
+  private final boolean connectFailure;
+
+  /**
+   * Creates a new transport exception for a failure after the request may have been sent.
+   *
+   * @param message    description of the failure
+   * @param statusCode HTTP status of the gateway's answer, or {@code 0} if there was none
+   * @param cause      the transport's exception, or null
+   */
+  public SepTransportException(String message, int statusCode, Throwable cause) {
+    this(message, statusCode, false, cause);
+  }
+
+  /**
+   * Creates a new transport exception.
+   *
+   * @param message        description of the failure
+   * @param statusCode     HTTP status of the gateway's answer, or {@code 0} if there was none
+   * @param connectFailure whether no connection could be established, e.g. refused, unresolved or timed out while
+   *                       connecting, so the gateway cannot have acted on the call
+   * @param cause          the transport's exception, or null
+   */
+  public SepTransportException(String message, int statusCode, boolean connectFailure, Throwable cause) {
+    super(message, cause);
+    this.statusCode = statusCode;
+    this.connectFailure = connectFailure;
+  }
+}
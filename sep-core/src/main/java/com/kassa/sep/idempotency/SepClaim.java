@@ -0,0 +1,63 @@
+package com.kassa.sep.idempotency;
+
+import java.time.Instant;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+/**
+ * Answer of {@link SepIdempotencyStore#claim} to a node claiming a gateway call.
+ *
+ * @param state     what the claim found
+ * @param holder    owner of the lease: the claiming owner if {@link State#ACQUIRED}, the other one if
+ *                  {@link State#HELD}, the one that published the outcome if {@link State#COMPLETED}
+ * @param expiresAt end of the lease, or of the outcome's retention
+ * @param response  the published outcome if {@link State#COMPLETED}, otherwise null
+ */
+public record SepClaim(State state, String holder, Instant expiresAt, SepVerifyTransactionResponse response) {
+
+  /**
+   * State of a claimed call.
+   */
+  public enum State {
+    /** The lease was granted: the claiming owner calls the gateway. */
+    ACQUIRED,
+    /** Another owner holds an unexpired lease and has published no outcome yet. */
+    HELD,
+    /** An outcome was published: it is the answer to the call. */
+    COMPLETED
+  }
+
+  /**
+   * Creates the answer to a granted lease.
+   *
+   * @param owner     the claiming owner
+   * @param expiresAt end of the lease
+   * @return the claim
+   */
+  public static SepClaim acquired(String owner, Instant expiresAt) {
+    return new SepClaim(State.ACQUIRED, owner, expiresAt, null);
+  }
+
+  /**
+   * Creates the answer to a call leased by another owner.
+   *
+   * @param holder    owner of the lease
+   * @param expiresAt end of the lease
+   * @return the claim
+   */
+  public static SepClaim held(String holder, Instant expiresAt) {
+    return new SepClaim(State.HELD, holder, expiresAt, null);
+  }
+
+  /**
+   * Creates the answer to a call whose outcome was published.
+   *
+   * @param holder    owner that published the outcome
+   * @param expiresAt end of the outcome's retention
+   * @param response  the outcome
+   * @return the claim
+   */
+  public static SepClaim completed(String holder, Instant expiresAt, SepVerifyTransactionResponse response) {
+    return new SepClaim(State.COMPLETED, holder, expiresAt, response);
+  }
+}
@@ -0,0 +1,191 @@
+package com.kassa.sep.idempotency;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepCallInProgressException;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.resilience.SepFailures;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes verify and reverse calls idempotent across the nodes of a cluster through a shared
+ * {@link SepIdempotencyStore}.
+ * <p>
+ * Before calling the gateway, a call claims the lease on its operation and RefNum. The call that gets it calls the
+ * gateway and publishes a successful outcome, which answers the same call on every node for the retention period.
+ * It releases the lease after an unsuccessful answer and when the call was rejected locally before any request was
+ * sent. After a failure with an unknown outcome, such as a read timeout, the gateway may have acted on the call, so
+ * the lease is kept until it expires and no other node repeats the call before. A call that finds the lease held by
+ * another node polls the store until the outcome is published or the lease is released, for at most
+ * {@code maxWait} and never past its deadline, and then fails with {@link SepCallInProgressException}.
+ * <p>
+ * The store is an optimization, not a lock the gateway relies on: if it fails, the call is made without a lease.
+ * Token calls are not affected.
+ */
+@Slf4j
+public class SepIdempotencyInterceptor implements SepCallInterceptor {
+  private final SepIdempotencyStore store;
+  private final String nodeId;
+  private final Duration lease;
+  private final Duration retention;
+  private final long maxWaitNanos;
+  private final long pollIntervalNanos;
+  private final AtomicLong sequence = new AtomicLong();
+  private final LongAdder shared = new LongAdder();
+  private final LongAdder inProgress = new LongAdder();
+  private final LongAdder storeErrors = new LongAdder();
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param store        the store shared by the nodes
+   * @param nodeId       identifies this node in lease owners; unique across the cluster
+   * @param lease        how long a lease is held by a call that neither completes nor releases it
+   * @param retention    how long a published outcome answers repeated calls
+   * @param maxWait      how long a call waits for the outcome of a lease held by another node
+   * @param pollInterval how often a waiting call reads the store
+   */
+  public SepIdempotencyInterceptor(SepIdempotencyStore store, String nodeId, Duration lease, Duration retention,
+      Duration maxWait, Duration pollInterval) {
+    this.store = store;
+    this.nodeId = nodeId;
+    this.lease = lease;
+    this.retention = retention;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.pollIntervalNanos = Math.max(1, pollInterval.toNanos());
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    if (call.operation() == SepOperation.TOKEN) {
+      return execution.execute(call);
+    }
+    String owner = nodeId + "/" + sequence.incrementAndGet();
+    long waitUntil = System.nanoTime() + call.deadline().bound(maxWaitNanos);
+    while (true) {
+      SepClaim claim = claim(call, owner);
+      if (claim == null) {
+        return execution.execute(call);
+      }
+      switch (claim.state()) {
+        case ACQUIRED:
+          return executeHolding(call, execution, owner);
+        case COMPLETED:
+          shared.increment();
+          log.debug("SEP {} of RefNum {} answered by {}", call.operation(), call.key(), claim.holder());
+          return call.responseType().cast(claim.response());
+        default:
+          long remaining = waitUntil - System.nanoTime();
+          if (remaining <= 0) {
+            if (call.deadline().isExpired()) {
+              throw new SepDeadlineExceededException(call.operation());
+            }
+            inProgress.increment();
+            throw new SepCallInProgressException(call.operation(), call.key(), claim.holder());
+          }
+          sleep(Math.min(remaining, pollIntervalNanos));
+      }
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_IDEMPOTENCY;
+  }
+
+  /**
+   * Number of calls answered with an outcome published by another call.
+   *
+   * @return calls answered from the store so far
+   */
+  public long sharedCount() {
+    return shared.sum();
+  }
+
+  /**
+   * Number of calls rejected because another node held the lease until they gave up waiting.
+   *
+   * @return calls rejected as in progress so far
+   */
+  public long inProgressCount() {
+    return inProgress.sum();
+  }
+
+  /**
+   * Number of calls made without a lease because the store failed.
+   *
+   * @return store failures so far
+   */
+  public long storeErrorCount() {
+    return storeErrors.sum();
+  }
+
+  private SepClaim claim(SepCall<?> call, String owner) {
+    try {
+      return store.claim(call.operation(), call.key(), owner, lease);
+    } catch (RuntimeException e) {
+      storeErrors.increment();
+      log.warn("SEP idempotency store failed to claim {} of RefNum {}, calling without lease: {}",
+        call.operation(), call.key(), e.toString());
+      return null;
+    }
+  }
+
+  private <T> T executeHolding(SepCall<T> call, SepCallExecution<T> execution, String owner) {
+    T response;
+    try {
+      response = execution.execute(call);
+    } catch (RuntimeException e) {
+      if (SepFailures.isRejectedLocally(e)) {
+        release(call, owner);
+      } else {
+        // the gateway may have acted on the call: another node must not repeat it before the lease expires
+        log.debug("SEP {} of RefNum {} failed with an unknown outcome, keeping the lease for {}", call.operation(),
+          call.key(), lease);
+      }
+      throw e;
+    }
+    try {
+      SepVerifyTransactionResponse outcome = (SepVerifyTransactionResponse) response;
+      if (outcome.isSuccess()) {
+        store.complete(call.operation(), call.key(), owner, outcome, retention);
+      } else {
+        store.release(call.operation(), call.key(), owner);
+      }
+    } catch (RuntimeException e) {
+      storeErrors.increment();
+      log.warn("SEP idempotency store failed to record {} of RefNum {}: {}", call.operation(), call.key(),
+        e.toString());
+    }
+    return response;
+  }
+
+  private void release(SepCall<?> call, String owner) {
+    try {
+      store.release(call.operation(), call.key(), owner);
+    } catch (RuntimeException e) {
+      storeErrors.increment();
+      log.warn("SEP idempotency store failed to release {} of RefNum {}: {}", call.operation(), call.key(),
+        e.toString());
+    }
+  }
+
+  private static void sleep(long nanos) {
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SepGatewayException("UNKNOWN", "Interrupted while waiting for another node's call");
+    }
+  }
+}
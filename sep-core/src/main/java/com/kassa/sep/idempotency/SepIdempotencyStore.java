@@ -0,0 +1,59 @@
+package com.kassa.sep.idempotency;
+
+import java.time.Duration;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Store shared by the nodes of a cluster, through which they agree on which node calls the gateway for a verify or
+ * reverse of a RefNum, and read the outcome instead of calling the gateway again.
+ * <p>
+ * A node claims a lease on (operation, RefNum) before the call. If it gets the lease, it calls the gateway and
+ * then either publishes the outcome, kept for a retention period, or releases the lease so another node may try.
+ * A lease that is neither completed nor released, e.g. because its node died, expires and can be claimed again.
+ * <p>
+ * Implementations must be thread-safe. {@link #claim} must decide atomically in the store, in one round-trip in
+ * the common case. Failures of the store are thrown as runtime exceptions; the
+ * {@link SepIdempotencyInterceptor} then calls the gateway without a lease.
+ *
+ * @see SepInMemoryIdempotencyStore
+ * @see SepJdbcIdempotencyStore
+ */
+public interface SepIdempotencyStore {
+
+  /**
+   * Claims the lease on a call. The lease is granted if there is no entry for the call, or only an expired lease
+   * or outcome.
+   *
+   * @param operation the gateway operation ({@link SepOperation#VERIFY} or {@link SepOperation#REVERSE})
+   * @param refNum    the reference number
+   * @param owner     identifies the claiming call, unique across the cluster
+   * @param lease     how long the lease is held unless completed or released
+   * @return whether the lease was granted, is held by another owner, or the outcome is already published
+   */
+  SepClaim claim(SepOperation operation, String refNum, String owner, Duration lease);
+
+  /**
+   * Publishes the outcome of a call, replacing its lease. Does nothing if the lease expired and was claimed by
+   * another owner since.
+   *
+   * @param operation the gateway operation
+   * @param refNum    the reference number
+   * @param owner     the owner that made the call
+   * @param response  the gateway response
+   * @param retention how long the outcome is kept
+   */
+  void complete(SepOperation operation, String refNum, String owner, SepVerifyTransactionResponse response,
+      Duration retention);
+
+  /**
+   * Releases a lease without publishing an outcome. Does nothing if the lease is held by another owner or the
+   * outcome was published.
+   *
+   * @param operation the gateway operation
+   * @param refNum    the reference number
+   * @param owner     the owner of the lease
+   */
+  void release(SepOperation operation, String refNum, String owner);
+}
@@ -0,0 +1,88 @@
+package com.kassa.sep.idempotency;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * {@link SepIdempotencyStore} held in the memory of one process. It shares leases and outcomes between the threads
+ * and clients of a single node only; use it for single-node deployments and tests, and a shared store such as
+ * {@link SepJdbcIdempotencyStore} across nodes.
+ * <p>
+ * Expired entries are removed while claiming, every 1024 claims.
+ */
+public class SepInMemoryIdempotencyStore implements SepIdempotencyStore {
+  private static final int SWEEP_INTERVAL = 1024;
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicLong claims = new AtomicLong();
+  private final Clock clock;
+
+  /**
+   * Creates an empty store on the system clock.
+   */
+  public SepInMemoryIdempotencyStore() {
+    this(Clock.systemUTC());
+  }
+
+  /**
+   * Creates an empty store.
+   *
+   * @param clock clock leases and retention are measured on
+   */
+  public SepInMemoryIdempotencyStore(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public SepClaim claim(SepOperation operation, String refNum, String owner, Duration lease) {
+    Instant now = clock.instant();
+    if ((claims.incrementAndGet() & (SWEEP_INTERVAL - 1)) == 0) {
+      entries.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+    }
+    Entry leased = new Entry(owner, now.plus(lease), null);
+    Entry entry = entries.compute(new Key(operation, refNum),
+      (key, current) -> current == null || !current.expiresAt().isAfter(now) ? leased : current);
+    if (entry == leased) {
+      return SepClaim.acquired(owner, leased.expiresAt());
+    }
+    return entry.response() != null
+      ? SepClaim.completed(entry.owner(), entry.expiresAt(), entry.response())
+      : SepClaim.held(entry.owner(), entry.expiresAt());
+  }
+
+  @Override
+  public void complete(SepOperation operation, String refNum, String owner, SepVerifyTransactionResponse response,
+      Duration retention) {
+    Entry outcome = new Entry(owner, clock.instant().plus(retention), response);
+    entries.compute(new Key(operation, refNum),
+      (key, current) -> current == null || current.owner().equals(owner) ? outcome : current);
+  }
+
+  @Override
+  public void release(SepOperation operation, String refNum, String owner) {
+    entries.computeIfPresent(new Key(operation, refNum),
+      (key, current) -> current.response() == null && current.owner().equals(owner) ? null : current);
+  }
+
+  /**
+   * Number of entries, including expired ones not swept yet.
+   *
+   * @return leases and outcomes held
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  private record Key(SepOperation operation, String refNum) {
+  }
+
+  private record Entry(String owner, Instant expiresAt, SepVerifyTransactionResponse response) {
+  }
+}
@@ -0,0 +1,233 @@
+package com.kassa.sep.idempotency;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import com.kassa.sep.codec.SepJsonCodec;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * {@link SepIdempotencyStore} in a relational database shared by the nodes, accessed with plain JDBC.
+ * <p>
+ * The table is created by the application, e.g.:
+ * <pre>
+ * CREATE TABLE sep_idempotency (
+ *   operation  VARCHAR(16)   NOT NULL,
+ *   ref_num    VARCHAR(64)   NOT NULL,
+ *   holder     VARCHAR(128)  NOT NULL,
+ *   expires_at BIGINT        NOT NULL,
+ *   response   VARCHAR(2048),
+ *   PRIMARY KEY (operation, ref_num)
+ * )
+ * </pre>
+ * A claim is a single {@code INSERT}, which the primary key lets only one node win. Only a node that loses it
+ * reads the entry, and takes over an expired one with an {@code UPDATE} conditioned on the entry it read.
+ * Published outcomes are stored in the gateway's JSON format. Lease ends are epoch milliseconds of the nodes'
+ * clocks, which must therefore be synchronized to well within a lease. Expired rows are taken over by later claims
+ * and are deleted by {@link #purgeExpired()}, which the application may schedule.
+ */
+public class SepJdbcIdempotencyStore implements SepIdempotencyStore {
+  private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+  private static final int MAX_ATTEMPTS = 3;
+
+  private final DataSource dataSource;
+  private final Clock clock;
+  private final SepJsonCodec codec = new SepJsonCodec(List.of());
+  private final String insertSql;
+  private final String selectSql;
+  private final String takeOverSql;
+  private final String completeSql;
+  private final String releaseSql;
+  private final String purgeSql;
+
+  /**
+   * Creates the store on the system clock.
+   *
+   * @param dataSource the shared database
+   * @param tableName  name of the table, optionally qualified by its schema
+   */
+  public SepJdbcIdempotencyStore(DataSource dataSource, String tableName) {
+    this(dataSource, tableName, Clock.systemUTC());
+  }
+
+  /**
+   * Creates the store.
+   *
+   * @param dataSource the shared database
+   * @param tableName  name of the table, optionally qualified by its schema
+   * @param clock      clock leases and retention are measured on
+   */
+  public SepJdbcIdempotencyStore(DataSource dataSource, String tableName, Clock clock) {
+    if (!TABLE_NAME.matcher(tableName).matches()) {
+      throw new IllegalArgumentException("Invalid SEP idempotency table name: " + tableName);
+    }
+    this.dataSource = dataSource;
+    this.clock = clock;
+    this.insertSql = "INSERT INTO " + tableName
+      + " (operation, ref_num, holder, expires_at, response) VALUES (?, ?, ?, ?, ?)";
+    this.selectSql = "SELECT holder, expires_at, response FROM " + tableName + " WHERE operation = ? AND ref_num = ?";
+    this.takeOverSql = "UPDATE " + tableName + " SET holder = ?, expires_at = ?, response = NULL"
+      + " WHERE operation = ? AND ref_num = ? AND holder = ? AND expires_at = ?";
+    this.completeSql = "UPDATE " + tableName + " SET holder = ?, expires_at = ?, response = ?"
+      + " WHERE operation = ? AND ref_num = ? AND holder = ?";
+    this.releaseSql = "DELETE FROM " + tableName
+      + " WHERE operation = ? AND ref_num = ? AND holder = ? AND response IS NULL";
+    this.purgeSql = "DELETE FROM " + tableName + " WHERE expires_at <= ?";
+  }
+
+  @Override
+  public SepClaim claim(SepOperation operation, String refNum, String owner, Duration lease) {
+    try (Connection connection = dataSource.getConnection()) {
+      for (int attempt = 1; ; attempt++) {
+        long now = clock.millis();
+        long expiresAt = now + lease.toMillis();
+        if (insert(connection, operation, refNum, owner, expiresAt, null)) {
+          return SepClaim.acquired(owner, Instant.ofEpochMilli(expiresAt));
+        }
+        Row row = select(connection, operation, refNum);
+        if (row == null) {
+          // released or purged in between: claim again
+          continue;
+        }
+        if (row.expiresAt() > now) {
+          return row.response() != null
+            ? SepClaim.completed(row.holder(), Instant.ofEpochMilli(row.expiresAt()), decode(row.response()))
+            : SepClaim.held(row.holder(), Instant.ofEpochMilli(row.expiresAt()));
+        }
+        if (takeOver(connection, operation, refNum, owner, expiresAt, row)) {
+          return SepClaim.acquired(owner, Instant.ofEpochMilli(expiresAt));
+        }
+        if (attempt == MAX_ATTEMPTS) {
+          // another node keeps winning the entry: it holds the call
+          return SepClaim.held(row.holder(), Instant.ofEpochMilli(row.expiresAt()));
+        }
+      }
+    } catch (SQLException e) {
+      throw failure("claim", operation, refNum, e);
+    }
+  }
+
+  @Override
+  public void complete(SepOperation operation, String refNum, String owner, SepVerifyTransactionResponse response,
+      Duration retention) {
+    String json = new String(codec.writeResponse(response), StandardCharsets.UTF_8);
+    try (Connection connection = dataSource.getConnection()) {
+      long expiresAt = clock.millis() + retention.toMillis();
+      try (PreparedStatement update = connection.prepareStatement(completeSql)) {
+        update.setString(1, owner);
+        update.setLong(2, expiresAt);
+        update.setString(3, json);
+        update.setString(4, operation.name());
+        update.setString(5, refNum);
+        update.setString(6, owner);
+        if (update.executeUpdate() > 0) {
+          return;
+        }
+      }
+      // the lease expired and was purged in between; if another owner claimed it since, its entry is kept
+      insert(connection, operation, refNum, owner, expiresAt, json);
+    } catch (SQLException e) {
+      throw failure("complete", operation, refNum, e);
+    }
+  }
+
+  @Override
+  public void release(SepOperation operation, String refNum, String owner) {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement delete = connection.prepareStatement(releaseSql)) {
+      delete.setString(1, operation.name());
+      delete.setString(2, refNum);
+      delete.setString(3, owner);
+      delete.executeUpdate();
+    } catch (SQLException e) {
+      throw failure("release", operation, refNum, e);
+    }
+  }
+
+  /**
+   * Deletes expired leases and outcomes.
+   *
+   * @return number of rows deleted
+   */
+  public int purgeExpired() {
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement delete = connection.prepareStatement(purgeSql)) {
+      delete.setLong(1, clock.millis());
+      return delete.executeUpdate();
+    } catch (SQLException e) {
+      throw new IllegalStateException("SEP idempotency store purge failed", e);
+    }
+  }
+
+  private boolean insert(Connection connection, SepOperation operation, String refNum, String owner, long expiresAt,
+      String response) throws SQLException {
+    try (PreparedStatement insert = connection.prepareStatement(insertSql)) {
+      insert.setString(1, operation.name());
+      insert.setString(2, refNum);
+      insert.setString(3, owner);
+      insert.setLong(4, expiresAt);
+      insert.setString(5, response);
+      insert.executeUpdate();
+      return true;
+    } catch (SQLException e) {
+      if (isDuplicateKey(e)) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private Row select(Connection connection, SepOperation operation, String refNum) throws SQLException {
+    try (PreparedStatement select = connection.prepareStatement(selectSql)) {
+      select.setString(1, operation.name());
+      select.setString(2, refNum);
+      try (ResultSet rows = select.executeQuery()) {
+        return rows.next() ? new Row(rows.getString(1), rows.getLong(2), rows.getString(3)) : null;
+      }
+    }
+  }
+
+  private boolean takeOver(Connection connection, SepOperation operation, String refNum, String owner,
+      long expiresAt, Row expired) throws SQLException {
+    try (PreparedStatement update = connection.prepareStatement(takeOverSql)) {
+      update.setString(1, owner);
+      update.setLong(2, expiresAt);
+      update.setString(3, operation.name());
+      update.setString(4, refNum);
+      update.setString(5, expired.holder());
+      update.setLong(6, expired.expiresAt());
+      return update.executeUpdate() > 0;
+    }
+  }
+
+  private SepVerifyTransactionResponse decode(String response) {
+    return codec.read(SepVerifyTransactionResponse.class,
+      new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static boolean isDuplicateKey(SQLException e) {
+    // integrity constraint violation, the class of unique and primary key violations
+    return e.getSQLState() != null && e.getSQLState().startsWith("23");
+  }
+
+  private static IllegalStateException failure(String action, SepOperation operation, String refNum,
+      SQLException e) {
+    return new IllegalStateException("SEP idempotency store " + action + " of " + operation + " " + refNum
+      + " failed", e);
+  }
+
+  private record Row(String holder, long expiresAt, String response) {
+  }
+}
@@ -0,0 +1,35 @@
+package com.kassa.sep.interceptor;
+
+/**
+ * A single SEP gateway call as seen by {@link SepCallInterceptor}s.
+ *
+ * @param operation    the gateway operation
+ * @param terminalId   terminal the call is made for
+ * @param key          business key of the call: ResNum for {@link SepOperation#TOKEN}, RefNum otherwise
+ * @param request      request body ({@link com.kassa.sep.dto.SepTokenRequest} or
+ *                     {@link com.kassa.sep.dto.SepVerifyTransactionRequest})
+ * @param responseType type of the gateway response
+ * @param deadline     time by which the call must complete; {@link SepDeadline#none()} if the caller gave none
+ * @param <T>          gateway response type
+ */
+public record SepCall<T>(
+  SepOperation operation,
+  String terminalId,
+  String key,
+  Object request,
+  Class<T> responseType,
+  SepDeadline deadline) {
+
+  /**
+   * Creates a call without a deadline.
+   *
+   * @param operation    the gateway operation
+   * @param terminalId   terminal the call is made for
+   * @param key          ResNum for {@link SepOperation#TOKEN}, RefNum otherwise
+   * @param request      request body
+   * @param responseType type of the gateway response
+   */
+  public SepCall(SepOperation operation, String terminalId, String key, Object request, Class<T> responseType) {
+    this(operation, terminalId, key, request, responseType, SepDeadline.none());
+  }
+}
@@ -0,0 +1,19 @@
+package com.kassa.sep.interceptor;
+
+/**
+ * Continues a {@link SepCall} with the next interceptor, or with the HTTP exchange once all interceptors ran.
+ *
+ * @param <T> gateway response type
+ */
+@FunctionalInterface
+public interface SepCallExecution<T> {
+
+  /**
+   * Executes the call.
+   *
+   * @param call the call to execute
+   * @return the raw gateway response (also for unsuccessful results); never null
+   * @throws com.kassa.sep.exception.SepTransportException if the HTTP request fails
+   */
+  T execute(SepCall<T> call);
+}
@@ -0,0 +1,53 @@
+package com.kassa.sep.interceptor;
+
+/**
+ * Intercepts SEP gateway calls made by {@link com.kassa.sep.SepClient}.
+ * <p>
+ * Interceptors see the raw gateway response: an unsuccessful result (e.g. {@code ResultCode != 0}) is returned, not
+ * thrown, and {@link com.kassa.sep.SepClient} turns it into a {@link com.kassa.sep.exception.SepGatewayException}
+ * after the whole chain ran. Only transport failures propagate as exceptions. Interceptors run in ascending
+ * {@link #getOrder()}; lower values wrap higher ones.
+ */
+public interface SepCallInterceptor {
+  /** Order of the Micrometer observation; outermost, so it measures the whole call. */
+  int ORDER_OBSERVATION = 100;
+  /** Order of the verification cache. */
+  int ORDER_CACHE = 400;
+  /** Order of idempotent token issuance. */
+  int ORDER_TOKEN_CACHE = 450;
+  /** Order of single-flight request coalescing; runs after cache misses. */
+  int ORDER_COALESCING = 500;
+  /** Order of the cluster-wide idempotency lease; a call that gets it holds it across all its retries. */
+  int ORDER_IDEMPOTENCY = 550;
+  /** Order of the retry policy; each retry passes through the interceptors after it. */
+  int ORDER_RETRY = 600;
+  /** Order of verify hedging; each hedged request is an attempt of its own to the interceptors after it. */
+  int ORDER_HEDGING = 610;
+  /** Order of the per-operation rate limiters; every attempt takes a permit, a queued call holds no bulkhead slot. */
+  int ORDER_RATE_LIMIT = 625;
+  /** Order of the per-operation bulkheads; a retry waiting for its backoff holds no slot. */
+  int ORDER_BULKHEAD = 650;
+  /** Order of the per-operation circuit breakers. */
+  int ORDER_CIRCUIT_BREAKER = 700;
+  /** Order of the flight recorder; innermost, so it records every attempt that reaches the gateway. */
+  int ORDER_FLIGHT_RECORDER = 800;
+
+  /**
+   * Intercepts the given call.
+   *
+   * @param call      the call
+   * @param execution continues the call with the rest of the chain; may be invoked zero or more times
+   * @param <T>       gateway response type
+   * @return the gateway response
+   */
+  <T> T intercept(SepCall<T> call, SepCallExecution<T> execution);
+
+  /**
+   * Position of this interceptor in the chain.
+   *
+   * @return the order; lower values run first
+   */
+  default int getOrder() {
+    return 0;
+  }
+}
@@ -0,0 +1,49 @@
+package com.kassa.sep.interceptor;
+
+import java.util.Map;
+
+import org.slf4j.MDC;
+
+/**
+ * Carries the context of the calling thread to a task an interceptor runs on another thread, so that logs and
+ * observations of the task belong to the caller's call.
+ */
+@FunctionalInterface
+public interface SepContextPropagator {
+
+  /**
+   * Captures the context of the calling thread and wraps the task to run in it.
+   *
+   * @param task the task to run on another thread
+   * @return the wrapped task
+   */
+  Runnable wrap(Runnable task);
+
+  /**
+   * Propagates the SLF4J {@link MDC}: the task runs with the caller's MDC and the worker's MDC is restored after it.
+   *
+   * @return the MDC propagator
+   */
+  static SepContextPropagator mdc() {
+    return task -> {
+      Map<String, String> context = MDC.getCopyOfContextMap();
+      return () -> {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        setContext(context);
+        try {
+          task.run();
+        } finally {
+          setContext(previous);
+        }
+      };
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context != null) {
+      MDC.setContextMap(context);
+    } else {
+      MDC.clear();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.kassa.sep.interceptor;
+
+import java.time.Duration;
+
+/**
+ * Point in time by which a {@link SepCall} must complete, measured on {@link System#nanoTime()}.
+ * <p>
+ * A deadline bounds the whole call: retries that no longer fit are not started, waits for bulkhead slots and
+ * rate-limit permits end with it, and every attempt's response timeout is cut to the time left.
+ */
+public final class SepDeadline {
+  private static final SepDeadline NONE = new SepDeadline(0, false);
+
+  private final long nanoTime;
+  private final boolean bounded;
+
+  private SepDeadline(long nanoTime, boolean bounded) {
+    this.nanoTime = nanoTime;
+    this.bounded = bounded;
+  }
+
+  /**
+   * The absent deadline: calls are bounded by their timeouts and retry budget only.
+   *
+   * @return the unbounded deadline
+   */
+  public static SepDeadline none() {
+    return NONE;
+  }
+
+  /**
+   * A deadline the given time from now.
+   *
+   * @param timeout time the call may take
+   * @return the deadline
+   */
+  public static SepDeadline after(Duration timeout) {
+    return new SepDeadline(System.nanoTime() + timeout.toNanos(), true);
+  }
+
+  /**
+   * Whether this deadline bounds the call.
+   *
+   * @return false for {@link #none()}
+   */
+  public boolean isBounded() {
+    return bounded;
+  }
+
+  /**
+   * Time left until the deadline.
+   *
+   * @return nanoseconds left, negative once passed; {@link Long#MAX_VALUE} if unbounded
+   */
+  public long remainingNanos() {
+    return bounded ? nanoTime - System.nanoTime() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Whether the deadline has passed.
+   *
+   * @return true once no time is left
+   */
+  public boolean isExpired() {
+    return remainingNanos() <= 0;
+  }
+
+  /**
+   * Cuts a wait to the time left.
+   *
+   * @param nanos the wait
+   * @return the shorter of the wait and the time left, at least 0
+   */
+  public long bound(long nanos) {
+    return Math.max(0, Math.min(nanos, remainingNanos()));
+  }
+
+  @Override
+  public String toString() {
+    return bounded ? "SepDeadline[" + remainingNanos() / 1_000_000 + "ms left]" : "SepDeadline[none]";
+  }
+}
@@ -0,0 +1,15 @@
+package com.kassa.sep.interceptor;
+
+/**
+ * SEP gateway operations performed by {@link com.kassa.sep.SepClient}.
+ */
+public enum SepOperation {
+  /** Payment token request ({@code /onlinepg/onlinepg}). */
+  TOKEN,
+
+  /** Transaction verification ({@code VerifyTransaction}). */
+  VERIFY,
+
+  /** Transaction reversal ({@code ReverseTransaction}). */
+  REVERSE
+}
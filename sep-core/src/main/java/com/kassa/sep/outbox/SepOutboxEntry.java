@@ -0,0 +1,11 @@
+package com.kassa.sep.outbox;
+
+/**
+ * A payment recorded in the {@link SepOutboxJournal} whose verification has not completed yet.
+ *
+ * @param refNum     reference number (RefNum) from the gateway callback
+ * @param terminalId terminal that received the payment, or null for the default terminal
+ * @param recordedAt when the callback was recorded, in epoch milliseconds
+ */
+public record SepOutboxEntry(String refNum, String terminalId, long recordedAt) {
+}
@@ -0,0 +1,526 @@
+package com.kassa.sep.outbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of payments awaiting verification, kept in memory-mapped segment files.
+ * <p>
+ * Each callback is appended as a {@code PENDING} record and each finished verification as a {@code DONE} record;
+ * the pending entries are those without a later {@code DONE}. Records carry a length and a CRC32C, so a record torn
+ * by a crash is detected and ignored when the journal is opened again.
+ * <p>
+ * Writes go to the mapped pages, which survive a crash of the JVM. Surviving a crash of the OS needs the pages
+ * forced to disk; instead of one {@code fsync} per record, a flusher thread forces everything appended so far in one
+ * call (group commit). {@link #appendPending(SepOutboxEntry, boolean) appendPending} can wait for that commit; all
+ * threads waiting at the same time share it. Without waiters the flusher forces every {@code flushInterval}.
+ * <p>
+ * A full segment is sealed and a new one started. Sealed segments are then compacted from the oldest: a segment
+ * without pending entries is deleted, and one with few left has them copied to the active segment first.
+ */
+@Slf4j
+public class SepOutboxJournal implements AutoCloseable {
+  /** Maximum length in bytes of a RefNum or terminal ID. */
+  public static final int MAX_KEY_LENGTH = 256;
+  /** Smallest accepted segment size. */
+  public static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+  private static final int MAGIC = 0x5345504A;
+  private static final int VERSION = 1;
+  private static final int SEGMENT_HEADER = 8;
+  private static final int RECORD_HEADER = 8;
+  private static final byte PENDING = 1;
+  private static final byte DONE = 2;
+  private static final String FILE_PREFIX = "sep-outbox-";
+  private static final String FILE_SUFFIX = ".log";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long flushIntervalNanos;
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private final Map<String, Pending> pending = new LinkedHashMap<>();
+  private final CRC32C crc = new CRC32C();
+  private final Object commitMonitor = new Object();
+  private final Thread flusher;
+
+  private long appended;
+  private boolean closed;
+
+  private long committed;
+  private long commits;
+  private boolean flushRequested;
+  private boolean closing;
+  private boolean stopped;
+
+  private SepOutboxJournal(Path directory, int segmentSize, Duration flushInterval) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.flusher = new Thread(this::runFlusher, "sep-outbox-flusher");
+    this.flusher.setDaemon(true);
+  }
+
+  /**
+   * Opens the journal in a directory, replaying the segments found there.
+   *
+   * @param directory     directory of the segment files, created if missing
+   * @param segmentSize   size in bytes of new segment files
+   * @param flushInterval how often appended records are forced to disk when nobody waits for a commit
+   * @return the opened journal
+   * @throws UncheckedIOException if the directory or a segment cannot be read or written
+   */
+  public static SepOutboxJournal open(Path directory, int segmentSize, Duration flushInterval) {
+    if (segmentSize < MIN_SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Outbox segment size must be at least " + MIN_SEGMENT_SIZE + " bytes");
+    }
+    SepOutboxJournal journal = new SepOutboxJournal(directory, segmentSize, flushInterval);
+    try {
+      journal.replay();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open SEP outbox journal in " + directory, e);
+    }
+    journal.flusher.start();
+    return journal;
+  }
+
+  /**
+   * Appends a payment awaiting verification. An entry whose RefNum is already pending is not appended again.
+   *
+   * @param entry the payment
+   * @param sync  whether to wait until the record is forced to disk by the next group commit
+   */
+  public void appendPending(SepOutboxEntry entry, boolean sync) {
+    long position;
+    synchronized (this) {
+      ensureOpen();
+      if (!pending.containsKey(entry.refNum())) {
+        write(PENDING, entry.refNum(), entry.terminalId(), entry.recordedAt());
+      }
+      position = appended;
+    }
+    if (sync) {
+      awaitCommit(position);
+    }
+  }
+
+  /**
+   * Marks the verification of a payment as finished. The record is not waited for: if it is lost in a crash, the
+   * payment is verified once more after the restart and the gateway answers it as a duplicate.
+   *
+   * @param refNum reference number of the payment
+   */
+  public synchronized void appendDone(String refNum) {
+    if (closed || !pending.containsKey(refNum)) {
+      return;
+    }
+    write(DONE, refNum, null, 0);
+  }
+
+  /**
+   * Payments whose verification has not finished, in the order they were recorded.
+   *
+   * @return the pending entries
+   */
+  public synchronized List<SepOutboxEntry> pending() {
+    List<SepOutboxEntry> entries = new ArrayList<>(pending.size());
+    for (Pending entry : pending.values()) {
+      entries.add(entry.entry);
+    }
+    return entries;
+  }
+
+  /**
+   * Takes a snapshot of the journal.
+   *
+   * @return the journal statistics
+   */
+  public Stats stats() {
+    int pendingCount;
+    int segmentCount;
+    long appendedBytes;
+    synchronized (this) {
+      pendingCount = pending.size();
+      segmentCount = segments.size();
+      appendedBytes = appended;
+    }
+    synchronized (commitMonitor) {
+      return new Stats(pendingCount, segmentCount, appendedBytes, commits);
+    }
+  }
+
+  /**
+   * Forces outstanding records to disk and stops the flusher. The journal can be opened again afterwards.
+   */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    synchronized (commitMonitor) {
+      closing = true;
+      commitMonitor.notifyAll();
+    }
+    try {
+      flusher.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(byte type, String refNum, String terminalId, long recordedAt) {
+    byte[] ref = key(refNum);
+    byte[] terminal = terminalId != null ? key(terminalId) : null;
+    int length = type == PENDING
+      ? 1 + 2 + ref.length + 2 + (terminal != null ? terminal.length : 0) + 8
+      : 1 + 2 + ref.length;
+    Segment segment = writable(RECORD_HEADER + length);
+    MappedByteBuffer buffer = segment.buffer;
+    int start = segment.position;
+    buffer.position(start + RECORD_HEADER);
+    buffer.put(type);
+    buffer.putShort((short) ref.length).put(ref);
+    if (type == PENDING) {
+      buffer.putShort((short) (terminal != null ? terminal.length : -1));
+      if (terminal != null) {
+        buffer.put(terminal);
+      }
+      buffer.putLong(recordedAt);
+    }
+    buffer.putInt(start + 4, checksum(buffer, start + RECORD_HEADER, length));
+    buffer.putInt(start, length);
+    segment.position = start + RECORD_HEADER + length;
+    appended += RECORD_HEADER + length;
+    apply(segment, type, refNum, terminalId, recordedAt);
+  }
+
+  private void apply(Segment segment, byte type, String refNum, String terminalId, long recordedAt) {
+    if (type == PENDING) {
+      Pending previous = pending.put(refNum, new Pending(new SepOutboxEntry(refNum, terminalId, recordedAt), segment));
+      if (previous != null) {
+        previous.segment.live--;
+      }
+      segment.live++;
+      segment.records++;
+    } else {
+      Pending done = pending.remove(refNum);
+      if (done != null) {
+        done.segment.live--;
+      }
+    }
+  }
+
+  private Segment writable(int recordSize) {
+    Segment active = segments.getLast();
+    if (active.position + recordSize <= active.buffer.capacity()) {
+      return active;
+    }
+    active.buffer.force();
+    active.forced = active.position;
+    Segment next = create(active.sequence + 1);
+    segments.addLast(next);
+    compact(next);
+    return next;
+  }
+
+  private void compact(Segment active) {
+    while (segments.size() > 1) {
+      Segment oldest = segments.getFirst();
+      if (oldest.live > 0) {
+        // copying is only worth it once most entries of the segment are done
+        if (oldest.live * 4 > oldest.records || !relocate(oldest, active)) {
+          return;
+        }
+      }
+      segments.removeFirst();
+      try {
+        Files.deleteIfExists(oldest.path);
+        log.debug("Deleted SEP outbox segment {}", oldest.path.getFileName());
+      } catch (IOException e) {
+        log.warn("Cannot delete SEP outbox segment {}", oldest.path, e);
+      }
+    }
+  }
+
+  private boolean relocate(Segment from, Segment to) {
+    List<Pending> moved = new ArrayList<>(from.live);
+    int bytes = 0;
+    for (Pending entry : pending.values()) {
+      if (entry.segment == from) {
+        moved.add(entry);
+        bytes += RECORD_HEADER + 1 + 2 + key(entry.entry.refNum()).length + 2
+          + (entry.entry.terminalId() != null ? key(entry.entry.terminalId()).length : 0) + 8;
+      }
+    }
+    if (to.position + bytes > to.buffer.capacity()) {
+      return false;
+    }
+    for (Pending entry : moved) {
+      SepOutboxEntry e = entry.entry;
+      write(PENDING, e.refNum(), e.terminalId(), e.recordedAt());
+    }
+    // the copies must be on disk before the original segment is deleted
+    to.buffer.force();
+    to.forced = to.position;
+    log.debug("Moved {} pending SEP outbox entries out of segment {}", moved.size(), from.path.getFileName());
+    return true;
+  }
+
+  private void replay() throws IOException {
+    Files.createDirectories(directory);
+    List<Path> files;
+    try (Stream<Path> list = Files.list(directory)) {
+      files = list.filter(path -> sequence(path) >= 0)
+        .sorted((a, b) -> Long.compare(sequence(a), sequence(b)))
+        .toList();
+    }
+    long lastSequence = 0;
+    for (Iterator<Path> it = files.iterator(); it.hasNext(); ) {
+      Path path = it.next();
+      lastSequence = sequence(path);
+      long size = Files.size(path);
+      Segment segment = size >= SEGMENT_HEADER ? map(path, lastSequence, size) : null;
+      if (segment == null || segment.buffer.getInt(0) == 0) {
+        // created, but the process died before its header was written
+        Files.delete(path);
+        continue;
+      }
+      if (segment.buffer.getInt(0) != MAGIC || segment.buffer.getInt(4) != VERSION) {
+        log.error("Ignoring SEP outbox segment {}: not a version {} journal segment", path, VERSION);
+        continue;
+      }
+      segments.addLast(segment);
+      scan(segment, !it.hasNext());
+    }
+    if (segments.isEmpty()) {
+      segments.addLast(create(lastSequence + 1));
+    }
+    log.info("Opened SEP outbox journal {} with {} segment(s), {} payment(s) pending verification", directory,
+      segments.size(), pending.size());
+  }
+
+  private void scan(Segment segment, boolean active) {
+    MappedByteBuffer buffer = segment.buffer;
+    int position = SEGMENT_HEADER;
+    boolean torn = false;
+    while (position + RECORD_HEADER <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length == 0) {
+        break;
+      }
+      if (length < 0 || position + RECORD_HEADER + length > buffer.capacity()
+          || buffer.getInt(position + 4) != checksum(buffer, position + RECORD_HEADER, length)) {
+        torn = true;
+        break;
+      }
+      buffer.position(position + RECORD_HEADER);
+      byte type = buffer.get();
+      String refNum = readKey(buffer);
+      if (type == PENDING) {
+        String terminalId = readKey(buffer);
+        apply(segment, type, refNum, terminalId, buffer.getLong());
+      } else {
+        apply(segment, type, refNum, null, 0);
+      }
+      position += RECORD_HEADER + length;
+    }
+    segment.position = position;
+    segment.forced = position;
+    if (torn) {
+      log.warn("SEP outbox segment {} ends with a torn record at offset {}; later records are ignored",
+        segment.path.getFileName(), position);
+      if (active) {
+        // stale bytes behind the new records must never parse as records
+        for (int i = position; i < buffer.capacity(); i++) {
+          buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+      }
+    }
+  }
+
+  private Segment create(long sequence) {
+    Path path = directory.resolve(String.format("%s%016d%s", FILE_PREFIX, sequence, FILE_SUFFIX));
+    try {
+      Segment segment = map(path, sequence, segmentSize);
+      segment.buffer.putInt(0, MAGIC).putInt(4, VERSION);
+      segment.position = SEGMENT_HEADER;
+      return segment;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create SEP outbox segment " + path, e);
+    }
+  }
+
+  private static Segment map(Path path, long sequence, long size) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      return new Segment(path, sequence, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+  }
+
+  private void awaitCommit(long position) {
+    synchronized (commitMonitor) {
+      if (committed >= position) {
+        return;
+      }
+      flushRequested = true;
+      commitMonitor.notifyAll();
+      try {
+        while (committed < position && !stopped) {
+          commitMonitor.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void runFlusher() {
+    while (true) {
+      synchronized (commitMonitor) {
+        try {
+          if (!flushRequested && !closing) {
+            TimeUnit.NANOSECONDS.timedWait(commitMonitor, flushIntervalNanos);
+          }
+        } catch (InterruptedException e) {
+          closing = true;
+        }
+        flushRequested = false;
+        if (closing) {
+          break;
+        }
+      }
+      flush();
+    }
+    flush();
+    synchronized (commitMonitor) {
+      stopped = true;
+      commitMonitor.notifyAll();
+    }
+  }
+
+  private void flush() {
+    Segment segment;
+    int from;
+    int to;
+    long target;
+    synchronized (this) {
+      segment = segments.getLast();
+      from = segment.forced;
+      to = segment.position;
+      target = appended;
+    }
+    try {
+      if (to > from) {
+        segment.buffer.force(from, to - from);
+      }
+    } catch (RuntimeException e) {
+      log.error("Cannot force SEP outbox segment {} to disk", segment.path, e);
+      return;
+    }
+    synchronized (this) {
+      // a roll may have forced the segment further while the lock was not held
+      segment.forced = Math.max(segment.forced, to);
+    }
+    synchronized (commitMonitor) {
+      if (target > committed) {
+        committed = target;
+        commits++;
+      }
+      commitMonitor.notifyAll();
+    }
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("SEP outbox journal is closed");
+    }
+  }
+
+  private int checksum(ByteBuffer buffer, int offset, int length) {
+    crc.reset();
+    crc.update(buffer.slice(offset, length));
+    return (int) crc.getValue();
+  }
+
+  private static byte[] key(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > MAX_KEY_LENGTH) {
+      throw new IllegalArgumentException("SEP outbox key longer than " + MAX_KEY_LENGTH + " bytes: " + value);
+    }
+    return bytes;
+  }
+
+  private static String readKey(ByteBuffer buffer) {
+    short length = buffer.getShort();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long sequence(Path path) {
+    String name = path.getFileName().toString();
+    if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(name, FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length(), 10);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static final class Segment {
+    final Path path;
+    final long sequence;
+    final MappedByteBuffer buffer;
+    int position;
+    int forced;
+    int live;
+    int records;
+
+    Segment(Path path, long sequence, MappedByteBuffer buffer) {
+      this.path = path;
+      this.sequence = sequence;
+      this.buffer = buffer;
+    }
+  }
+
+  private record Pending(SepOutboxEntry entry, Segment segment) {
+  }
+
+  /**
+   * Snapshot of the journal.
+   *
+   * @param pending  payments pending verification
+   * @param segments segment files in use
+   * @param appended bytes appended since the journal was opened
+   * @param commits  group commits (forces to disk) since the journal was opened
+   */
+  public record Stats(int pending, int segments, long appended, long commits) {
+  }
+}
@@ -0,0 +1,183 @@
+package com.kassa.sep.outbox;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.resilience.SepFailures;
+import com.kassa.sep.routing.SepClientRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verifies payment callbacks through a crash-safe outbox, so a payment is verified even if the node dies between
+ * the gateway callback and the verify call.
+ * <p>
+ * {@link #submit(SepTransactionResponse)} records the RefNum in the {@link SepOutboxJournal} (waiting for the group
+ * commit) before the verify is started on a worker. Transient failures (transport errors, open circuit, full
+ * bulkhead, rate limit) are retried every {@code retryDelay} until the gateway's verify window has passed. Any
+ * answer of the gateway finishes the entry: success, an error result, or
+ * {@link com.kassa.sep.dto.SepResultCode#DUPLICATE_REQUEST DUPLICATE_REQUEST} when it was verified before a crash.
+ * On {@link #start()} the entries left pending by the previous run are verified again.
+ */
+@Slf4j
+public class SepVerificationOutbox implements AutoCloseable {
+  private final SepOutboxJournal journal;
+  private final SepClientRegistry clients;
+  private final ScheduledExecutorService workers;
+  private final long retryDelayMillis;
+  private final long verifyWindowMillis;
+  private final Map<String, CompletableFuture<SepVerifyTransactionResponse>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the outbox.
+   *
+   * @param journal      the journal of pending payments, closed with the outbox
+   * @param clients      clients of the terminals, chosen by the callback's terminal ID
+   * @param workers      executor running and rescheduling the verify calls, shut down with the outbox
+   * @param retryDelay   delay before a transiently failed verify is attempted again
+   * @param verifyWindow how long after the callback the gateway accepts a verify
+   */
+  public SepVerificationOutbox(SepOutboxJournal journal, SepClientRegistry clients,
+      ScheduledExecutorService workers, Duration retryDelay, Duration verifyWindow) {
+    this.journal = journal;
+    this.clients = clients;
+    this.workers = workers;
+    this.retryDelayMillis = retryDelay.toMillis();
+    this.verifyWindowMillis = verifyWindow.toMillis();
+  }
+
+  /**
+   * Verifies the payments left pending by the previous run.
+   */
+  public void start() {
+    List<SepOutboxEntry> entries = journal.pending();
+    if (!entries.isEmpty()) {
+      log.info("Replaying {} SEP verification(s) left pending", entries.size());
+    }
+    for (SepOutboxEntry entry : entries) {
+      CompletableFuture<SepVerifyTransactionResponse> future = new CompletableFuture<>();
+      if (inFlight.putIfAbsent(entry.refNum(), future) == null) {
+        schedule(entry, future, 0);
+      }
+    }
+  }
+
+  /**
+   * Durably records a payment callback and verifies it on the terminal that received the payment.
+   *
+   * @param callback the gateway callback
+   * @return completes with the verify response, or exceptionally with the gateway error
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> submit(SepTransactionResponse callback) {
+    String terminalId = callback.getTerminalId() != null ? String.valueOf(callback.getTerminalId()) : null;
+    return submit(callback.getRefNum(), terminalId);
+  }
+
+  /**
+   * Durably records a payment and verifies it. A RefNum already being verified is not verified twice; its pending
+   * result is returned instead.
+   *
+   * @param refNum     reference number (RefNum) from the gateway callback
+   * @param terminalId terminal that received the payment, or null for the default terminal
+   * @return completes with the verify response, or exceptionally with the gateway error
+   */
+  public CompletableFuture<SepVerifyTransactionResponse> submit(String refNum, String terminalId) {
+    CompletableFuture<SepVerifyTransactionResponse> future = new CompletableFuture<>();
+    CompletableFuture<SepVerifyTransactionResponse> existing = inFlight.putIfAbsent(refNum, future);
+    if (existing != null) {
+      return existing;
+    }
+    SepOutboxEntry entry = new SepOutboxEntry(refNum, terminalId, System.currentTimeMillis());
+    try {
+      journal.appendPending(entry, true);
+    } catch (RuntimeException e) {
+      inFlight.remove(refNum);
+      throw e;
+    }
+    schedule(entry, future, 0);
+    return future;
+  }
+
+  /**
+   * Number of payments recorded but not verified yet.
+   *
+   * @return pending verifications
+   */
+  public int pendingCount() {
+    return journal.stats().pending();
+  }
+
+  /**
+   * The journal of pending payments, e.g. to observe its statistics.
+   *
+   * @return the journal
+   */
+  public SepOutboxJournal journal() {
+    return journal;
+  }
+
+  /**
+   * Stops the workers and closes the journal. Payments still pending are verified after the next start.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+    try {
+      workers.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    journal.close();
+  }
+
+  private void schedule(SepOutboxEntry entry, CompletableFuture<SepVerifyTransactionResponse> future, long delay) {
+    try {
+      workers.schedule(() -> verify(entry, future), delay, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // shutting down: the entry stays in the journal and is replayed on the next start
+      inFlight.remove(entry.refNum());
+      future.completeExceptionally(e);
+    }
+  }
+
+  private void verify(SepOutboxEntry entry, CompletableFuture<SepVerifyTransactionResponse> future) {
+    SepVerifyTransactionResponse response;
+    try {
+      response = client(entry).verifyTransaction(entry.refNum());
+    } catch (RuntimeException e) {
+      long deadline = entry.recordedAt() + verifyWindowMillis;
+      if (SepFailures.isTransient(e) && System.currentTimeMillis() + retryDelayMillis < deadline) {
+        log.warn("SEP outbox verify of {} failed ({}), retrying in {}ms", entry.refNum(), e.toString(),
+          retryDelayMillis);
+        schedule(entry, future, retryDelayMillis);
+        return;
+      }
+      log.error("SEP outbox verify of {} failed: {}", entry.refNum(), e.toString());
+      finish(entry);
+      future.completeExceptionally(e);
+      return;
+    }
+    finish(entry);
+    future.complete(response);
+  }
+
+  private SepClient client(SepOutboxEntry entry) {
+    return entry.terminalId() != null
+      ? clients.clientForTerminalId(entry.terminalId())
+      : clients.client(SepClientRegistry.DEFAULT_TERMINAL);
+  }
+
+  private void finish(SepOutboxEntry entry) {
+    journal.appendDone(entry.refNum());
+    inFlight.remove(entry.refNum());
+  }
+}
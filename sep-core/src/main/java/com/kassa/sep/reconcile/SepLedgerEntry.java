@@ -0,0 +1,24 @@
+package com.kassa.sep.reconcile;
+
+/**
+ * One row of a merchant ledger export.
+ *
+ * @param row        1-based number of the data row in the ledger (the CSV header is not counted)
+ * @param endOffset  byte offset in the ledger file just after this row, where a resumed run continues
+ * @param resNum     merchant reservation number, may be null
+ * @param refNum     gateway reference number; null if the row has none or could not be parsed
+ * @param amount     amount in Rials booked in the ledger; null if missing or malformed
+ * @param terminalId terminal that received the payment, or null for the default terminal
+ */
+public record SepLedgerEntry(long row, long endOffset, String resNum, String refNum, Long amount,
+    String terminalId) {
+
+  /**
+   * Whether the row has the RefNum and amount needed to reconcile it.
+   *
+   * @return true if the row can be reconciled
+   */
+  public boolean isValid() {
+    return refNum != null && !refNum.isBlank() && amount != null;
+  }
+}
@@ -0,0 +1,26 @@
+package com.kassa.sep.reconcile;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats of merchant ledger exports read by {@link SepLedgerReader}.
+ */
+public enum SepLedgerFormat {
+  /** Comma-separated values with a header row naming the {@code ResNum}, {@code RefNum} and {@code Amount} columns. */
+  CSV,
+  /** One flat JSON object per line with {@code ResNum}, {@code RefNum} and {@code Amount} properties. */
+  JSONL;
+
+  /**
+   * Derives the format from a file name: {@code .jsonl}, {@code .ndjson} and {@code .json} are JSON lines, anything
+   * else is CSV.
+   *
+   * @param file the ledger file
+   * @return the format
+   */
+  public static SepLedgerFormat of(Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSONL : CSV;
+  }
+}
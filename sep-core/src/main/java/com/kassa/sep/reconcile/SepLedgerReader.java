@@ -0,0 +1,281 @@
+package com.kassa.sep.reconcile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+/**
+ * Reads a merchant ledger export row by row through a fixed-size buffer, so memory stays constant however large
+ * the file is. Every row carries the byte offset just after it, so a reader can be reopened at that offset to
+ * continue an interrupted run.
+ * <p>
+ * CSV files need a header row; the {@code ResNum}, {@code RefNum}, {@code Amount} and optional
+ * {@code TerminalId} columns are found by name, case-insensitively, and double-quoted fields are supported.
+ * JSON lines are flat objects with properties of the same names. A row that cannot be parsed is returned with
+ * null fields rather than failing the whole file. Not thread-safe.
+ */
+public final class SepLedgerReader implements AutoCloseable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_LINE = 1024 * 1024;
+  private static final JsonFactory JSON = new JsonFactory();
+
+  private final FileChannel channel;
+  private final SepLedgerFormat format;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  private byte[] line = new byte[256];
+  private long offset;
+  private long row;
+  private int resNumColumn = -1;
+  private int refNumColumn = -1;
+  private int amountColumn = -1;
+  private int terminalIdColumn = -1;
+
+  private SepLedgerReader(FileChannel channel, SepLedgerFormat format) {
+    this.channel = channel;
+    this.format = format;
+    this.buffer.flip();
+  }
+
+  /**
+   * Opens a ledger file.
+   *
+   * @param file     the ledger file
+   * @param format   the file format
+   * @param offset   byte offset to start reading at: 0, or the {@link SepLedgerEntry#endOffset()} of the last row
+   *                 handled by an earlier run
+   * @param startRow number of data rows before {@code offset}, so row numbers continue where the earlier run stopped
+   * @return the reader, positioned at the first row to read
+   * @throws UncheckedIOException     if the file cannot be read
+   * @throws IllegalArgumentException if a CSV file lacks the {@code RefNum} or {@code Amount} column
+   */
+  public static SepLedgerReader open(Path file, SepLedgerFormat format, long offset, long startRow) {
+    FileChannel channel;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open SEP ledger " + file, e);
+    }
+    SepLedgerReader reader = new SepLedgerReader(channel, format);
+    try {
+      if (format == SepLedgerFormat.CSV) {
+        reader.readHeader(file);
+      }
+      if (offset > reader.offset) {
+        reader.seek(offset);
+      }
+      reader.row = startRow;
+      return reader;
+    } catch (IOException e) {
+      reader.close();
+      throw new UncheckedIOException("Cannot read SEP ledger " + file, e);
+    } catch (RuntimeException e) {
+      reader.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the next row, skipping blank lines.
+   *
+   * @return the row, or null at the end of the file
+   * @throws UncheckedIOException if the file cannot be read
+   */
+  public SepLedgerEntry next() {
+    try {
+      int length;
+      while ((length = readLine()) >= 0) {
+        if (!isBlank(length)) {
+          row++;
+          return format == SepLedgerFormat.CSV ? parseCsv(length) : parseJson(length);
+        }
+      }
+      return null;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read SEP ledger", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // nothing was written
+    }
+  }
+
+  private void readHeader(Path file) throws IOException {
+    int length;
+    do {
+      length = readLine();
+    } while (length >= 0 && isBlank(length));
+    if (length < 0) {
+      throw new IllegalArgumentException("SEP ledger " + file + " has no CSV header");
+    }
+    int start = length >= 3 && line[0] == (byte) 0xEF && line[1] == (byte) 0xBB && line[2] == (byte) 0xBF ? 3 : 0;
+    List<String> columns = splitCsv(new String(line, start, length - start, StandardCharsets.UTF_8));
+    for (int i = 0; i < columns.size(); i++) {
+      switch (columns.get(i).trim().toLowerCase(Locale.ROOT)) {
+        case "resnum" -> resNumColumn = i;
+        case "refnum" -> refNumColumn = i;
+        case "amount" -> amountColumn = i;
+        case "terminalid" -> terminalIdColumn = i;
+        default -> {
+        }
+      }
+    }
+    if (refNumColumn < 0 || amountColumn < 0) {
+      throw new IllegalArgumentException("SEP ledger " + file + " needs RefNum and Amount columns, found " + columns);
+    }
+  }
+
+  private void seek(long position) throws IOException {
+    channel.position(position);
+    buffer.clear().flip();
+    offset = position;
+  }
+
+  /**
+   * Reads the next line into {@link #line}, without the line terminator, and advances {@link #offset} past it.
+   *
+   * @return the line length, or -1 at the end of the file
+   */
+  private int readLine() throws IOException {
+    int length = 0;
+    boolean any = false;
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read < 0) {
+          return any ? trimCarriageReturn(length) : -1;
+        }
+        continue;
+      }
+      any = true;
+      byte b = buffer.get();
+      offset++;
+      if (b == '\n') {
+        return trimCarriageReturn(length);
+      }
+      if (length == line.length) {
+        if (length == MAX_LINE) {
+          throw new IOException("SEP ledger line at offset " + (offset - length) + " exceeds " + MAX_LINE + " bytes");
+        }
+        line = Arrays.copyOf(line, Math.min(MAX_LINE, length * 2));
+      }
+      line[length++] = b;
+    }
+  }
+
+  private int trimCarriageReturn(int length) {
+    return length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+  }
+
+  private boolean isBlank(int length) {
+    for (int i = 0; i < length; i++) {
+      if (line[i] != ' ' && line[i] != '\t') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private SepLedgerEntry parseCsv(int length) {
+    List<String> fields = splitCsv(new String(line, 0, length, StandardCharsets.UTF_8));
+    return new SepLedgerEntry(row, offset, field(fields, resNumColumn), field(fields, refNumColumn),
+      parseAmount(field(fields, amountColumn)), field(fields, terminalIdColumn));
+  }
+
+  private SepLedgerEntry parseJson(int length) {
+    String resNum = null;
+    String refNum = null;
+    Long amount = null;
+    String terminalId = null;
+    try (JsonParser parser = JSON.createParser(ObjectReadContext.empty(), line, 0, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return new SepLedgerEntry(row, offset, null, null, null, null);
+      }
+      for (String name = parser.nextName(); name != null; name = parser.nextName()) {
+        JsonToken token = parser.nextToken();
+        String value = token.isScalarValue() && token != JsonToken.VALUE_NULL ? parser.getString() : null;
+        if (!token.isScalarValue()) {
+          parser.skipChildren();
+        }
+        switch (name.toLowerCase(Locale.ROOT)) {
+          case "resnum" -> resNum = value;
+          case "refnum" -> refNum = value;
+          case "amount" -> amount = parseAmount(value);
+          case "terminalid" -> terminalId = value;
+          default -> {
+          }
+        }
+      }
+    } catch (JacksonException e) {
+      return new SepLedgerEntry(row, offset, resNum, null, null, terminalId);
+    }
+    return new SepLedgerEntry(row, offset, resNum, refNum, amount, terminalId);
+  }
+
+  private static String field(List<String> fields, int column) {
+    if (column < 0 || column >= fields.size()) {
+      return null;
+    }
+    String value = fields.get(column).trim();
+    return value.isEmpty() ? null : value;
+  }
+
+  private static Long parseAmount(String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.valueOf(value.trim());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static List<String> splitCsv(String text) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
@@ -0,0 +1,379 @@
+package com.kassa.sep.reconcile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepResult;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.routing.SepClientRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reconciles a merchant ledger export against the gateway, e.g. at the end of the day.
+ * <p>
+ * The ledger is streamed with a {@link SepLedgerReader}, so memory stays constant for millions of rows. Every row
+ * is verified on the terminal that received the payment, with at most {@code parallelism} calls in flight, and the
+ * ledger amount is compared with the {@link SepTransactionDetail#getOrginalAmount() original} and
+ * {@link SepTransactionDetail#getAffectiveAmount() effective} amount of the transaction. Rows that do not match,
+ * cannot be verified or cannot be parsed are written to a CSV mismatch file.
+ * <p>
+ * Rows complete out of order but are committed in ledger order through a bounded window, so the mismatch file only
+ * ever holds a prefix of the ledger. Every {@code checkpointInterval} the committed ledger offset and mismatch file
+ * size are written to the checkpoint file. A later run with the same files truncates the mismatch file to that size
+ * and continues after that offset, so no mismatch is lost or written twice. The checkpoint is deleted when the whole
+ * ledger has been reconciled. Interrupting the calling thread stops the run after the calls in flight.
+ */
+@Slf4j
+public class SepReconciler {
+  private static final int WINDOW_PER_CALL = 64;
+  private static final int OUTPUT_BUFFER = 64 * 1024;
+  private static final String HEADER =
+    "Row,ResNum,RefNum,LedgerAmount,OrginalAmount,AffectiveAmount,Reason,Code,Description\n";
+
+  private final SepClientRegistry clients;
+  private final Executor executor;
+  private final int parallelism;
+  private final long checkpointIntervalNanos;
+
+  /**
+   * Creates the reconciler.
+   *
+   * @param clients            clients of the terminals, chosen by the terminal ID of a row
+   * @param executor           executor running the verify calls
+   * @param parallelism        maximum number of verify calls in flight
+   * @param checkpointInterval how often progress is written to the checkpoint file
+   */
+  public SepReconciler(SepClientRegistry clients, Executor executor, int parallelism, Duration checkpointInterval) {
+    this.clients = clients;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.checkpointIntervalNanos = checkpointInterval.toNanos();
+  }
+
+  /**
+   * Reconciles a ledger whose format is derived from its file name, see {@link SepLedgerFormat#of(Path)}.
+   *
+   * @param ledger     the ledger export
+   * @param mismatches the CSV file receiving the mismatches
+   * @param checkpoint the checkpoint file; resumed from if it exists
+   * @return the report of this run
+   */
+  public SepReconciliationReport reconcile(Path ledger, Path mismatches, Path checkpoint) {
+    return reconcile(ledger, SepLedgerFormat.of(ledger), mismatches, checkpoint);
+  }
+
+  /**
+   * Reconciles a ledger, resuming an interrupted run if {@code checkpoint} exists.
+   *
+   * @param ledger     the ledger export
+   * @param format     the format of the ledger
+   * @param mismatches the CSV file receiving the mismatches
+   * @param checkpoint the checkpoint file; resumed from if it exists
+   * @return the report of this run
+   * @throws UncheckedIOException  if a file cannot be read or written; the last checkpoint stays valid
+   * @throws IllegalStateException if the mismatch file is shorter than the checkpoint records
+   */
+  public SepReconciliationReport reconcile(Path ledger, SepLedgerFormat format, Path mismatches, Path checkpoint) {
+    long start = System.nanoTime();
+    Checkpoint resume = Checkpoint.read(checkpoint);
+    if (resume.rows() > 0) {
+      log.info("Resuming SEP reconciliation of {} after row {}", ledger, resume.rows());
+    }
+    try (FileChannel out = FileChannel.open(mismatches, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        SepLedgerReader reader = SepLedgerReader.open(ledger, format, resume.offset(), resume.rows())) {
+      Run run = new Run(out, checkpoint, resume);
+      boolean complete = run.execute(reader);
+      SepReconciliationReport report = new SepReconciliationReport(resume.rows(), run.committedRows - resume.rows(),
+        run.matched, run.mismatched, Duration.ofNanos(System.nanoTime() - start), complete);
+      log.info("SEP reconciliation of {} {}: rows={}, matched={}, mismatched={}, elapsed={}ms, throughput={} rows/s",
+        ledger, complete ? "finished" : "interrupted", report.rows(), report.matched(), report.mismatched(),
+        report.elapsed().toMillis(), String.format("%.1f", report.throughput()));
+      return report;
+    } catch (IOException e) {
+      throw new UncheckedIOException("SEP reconciliation of " + ledger + " failed", e);
+    }
+  }
+
+  private String check(SepLedgerEntry entry) {
+    if (!entry.isValid()) {
+      return mismatch(entry, null, "INVALID_ROW", null, "Missing or malformed RefNum or Amount");
+    }
+    SepVerifyTransactionResponse verify;
+    try {
+      // gateway errors are expected for unverified and expired rows: take them as values, not exceptions
+      SepResult<SepVerifyTransactionResponse> result = client(entry).tryVerifyTransaction(entry.refNum());
+      if (result instanceof SepResult.GatewayError<SepVerifyTransactionResponse> error) {
+        return mismatch(entry, null, "NOT_VERIFIED", error.code(), error.description());
+      }
+      verify = result.orElseThrow();
+    } catch (SepGatewayException e) {
+      return mismatch(entry, null, "NOT_VERIFIED", e.getErrorCode(), e.getErrorDesc());
+    } catch (RuntimeException e) {
+      return mismatch(entry, null, "NOT_VERIFIED", null, e.toString());
+    }
+    SepTransactionDetail detail = verify.getTransactionDetail();
+    if (detail == null) {
+      return mismatch(entry, null, "NOT_VERIFIED", null, "No transaction detail");
+    }
+    if (!entry.amount().equals(detail.getOrginalAmount()) || !entry.amount().equals(detail.getAffectiveAmount())) {
+      return mismatch(entry, detail, "AMOUNT_MISMATCH", null, null);
+    }
+    return null;
+  }
+
+  private SepClient client(SepLedgerEntry entry) {
+    return entry.terminalId() != null
+      ? clients.clientForTerminalId(entry.terminalId())
+      : clients.client(SepClientRegistry.DEFAULT_TERMINAL);
+  }
+
+  private static String mismatch(SepLedgerEntry entry, SepTransactionDetail detail, String reason, String code,
+      String description) {
+    StringBuilder line = new StringBuilder(128).append(entry.row());
+    csv(line, entry.resNum());
+    csv(line, entry.refNum());
+    csv(line, entry.amount());
+    csv(line, detail != null ? detail.getOrginalAmount() : null);
+    csv(line, detail != null ? detail.getAffectiveAmount() : null);
+    csv(line, reason);
+    csv(line, code);
+    csv(line, description);
+    return line.append('\n').toString();
+  }
+
+  private static void csv(StringBuilder line, Object value) {
+    line.append(',');
+    if (value == null) {
+      return;
+    }
+    String text = value.toString();
+    if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+      line.append(text);
+    } else {
+      line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+  }
+
+  /**
+   * State of one run. Completed rows are committed in ledger order through a ring of {@code window} slots; all
+   * fields are guarded by the run's monitor.
+   */
+  private final class Run {
+    private final FileChannel out;
+    private final Path checkpointFile;
+    private final Semaphore calls = new Semaphore(parallelism);
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream(OUTPUT_BUFFER);
+    private final int window = parallelism * WINDOW_PER_CALL;
+    private final long[] offsets = new long[window];
+    private final String[] results = new String[window];
+    private final boolean[] done = new boolean[window];
+    private long submitted;
+    private long committed;
+    private long committedOffset;
+    private long committedRows;
+    private long matched;
+    private long mismatched;
+    private long lastCheckpoint = System.nanoTime();
+    private IOException failure;
+
+    Run(FileChannel out, Path checkpointFile, Checkpoint resume) throws IOException {
+      this.out = out;
+      this.checkpointFile = checkpointFile;
+      this.committedOffset = resume.offset();
+      this.committedRows = resume.rows();
+      if (resume.rows() > 0 || resume.output() > 0) {
+        if (out.size() < resume.output()) {
+          throw new IllegalStateException("SEP mismatch file is shorter (" + out.size()
+            + " bytes) than its checkpoint (" + resume.output() + " bytes)");
+        }
+        out.truncate(resume.output());
+        out.position(resume.output());
+      } else {
+        out.truncate(0);
+        pending.writeBytes(HEADER.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    boolean execute(SepLedgerReader reader) throws IOException {
+      boolean interrupted = false;
+      boolean exhausted = false;
+      try {
+        while (true) {
+          SepLedgerEntry entry = reader.next();
+          if (entry == null) {
+            exhausted = true;
+            break;
+          }
+          long sequence = reserve(entry.endOffset());
+          if (sequence < 0) {
+            break;
+          }
+          calls.acquire();
+          Runnable task = () -> {
+            try {
+              complete(sequence, check(entry));
+            } finally {
+              // released once committed, so waiting for all permits waits for all commits
+              calls.release();
+            }
+          };
+          try {
+            executor.execute(task);
+          } catch (RejectedExecutionException e) {
+            task.run();
+          }
+        }
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+      calls.acquireUninterruptibly(parallelism);
+      calls.release(parallelism);
+      synchronized (this) {
+        boolean complete = exhausted && !interrupted && failure == null && committed == submitted;
+        if (failure == null) {
+          flush();
+          if (complete) {
+            Files.deleteIfExists(checkpointFile);
+          } else {
+            checkpoint();
+          }
+        }
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+          throw failure;
+        }
+        return complete;
+      }
+    }
+
+    /**
+     * Waits for a free slot of the window and assigns it to the next row.
+     *
+     * @param endOffset ledger offset after the row
+     * @return the sequence number of the row, or -1 if the run failed
+     */
+    private synchronized long reserve(long endOffset) throws InterruptedException {
+      while (submitted - committed >= window && failure == null) {
+        wait();
+      }
+      if (failure != null) {
+        return -1;
+      }
+      int slot = (int) (submitted % window);
+      done[slot] = false;
+      results[slot] = null;
+      offsets[slot] = endOffset;
+      return submitted++;
+    }
+
+    private synchronized void complete(long sequence, String result) {
+      int slot = (int) (sequence % window);
+      results[slot] = result;
+      done[slot] = true;
+      commit();
+    }
+
+    private void commit() {
+      boolean advanced = false;
+      while (committed < submitted && done[(int) (committed % window)]) {
+        int slot = (int) (committed % window);
+        String result = results[slot];
+        if (result != null) {
+          pending.writeBytes(result.getBytes(StandardCharsets.UTF_8));
+          mismatched++;
+        } else {
+          matched++;
+        }
+        results[slot] = null;
+        done[slot] = false;
+        committedOffset = offsets[slot];
+        committed++;
+        committedRows++;
+        advanced = true;
+      }
+      if (!advanced || failure != null) {
+        return;
+      }
+      try {
+        if (pending.size() >= OUTPUT_BUFFER) {
+          flush();
+        }
+        if (System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+          checkpoint();
+        }
+      } catch (IOException e) {
+        failure = e;
+      }
+      notifyAll();
+    }
+
+    private void flush() throws IOException {
+      ByteBuffer bytes = ByteBuffer.wrap(pending.toByteArray());
+      while (bytes.hasRemaining()) {
+        out.write(bytes);
+      }
+      pending.reset();
+    }
+
+    private void checkpoint() throws IOException {
+      flush();
+      out.force(false);
+      new Checkpoint(committedOffset, committedRows, out.position()).write(checkpointFile);
+      lastCheckpoint = System.nanoTime();
+    }
+  }
+
+  /**
+   * Progress of a reconciliation.
+   *
+   * @param offset ledger offset after the last committed row
+   * @param rows   committed rows
+   * @param output size of the mismatch file holding exactly the mismatches of the committed rows
+   */
+  private record Checkpoint(long offset, long rows, long output) {
+
+    static Checkpoint read(Path file) {
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+      } catch (NoSuchFileException e) {
+        return new Checkpoint(0, 0, 0);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot read SEP reconciliation checkpoint " + file, e);
+      }
+      try {
+        return new Checkpoint(Long.parseLong(properties.getProperty("offset")),
+          Long.parseLong(properties.getProperty("rows")), Long.parseLong(properties.getProperty("output")));
+      } catch (NumberFormatException e) {
+        throw new IllegalStateException("Invalid SEP reconciliation checkpoint " + file, e);
+      }
+    }
+
+    void write(Path file) throws IOException {
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.writeString(temporary, "offset=" + offset + "\nrows=" + rows + "\noutput=" + output + "\n");
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
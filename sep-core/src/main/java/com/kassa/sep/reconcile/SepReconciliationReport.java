@@ -0,0 +1,27 @@
+package com.kassa.sep.reconcile;
+
+import java.time.Duration;
+
+/**
+ * Result of a reconciliation run.
+ *
+ * @param resumedRows rows handled by earlier, interrupted runs and skipped by this one
+ * @param rows        rows handled by this run
+ * @param matched     rows of this run the gateway confirmed with the ledger amount
+ * @param mismatched  rows of this run written to the mismatch file
+ * @param elapsed     wall-clock duration of this run
+ * @param complete    true if the whole ledger was reconciled, false if the run was interrupted and can be resumed
+ */
+public record SepReconciliationReport(long resumedRows, long rows, long matched, long mismatched, Duration elapsed,
+    boolean complete) {
+
+  /**
+   * Throughput of the run.
+   *
+   * @return rows per second
+   */
+  public double throughput() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : rows * 1_000_000_000d / nanos;
+  }
+}
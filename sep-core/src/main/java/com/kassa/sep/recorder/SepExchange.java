@@ -0,0 +1,42 @@
+package com.kassa.sep.recorder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * One gateway exchange kept by the {@link SepFlightRecorder}: a single HTTP attempt of a call, so a retried call
+ * leaves one exchange per attempt.
+ *
+ * @param sequence      position of the exchange among all exchanges of its operation
+ * @param operation     the gateway operation
+ * @param terminalId    terminal the call was made for
+ * @param key           ResNum for {@link SepOperation#TOKEN}, RefNum otherwise
+ * @param startedAt     when the attempt started
+ * @param latency       time until the response was read or the attempt failed
+ * @param httpStatus    HTTP status of the response; {@code 0} if none was received
+ * @param resultCode    the gateway's {@code ResultCode} / {@code errorCode}; null if there is none
+ * @param success       whether the gateway answered successfully
+ * @param error         type and message of the exception the attempt failed with; null if it did not throw
+ * @param requestBytes  size of the request body; {@code -1} if it was not sent
+ * @param responseBytes size of the response body; {@code -1} if none was received
+ * @param requestBody   the masked request body if it was sampled, otherwise null
+ * @param responseBody  the masked response body if it was sampled, otherwise null
+ */
+public record SepExchange(
+  long sequence,
+  SepOperation operation,
+  String terminalId,
+  String key,
+  Instant startedAt,
+  Duration latency,
+  int httpStatus,
+  String resultCode,
+  boolean success,
+  String error,
+  long requestBytes,
+  long responseBytes,
+  String requestBody,
+  String responseBody) {
+}
@@ -0,0 +1,288 @@
+package com.kassa.sep.recorder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the last exchanges with the gateway per operation in memory, so a failed payment or a latency spike can be
+ * looked into without turning on wire logging.
+ * <p>
+ * Every attempt reaching the gateway is recorded with its timing, key, HTTP status, result code and body sizes.
+ * The bodies are kept for a sampled fraction of the exchanges and for every unsuccessful one, truncated to
+ * {@code maxBodySize} and with the values of the masked fields replaced. The wire-level data comes from
+ * {@link #wireTap()}, which must be given to the transport of every {@link com.kassa.sep.SepClient} the recorder
+ * intercepts.
+ * <p>
+ * Each operation has a fixed-size ring of exchanges. Recording claims a slot with a single atomic increment and
+ * overwrites the oldest exchange; readers take a snapshot without locking and skip the slots being written. With
+ * {@code dumpSize > 0}, {@link com.kassa.sep.SepClient} logs the exchanges of a call that ends in a
+ * {@link SepGatewayException}, together with the most recent exchanges of its operation.
+ */
+@Slf4j
+public class SepFlightRecorder implements SepCallInterceptor {
+  private final Map<SepOperation, Ring> rings = new EnumMap<>(SepOperation.class);
+  private final double bodySampleRate;
+  private final int maxBodySize;
+  private final Pattern maskedFields;
+  private final int dumpSize;
+  private final SepWireTap wireTap;
+
+  /**
+   * Creates the recorder.
+   *
+   * @param capacity       exchanges kept per operation; rounded up to a power of two
+   * @param bodySampleRate fraction of the successful exchanges whose bodies are kept, from 0 to 1
+   * @param maxBodySize    maximum number of bytes kept of a body
+   * @param maskedFields   JSON fields whose values are masked in kept bodies, matched ignoring case
+   * @param dumpSize       recent exchanges of the operation logged with a failed call; {@code 0} disables the dump
+   */
+  public SepFlightRecorder(int capacity, double bodySampleRate, int maxBodySize, Collection<String> maskedFields,
+      int dumpSize) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+    for (SepOperation operation : SepOperation.values()) {
+      rings.put(operation, new Ring(size));
+    }
+    this.bodySampleRate = bodySampleRate;
+    this.maxBodySize = maxBodySize;
+    this.maskedFields = maskPattern(maskedFields);
+    this.dumpSize = dumpSize;
+    this.wireTap = new SepWireTap(maxBodySize);
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    SepWireTap.Capture capture = SepWireTap.open();
+    long startedAt = System.currentTimeMillis();
+    long start = System.nanoTime();
+    T response;
+    try {
+      response = execution.execute(call);
+    } catch (RuntimeException e) {
+      SepWireTap.close(capture);
+      record(call, capture, startedAt, System.nanoTime() - start, null, e);
+      throw e;
+    }
+    SepWireTap.close(capture);
+    record(call, capture, startedAt, System.nanoTime() - start, response, null);
+    return response;
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_FLIGHT_RECORDER;
+  }
+
+  /**
+   * Wire tap through which transports provide the status, sizes and bodies of the recorded exchanges.
+   *
+   * @return the wire tap
+   */
+  public SepWireTap wireTap() {
+    return wireTap;
+  }
+
+  /**
+   * Exchanges of an operation still held by the recorder.
+   *
+   * @param operation the gateway operation
+   * @return the exchanges, most recent first
+   */
+  public List<SepExchange> exchanges(SepOperation operation) {
+    return rings.get(operation).snapshot();
+  }
+
+  /**
+   * Exchanges of a call still held by the recorder.
+   *
+   * @param operation the gateway operation
+   * @param key       ResNum for {@link SepOperation#TOKEN}, RefNum otherwise
+   * @return the exchanges of the key, most recent first
+   */
+  public List<SepExchange> exchanges(SepOperation operation, String key) {
+    return exchanges(operation).stream().filter(exchange -> Objects.equals(exchange.key(), key)).toList();
+  }
+
+  /**
+   * Number of exchanges of an operation recorded since the recorder was created.
+   *
+   * @param operation the gateway operation
+   * @return exchanges recorded, including those already overwritten
+   */
+  public long recorded(SepOperation operation) {
+    return rings.get(operation).sequence.get();
+  }
+
+  /**
+   * Logs the exchanges of a failed call and the most recent exchanges of its operation, oldest first.
+   *
+   * @param call  the failed call
+   * @param error the exception the call ends with
+   */
+  public void dump(SepCall<?> call, SepGatewayException error) {
+    if (dumpSize == 0 || !log.isWarnEnabled()) {
+      return;
+    }
+    List<SepExchange> exchanges = exchanges(call.operation());
+    StringBuilder dump = new StringBuilder("SEP ").append(call.operation()).append(' ').append(call.key())
+      .append(" failed with [").append(error.getErrorCode()).append("], recent exchanges:");
+    for (int i = exchanges.size() - 1; i >= 0; i--) {
+      SepExchange exchange = exchanges.get(i);
+      if (i < dumpSize || Objects.equals(exchange.key(), call.key())) {
+        dump.append(System.lineSeparator()).append("  ");
+        format(dump, exchange);
+      }
+    }
+    log.warn(dump.toString());
+  }
+
+  private void record(SepCall<?> call, SepWireTap.Capture capture, long startedAt, long latencyNanos,
+      Object response, RuntimeException error) {
+    boolean success = error == null && isSuccess(response);
+    boolean keepBodies = !success || bodySampleRate >= 1
+      || (bodySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < bodySampleRate);
+    String requestBody = null;
+    String responseBody = null;
+    if (keepBodies) {
+      requestBody = capture.requestBody != null ? mask(capture.requestBody, capture.requestBody.length) : null;
+      responseBody = capture.responseBody != null ? mask(capture.responseBody, capture.responseCaptured) : null;
+    }
+    String resultCode = error instanceof SepGatewayException gateway ? gateway.getErrorCode() : codeOf(response);
+    String failure = error != null ? error.getClass().getSimpleName() + ": " + error.getMessage() : null;
+
+    Ring ring = rings.get(call.operation());
+    long sequence = ring.sequence.getAndIncrement();
+    ring.slots.setRelease((int) (sequence & ring.mask), new SepExchange(sequence, call.operation(),
+      call.terminalId(), call.key(), Instant.ofEpochMilli(startedAt), Duration.ofNanos(latencyNanos),
+      capture.httpStatus, resultCode, success, failure, capture.requestBytes, capture.responseBytes, requestBody,
+      responseBody));
+  }
+
+  private String mask(byte[] body, int length) {
+    String text = new String(body, 0, Math.min(length, maxBodySize), StandardCharsets.UTF_8);
+    if (maskedFields == null) {
+      return text;
+    }
+    return maskedFields.matcher(text).replaceAll(
+      match -> Matcher.quoteReplacement(match.group(1) + maskValue(match.group(2))));
+  }
+
+  private static String maskValue(String value) {
+    // a string value cut off by the size limit has no closing quote
+    boolean string = value.startsWith("\"");
+    String raw = string ? value.substring(1) : value;
+    raw = string && raw.endsWith("\"") && !isEscaped(raw, raw.length() - 1) ? raw.substring(0, raw.length() - 1) : raw;
+    // the kept tail must not start inside an escape sequence
+    String masked = raw.length() > 8 && raw.indexOf('\\', raw.length() - 5) < 0
+      ? "*".repeat(raw.length() - 4) + raw.substring(raw.length() - 4)
+      : "*".repeat(raw.length());
+    return "\"" + masked + "\"";
+  }
+
+  private static boolean isEscaped(String text, int index) {
+    int backslashes = 0;
+    for (int i = index - 1; i >= 0 && text.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  private static Pattern maskPattern(Collection<String> fields) {
+    if (fields.isEmpty()) {
+      return null;
+    }
+    String names = fields.stream().map(Pattern::quote).collect(Collectors.joining("|"));
+    // a string value runs to its first unescaped quote; one cut off by the size limit may end in half an escape
+    return Pattern.compile("(\"(?:" + names + ")\"\\s*:\\s*)(\"(?:[^\"\\\\]|\\\\.)*\\\\?\"?|[^,}\\s]+)",
+      Pattern.CASE_INSENSITIVE);
+  }
+
+  private static boolean isSuccess(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify) {
+      return verify.isSuccess();
+    }
+    if (response instanceof SepTokenResponse token) {
+      return token.isSuccess();
+    }
+    return true;
+  }
+
+  private static String codeOf(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify && verify.getResultCode() != null) {
+      return String.valueOf(verify.getResultCode());
+    }
+    if (response instanceof SepTokenResponse token && !token.isSuccess()) {
+      return token.getErrorCode();
+    }
+    return null;
+  }
+
+  private static void format(StringBuilder line, SepExchange exchange) {
+    line.append('#').append(exchange.sequence())
+      .append(' ').append(exchange.startedAt())
+      .append(" terminal=").append(exchange.terminalId())
+      .append(" key=").append(exchange.key())
+      .append(' ').append(exchange.latency().toMillis()).append("ms")
+      .append(" status=").append(exchange.httpStatus())
+      .append(" code=").append(exchange.resultCode())
+      .append(" bytes=").append(exchange.requestBytes()).append('/').append(exchange.responseBytes());
+    if (exchange.error() != null) {
+      line.append(" error=").append(exchange.error());
+    }
+    if (exchange.requestBody() != null) {
+      line.append(" request=").append(exchange.requestBody());
+    }
+    if (exchange.responseBody() != null) {
+      line.append(" response=").append(exchange.responseBody());
+    }
+  }
+
+  private static final class Ring {
+    private final AtomicReferenceArray<SepExchange> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    Ring(int size) {
+      this.slots = new AtomicReferenceArray<>(size);
+      this.mask = size - 1;
+    }
+
+    List<SepExchange> snapshot() {
+      long end = sequence.get();
+      List<SepExchange> exchanges = new ArrayList<>();
+      for (long s = end - 1; s >= Math.max(0, end - slots.length()); s--) {
+        // a slot still being written holds an older exchange, a lapped one a newer; both are skipped
+        SepExchange exchange = slots.getAcquire((int) (s & mask));
+        if (exchange != null && exchange.sequence() == s) {
+          exchanges.add(exchange);
+        }
+      }
+      return exchanges;
+    }
+  }
+}
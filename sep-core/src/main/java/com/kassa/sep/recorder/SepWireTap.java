@@ -0,0 +1,162 @@
+package com.kassa.sep.recorder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Hands the wire-level view of an exchange to the {@link SepFlightRecorder}: body sizes, HTTP status and the first
+ * bytes of both bodies. Transports report each exchange through {@link #request(byte[])} and
+ * {@link #response(int, long)}; these only act while the recorder has an exchange open on the calling thread, and
+ * a response is never buffered: the body is copied up to the capture limit while it is read.
+ */
+public final class SepWireTap {
+  private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+  private static final int INITIAL_CAPTURE = 512;
+
+  private final int maxBodySize;
+
+  SepWireTap(int maxBodySize) {
+    this.maxBodySize = maxBodySize;
+  }
+
+  /**
+   * Opens a capture on the calling thread.
+   *
+   * @return the capture filled in by the exchange
+   */
+  static Capture open() {
+    Capture capture = new Capture(CURRENT.get());
+    CURRENT.set(capture);
+    return capture;
+  }
+
+  /**
+   * Closes a capture opened by {@link #open()}, restoring the one it was opened in, if any.
+   *
+   * @param capture the capture
+   */
+  static void close(Capture capture) {
+    // set to null rather than removed: removing expunges the thread's map, which costs more than the recording
+    CURRENT.set(capture.outer);
+  }
+
+  /**
+   * Records the body of a request about to be sent on the calling thread.
+   *
+   * @param body the encoded request body; kept by reference, so it must not be modified afterwards
+   */
+  public void request(byte[] body) {
+    Capture capture = CURRENT.get();
+    if (capture != null) {
+      capture.requestBody = body;
+      capture.requestBytes = body.length;
+    }
+  }
+
+  /**
+   * Records the status of a response received on the calling thread.
+   *
+   * @param status        HTTP status of the response
+   * @param contentLength {@code Content-Length} of the response, or -1 if unknown
+   * @return wraps the response body so that the bytes read from it are recorded; null if no exchange is being
+   *         recorded
+   */
+  public UnaryOperator<InputStream> response(int status, long contentLength) {
+    Capture capture = CURRENT.get();
+    if (capture == null) {
+      return null;
+    }
+    capture.httpStatus = status;
+    capture.responseBytes = Math.max(contentLength, 0);
+    return body -> new TeeInputStream(body, capture, maxBodySize);
+  }
+
+  /**
+   * Wire-level data of one exchange. Confined to the thread making the call.
+   */
+  static final class Capture {
+    private final Capture outer;
+    long requestBytes = -1;
+    long responseBytes = -1;
+    int httpStatus;
+    byte[] requestBody;
+    byte[] responseBody;
+    int responseCaptured;
+
+    private Capture(Capture outer) {
+      this.outer = outer;
+    }
+
+    byte[] capturedResponse() {
+      return responseBody != null ? Arrays.copyOf(responseBody, responseCaptured) : null;
+    }
+  }
+
+  private static final class TeeInputStream extends FilterInputStream {
+    private final Capture capture;
+    private final int maxBodySize;
+    private long read;
+
+    TeeInputStream(InputStream in, Capture capture, int maxBodySize) {
+      super(in);
+      this.capture = capture;
+      this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        byte[] single = {(byte) b};
+        tee(single, 0, 1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      int n = super.read(buffer, offset, length);
+      if (n > 0) {
+        tee(buffer, offset, n);
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      read += skipped;
+      capture.responseBytes = Math.max(capture.responseBytes, read);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void tee(byte[] buffer, int offset, int n) {
+      read += n;
+      capture.responseBytes = Math.max(capture.responseBytes, read);
+      int room = maxBodySize - capture.responseCaptured;
+      if (room <= 0) {
+        return;
+      }
+      int copied = Math.min(room, n);
+      int needed = capture.responseCaptured + copied;
+      if (capture.responseBody == null) {
+        // sized from Content-Length when known; SEP responses are a few hundred bytes
+        capture.responseBody = new byte[(int) Math.min(maxBodySize, Math.max(capture.responseBytes, INITIAL_CAPTURE))];
+      }
+      if (capture.responseBody.length < needed) {
+        capture.responseBody = Arrays.copyOf(capture.responseBody,
+          Math.min(maxBodySize, Math.max(needed, capture.responseBody.length * 2)));
+      }
+      System.arraycopy(buffer, offset, capture.responseBody, capture.responseCaptured, copied);
+      capture.responseCaptured += copied;
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.exception.SepBulkheadFullException;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Limits the number of concurrent gateway calls per SEP operation, so that a flood of token requests cannot take
+ * the connections and threads needed by verifications that carry real money. A call that finds its operation's
+ * bulkhead full waits up to {@code maxWait}, or until its deadline, and then fails with
+ * {@link SepBulkheadFullException} or {@link SepDeadlineExceededException}.
+ */
+public class SepBulkheadInterceptor implements SepCallInterceptor {
+  private final Map<SepOperation, Semaphore> permits = new EnumMap<>(SepOperation.class);
+  private final Map<SepOperation, Integer> limits;
+  private final Map<SepOperation, LongAdder> rejected = new EnumMap<>(SepOperation.class);
+  private final long maxWaitNanos;
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param limits  maximum concurrent calls per operation
+   * @param maxWait how long a call waits for a free slot
+   */
+  public SepBulkheadInterceptor(Map<SepOperation, Integer> limits, Duration maxWait) {
+    this.limits = new EnumMap<>(limits);
+    this.maxWaitNanos = maxWait.toNanos();
+    for (SepOperation operation : SepOperation.values()) {
+      permits.put(operation, new Semaphore(this.limits.get(operation)));
+      rejected.put(operation, new LongAdder());
+    }
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    Semaphore semaphore = permits.get(call.operation());
+    if (!acquire(semaphore, call.deadline().bound(maxWaitNanos))) {
+      if (call.deadline().isExpired()) {
+        throw new SepDeadlineExceededException(call.operation());
+      }
+      rejected.get(call.operation()).increment();
+      throw new SepBulkheadFullException(call.operation(), limits.get(call.operation()));
+    }
+    try {
+      return execution.execute(call);
+    } finally {
+      semaphore.release();
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_BULKHEAD;
+  }
+
+  /**
+   * Number of calls of an operation currently in flight.
+   *
+   * @param operation the gateway operation
+   * @return calls holding a bulkhead slot
+   */
+  public int inFlight(SepOperation operation) {
+    return limits.get(operation) - permits.get(operation).availablePermits();
+  }
+
+  /**
+   * Number of calls of an operation rejected because its bulkhead was full.
+   *
+   * @param operation the gateway operation
+   * @return rejected calls so far
+   */
+  public long rejectedCount(SepOperation operation) {
+    return rejected.get(operation).sum();
+  }
+
+  private static boolean acquire(Semaphore semaphore, long maxWait) {
+    if (semaphore.tryAcquire()) {
+      return true;
+    }
+    if (maxWait <= 0) {
+      return false;
+    }
+    try {
+      return semaphore.tryAcquire(maxWait, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
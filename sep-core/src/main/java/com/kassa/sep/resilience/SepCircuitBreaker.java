@@ -0,0 +1,229 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker for one SEP operation.
+ * <p>
+ * While {@link State#CLOSED} the outcomes of the last {@code slidingWindowSize} calls are recorded. Once at least
+ * {@code minimumCalls} are recorded and the failure rate or the slow-call rate reaches its threshold, the breaker
+ * opens and rejects calls for {@code openDuration}. It then lets {@code halfOpenCalls} probe calls through: if all
+ * of them succeed in time it closes again, otherwise it re-opens.
+ * <p>
+ * Every permit is tagged with the generation of the state it was granted in, and an outcome only counts in that
+ * same state: the late result of a call permitted while closed is not taken for a half-open probe.
+ * <p>
+ * The closed state is checked without locking; recording outcomes and state transitions are synchronized on the
+ * breaker.
+ */
+@Slf4j
+public class SepCircuitBreaker {
+
+  /** Returned by {@link #tryAcquirePermission()} when the call is not permitted. */
+  public static final long NOT_PERMITTED = -1;
+
+  /** Circuit breaker states. */
+  public enum State {
+    /** Calls pass and their outcomes are recorded. */
+    CLOSED,
+    /** Calls are rejected until the open duration has passed. */
+    OPEN,
+    /** A limited number of probe calls pass to test whether the gateway recovered. */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final double failureRateThreshold;
+  private final double slowCallRateThreshold;
+  private final long slowCallNanos;
+  private final int minimumCalls;
+  private final long openNanos;
+  private final int halfOpenCalls;
+
+  private final boolean[] failed;
+  private final boolean[] slow;
+  private int next;
+  private int recorded;
+  private int failures;
+  private int slowCalls;
+
+  private volatile State state = State.CLOSED;
+  /** Incremented on every transition, after {@link #state} is written. */
+  private volatile long generation;
+  private long openedAt;
+  private int halfOpenPermitted;
+  private int halfOpenSucceeded;
+  private long notPermitted;
+
+  /**
+   * Creates a closed circuit breaker.
+   *
+   * @param name                  name used in logs (e.g. the operation)
+   * @param failureRateThreshold  failure rate in percent that opens the breaker
+   * @param slowCallRateThreshold slow-call rate in percent that opens the breaker
+   * @param slowCallDuration      calls taking at least this long count as slow
+   * @param slidingWindowSize     number of recent calls considered
+   * @param minimumCalls          minimum number of recorded calls before rates are evaluated
+   * @param openDuration          how long the breaker stays open before probing
+   * @param halfOpenCalls         number of probe calls in half-open state
+   */
+  public SepCircuitBreaker(String name, double failureRateThreshold, double slowCallRateThreshold,
+      Duration slowCallDuration, int slidingWindowSize, int minimumCalls, Duration openDuration, int halfOpenCalls) {
+    this.name = name;
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallNanos = slowCallDuration.toNanos();
+    this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+    this.openNanos = openDuration.toNanos();
+    this.halfOpenCalls = halfOpenCalls;
+    this.failed = new boolean[slidingWindowSize];
+    this.slow = new boolean[slidingWindowSize];
+  }
+
+  /**
+   * Asks for permission to perform a call. Every permitted call must be reported with
+   * {@link #onResult(long, long, boolean)}, or with {@link #release(long)} if it never reached the gateway.
+   *
+   * @return the permit, or {@link #NOT_PERMITTED} if the call may not proceed
+   */
+  public long tryAcquirePermission() {
+    // read the generation before the state: a transition writes them in the opposite order
+    long permit = generation;
+    if (state == State.CLOSED) {
+      return permit;
+    }
+    synchronized (this) {
+      if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+        transitionTo(State.HALF_OPEN);
+      }
+      if (state == State.HALF_OPEN && halfOpenPermitted < halfOpenCalls) {
+        halfOpenPermitted++;
+        return generation;
+      }
+      if (state == State.CLOSED) {
+        return generation;
+      }
+      notPermitted++;
+      return NOT_PERMITTED;
+    }
+  }
+
+  /**
+   * Records the outcome of a permitted call. Ignored if the breaker changed state since the permit was granted.
+   *
+   * @param permit        the permit of the call
+   * @param durationNanos duration of the call
+   * @param failure       whether the call failed (transport error, timeout, no response)
+   */
+  public synchronized void onResult(long permit, long durationNanos, boolean failure) {
+    if (permit != generation) {
+      // permitted in an earlier state, e.g. while closed and now half-open
+      return;
+    }
+    boolean slowCall = durationNanos >= slowCallNanos;
+    switch (state) {
+      case HALF_OPEN -> {
+        if (failure || slowCall) {
+          transitionTo(State.OPEN);
+        } else if (++halfOpenSucceeded >= halfOpenCalls) {
+          transitionTo(State.CLOSED);
+        }
+      }
+      case CLOSED -> {
+        record(failure, slowCall);
+        if (recorded >= minimumCalls
+            && (failureRate() >= failureRateThreshold || slowCallRate() >= slowCallRateThreshold)) {
+          transitionTo(State.OPEN);
+        }
+      }
+      case OPEN -> {
+        // not reached: the generation changes when the breaker opens
+      }
+    }
+  }
+
+  /**
+   * Gives back the permit of a call that never reached the gateway, e.g. because its deadline passed first. The
+   * call has no outcome; a half-open probe slot becomes free again.
+   *
+   * @param permit the permit of the call
+   */
+  public synchronized void release(long permit) {
+    if (permit == generation && state == State.HALF_OPEN) {
+      halfOpenPermitted--;
+    }
+  }
+
+  /**
+   * Current state of the breaker.
+   *
+   * @return the state
+   */
+  public State state() {
+    return state;
+  }
+
+  /**
+   * Takes a snapshot of the breaker.
+   *
+   * @return the breaker statistics
+   */
+  public synchronized Stats stats() {
+    return new Stats(state, failureRate(), slowCallRate(), recorded, notPermitted);
+  }
+
+  private void record(boolean failure, boolean slowCall) {
+    if (recorded == failed.length) {
+      failures -= failed[next] ? 1 : 0;
+      slowCalls -= slow[next] ? 1 : 0;
+    } else {
+      recorded++;
+    }
+    failed[next] = failure;
+    slow[next] = slowCall;
+    failures += failure ? 1 : 0;
+    slowCalls += slowCall ? 1 : 0;
+    next = (next + 1) % failed.length;
+  }
+
+  private double failureRate() {
+    return recorded == 0 ? 0 : failures * 100.0 / recorded;
+  }
+
+  private double slowCallRate() {
+    return recorded == 0 ? 0 : slowCalls * 100.0 / recorded;
+  }
+
+  private void transitionTo(State target) {
+    State previous = state;
+    if (target == State.OPEN) {
+      openedAt = System.nanoTime();
+      log.warn("SEP circuit breaker {} opened (was {}): failureRate={}%, slowCallRate={}%", name, previous,
+        Math.round(failureRate()), Math.round(slowCallRate()));
+    } else {
+      log.info("SEP circuit breaker {} changed from {} to {}", name, previous, target);
+    }
+    halfOpenPermitted = 0;
+    halfOpenSucceeded = 0;
+    next = 0;
+    recorded = 0;
+    failures = 0;
+    slowCalls = 0;
+    state = target;
+    generation++;
+  }
+
+  /**
+   * Snapshot of a circuit breaker.
+   *
+   * @param state         current state
+   * @param failureRate   failure rate of the recorded calls, in percent
+   * @param slowCallRate  slow-call rate of the recorded calls, in percent
+   * @param recordedCalls number of calls in the sliding window
+   * @param notPermitted  number of calls rejected so far
+   */
+  public record Stats(State state, double failureRate, double slowCallRate, int recordedCalls, long notPermitted) {
+  }
+}
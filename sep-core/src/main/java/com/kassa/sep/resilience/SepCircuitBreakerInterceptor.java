@@ -0,0 +1,88 @@
+package com.kassa.sep.resilience;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.kassa.sep.exception.SepCircuitOpenException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Guards each SEP operation with its own {@link SepCircuitBreaker}.
+ * <p>
+ * Transport errors, timeouts and missing responses count as failures; a gateway answer is a success even when its
+ * result code is not, since the gateway itself responded. Calls that never reached the gateway, such as a call whose
+ * deadline passed before its attempt, have no outcome and give their permit back. While a breaker is open, calls
+ * fail fast with {@link SepCircuitOpenException} instead of tying up threads on a degraded gateway.
+ */
+public class SepCircuitBreakerInterceptor implements SepCallInterceptor {
+  private final Map<SepOperation, SepCircuitBreaker> breakers = new EnumMap<>(SepOperation.class);
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param breakerFactory creates the breaker of an operation
+   */
+  public SepCircuitBreakerInterceptor(Function<SepOperation, SepCircuitBreaker> breakerFactory) {
+    for (SepOperation operation : SepOperation.values()) {
+      breakers.put(operation, breakerFactory.apply(operation));
+    }
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    SepCircuitBreaker breaker = breakers.get(call.operation());
+    long permit = breaker.tryAcquirePermission();
+    if (permit == SepCircuitBreaker.NOT_PERMITTED) {
+      throw new SepCircuitOpenException(call.operation());
+    }
+    long start = System.nanoTime();
+    T response;
+    try {
+      response = execution.execute(call);
+    } catch (RuntimeException e) {
+      if (isFailure(e)) {
+        breaker.onResult(permit, System.nanoTime() - start, true);
+      } else {
+        breaker.release(permit);
+      }
+      throw e;
+    } catch (Error e) {
+      breaker.release(permit);
+      throw e;
+    }
+    breaker.onResult(permit, System.nanoTime() - start, false);
+    return response;
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_CIRCUIT_BREAKER;
+  }
+
+  /**
+   * Returns the circuit breaker of an operation, e.g. to observe its state.
+   *
+   * @param operation the gateway operation
+   * @return the operation's breaker
+   */
+  public SepCircuitBreaker breaker(SepOperation operation) {
+    return breakers.get(operation);
+  }
+
+  /**
+   * Whether an error shows the gateway failing: a transport error or a missing response. Local rejections and other
+   * errors raised before the request was sent are not outcomes of the gateway.
+   */
+  private static boolean isFailure(RuntimeException error) {
+    if (error instanceof SepGatewayException gatewayException) {
+      return "UNKNOWN".equals(gatewayException.getErrorCode());
+    }
+    return error instanceof SepTransportException;
+  }
+}
@@ -0,0 +1,62 @@
+package com.kassa.sep.resilience;
+
+import java.util.Set;
+
+import com.kassa.sep.exception.SepBulkheadFullException;
+import com.kassa.sep.exception.SepCallInProgressException;
+import com.kassa.sep.exception.SepCircuitOpenException;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepRateLimitedException;
+import com.kassa.sep.exception.SepTransportException;
+
+/**
+ * Classifies failures of SEP gateway calls for components that try a call again later (outbox, scheduled
+ * reversals), as opposed to the immediate retries of {@link SepRetryInterceptor}.
+ */
+public final class SepFailures {
+  private static final Set<String> TRANSIENT_CODES = Set.of("UNKNOWN", SepCircuitOpenException.ERROR_CODE,
+    SepBulkheadFullException.ERROR_CODE, SepRateLimitedException.ERROR_CODE, SepCallInProgressException.ERROR_CODE);
+
+  private static final Set<String> LOCAL_REJECTION_CODES = Set.of(SepCircuitOpenException.ERROR_CODE,
+    SepBulkheadFullException.ERROR_CODE, SepRateLimitedException.ERROR_CODE, SepDeadlineExceededException.ERROR_CODE);
+
+  private SepFailures() {
+  }
+
+  /**
+   * Whether a failed call may succeed when tried again later: transport errors, missing responses, and calls
+   * rejected locally by a circuit breaker, bulkhead or rate limiter. An answer of the gateway, such as an error
+   * result code, is final.
+   *
+   * @param error the failure of the call
+   * @return true if the call is worth trying again
+   */
+  public static boolean isTransient(RuntimeException error) {
+    if (error instanceof SepGatewayException gatewayException) {
+      return TRANSIENT_CODES.contains(gatewayException.getErrorCode());
+    }
+    return error instanceof SepTransportException;
+  }
+
+  /**
+   * Whether a failed call certainly never reached the gateway: it was rejected by a circuit breaker, bulkhead, rate
+   * limiter or its deadline, and so were the earlier attempts recorded as suppressed exceptions. After any other
+   * failure, such as a read timeout, the gateway may have acted on the call.
+   *
+   * @param error the failure of the call
+   * @return true if no request of the call was sent
+   */
+  public static boolean isRejectedLocally(Throwable error) {
+    if (!(error instanceof SepGatewayException gatewayException)
+        || !LOCAL_REJECTION_CODES.contains(gatewayException.getErrorCode())) {
+      return false;
+    }
+    for (Throwable earlier : error.getSuppressed()) {
+      if (!isRejectedLocally(earlier)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
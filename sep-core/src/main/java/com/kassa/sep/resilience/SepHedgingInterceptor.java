@@ -0,0 +1,229 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepContextPropagator;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hedges verify calls: if an attempt has not answered within the recent latency percentile of its terminal, a
+ * second request for the same RefNum is sent and the first answer is taken.
+ * <p>
+ * Verify is idempotent, so only the gateway's answer differs: the request that reaches the gateway second is
+ * answered with {@link SepResultCode#DUPLICATE_REQUEST}. Such an answer is never taken while the other request may
+ * still answer: the hedge waits for it, since it carries the transaction detail. If the other request fails, the
+ * {@code DUPLICATE_REQUEST} answer is returned unchanged, as it would be without hedging, so the caller or the
+ * {@link com.kassa.sep.cache.SepVerificationCache} resolves it.
+ * <p>
+ * Both requests run on the given executor, in the caller's context carried by a {@link SepContextPropagator}, while
+ * the caller waits up to its deadline; each passes through the rate limiters, bulkheads and circuit breakers after
+ * this interceptor. Token and reverse calls, verifies of terminals with fewer than the tracker's minimum samples,
+ * and calls whose deadline leaves no room for a hedge are not hedged. The request that loses keeps running until
+ * it completes; its answer is dropped.
+ */
+@Slf4j
+public class SepHedgingInterceptor implements SepCallInterceptor, AutoCloseable {
+  private final SepLatencyTracker latencies;
+  private final ExecutorService executor;
+  private final double percentile;
+  private final long minDelayNanos;
+  private final SepContextPropagator context;
+  private final LongAdder hedged = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final LongAdder duplicateAnswers = new LongAdder();
+
+  /**
+   * Creates the interceptor, carrying the caller's {@link SepContextPropagator#mdc() MDC} to the requests.
+   *
+   * @param latencies  latency percentiles of the terminals
+   * @param executor   executor running the requests; shut down by {@link #close()}
+   * @param percentile latency percentile after which a verify is hedged, from 0 to 1 (e.g. {@code 0.95})
+   * @param minDelay   minimum wait before a verify is hedged
+   */
+  public SepHedgingInterceptor(SepLatencyTracker latencies, ExecutorService executor, double percentile,
+      Duration minDelay) {
+    this(latencies, executor, percentile, minDelay, SepContextPropagator.mdc());
+  }
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param latencies  latency percentiles of the terminals
+   * @param executor   executor running the requests; shut down by {@link #close()}
+   * @param percentile latency percentile after which a verify is hedged, from 0 to 1 (e.g. {@code 0.95})
+   * @param minDelay   minimum wait before a verify is hedged
+   * @param context    carries the caller's context, e.g. its MDC and current observation, to the requests
+   */
+  public SepHedgingInterceptor(SepLatencyTracker latencies, ExecutorService executor, double percentile,
+      Duration minDelay, SepContextPropagator context) {
+    this.latencies = latencies;
+    this.executor = executor;
+    this.percentile = percentile;
+    this.minDelayNanos = minDelay.toNanos();
+    this.context = context;
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    if (call.operation() != SepOperation.VERIFY) {
+      return execution.execute(call);
+    }
+    Duration latency = latencies.percentile(call.terminalId(), SepOperation.VERIFY, percentile);
+    long delay = latency != null ? Math.max(minDelayNanos, latency.toNanos()) : -1;
+    if (delay < 0 || call.deadline().remainingNanos() <= delay) {
+      return execution.execute(call);
+    }
+
+    BlockingQueue<Attempt<T>> answers = new ArrayBlockingQueue<>(2);
+    if (!start(call, execution, answers, false)) {
+      return execution.execute(call);
+    }
+    Attempt<T> primary = poll(answers, delay);
+    if (primary != null) {
+      return primary.get();
+    }
+    if (!start(call, execution, answers, true)) {
+      return take(call, answers).get();
+    }
+    hedged.increment();
+    log.debug("SEP verify {} has no answer after {}ms, hedging", call.key(), delay / 1_000_000);
+    return settle(call, answers);
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_HEDGING;
+  }
+
+  /**
+   * Number of verifies that were hedged.
+   *
+   * @return hedged verifies so far
+   */
+  public long hedgedCount() {
+    return hedged.sum();
+  }
+
+  /**
+   * Number of hedged verifies answered first by the hedge request.
+   *
+   * @return verifies won by the hedge so far
+   */
+  public long hedgeWinCount() {
+    return hedgeWins.sum();
+  }
+
+  /**
+   * Number of hedged verifies answered with {@link SepResultCode#DUPLICATE_REQUEST} because the other request
+   * failed.
+   *
+   * @return verifies answered without transaction detail so far
+   */
+  public long duplicateAnswerCount() {
+    return duplicateAnswers.sum();
+  }
+
+  /**
+   * Shuts down the executor running the requests.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private <T> T settle(SepCall<T> call, BlockingQueue<Attempt<T>> answers) {
+    T duplicate = null;
+    RuntimeException failure = null;
+    for (int pending = 2; pending > 0; pending--) {
+      Attempt<T> attempt = take(call, answers);
+      if (attempt.error() != null) {
+        if (failure == null) {
+          failure = attempt.error();
+        } else {
+          failure.addSuppressed(attempt.error());
+        }
+        continue;
+      }
+      SepVerifyTransactionResponse verify = (SepVerifyTransactionResponse) attempt.response();
+      if (verify.getResultCodeEnum() == SepResultCode.DUPLICATE_REQUEST) {
+        if (duplicate != null) {
+          // both were duplicates: the payment was verified by someone else, as without hedging
+          return duplicate;
+        }
+        duplicate = attempt.response();
+        continue;
+      }
+      if (attempt.hedge()) {
+        hedgeWins.increment();
+      }
+      return attempt.response();
+    }
+    if (duplicate != null) {
+      duplicateAnswers.increment();
+      log.debug("SEP verify {} answered DUPLICATE_REQUEST after the other request failed: {}", call.key(),
+        failure.toString());
+      return duplicate;
+    }
+    throw failure;
+  }
+
+  private <T> boolean start(SepCall<T> call, SepCallExecution<T> execution, BlockingQueue<Attempt<T>> answers,
+      boolean hedge) {
+    try {
+      executor.execute(context.wrap(() -> {
+        Attempt<T> attempt;
+        try {
+          attempt = new Attempt<>(hedge, execution.execute(call), null);
+        } catch (RuntimeException e) {
+          attempt = new Attempt<>(hedge, null, e);
+        }
+        answers.add(attempt);
+      }));
+      return true;
+    } catch (RejectedExecutionException e) {
+      return false;
+    }
+  }
+
+  private static <T> Attempt<T> poll(BlockingQueue<Attempt<T>> answers, long nanos) {
+    try {
+      return answers.poll(nanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SepGatewayException("UNKNOWN", "Interrupted while waiting for the gateway");
+    }
+  }
+
+  private static <T> Attempt<T> take(SepCall<T> call, BlockingQueue<Attempt<T>> answers) {
+    // remainingNanos() is Long.MAX_VALUE without a deadline
+    Attempt<T> attempt = poll(answers, Math.max(0, call.deadline().remainingNanos()));
+    if (attempt == null) {
+      throw new SepDeadlineExceededException(call.operation());
+    }
+    return attempt;
+  }
+
+  private record Attempt<T>(boolean hedge, T response, RuntimeException error) {
+    T get() {
+      if (error != null) {
+        throw error;
+      }
+      return response;
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Rolling latency percentiles of gateway attempts per terminal and operation, over the last {@code window}
+ * attempts.
+ * <p>
+ * {@link com.kassa.sep.SepClient} records the duration of every attempt that reached the transport, including
+ * failed and timed-out ones: a timed-out attempt counts with its timeout, so percentiles keep growing while the
+ * gateway slows down instead of being cut off by the timeouts derived from them. Percentiles are read from a
+ * sorted copy of the window that is refreshed every {@code window / 16} attempts; recording and reading are
+ * synchronized per terminal and operation.
+ */
+public class SepLatencyTracker {
+  private final int window;
+  private final int minSamples;
+  private final Map<String, Map<SepOperation, Window>> windows = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the tracker.
+   *
+   * @param window     number of recent attempts the percentiles are computed over
+   * @param minSamples attempts needed before percentiles are reported
+   */
+  public SepLatencyTracker(int window, int minSamples) {
+    if (window < 1) {
+      throw new IllegalArgumentException("window must be positive");
+    }
+    this.window = window;
+    this.minSamples = Math.max(1, Math.min(minSamples, window));
+  }
+
+  /**
+   * Records the duration of an attempt.
+   *
+   * @param terminalId terminal the attempt was made for
+   * @param operation  the gateway operation
+   * @param nanos      duration of the attempt
+   */
+  public void record(String terminalId, SepOperation operation, long nanos) {
+    window(terminalId, operation).record(nanos);
+  }
+
+  /**
+   * Latency percentile of recent attempts.
+   *
+   * @param terminalId terminal the attempts were made for
+   * @param operation  the gateway operation
+   * @param percentile the percentile, from 0 to 1 (e.g. {@code 0.95})
+   * @return the latency, or null while fewer than {@code minSamples} attempts were recorded
+   */
+  public Duration percentile(String terminalId, SepOperation operation, double percentile) {
+    long nanos = window(terminalId, operation).percentile(percentile);
+    return nanos < 0 ? null : Duration.ofNanos(nanos);
+  }
+
+  /**
+   * Number of attempts recorded.
+   *
+   * @param terminalId terminal the attempts were made for
+   * @param operation  the gateway operation
+   * @return attempts recorded so far
+   */
+  public long count(String terminalId, SepOperation operation) {
+    return window(terminalId, operation).count();
+  }
+
+  private Window window(String terminalId, SepOperation operation) {
+    return windows.computeIfAbsent(terminalId != null ? terminalId : "", terminal -> {
+      Map<SepOperation, Window> operations = new EnumMap<>(SepOperation.class);
+      for (SepOperation op : SepOperation.values()) {
+        operations.put(op, new Window(window, minSamples));
+      }
+      return operations;
+    }).get(operation);
+  }
+
+  private static final class Window {
+    private final long[] samples;
+    private final int minSamples;
+    private final int refreshEvery;
+    private int next;
+    private long count;
+    private long[] sorted = new long[0];
+    private long sortedAt;
+
+    Window(int size, int minSamples) {
+      this.samples = new long[size];
+      this.minSamples = minSamples;
+      this.refreshEvery = Math.max(1, size / 16);
+    }
+
+    synchronized void record(long nanos) {
+      samples[next] = nanos;
+      next = next + 1 == samples.length ? 0 : next + 1;
+      count++;
+    }
+
+    synchronized long percentile(double percentile) {
+      int size = (int) Math.min(count, samples.length);
+      if (size < minSamples) {
+        return -1;
+      }
+      if (sorted.length != size || count - sortedAt >= refreshEvery) {
+        sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        sortedAt = count;
+      }
+      int rank = (int) Math.ceil(percentile * size) - 1;
+      return sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+
+    synchronized long count() {
+      return count;
+    }
+  }
+}
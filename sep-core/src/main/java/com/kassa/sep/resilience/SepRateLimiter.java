@@ -0,0 +1,197 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token-bucket rate limiter for one SEP operation, with a bounded queue of waiting calls.
+ * <p>
+ * The bucket refills at {@code permitsPerSecond} and holds up to {@code burst} permits, so an idle limiter lets a
+ * burst through at once and then spaces calls evenly. A call that finds the bucket empty reserves the next free
+ * permit and waits for it, provided a queue slot is free and the permit is due within {@code maxWait}. When all
+ * {@code queueCapacity} slots are taken, the {@link QueueFullPolicy} decides whether the call is rejected at once
+ * or waits for a slot within the same deadline.
+ * <p>
+ * The bucket is kept as the time its next permit becomes free (the generic cell rate algorithm), so acquiring a
+ * permit is a single short critical section and no timer thread is needed.
+ */
+public class SepRateLimiter {
+
+  /** What a call does when the wait queue of its limiter is full. */
+  public enum QueueFullPolicy {
+    /** Reject the call immediately. */
+    REJECT,
+    /** Wait for a queue slot, but no longer than the limiter's maximum wait. */
+    WAIT
+  }
+
+  private final String name;
+  private final long permitNanos;
+  private final long burstNanos;
+  private final int queueCapacity;
+  private final long maxWaitNanos;
+  private final QueueFullPolicy queueFullPolicy;
+  private final Semaphore queue;
+
+  /** Theoretical arrival time: when the bucket would be empty if no permit were taken until then. */
+  private long arrivalNanos;
+
+  private final LongAdder permitted = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+
+  /**
+   * Creates a limiter with a full bucket.
+   *
+   * @param name             name used in error messages (e.g. the operation)
+   * @param permitsPerSecond sustained rate of calls
+   * @param burst            permits the bucket holds, i.e. calls passed at once after an idle period
+   * @param queueCapacity    maximum number of calls waiting for a permit
+   * @param maxWait          how long a call may wait for a permit (and, with {@link QueueFullPolicy#WAIT}, a slot)
+   * @param queueFullPolicy  behaviour when the queue is full
+   */
+  public SepRateLimiter(String name, double permitsPerSecond, int burst, int queueCapacity, Duration maxWait,
+      QueueFullPolicy queueFullPolicy) {
+    if (permitsPerSecond <= 0 || burst < 1 || queueCapacity < 0) {
+      throw new IllegalArgumentException("Invalid rate limit for " + name + ": " + permitsPerSecond + "/s, burst "
+        + burst + ", queue " + queueCapacity);
+    }
+    this.name = name;
+    this.permitNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    this.burstNanos = (burst - 1) * permitNanos;
+    this.queueCapacity = queueCapacity;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.queueFullPolicy = queueFullPolicy;
+    this.queue = new Semaphore(queueCapacity);
+    this.arrivalNanos = System.nanoTime();
+  }
+
+  /**
+   * Takes a permit, waiting for it if the bucket is empty.
+   *
+   * @return true if the call may proceed, false if it is rejected
+   */
+  public boolean acquire() {
+    return acquire(maxWaitNanos);
+  }
+
+  /**
+   * Takes a permit, waiting for it no longer than the given time, e.g. what is left of a call's deadline.
+   *
+   * @param maxWait how long the call may wait; the limiter's own maximum wait still applies
+   * @return true if the call may proceed, false if it is rejected
+   */
+  public boolean acquire(Duration maxWait) {
+    return acquire(Math.max(0, Math.min(maxWaitNanos, maxWait.toNanos())));
+  }
+
+  private boolean acquire(long maxWait) {
+    long start = System.nanoTime();
+    if (tryTake(start)) {
+      permitted.increment();
+      return true;
+    }
+    boolean queued = queue.tryAcquire() || queueFullPolicy == QueueFullPolicy.WAIT && awaitSlot(start, maxWait);
+    if (!queued) {
+      rejected.increment();
+      return false;
+    }
+    try {
+      long now = System.nanoTime();
+      long wait = reserve(now, maxWait - (now - start));
+      if (wait < 0 || !park(now + wait)) {
+        rejected.increment();
+        return false;
+      }
+      permitted.increment();
+      waitNanos.add(System.nanoTime() - start);
+      return true;
+    } finally {
+      queue.release();
+    }
+  }
+
+  /**
+   * Number of calls currently waiting for a permit.
+   *
+   * @return the queue depth
+   */
+  public int queueDepth() {
+    return queueCapacity - queue.availablePermits();
+  }
+
+  /**
+   * Name of the limiter.
+   *
+   * @return the name
+   */
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Takes a snapshot of the limiter.
+   *
+   * @return the limiter statistics
+   */
+  public Stats stats() {
+    return new Stats(queueDepth(), permitted.sum(), rejected.sum(), waitNanos.sum());
+  }
+
+  private synchronized boolean tryTake(long now) {
+    if (now - (arrivalNanos - burstNanos) < 0) {
+      return false;
+    }
+    arrivalNanos = Math.max(arrivalNanos, now) + permitNanos;
+    return true;
+  }
+
+  /**
+   * Reserves the next free permit if it is due within {@code maxWait}.
+   *
+   * @return the nanoseconds to wait for the reserved permit, or -1 if none is due in time (nothing is reserved then)
+   */
+  private synchronized long reserve(long now, long maxWait) {
+    long wait = Math.max(0, arrivalNanos - burstNanos - now);
+    if (wait > maxWait) {
+      return -1;
+    }
+    arrivalNanos = Math.max(arrivalNanos, now) + permitNanos;
+    return wait;
+  }
+
+  private boolean awaitSlot(long start, long maxWait) {
+    long remaining = maxWait - (System.nanoTime() - start);
+    try {
+      return remaining > 0 && queue.tryAcquire(remaining, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static boolean park(long deadline) {
+    for (long remaining = deadline - System.nanoTime(); remaining > 0; remaining = deadline - System.nanoTime()) {
+      LockSupport.parkNanos(remaining);
+      if (Thread.interrupted()) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Snapshot of a rate limiter.
+   *
+   * @param queueDepth calls currently waiting for a permit
+   * @param permitted  calls that got a permit so far
+   * @param rejected   calls rejected so far
+   * @param waitNanos  total time permitted calls spent waiting
+   */
+  public record Stats(int queueDepth, long permitted, long rejected, long waitNanos) {
+  }
+}
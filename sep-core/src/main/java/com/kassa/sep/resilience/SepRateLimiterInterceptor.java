@@ -0,0 +1,64 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepRateLimitedException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Smooths the outbound rate of each SEP operation with its own {@link SepRateLimiter}, so campaign bursts are
+ * queued on our side instead of being throttled, rejected or timed out by the gateway. Every attempt of a retried
+ * call takes a permit. A call that gets no permit in time fails with {@link SepRateLimitedException}, or with
+ * {@link SepDeadlineExceededException} if its deadline ended the wait.
+ */
+public class SepRateLimiterInterceptor implements SepCallInterceptor {
+  private final Map<SepOperation, SepRateLimiter> limiters = new EnumMap<>(SepOperation.class);
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param limiterFactory creates the limiter of an operation
+   */
+  public SepRateLimiterInterceptor(Function<SepOperation, SepRateLimiter> limiterFactory) {
+    for (SepOperation operation : SepOperation.values()) {
+      limiters.put(operation, limiterFactory.apply(operation));
+    }
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    SepRateLimiter limiter = limiters.get(call.operation());
+    boolean permitted = call.deadline().isBounded()
+      ? limiter.acquire(Duration.ofNanos(call.deadline().bound(Long.MAX_VALUE)))
+      : limiter.acquire();
+    if (!permitted) {
+      if (call.deadline().isExpired()) {
+        throw new SepDeadlineExceededException(call.operation());
+      }
+      throw new SepRateLimitedException(call.operation(), limiter.name());
+    }
+    return execution.execute(call);
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_RATE_LIMIT;
+  }
+
+  /**
+   * Returns the rate limiter of an operation, e.g. to observe its queue.
+   *
+   * @param operation the gateway operation
+   * @return the operation's limiter
+   */
+  public SepRateLimiter limiter(SepOperation operation) {
+    return limiters.get(operation);
+  }
+}
@@ -0,0 +1,212 @@
+package com.kassa.sep.resilience;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retries transient failures of SEP gateway calls with exponential backoff, full jitter and a time budget.
+ * <p>
+ * Retried are transport errors and timeouts, HTTP 5xx and 429 answers and calls that returned no response.
+ * Gateway results are terminal by default: {@link com.kassa.sep.dto.SepResultCode#TERMINAL_NOT_FOUND},
+ * {@link com.kassa.sep.dto.SepResultCode#IP_NOT_ALLOWED}, {@link com.kassa.sep.dto.SepErrorCode#INVALID_PARAMETERS},
+ * {@link com.kassa.sep.dto.SepResultCode#TRANSACTION_EXPIRED} and so on are returned at once; only the codes
+ * configured as retryable are retried. A retry is only started if it fits into the remaining budget and before the
+ * call's deadline, so retries never push a verify past the gateway's verify window.
+ * <p>
+ * After a timeout or a lost response the gateway may already have acted on the call. Only the configured
+ * operations, by default {@link SepOperation#VERIFY}, which the gateway answers idempotently, are retried after
+ * such failures. Other operations are retried only when no connection could be established, and after the result
+ * codes configured as retryable, so a reverse or token request is never sent twice by a silent retry.
+ */
+@Slf4j
+public class SepRetryInterceptor implements SepCallInterceptor {
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final double multiplier;
+  private final long maxBackoffNanos;
+  private final long budgetNanos;
+  private final Set<Integer> retryableResultCodes;
+  private final Set<String> retryableErrorCodes;
+  private final Set<SepOperation> operations;
+  private final Map<SepOperation, LongAdder> retries = new EnumMap<>(SepOperation.class);
+  private final Map<SepOperation, LongAdder> exhausted = new EnumMap<>(SepOperation.class);
+
+  /**
+   * Creates the retry interceptor retrying verify calls after any transient failure.
+   *
+   * @param maxAttempts          maximum attempts per call, including the first
+   * @param initialBackoff       backoff bound before the first retry
+   * @param multiplier           growth factor of the backoff bound
+   * @param maxBackoff           maximum backoff bound
+   * @param budget               total time budget of a call
+   * @param retryableResultCodes verify/reverse result codes to retry
+   * @param retryableErrorCodes  token error codes to retry
+   */
+  public SepRetryInterceptor(int maxAttempts, Duration initialBackoff, double multiplier, Duration maxBackoff,
+      Duration budget, Set<Integer> retryableResultCodes, Set<String> retryableErrorCodes) {
+    this(maxAttempts, initialBackoff, multiplier, maxBackoff, budget, retryableResultCodes, retryableErrorCodes,
+      EnumSet.of(SepOperation.VERIFY));
+  }
+
+  /**
+   * Creates the retry interceptor.
+   *
+   * @param maxAttempts          maximum attempts per call, including the first
+   * @param initialBackoff       backoff bound before the first retry
+   * @param multiplier           growth factor of the backoff bound
+   * @param maxBackoff           maximum backoff bound
+   * @param budget               total time budget of a call
+   * @param retryableResultCodes verify/reverse result codes to retry
+   * @param retryableErrorCodes  token error codes to retry
+   * @param operations           operations retried after failures the gateway may have acted on, such as read
+   *                             timeouts; others are retried only after connect failures and retryable codes
+   */
+  public SepRetryInterceptor(int maxAttempts, Duration initialBackoff, double multiplier, Duration maxBackoff,
+      Duration budget, Set<Integer> retryableResultCodes, Set<String> retryableErrorCodes,
+      Set<SepOperation> operations) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffNanos = initialBackoff.toNanos();
+    this.multiplier = multiplier;
+    this.maxBackoffNanos = maxBackoff.toNanos();
+    this.budgetNanos = budget.toNanos();
+    this.retryableResultCodes = Set.copyOf(retryableResultCodes);
+    this.retryableErrorCodes = Set.copyOf(retryableErrorCodes);
+    this.operations = operations.isEmpty() ? EnumSet.noneOf(SepOperation.class) : EnumSet.copyOf(operations);
+    for (SepOperation operation : SepOperation.values()) {
+      retries.put(operation, new LongAdder());
+      exhausted.put(operation, new LongAdder());
+    }
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    long start = System.nanoTime();
+    RuntimeException previous = null;
+    for (int attempt = 1; ; attempt++) {
+      T response;
+      try {
+        response = execution.execute(call);
+      } catch (RuntimeException e) {
+        if (previous != null && previous != e) {
+          // keeps the earlier failures visible, e.g. a read timeout behind a call finally rejected locally
+          e.addSuppressed(previous);
+        }
+        if (!isRetryable(call, e) || !awaitRetry(call, attempt, start, e.toString())) {
+          throw e;
+        }
+        previous = e;
+        continue;
+      }
+      if (!isRetryable(response) || !awaitRetry(call, attempt, start, describe(response))) {
+        return response;
+      }
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_RETRY;
+  }
+
+  /**
+   * Number of retries performed for an operation.
+   *
+   * @param operation the gateway operation
+   * @return retries so far
+   */
+  public long retryCount(SepOperation operation) {
+    return retries.get(operation).sum();
+  }
+
+  /**
+   * Number of calls of an operation that still failed after their last permitted attempt.
+   *
+   * @param operation the gateway operation
+   * @return calls that exhausted their attempts or budget
+   */
+  public long exhaustedCount(SepOperation operation) {
+    return exhausted.get(operation).sum();
+  }
+
+  private boolean awaitRetry(SepCall<?> call, int attempt, long start, String reason) {
+    long backoff = backoff(attempt);
+    long elapsed = System.nanoTime() - start;
+    if (attempt >= maxAttempts || elapsed + backoff >= budgetNanos || backoff >= call.deadline().remainingNanos()) {
+      exhausted.get(call.operation()).increment();
+      log.warn("SEP {} {} failed after {} attempt(s) in {}ms: {}", call.operation(), call.key(), attempt,
+        elapsed / 1_000_000, reason);
+      return false;
+    }
+    retries.get(call.operation()).increment();
+    log.debug("SEP {} {} attempt {} failed ({}), retrying in {}ms", call.operation(), call.key(), attempt, reason,
+      backoff / 1_000_000);
+    try {
+      Thread.sleep(backoff / 1_000_000, (int) (backoff % 1_000_000));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private long backoff(int attempt) {
+    double bound = Math.min(maxBackoffNanos, initialBackoffNanos * Math.pow(multiplier, attempt - 1));
+    return ThreadLocalRandom.current().nextLong((long) bound + 1);
+  }
+
+  private boolean isRetryable(SepCall<?> call, RuntimeException error) {
+    if (error instanceof SepTransportException transportException && transportException.isConnectFailure()) {
+      return true;
+    }
+    if (!operations.contains(call.operation())) {
+      // the gateway may have acted on the call
+      return false;
+    }
+    if (error instanceof SepGatewayException gatewayException) {
+      return "UNKNOWN".equals(gatewayException.getErrorCode());
+    }
+    if (error instanceof SepTransportException transportException) {
+      // 4xx answers other than 429 are not worth retrying
+      int status = transportException.getStatusCode();
+      return status < 400 || status >= 500 || status == 429;
+    }
+    return false;
+  }
+
+  private boolean isRetryable(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify) {
+      return !verify.isSuccess() && verify.getResultCode() != null
+        && retryableResultCodes.contains(verify.getResultCode());
+    }
+    if (response instanceof SepTokenResponse token) {
+      return !token.isSuccess() && token.getErrorCode() != null && retryableErrorCodes.contains(token.getErrorCode());
+    }
+    return false;
+  }
+
+  private static String describe(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify) {
+      return "ResultCode=" + verify.getResultCode();
+    }
+    if (response instanceof SepTokenResponse token) {
+      return "errorCode=" + token.getErrorCode();
+    }
+    return String.valueOf(response);
+  }
+}
@@ -0,0 +1,18 @@
+package com.kassa.sep.reversal;
+
+import com.kassa.sep.batch.SepBatchResult;
+
+/**
+ * Receives the outcome of every reversal fired by the {@link SepReversalScheduler}, e.g. to mark the payment as
+ * refunded. Called on a reversal worker thread; exceptions are logged and otherwise ignored.
+ */
+@FunctionalInterface
+public interface SepReversalListener {
+
+  /**
+   * Called once per fired reversal, after its last attempt.
+   *
+   * @param result the reversal response, or the error that ended it
+   */
+  void onReversal(SepBatchResult result);
+}
@@ -0,0 +1,288 @@
+package com.kassa.sep.reversal;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.batch.SepBatchResult;
+import com.kassa.sep.resilience.SepFailures;
+import com.kassa.sep.routing.SepClientRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reverses payments at a scheduled time unless the reversal is cancelled first, e.g. to refund donations whose
+ * fulfilment did not succeed within a deadline.
+ * <p>
+ * Pending reversals live in a {@link SepTimingWheel}, so scheduling and cancelling are O(1) and hundreds of
+ * thousands of them cost one timer thread. Each tick, the due reversals are grouped by terminal into batches of up
+ * to {@code batchSize} and run on the bounded worker pool. When the pool's queue is full, the batch is deferred by
+ * {@code retryDelay}. A reversal that fails transiently (transport error, open circuit, full bulkhead, rate limit)
+ * is tried again after {@code retryDelay}, up to {@code maxAttempts}. The final outcome of every fired reversal is
+ * reported to the {@link SepReversalListener}s.
+ * <p>
+ * Schedules are kept in memory only; the application re-schedules the reversals it still owes after a restart.
+ */
+@Slf4j
+public class SepReversalScheduler implements AutoCloseable {
+  private static final int WHEEL_SIZE = 512;
+  private static final int WHEEL_LEVELS = 4;
+
+  private final SepClientRegistry clients;
+  private final ExecutorService workers;
+  private final int batchSize;
+  private final long retryDelayMillis;
+  private final int maxAttempts;
+  private final List<SepReversalListener> listeners;
+  private final Clock clock;
+  private final SepTimingWheel<Reversal> wheel;
+  private final Map<String, SepTimingWheel.Timer<Reversal>> timers = new HashMap<>();
+  private final Thread ticker;
+  private volatile boolean running = true;
+
+  private final LongAdder reversed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder retried = new LongAdder();
+  private final LongAdder deferred = new LongAdder();
+
+  /**
+   * Creates the scheduler and starts its timer thread.
+   *
+   * @param clients     clients of the terminals, chosen by the terminal ID of a reversal
+   * @param workers     bounded pool running the reversal batches, shut down with the scheduler
+   * @param tick        resolution of the schedule
+   * @param batchSize   maximum reversals per batch
+   * @param retryDelay  delay before a transiently failed or deferred reversal is tried again
+   * @param maxAttempts maximum attempts per reversal
+   * @param listeners   receive the outcome of every fired reversal
+   */
+  public SepReversalScheduler(SepClientRegistry clients, ExecutorService workers, Duration tick, int batchSize,
+      Duration retryDelay, int maxAttempts, List<SepReversalListener> listeners) {
+    this(clients, workers, tick, batchSize, retryDelay, maxAttempts, listeners, Clock.systemUTC());
+    this.ticker.start();
+  }
+
+  /**
+   * Creates the scheduler without starting its timer thread; the wheel is advanced with {@link #tick(long)}.
+   */
+  SepReversalScheduler(SepClientRegistry clients, ExecutorService workers, Duration tick, int batchSize,
+      Duration retryDelay, int maxAttempts, List<SepReversalListener> listeners, Clock clock) {
+    this.clients = clients;
+    this.workers = workers;
+    this.batchSize = batchSize;
+    this.retryDelayMillis = retryDelay.toMillis();
+    this.maxAttempts = maxAttempts;
+    this.listeners = List.copyOf(listeners);
+    this.clock = clock;
+    this.wheel = new SepTimingWheel<>(tick, WHEEL_SIZE, WHEEL_LEVELS, clock.millis());
+    this.ticker = new Thread(this::runTicker, "sep-reversal-timer");
+    this.ticker.setDaemon(true);
+  }
+
+  /**
+   * Schedules the reversal of a payment on the default terminal; see {@link #schedule(String, String, Instant)}.
+   *
+   * @param refNum reference number of the payment
+   * @param dueAt  when to reverse it
+   */
+  public void schedule(String refNum, Instant dueAt) {
+    schedule(refNum, null, dueAt);
+  }
+
+  /**
+   * Schedules the reversal of a payment. An earlier schedule of the same RefNum is replaced.
+   *
+   * @param refNum     reference number of the payment
+   * @param terminalId terminal that received the payment, or null for the default terminal
+   * @param dueAt      when to reverse it
+   */
+  public void schedule(String refNum, String terminalId, Instant dueAt) {
+    schedule(new Reversal(refNum, terminalId, 1), dueAt.toEpochMilli());
+  }
+
+  /**
+   * Cancels the scheduled reversal of a payment, e.g. because its fulfilment succeeded.
+   *
+   * @param refNum reference number of the payment
+   * @return true if the reversal was cancelled, false if none was scheduled or it already fired
+   */
+  public synchronized boolean cancel(String refNum) {
+    SepTimingWheel.Timer<Reversal> timer = timers.remove(refNum);
+    return timer != null && wheel.cancel(timer);
+  }
+
+  /**
+   * Number of reversals scheduled and not fired yet.
+   *
+   * @return pending reversals
+   */
+  public synchronized int pendingCount() {
+    return wheel.size();
+  }
+
+  /**
+   * Takes a snapshot of the scheduler.
+   *
+   * @return the scheduler statistics
+   */
+  public Stats stats() {
+    return new Stats(pendingCount(), reversed.sum(), failed.sum(), retried.sum(), deferred.sum());
+  }
+
+  /**
+   * Stops the timer thread and lets running batches finish. Reversals not fired yet are dropped.
+   */
+  @Override
+  public void close() {
+    running = false;
+    ticker.interrupt();
+    try {
+      ticker.join();
+      workers.shutdown();
+      workers.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    int pending = pendingCount();
+    if (pending > 0) {
+      log.warn("SEP reversal scheduler stopped with {} reversal(s) not fired", pending);
+    }
+  }
+
+  private synchronized void schedule(Reversal reversal, long dueAtMillis) {
+    SepTimingWheel.Timer<Reversal> previous = timers.put(reversal.refNum, wheel.schedule(reversal, dueAtMillis));
+    if (previous != null) {
+      wheel.cancel(previous);
+    }
+  }
+
+  private synchronized void reschedule(Reversal reversal, long dueAtMillis) {
+    // a schedule made while the reversal was running wins
+    if (!timers.containsKey(reversal.refNum)) {
+      timers.put(reversal.refNum, wheel.schedule(reversal, dueAtMillis));
+    }
+  }
+
+  private void runTicker() {
+    while (running) {
+      long sleep = tick(clock.millis());
+      try {
+        Thread.sleep(sleep);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Fires the reversals due at the given time.
+   *
+   * @param nowMillis current time in epoch milliseconds
+   * @return milliseconds until the next tick
+   */
+  long tick(long nowMillis) {
+    List<Reversal> due = new ArrayList<>();
+    long sleep;
+    synchronized (this) {
+      wheel.advance(nowMillis, reversal -> {
+        timers.remove(reversal.refNum);
+        due.add(reversal);
+      });
+      sleep = wheel.millisToNextTick(nowMillis);
+    }
+    if (!due.isEmpty()) {
+      dispatch(due);
+    }
+    return sleep;
+  }
+
+  private void dispatch(List<Reversal> due) {
+    Map<String, List<Reversal>> byTerminal = new LinkedHashMap<>();
+    for (Reversal reversal : due) {
+      byTerminal.computeIfAbsent(reversal.terminalId, terminal -> new ArrayList<>()).add(reversal);
+    }
+    byTerminal.forEach((terminalId, reversals) -> {
+      for (int from = 0; from < reversals.size(); from += batchSize) {
+        List<Reversal> batch = reversals.subList(from, Math.min(from + batchSize, reversals.size()));
+        try {
+          workers.execute(() -> reverse(terminalId, batch));
+        } catch (RejectedExecutionException e) {
+          deferred.add(batch.size());
+          log.warn("SEP reversal workers are saturated, deferring {} reversal(s) by {}ms", batch.size(),
+            retryDelayMillis);
+          long dueAt = clock.millis() + retryDelayMillis;
+          batch.forEach(reversal -> reschedule(reversal, dueAt));
+        }
+      }
+    });
+    log.debug("Fired {} SEP reversal(s)", due.size());
+  }
+
+  private void reverse(String terminalId, List<Reversal> batch) {
+    SepClient client;
+    try {
+      client = terminalId != null
+        ? clients.clientForTerminalId(terminalId)
+        : clients.client(SepClientRegistry.DEFAULT_TERMINAL);
+    } catch (IllegalArgumentException e) {
+      batch.forEach(reversal -> report(SepBatchResult.failure(reversal.refNum, e)));
+      failed.add(batch.size());
+      return;
+    }
+    for (Reversal reversal : batch) {
+      try {
+        report(SepBatchResult.success(reversal.refNum, client.reverseTransaction(reversal.refNum)));
+        reversed.increment();
+      } catch (RuntimeException e) {
+        if (SepFailures.isTransient(e) && reversal.attempt < maxAttempts && running) {
+          retried.increment();
+          log.warn("SEP reversal of {} failed ({}), attempt {} of {}, retrying in {}ms", reversal.refNum,
+            e.toString(), reversal.attempt, maxAttempts, retryDelayMillis);
+          reschedule(reversal.nextAttempt(), clock.millis() + retryDelayMillis);
+        } else {
+          failed.increment();
+          log.error("SEP reversal of {} failed: {}", reversal.refNum, e.toString());
+          report(SepBatchResult.failure(reversal.refNum, e));
+        }
+      }
+    }
+  }
+
+  private void report(SepBatchResult result) {
+    for (SepReversalListener listener : listeners) {
+      try {
+        listener.onReversal(result);
+      } catch (RuntimeException e) {
+        log.warn("SEP reversal listener {} failed for {}", listener, result.refNum(), e);
+      }
+    }
+  }
+
+  private record Reversal(String refNum, String terminalId, int attempt) {
+    Reversal nextAttempt() {
+      return new Reversal(refNum, terminalId, attempt + 1);
+    }
+  }
+
+  /**
+   * Snapshot of the scheduler.
+   *
+   * @param pending  reversals scheduled and not fired yet
+   * @param reversed reversals the gateway confirmed
+   * @param failed   reversals that failed after their last attempt
+   * @param retried  attempts that failed transiently and were scheduled again
+   * @param deferred reversals deferred because the worker pool was saturated
+   */
+  public record Stats(int pending, long reversed, long failed, long retried, long deferred) {
+  }
+}
@@ -0,0 +1,233 @@
+package com.kassa.sep.reversal;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@code levels} wheels of {@code wheelSize} slots, where a slot of level {@code n}
+ * spans {@code wheelSize^n} ticks. A timer is placed in the lowest level whose range covers its deadline and moves
+ * down one level each time the wheel above turns to its slot, until it expires from level 0.
+ * <p>
+ * Slots are intrusive doubly linked lists, so scheduling and cancelling are O(1) regardless of the number of
+ * timers, and advancing costs O(1) per tick plus the timers that move or expire. Deadlines are kept with a
+ * resolution of one tick and never fire early. Not thread-safe; callers synchronize.
+ *
+ * @param <T> payload of a timer
+ */
+public final class SepTimingWheel<T> {
+  private final long tickMillis;
+  private final int bits;
+  private final int mask;
+  private final Timer<T>[][] slots;
+  private long currentTick;
+  private int size;
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param tick        resolution of the wheel
+   * @param wheelSize   slots per level, a power of two
+   * @param levels      number of levels; the wheel spans {@code wheelSize^levels} ticks, later deadlines wait in
+   *                    the top level and are placed again as it turns
+   * @param startMillis current time in epoch milliseconds
+   */
+  @SuppressWarnings("unchecked")
+  public SepTimingWheel(Duration tick, int wheelSize, int levels, long startMillis) {
+    if (Integer.bitCount(wheelSize) != 1 || wheelSize < 2 || levels < 1
+        || Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+      throw new IllegalArgumentException("Invalid timing wheel of " + levels + " levels of " + wheelSize + " slots");
+    }
+    this.tickMillis = Math.max(1, tick.toMillis());
+    this.bits = Integer.numberOfTrailingZeros(wheelSize);
+    this.mask = wheelSize - 1;
+    this.slots = new Timer[levels][wheelSize];
+    this.currentTick = startMillis / tickMillis;
+  }
+
+  /**
+   * Schedules a timer.
+   *
+   * @param payload        payload handed to the expiry callback
+   * @param deadlineMillis when the timer expires, in epoch milliseconds; past deadlines expire on the next tick
+   * @return the timer, to cancel it
+   */
+  public Timer<T> schedule(T payload, long deadlineMillis) {
+    // round up, so a timer never fires before its deadline
+    Timer<T> timer = new Timer<>(payload, deadlineMillis, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+    place(timer, currentTick + 1);
+    size++;
+    return timer;
+  }
+
+  /**
+   * Cancels a timer.
+   *
+   * @param timer a timer of this wheel
+   * @return true if the timer was pending, false if it already expired or was cancelled
+   */
+  public boolean cancel(Timer<T> timer) {
+    if (timer.slot == null) {
+      return false;
+    }
+    unlink(timer);
+    size--;
+    return true;
+  }
+
+  /**
+   * Advances the wheel to the given time, handing every expired timer's payload to {@code expired} in deadline
+   * order (by tick).
+   *
+   * @param nowMillis current time in epoch milliseconds
+   * @param expired   receives the payloads of the expired timers
+   */
+  public void advance(long nowMillis, Consumer<T> expired) {
+    long targetTick = nowMillis / tickMillis;
+    while (currentTick < targetTick) {
+      currentTick++;
+      cascade();
+      Timer<T>[] level0 = slots[0];
+      int index = (int) (currentTick & mask);
+      Timer<T> timer = level0[index];
+      level0[index] = null;
+      while (timer != null) {
+        Timer<T> next = timer.next;
+        timer.prev = null;
+        timer.next = null;
+        if (timer.deadlineTick > currentTick) {
+          // parked beyond the span of a single-level wheel
+          place(timer, currentTick + 1);
+        } else {
+          timer.slot = null;
+          size--;
+          expired.accept(timer.payload);
+        }
+        timer = next;
+      }
+    }
+  }
+
+  /**
+   * Number of pending timers.
+   *
+   * @return the pending timers
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Time until the next tick boundary, for a thread that sleeps between calls to {@link #advance}.
+   *
+   * @param nowMillis current time in epoch milliseconds
+   * @return milliseconds until the next tick
+   */
+  public long millisToNextTick(long nowMillis) {
+    return tickMillis - Math.floorMod(nowMillis, tickMillis);
+  }
+
+  private void cascade() {
+    for (int level = 1; level < slots.length; level++) {
+      int shift = bits * level;
+      if ((currentTick & ((1L << shift) - 1)) != 0) {
+        return;
+      }
+      int index = (int) ((currentTick >>> shift) & mask);
+      Timer<T> timer = slots[level][index];
+      slots[level][index] = null;
+      while (timer != null) {
+        Timer<T> next = timer.next;
+        timer.prev = null;
+        timer.next = null;
+        // the current level-0 slot has not expired yet, so timers due now still fire this tick
+        place(timer, currentTick);
+        timer = next;
+      }
+    }
+  }
+
+  private void place(Timer<T> timer, long earliestTick) {
+    long tick = Math.max(timer.deadlineTick, earliestTick);
+    long delta = tick - currentTick;
+    int level = 0;
+    while (level < slots.length - 1 && delta >= 1L << (bits * (level + 1))) {
+      level++;
+    }
+    if (delta >= 1L << (bits * (level + 1))) {
+      // beyond the top level: wait in the last slot it can reach, and be placed again from there
+      tick = currentTick + (1L << (bits * (level + 1))) - (1L << (bits * level));
+    }
+    int index = (int) ((tick >>> (bits * level)) & mask);
+    Timer<T>[] wheel = slots[level];
+    Timer<T> head = wheel[index];
+    timer.slot = wheel;
+    timer.index = index;
+    timer.next = head;
+    if (head != null) {
+      head.prev = timer;
+    }
+    wheel[index] = timer;
+  }
+
+  private void unlink(Timer<T> timer) {
+    if (timer.prev != null) {
+      timer.prev.next = timer.next;
+    } else {
+      timer.slot[timer.index] = timer.next;
+    }
+    if (timer.next != null) {
+      timer.next.prev = timer.prev;
+    }
+    timer.slot = null;
+    timer.prev = null;
+    timer.next = null;
+  }
+
+  /**
+   * A scheduled timer.
+   *
+   * @param <T> payload type
+   */
+  public static final class Timer<T> {
+    private final T payload;
+    private final long deadlineMillis;
+    private final long deadlineTick;
+    private Timer<T>[] slot;
+    private int index;
+    private Timer<T> prev;
+    private Timer<T> next;
+
+    private Timer(T payload, long deadlineMillis, long deadlineTick) {
+      this.payload = payload;
+      this.deadlineMillis = deadlineMillis;
+      this.deadlineTick = deadlineTick;
+    }
+
+    /**
+     * The payload of the timer.
+     *
+     * @return the payload
+     */
+    public T payload() {
+      return payload;
+    }
+
+    /**
+     * The deadline of the timer.
+     *
+     * @return the deadline in epoch milliseconds
+     */
+    public long deadlineMillis() {
+      return deadlineMillis;
+    }
+
+    /**
+     * Whether the timer is still waiting to expire.
+     *
+     * @return true until the timer expires or is cancelled
+     */
+    public boolean isPending() {
+      return slot != null;
+    }
+  }
+}
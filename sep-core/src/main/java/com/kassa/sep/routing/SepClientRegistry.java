@@ -0,0 +1,262 @@
+package com.kassa.sep.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The {@link SepClient}s of all merchant terminals: the default terminal ({@code sep.terminal-id}) and the named
+ * terminals under {@code sep.terminals}.
+ * <p>
+ * Every named terminal has its own connection pool, retry, circuit breakers, bulkheads and rate limiters, so a
+ * burst or an outage on one terminal cannot exhaust the connections, concurrency or call rate of another.
+ * Caches, request coalescing and observations are shared; they are keyed by terminal or by the gateway-unique
+ * RefNum.
+ * <p>
+ * Calls are either addressed to a terminal explicitly ({@link #client(String)}), routed by a
+ * {@link SepTerminalRouter} ({@link #route(SepOperation, String)}, {@link #requestToken}), or routed by the
+ * terminal of a payment callback ({@link #verifyTransaction(SepTransactionResponse)}).
+ * <p>
+ * Terminals are built on first use: a terminal that never receives a call never opens a connection pool.
+ */
+@Slf4j
+public class SepClientRegistry implements AutoCloseable {
+  /** Name of the terminal configured by {@code sep.terminal-id}. */
+  public static final String DEFAULT_TERMINAL = "default";
+
+  private final Map<String, Slot> terminals = new LinkedHashMap<>();
+  private final Map<String, Slot> terminalsById = new LinkedHashMap<>();
+  private final SepTerminalRouter router;
+  private final List<AutoCloseable> resources = new ArrayList<>();
+  private final List<Consumer<SepTerminal>> listeners = new ArrayList<>();
+  private boolean closed;
+
+  /**
+   * Creates the registry. No terminal is built yet.
+   *
+   * @param terminals the terminal definitions, including the {@value #DEFAULT_TERMINAL} terminal
+   * @param router    routing strategy of {@link #route(SepOperation, String)}
+   */
+  public SepClientRegistry(Collection<TerminalDefinition> terminals, SepTerminalRouter router) {
+    for (TerminalDefinition definition : terminals) {
+      Slot slot = new Slot(definition);
+      this.terminals.put(definition.name(), slot);
+      if (definition.terminalId() != null) {
+        this.terminalsById.putIfAbsent(definition.terminalId(), slot);
+      }
+    }
+    if (!this.terminals.containsKey(DEFAULT_TERMINAL)) {
+      throw new IllegalArgumentException("No '" + DEFAULT_TERMINAL + "' SEP terminal");
+    }
+    this.router = router;
+  }
+
+  /**
+   * Client of a terminal.
+   *
+   * @param name terminal name
+   * @return the client
+   * @throws IllegalArgumentException if no such terminal is configured
+   */
+  public SepClient client(String name) {
+    return terminal(name).client();
+  }
+
+  /**
+   * Client of the terminal with the given gateway terminal ID, e.g. from a payment callback.
+   *
+   * @param terminalId terminal identifier assigned by the gateway
+   * @return the client
+   * @throws IllegalArgumentException if no terminal has this ID
+   */
+  public SepClient clientForTerminalId(String terminalId) {
+    Slot slot = terminalsById.get(terminalId);
+    if (slot == null) {
+      throw new IllegalArgumentException("No SEP terminal with terminal ID " + terminalId);
+    }
+    return slot.get().client();
+  }
+
+  /**
+   * Client chosen by the {@link SepTerminalRouter} for a call.
+   *
+   * @param operation the gateway operation
+   * @param key       the ResNum of a token request, the RefNum of a verify/reverse
+   * @return the client
+   */
+  public SepClient route(SepOperation operation, String key) {
+    String name = router.route(operation, key);
+    return client(name != null ? name : DEFAULT_TERMINAL);
+  }
+
+  /**
+   * Requests a token on the terminal the router chooses for the ResNum.
+   * See {@link SepClient#requestToken(long, String, String, String)}.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @return the gateway response containing the token
+   */
+  public SepTokenResponse requestToken(long amount, String resNum, String redirectUrl, String cellNumber) {
+    return route(SepOperation.TOKEN, resNum).requestToken(amount, resNum, redirectUrl, cellNumber);
+  }
+
+  /**
+   * Verifies the transaction of a payment callback on the terminal that received the payment.
+   *
+   * @param callback the gateway callback
+   * @return the verify response
+   */
+  public SepVerifyTransactionResponse verifyTransaction(SepTransactionResponse callback) {
+    return clientFor(callback).verifyTransaction(callback.getRefNum());
+  }
+
+  /**
+   * Reverses the transaction of a payment callback on the terminal that received the payment.
+   *
+   * @param callback the gateway callback
+   * @return the reverse response
+   */
+  public SepVerifyTransactionResponse reverseTransaction(SepTransactionResponse callback) {
+    return clientFor(callback).reverseTransaction(callback.getRefNum());
+  }
+
+  /**
+   * A terminal with its components, built if this is its first use.
+   *
+   * @param name terminal name
+   * @return the terminal
+   * @throws IllegalArgumentException if no such terminal is configured
+   */
+  public SepTerminal terminal(String name) {
+    Slot slot = terminals.get(name);
+    if (slot == null) {
+      throw new IllegalArgumentException("No SEP terminal named " + name);
+    }
+    return slot.get();
+  }
+
+  /**
+   * All terminals, the default terminal first. Builds the terminals not used yet.
+   *
+   * @return the terminals
+   */
+  public List<SepTerminal> terminals() {
+    List<SepTerminal> built = new ArrayList<>(terminals.size());
+    for (Slot slot : terminals.values()) {
+      built.add(slot.get());
+    }
+    return built;
+  }
+
+  /**
+   * Whether a terminal has been built.
+   *
+   * @param name terminal name
+   * @return true once the terminal received its first use
+   */
+  public boolean isBuilt(String name) {
+    Slot slot = terminals.get(name);
+    return slot != null && slot.terminal != null;
+  }
+
+  /**
+   * Calls the listener with every terminal already built and with every terminal built later, e.g. to bind its
+   * metrics.
+   *
+   * @param listener the listener
+   */
+  public synchronized void onTerminalBuilt(Consumer<SepTerminal> listener) {
+    listeners.add(listener);
+    for (Slot slot : terminals.values()) {
+      if (slot.terminal != null) {
+        listener.accept(slot.terminal);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    closed = true;
+    for (AutoCloseable resource : resources) {
+      try {
+        resource.close();
+      } catch (Exception e) {
+        log.warn("Failed to close SEP terminal resource {}", resource, e);
+      }
+    }
+  }
+
+  private synchronized SepTerminal build(Slot slot) {
+    if (slot.terminal == null) {
+      if (closed) {
+        throw new IllegalStateException("SEP client registry is closed");
+      }
+      SepTerminal terminal = slot.definition.factory().create(resources::add);
+      slot.terminal = terminal;
+      log.debug("SEP terminal '{}' built on first use", terminal.name());
+      for (Consumer<SepTerminal> listener : listeners) {
+        listener.accept(terminal);
+      }
+    }
+    return slot.terminal;
+  }
+
+  private SepClient clientFor(SepTransactionResponse callback) {
+    if (callback.getTerminalId() == null) {
+      return client(DEFAULT_TERMINAL);
+    }
+    return clientForTerminalId(String.valueOf(callback.getTerminalId()));
+  }
+
+  /**
+   * Builds a terminal on its first use.
+   */
+  @FunctionalInterface
+  public interface TerminalFactory {
+    /**
+     * Builds the terminal.
+     *
+     * @param resources receives the resources owned by the terminal (HTTP clients), closed with the registry
+     * @return the terminal
+     */
+    SepTerminal create(Consumer<AutoCloseable> resources);
+  }
+
+  /**
+   * A configured terminal, not built yet.
+   *
+   * @param name       terminal name
+   * @param terminalId terminal identifier assigned by the gateway, for {@link #clientForTerminalId(String)}
+   * @param factory    builds the terminal on its first use
+   */
+  public record TerminalDefinition(String name, String terminalId, TerminalFactory factory) {
+  }
+
+  private final class Slot {
+    private final TerminalDefinition definition;
+    private volatile SepTerminal terminal;
+
+    private Slot(TerminalDefinition definition) {
+      this.definition = definition;
+    }
+
+    private SepTerminal get() {
+      SepTerminal built = terminal;
+      return built != null ? built : build(this);
+    }
+  }
+}
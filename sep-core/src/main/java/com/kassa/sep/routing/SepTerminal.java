@@ -0,0 +1,26 @@
+package com.kassa.sep.routing;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.config.SepConnectionPool;
+import com.kassa.sep.resilience.SepBulkheadInterceptor;
+import com.kassa.sep.resilience.SepCircuitBreakerInterceptor;
+import com.kassa.sep.resilience.SepRateLimiterInterceptor;
+import com.kassa.sep.resilience.SepRetryInterceptor;
+
+/**
+ * A terminal of a {@link SepClientRegistry} with the components it does not share with other terminals.
+ * Components that are disabled are null.
+ *
+ * @param name            name of the terminal ({@code sep.terminals.<name>}, or {@code default})
+ * @param terminalId      terminal identifier assigned by the gateway
+ * @param client          the terminal's client
+ * @param pool            the terminal's connection pool
+ * @param retry           the terminal's retry interceptor
+ * @param circuitBreakers the terminal's circuit breakers
+ * @param bulkheads       the terminal's bulkheads
+ * @param rateLimiters    the terminal's rate limiters
+ */
+public record SepTerminal(String name, String terminalId, SepClient client, SepConnectionPool pool,
+    SepRetryInterceptor retry, SepCircuitBreakerInterceptor circuitBreakers, SepBulkheadInterceptor bulkheads,
+    SepRateLimiterInterceptor rateLimiters) {
+}
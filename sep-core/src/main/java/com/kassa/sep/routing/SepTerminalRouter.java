@@ -0,0 +1,51 @@
+package com.kassa.sep.routing;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Chooses the terminal of a gateway call made through {@link SepClientRegistry}. Define a bean of this type to
+ * replace the default, which routes token requests by ResNum prefix ({@code sep.terminals.*.res-num-prefixes}).
+ */
+@FunctionalInterface
+public interface SepTerminalRouter {
+
+  /**
+   * Routes a call.
+   *
+   * @param operation the gateway operation
+   * @param key       the ResNum of a token request, the RefNum of a verify/reverse
+   * @return name of the terminal, or null for the {@linkplain SepClientRegistry#DEFAULT_TERMINAL default terminal}
+   */
+  String route(SepOperation operation, String key);
+
+  /**
+   * Routes token requests whose ResNum starts with a configured prefix; the longest matching prefix wins.
+   * Verify and reverse calls go to the default terminal, since RefNums carry no merchant prefix; route them by
+   * the terminal of the callback instead (see
+   * {@link SepClientRegistry#verifyTransaction(com.kassa.sep.dto.SepTransactionResponse)}).
+   *
+   * @param terminalsByPrefix terminal name per ResNum prefix
+   * @return the router
+   */
+  static SepTerminalRouter byResNumPrefix(Map<String, String> terminalsByPrefix) {
+    Map<String, String> prefixes = new LinkedHashMap<>();
+    terminalsByPrefix.entrySet().stream()
+      .sorted(Comparator.comparingInt((Map.Entry<String, String> entry) -> entry.getKey().length()).reversed())
+      .forEach(entry -> prefixes.put(entry.getKey(), entry.getValue()));
+    return (operation, key) -> {
+      if (operation != SepOperation.TOKEN || key == null) {
+        return null;
+      }
+      for (Map.Entry<String, String> entry : prefixes.entrySet()) {
+        if (key.startsWith(entry.getKey())) {
+          return entry.getValue();
+        }
+      }
+      return null;
+    };
+  }
+}
@@ -0,0 +1,133 @@
+package com.kassa.sep.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.codec.SepJsonCodec;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.recorder.SepWireTap;
+
+import tools.jackson.core.JacksonException;
+
+/**
+ * {@link SepTransport} on the JDK {@link HttpClient}, for applications that call the gateway without Spring.
+ * <p>
+ * Bodies are encoded and decoded by the {@link SepJsonCodec}, the response is parsed while it streams in, and
+ * connections are kept alive and reused by the {@link HttpClient}. Requests are sent over HTTP/1.1, like the
+ * gateway's own clients. Non-2xx answers, I/O errors, timeouts and unreadable responses are thrown as
+ * {@link SepTransportException}.
+ */
+public class SepHttpClientTransport implements SepTransport {
+  private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final long MIN_TIMEOUT_MILLIS = 1;
+
+  private final HttpClient httpClient;
+  private final String baseUrl;
+  private final SepJsonCodec codec;
+  private final Duration responseTimeout;
+  private final SepWireTap wireTap;
+
+  /**
+   * Creates a transport.
+   *
+   * @param httpClient      the HTTP client; shared by all calls
+   * @param baseUrl         base URL of the gateway, e.g. {@code https://sep.shaparak.ir}
+   * @param codec           codec of the SEP DTOs
+   * @param responseTimeout how long a request waits for the response unless the client asks for less
+   * @param wireTap         wire tap of a {@link com.kassa.sep.recorder.SepFlightRecorder}, or null
+   */
+  public SepHttpClientTransport(HttpClient httpClient, String baseUrl, SepJsonCodec codec, Duration responseTimeout,
+      SepWireTap wireTap) {
+    this.httpClient = httpClient;
+    this.baseUrl = baseUrl;
+    this.codec = codec;
+    this.responseTimeout = responseTimeout;
+    this.wireTap = wireTap;
+  }
+
+  /**
+   * Creates a transport on a new HTTP client with a 5-second connect timeout, for the base URL, terminal and
+   * response timeout of the given settings.
+   *
+   * @param settings settings of the client the transport is for
+   * @return the transport
+   */
+  public static SepHttpClientTransport create(SepClientSettings settings) {
+    HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(DEFAULT_CONNECT_TIMEOUT)
+      .build();
+    SepJsonCodec codec = new SepJsonCodec(
+      settings.terminalId() != null ? List.of(settings.terminalId()) : List.of());
+    return new SepHttpClientTransport(httpClient, settings.baseUrl(), codec, settings.responseTimeout(), null);
+  }
+
+  @Override
+  public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+    byte[] body = codec.write(request);
+    if (wireTap != null) {
+      wireTap.request(body);
+    }
+    HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(baseUrl + path))
+      .timeout(responseTimeoutNanos < 0 ? responseTimeout
+        : Duration.ofMillis(Math.max(MIN_TIMEOUT_MILLIS, TimeUnit.NANOSECONDS.toMillis(responseTimeoutNanos))))
+      .header("Content-Type", "application/json")
+      .header("Accept", "application/json")
+      .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+      .build();
+
+    HttpResponse<InputStream> response;
+    try {
+      response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+    } catch (IOException e) {
+      throw new SepTransportException("I/O error on POST request for \"" + baseUrl + path + "\": " + e,
+        0, isConnectFailure(e), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SepTransportException("Interrupted while waiting for the gateway", 0, e);
+    }
+
+    int status = response.statusCode();
+    InputStream responseBody = response.body();
+    UnaryOperator<InputStream> tap = wireTap != null
+      ? wireTap.response(status, response.headers().firstValueAsLong("Content-Length").orElse(-1)) : null;
+    if (tap != null) {
+      responseBody = tap.apply(responseBody);
+    }
+    try (InputStream in = responseBody) {
+      if (status < 200 || status >= 300) {
+        in.readAllBytes();
+        throw new SepTransportException(status + " on POST request for \"" + baseUrl + path + "\"", status, null);
+      }
+      return codec.read(responseType, in);
+    } catch (JacksonException | IllegalArgumentException e) {
+      throw new SepTransportException("Invalid SEP response: " + e.getMessage(), status, e);
+    } catch (IOException e) {
+      throw new SepTransportException("I/O error reading the response of \"" + baseUrl + path + "\": "
+        + e, status, e);
+    }
+  }
+
+  private static boolean isConnectFailure(IOException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException
+          || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
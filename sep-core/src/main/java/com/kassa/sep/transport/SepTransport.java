@@ -0,0 +1,29 @@
+package com.kassa.sep.transport;
+
+/**
+ * Sends the requests of a {@link com.kassa.sep.SepClient} to the SEP gateway.
+ * <p>
+ * A transport owns the HTTP client, the base URL of the gateway and the JSON encoding of the SEP DTOs; everything
+ * else (interceptors, timeouts derived from latency, deadlines, error handling) is done by the client on top of
+ * it. {@link SepHttpClientTransport} runs on the JDK {@link java.net.http.HttpClient}; the Spring Boot starter
+ * provides one on the Spring {@code RestClient}.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface SepTransport {
+
+  /**
+   * Posts a request to the gateway and decodes its answer.
+   *
+   * @param path                 path of the operation, relative to the gateway's base URL
+   * @param request              request body ({@link com.kassa.sep.dto.SepTokenRequest} or
+   *                             {@link com.kassa.sep.dto.SepVerifyTransactionRequest})
+   * @param responseType         type of the gateway response
+   * @param responseTimeoutNanos how long to wait for the response; negative to wait as long as the transport's
+   *                             own response timeout
+   * @param <T>                  gateway response type
+   * @return the decoded response, or null if the gateway answered without a body
+   * @throws com.kassa.sep.exception.SepTransportException if the call ended without a gateway answer
+   */
+  <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos);
+}
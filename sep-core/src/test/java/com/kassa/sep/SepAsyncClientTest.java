@@ -0,0 +1,72 @@
+package com.kassa.sep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.transport.SepTransport;
+
+class SepAsyncClientTest {
+  private final CountDownLatch gateway = new CountDownLatch(1);
+  private final SepClient client = new SepClient(new SepTransport() {
+    @Override
+    public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+      try {
+        gateway.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return responseType.cast(SepVerifyTransactionResponse.builder().resultCode(0).success(true).build());
+    }
+  }, SepClientSettings.of("http://127.0.0.1:1", "2015"));
+  private ExecutorService executor;
+
+  @AfterEach
+  void release() {
+    gateway.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void failsAQueuedCallWhoseDeadlinePassesBeforeASlotFrees() {
+    executor = Executors.newCachedThreadPool();
+    SepAsyncClient async = new SepAsyncClient(client, executor, 1);
+    CompletableFuture<SepVerifyTransactionResponse> first = async.verifyTransaction("1001");
+
+    CompletableFuture<SepVerifyTransactionResponse> queued = async.verifyTransaction("1002",
+      SepDeadline.after(Duration.ofMillis(50)));
+
+    assertThat(queued).failsWithin(Duration.ofSeconds(5)).withThrowableOfType(Exception.class)
+      .havingRootCause().isInstanceOf(SepDeadlineExceededException.class);
+    assertThat(first).isNotDone();
+    gateway.countDown();
+    assertThat(first).succeedsWithin(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void returnsAFailedFutureWhenTheExecutorRejects() {
+    executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+    SepAsyncClient async = new SepAsyncClient(client, executor, 4);
+    async.verifyTransaction("1001");
+
+    CompletableFuture<SepVerifyTransactionResponse> rejected = async.verifyTransaction("1002");
+
+    assertThat(rejected).isCompletedExceptionally();
+    assertThat(rejected).failsWithin(Duration.ZERO).withThrowableOfType(Exception.class)
+      .havingRootCause().isInstanceOf(RejectedExecutionException.class);
+  }
+}
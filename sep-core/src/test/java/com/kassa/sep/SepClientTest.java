@@ -0,0 +1,81 @@
+package com.kassa.sep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepCircuitOpenException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.transport.SepTransport;
+
+class SepClientTest {
+  private static final SepClientSettings SETTINGS = SepClientSettings.of("http://127.0.0.1:1", "2015");
+
+  @Test
+  void returnsALocalRejectionAsRejected() {
+    SepCallInterceptor breaker = new SepCallInterceptor() {
+      @Override
+      public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+        throw new SepCircuitOpenException(call.operation());
+      }
+    };
+    SepClient client = new SepClient(answering(new SepVerifyTransactionResponse()), SETTINGS, List.of(breaker));
+
+    SepResult<SepVerifyTransactionResponse> result = client.tryVerifyTransaction("1001");
+
+    assertThat(result).isInstanceOfSatisfying(SepResult.Rejected.class,
+      rejected -> assertThat(rejected.code()).isEqualTo(SepCircuitOpenException.ERROR_CODE));
+    assertThatThrownBy(() -> client.verifyTransaction("1001")).isInstanceOf(SepCircuitOpenException.class);
+  }
+
+  @Test
+  void returnsAFailedExchangeAsTransportError() {
+    SepTransportException failure = new SepTransportException("Connection refused", 0, true, null);
+    SepClient client = new SepClient(new SepTransport() {
+      @Override
+      public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+        throw failure;
+      }
+    }, SETTINGS);
+
+    assertThat(client.tryVerifyTransaction("1001")).isEqualTo(new SepResult.TransportError<>(failure));
+  }
+
+  @Test
+  void returnsAMissingResponseAsUnknownGatewayError() {
+    SepClient client = new SepClient(answering(null), SETTINGS);
+
+    assertThat(client.tryReverseTransaction("1001")).isInstanceOfSatisfying(SepResult.GatewayError.class, error -> {
+      assertThat(error.code()).isEqualTo("UNKNOWN");
+      assertThat(error.response()).isNull();
+    });
+    assertThatThrownBy(() -> client.reverseTransaction("1001"))
+      .isInstanceOfSatisfying(SepGatewayException.class, e -> assertThat(e.getErrorCode()).isEqualTo("UNKNOWN"));
+  }
+
+  @Test
+  void rejectionsCaptureNoStackTrace() {
+    SepCircuitOpenException rejection = new SepCircuitOpenException(SepOperation.VERIFY);
+
+    assertThat(rejection.getStackTrace()).isEmpty();
+    assertThat(rejection.getMessage()).isEqualTo("SEP Gateway Error [CIRCUIT_OPEN]: Circuit breaker of VERIFY is open");
+  }
+
+  private static SepTransport answering(Object response) {
+    return new SepTransport() {
+      @Override
+      public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+        return responseType.cast(response);
+      }
+    };
+  }
+}
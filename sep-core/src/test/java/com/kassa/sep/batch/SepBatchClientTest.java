@@ -0,0 +1,71 @@
+package com.kassa.sep.batch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.transport.SepTransport;
+
+class SepBatchClientTest {
+  private final CountDownLatch gateway = new CountDownLatch(1);
+  private final AtomicInteger requests = new AtomicInteger();
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final SepClient client = new SepClient(new SepTransport() {
+    @Override
+    public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+      requests.incrementAndGet();
+      try {
+        gateway.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return responseType.cast(SepVerifyTransactionResponse.builder().resultCode(0).success(true).build());
+    }
+  }, SepClientSettings.of("http://127.0.0.1:1", "2015"));
+
+  @AfterEach
+  void release() {
+    gateway.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  void reportsSlowCallsAndCallsWithoutASlotAsDeadlineExceeded() {
+    SepBatchClient batch = new SepBatchClient(client, executor, 1, Duration.ofMillis(100));
+
+    SepBatchReport report = batch.verifyTransactions(List.of("1001", "1002"));
+
+    assertThat(report.results()).hasSize(2);
+    assertThat(report.results().values()).allSatisfy(result -> {
+      assertThat(result.isSuccess()).isFalse();
+      assertThat(result.error()).isInstanceOf(SepDeadlineExceededException.class);
+    });
+    // the second call never got a slot, so it was never sent
+    assertThat(requests).hasValue(1);
+  }
+
+  @Test
+  void verifiesEveryRefNumOnce() {
+    gateway.countDown();
+    SepBatchClient batch = new SepBatchClient(client, executor, 2, Duration.ofSeconds(5));
+
+    SepBatchReport report = batch.verifyTransactions(List.of("1001", "1002", "1001", "1003"));
+
+    assertThat(report.results()).containsOnlyKeys("1001", "1002", "1003");
+    assertThat(report.succeeded()).isEqualTo(3);
+    assertThat(requests).hasValue(3);
+  }
+}
@@ -0,0 +1,88 @@
+package com.kassa.sep.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepRequestCoalescerTest {
+  private final SepRequestCoalescer coalescer = new SepRequestCoalescer();
+  private final SepVerifyTransactionResponse verified = SepVerifyTransactionResponse.builder().resultCode(0)
+    .success(true).build();
+
+  @Test
+  void sharesTheLeadersResponseWithAFollower() throws Exception {
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch gateway = new CountDownLatch(1);
+    AtomicInteger requests = new AtomicInteger();
+    CompletableFuture<SepVerifyTransactionResponse> leader = CompletableFuture.supplyAsync(() ->
+      coalescer.intercept(verify(SepDeadline.none()), call -> {
+        requests.incrementAndGet();
+        leaderStarted.countDown();
+        await(gateway);
+        return verified;
+      }));
+    assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    CompletableFuture<SepVerifyTransactionResponse> follower = CompletableFuture.supplyAsync(() ->
+      coalescer.intercept(verify(SepDeadline.none()), call -> {
+        requests.incrementAndGet();
+        return null;
+      }));
+    while (coalescer.coalescedCount() == 0) {
+      Thread.onSpinWait();
+    }
+    gateway.countDown();
+
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(verified);
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(verified);
+    assertThat(requests).hasValue(1);
+  }
+
+  @Test
+  void aFollowerGivesUpAtItsOwnDeadline() throws Exception {
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch gateway = new CountDownLatch(1);
+    CompletableFuture<SepVerifyTransactionResponse> leader = CompletableFuture.supplyAsync(() ->
+      coalescer.intercept(verify(SepDeadline.none()), call -> {
+        leaderStarted.countDown();
+        await(gateway);
+        return verified;
+      }));
+    assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> coalescer.intercept(verify(SepDeadline.after(Duration.ofMillis(50))), call -> verified))
+      .isInstanceOf(SepDeadlineExceededException.class);
+
+    gateway.countDown();
+    assertThat(leader.get(5, TimeUnit.SECONDS)).isSameAs(verified);
+    assertThat(coalescer.inFlightCount()).isZero();
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> verify(SepDeadline deadline) {
+    return new SepCall<>(SepOperation.VERIFY, "2015", "1001",
+      SepVerifyTransactionRequest.builder().refNum("1001").terminalNumber(2015).build(),
+      SepVerifyTransactionResponse.class, deadline);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
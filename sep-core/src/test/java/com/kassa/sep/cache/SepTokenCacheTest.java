@@ -0,0 +1,142 @@
+package com.kassa.sep.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepTokenCacheTest {
+  private static final String REDIRECT = "https://shop.example/callback";
+
+  private final SepTokenCache cache = new SepTokenCache(100, Duration.ofMinutes(2));
+  private final List<String> sent = new ArrayList<>();
+
+  @Test
+  void reusesTheTokenIssuedForTheSameRequest() {
+    SepTokenResponse first = token("2015", "res-1", 1000L, REDIRECT, issued("t1"));
+    SepTokenResponse second = token("2015", "res-1", 1000L, REDIRECT, issued("t2"));
+    SepTokenResponse otherTerminal = token("3030", "res-1", 1000L, REDIRECT, issued("t3"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(otherTerminal.getToken()).isEqualTo("t3");
+    assertThat(sent).containsExactly("2015:res-1", "3030:res-1");
+    assertThat(cache.find("2015", "res-1")).contains(first);
+    assertThat(cache.stats()).isEqualTo(new SepTokenCache.Stats(1, 2, 0, 2));
+  }
+
+  @Test
+  void sharesAnInFlightRequestWithConcurrentCallers() throws Exception {
+    CountDownLatch leaderStarted = new CountDownLatch(1);
+    CountDownLatch gateway = new CountDownLatch(1);
+    CompletableFuture<SepTokenResponse> leader = CompletableFuture.supplyAsync(() ->
+      cache.intercept(call("2015", "res-1", 1000L, REDIRECT), call -> {
+        leaderStarted.countDown();
+        await(gateway);
+        return issued("t1");
+      }));
+    assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(cache.find("2015", "res-1")).isEmpty();
+
+    CompletableFuture<SepTokenResponse> follower = CompletableFuture.supplyAsync(() ->
+      token("2015", "res-1", 1000L, REDIRECT, issued("t2")));
+    while (cache.stats().hits() == 0) {
+      Thread.onSpinWait();
+    }
+    gateway.countDown();
+
+    assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get(5, TimeUnit.SECONDS));
+    assertThat(sent).isEmpty();
+  }
+
+  @Test
+  void rejectsAResNumReusedWithADifferentAmountLocally() {
+    token("2015", "res-1", 1000L, REDIRECT, issued("t1"));
+
+    SepTokenResponse rejected = token("2015", "res-1", 2000L, REDIRECT, issued("t2"));
+
+    assertThat(rejected.isSuccess()).isFalse();
+    assertThat(rejected.getErrorCodeEnum()).isEqualTo(SepErrorCode.INVALID_PARAMETERS);
+    assertThat(sent).containsExactly("2015:res-1");
+    assertThat(cache.stats().rejected()).isEqualTo(1);
+  }
+
+  @Test
+  void issuesANewTokenForADifferentRedirectUrl() {
+    token("2015", "res-1", 1000L, REDIRECT, issued("t1"));
+
+    SepTokenResponse second = token("2015", "res-1", 1000L, REDIRECT + "?retry", issued("t2"));
+
+    assertThat(second.getToken()).isEqualTo("t2");
+    assertThat(cache.find("2015", "res-1")).map(SepTokenResponse::getToken).contains("t2");
+    assertThat(sent).hasSize(2);
+  }
+
+  @Test
+  void doesNotCacheFailedRequests() {
+    SepTokenResponse failed = SepTokenResponse.builder().status(-1)
+      .errorCode(SepErrorCode.TERMINAL_NOT_FOUND.getCode()).build();
+    SepTransportException error = new SepTransportException("Connection reset", 0, null);
+
+    assertThat(token("2015", "res-1", 1000L, REDIRECT, failed)).isSameAs(failed);
+    assertThat(cache.find("2015", "res-1")).isEmpty();
+    assertThatThrownBy(() -> cache.intercept(call("2015", "res-1", 1000L, REDIRECT), call -> {
+      throw error;
+    })).isSameAs(error);
+    assertThat(cache.find("2015", "res-1")).isEmpty();
+    assertThat(token("2015", "res-1", 1000L, REDIRECT, issued("t1")).getToken()).isEqualTo("t1");
+
+    assertThat(cache.stats()).extracting(SepTokenCache.Stats::hits, SepTokenCache.Stats::misses)
+      .containsExactly(0L, 3L);
+  }
+
+  @Test
+  void passesOtherOperationsThrough() {
+    SepCall<SepTokenResponse> reverse = new SepCall<>(SepOperation.REVERSE, "2015", "1001", null,
+      SepTokenResponse.class);
+
+    cache.intercept(reverse, call -> issued("t1"));
+    cache.intercept(reverse, call -> issued("t1"));
+
+    assertThat(cache.stats()).isEqualTo(new SepTokenCache.Stats(0, 0, 0, 0));
+  }
+
+  private SepTokenResponse token(String terminalId, String resNum, Long amount, String redirectUrl,
+      SepTokenResponse answer) {
+    return cache.intercept(call(terminalId, resNum, amount, redirectUrl), call -> {
+      sent.add(terminalId + ":" + resNum);
+      return answer;
+    });
+  }
+
+  private static SepCall<SepTokenResponse> call(String terminalId, String resNum, Long amount, String redirectUrl) {
+    SepTokenRequest request = SepTokenRequest.builder().action("token").terminalId(terminalId).amount(amount)
+      .resNum(resNum).redirectUrl(redirectUrl).build();
+    return new SepCall<>(SepOperation.TOKEN, terminalId, resNum, request, SepTokenResponse.class);
+  }
+
+  private static SepTokenResponse issued(String token) {
+    return SepTokenResponse.builder().status(1).token(token).build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
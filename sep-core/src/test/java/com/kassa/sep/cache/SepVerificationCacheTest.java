@@ -0,0 +1,120 @@
+package com.kassa.sep.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepVerificationCacheTest {
+  private final SepVerificationCache cache = new SepVerificationCache(3, Duration.ofMinutes(30));
+  private final List<String> sent = new ArrayList<>();
+
+  @Test
+  void answersRepeatVerifiesOfTheSameTerminalFromTheCache() {
+    SepVerifyTransactionResponse first = verify("2015", "1001", verified("1001"));
+    SepVerifyTransactionResponse second = verify("2015", "1001", null);
+    SepVerifyTransactionResponse otherTerminal = verify("3030", "1001", verified("1001"));
+
+    assertThat(second).isSameAs(first);
+    assertThat(otherTerminal).isNotSameAs(first);
+    assertThat(sent).containsExactly("2015:1001", "3030:1001");
+    assertThat(cache.findDetail("2015", "1001")).map(SepTransactionDetail::getRefNum).contains("1001");
+    assertThat(cache.find("9999", "1001")).isEmpty();
+    assertThat(cache.stats()).isEqualTo(new SepVerificationCache.Stats(1, 2, 0, 2));
+    assertThat(cache.stats().hitRate()).isEqualTo(1 / 3.0);
+  }
+
+  @Test
+  void doesNotCacheUnsuccessfulVerifies() {
+    verify("2015", "1001", result(SepResultCode.TRANSACTION_NOT_FOUND));
+    verify("2015", "1001", result(SepResultCode.TRANSACTION_NOT_FOUND));
+
+    assertThat(sent).hasSize(2);
+    assertThat(cache.find("2015", "1001")).isEmpty();
+  }
+
+  @Test
+  void resolvesADuplicateRequestFromTheCache() {
+    SepVerifyTransactionResponse earlier = verified("1001");
+    // a concurrent caller verifies the RefNum while this call is on the wire
+    SepVerifyTransactionResponse response = cache.intercept(call(SepOperation.VERIFY, "2015", "1001"), call -> {
+      verify("2015", "1001", earlier);
+      return result(SepResultCode.DUPLICATE_REQUEST);
+    });
+    SepVerifyTransactionResponse unresolved = verify("3030", "1001", result(SepResultCode.DUPLICATE_REQUEST));
+
+    assertThat(response).isSameAs(earlier);
+    assertThat(unresolved.getResultCodeEnum()).isEqualTo(SepResultCode.DUPLICATE_REQUEST);
+    assertThat(cache.stats().duplicatesResolved()).isEqualTo(1);
+  }
+
+  @Test
+  void evictsTheRefNumOfTheTerminalOnASuccessfulReverse() {
+    verify("2015", "1001", verified("1001"));
+    verify("3030", "1001", verified("1001"));
+
+    cache.intercept(call(SepOperation.REVERSE, "2015", "1001"), call -> result(SepResultCode.TRANSACTION_NOT_FOUND));
+    assertThat(cache.find("2015", "1001")).isPresent();
+
+    cache.intercept(call(SepOperation.REVERSE, "2015", "1001"), call -> verified("1001"));
+    assertThat(cache.find("2015", "1001")).isEmpty();
+    assertThat(cache.find("3030", "1001")).isPresent();
+
+    cache.evict("3030", "1001");
+    assertThat(cache.find("3030", "1001")).isEmpty();
+  }
+
+  @Test
+  void evictsTheOldestEntriesBeyondTheMaximumSize() {
+    for (int i = 1; i <= 5; i++) {
+      verify("2015", "100" + i, verified("100" + i));
+    }
+
+    assertThat(cache.stats().size()).isEqualTo(3);
+    assertThat(cache.find("2015", "1001")).isEmpty();
+    assertThat(cache.find("2015", "1002")).isEmpty();
+    assertThat(cache.find("2015", "1005")).isPresent();
+  }
+
+  @Test
+  void expiresEntriesAfterTheTtl() throws InterruptedException {
+    SepVerificationCache shortLived = new SepVerificationCache(3, Duration.ofMillis(1));
+    shortLived.intercept(call(SepOperation.VERIFY, "2015", "1001"), call -> verified("1001"));
+
+    Thread.sleep(5);
+
+    assertThat(shortLived.find("2015", "1001")).isEmpty();
+  }
+
+  private SepVerifyTransactionResponse verify(String terminalId, String refNum, SepVerifyTransactionResponse answer) {
+    return cache.intercept(call(SepOperation.VERIFY, terminalId, refNum), call -> {
+      sent.add(terminalId + ":" + refNum);
+      return answer;
+    });
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> call(SepOperation operation, String terminalId,
+      String refNum) {
+    return new SepCall<>(operation, terminalId, refNum, new SepVerifyTransactionRequest(refNum,
+      Integer.parseInt(terminalId)), SepVerifyTransactionResponse.class);
+  }
+
+  private static SepVerifyTransactionResponse verified(String refNum) {
+    return SepVerifyTransactionResponse.builder().resultCode(0).success(true)
+      .transactionDetail(SepTransactionDetail.builder().refNum(refNum).build()).build();
+  }
+
+  private static SepVerifyTransactionResponse result(SepResultCode code) {
+    return SepVerifyTransactionResponse.builder().resultCode(code.getCode()).success(false).build();
+  }
+}
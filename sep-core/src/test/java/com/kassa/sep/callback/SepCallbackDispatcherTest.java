@@ -0,0 +1,147 @@
+package com.kassa.sep.callback;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.outbox.SepOutboxJournal;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.routing.SepClientRegistry;
+import com.kassa.sep.routing.SepClientRegistry.TerminalDefinition;
+import com.kassa.sep.routing.SepTerminal;
+import com.kassa.sep.transport.SepTransport;
+
+class SepCallbackDispatcherTest {
+  private static final Executor INLINE = Runnable::run;
+
+  @TempDir
+  Path directory;
+
+  private final List<String> sent = new CopyOnWriteArrayList<>();
+  private final List<String> events = new CopyOnWriteArrayList<>();
+  private final SepClientRegistry registry = new SepClientRegistry(
+    List.of(terminal(SepClientRegistry.DEFAULT_TERMINAL, "2015"), terminal("charity", "3030")),
+    (operation, key) -> null);
+  private final SepCallbackListener listener = new SepCallbackListener() {
+    @Override
+    public void onVerified(SepTransactionResponse callback, SepVerifyTransactionResponse verify) {
+      events.add("verified " + callback.getRefNum());
+    }
+
+    @Override
+    public void onRejected(SepTransactionResponse callback) {
+      events.add("rejected " + callback.getResNum());
+    }
+
+    @Override
+    public void onFailed(SepTransactionResponse callback, RuntimeException error) {
+      events.add("failed " + callback.getRefNum() + " " + ((SepGatewayException) error).getErrorCode());
+    }
+  };
+
+  @Test
+  void rejectsCallbacksOfUnsuccessfulPaymentsWithoutVerifying() {
+    SepCallbackDispatcher dispatcher = new SepCallbackDispatcher(registry, null, INLINE, List.of(listener));
+
+    assertThat(dispatcher.dispatch(callback("res-1", "R1", null, 1))).isFalse();
+    assertThat(dispatcher.dispatch(callback("res-2", " ", null, 2))).isFalse();
+    assertThat(dispatcher.dispatch(callback("res-3", null, null, 2))).isFalse();
+
+    assertThat(sent).isEmpty();
+    assertThat(events).containsExactly("rejected res-1", "rejected res-2", "rejected res-3");
+  }
+
+  @Test
+  void verifiesOnTheTerminalThatReceivedThePayment() {
+    SepCallbackDispatcher dispatcher = new SepCallbackDispatcher(registry, null, INLINE, List.of(listener));
+
+    assertThat(dispatcher.dispatch(callback("res-1", "R1", 3030L, 2))).isTrue();
+    assertThat(dispatcher.dispatch(callback("res-2", "R2", null, 2))).isTrue();
+    assertThat(dispatcher.dispatch(callback("res-3", "NOT_FOUND", null, 2))).isTrue();
+
+    assertThat(sent).containsExactly("3030:R1", "2015:R2", "2015:NOT_FOUND");
+    assertThat(events).containsExactly("verified R1", "verified R2", "failed NOT_FOUND -2");
+  }
+
+  @Test
+  void reportsToTheRemainingListenersWhenOneFails() {
+    SepCallbackListener failing = (callback, verify) -> {
+      throw new IllegalStateException("listener failed");
+    };
+    SepCallbackDispatcher dispatcher = new SepCallbackDispatcher(registry, null, INLINE, List.of(failing, listener));
+
+    dispatcher.dispatch(callback("res-1", "R1", null, 2));
+
+    assertThat(events).containsExactly("verified R1");
+  }
+
+  @Test
+  void verifiesOnTheCallersThreadWhenTheExecutorIsSaturated() {
+    Executor saturated = task -> {
+      throw new RejectedExecutionException("saturated");
+    };
+    SepCallbackDispatcher dispatcher = new SepCallbackDispatcher(registry, null, saturated, List.of(listener));
+
+    dispatcher.dispatch(callback("res-1", "R1", null, 2));
+    dispatcher.dispatch(callback("res-2", "R2", null, 1));
+
+    assertThat(events).containsExactly("verified R1", "rejected res-2");
+  }
+
+  @Test
+  @Timeout(10)
+  void verifiesThroughTheOutboxWhenOneIsConfigured() throws InterruptedException {
+    SepOutboxJournal journal = SepOutboxJournal.open(directory, SepOutboxJournal.MIN_SEGMENT_SIZE,
+      Duration.ofMillis(100));
+    try (SepVerificationOutbox outbox = new SepVerificationOutbox(journal, registry,
+        Executors.newSingleThreadScheduledExecutor(), Duration.ofMillis(10), Duration.ofMinutes(30))) {
+      SepCallbackDispatcher dispatcher = new SepCallbackDispatcher(registry, outbox, INLINE, List.of(listener));
+
+      assertThat(dispatcher.dispatch(callback("res-1", "R1", 3030L, 2))).isTrue();
+      assertThat(dispatcher.dispatch(callback("res-2", "NOT_FOUND", null, 2))).isTrue();
+
+      while (events.size() < 2) {
+        Thread.sleep(1);
+      }
+      assertThat(events).containsExactlyInAnyOrder("verified R1", "failed NOT_FOUND -2");
+      assertThat(sent).containsExactlyInAnyOrder("3030:R1", "2015:NOT_FOUND");
+      assertThat(outbox.pendingCount()).isZero();
+    }
+  }
+
+  private static SepTransactionResponse callback(String resNum, String refNum, Long terminalId, int status) {
+    return SepTransactionResponse.builder().resNum(resNum).refNum(refNum).terminalId(terminalId).status(status)
+      .build();
+  }
+
+  private TerminalDefinition terminal(String name, String terminalId) {
+    SepClient client = new SepClient(new SepTransport() {
+      @Override
+      public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+        String refNum = ((SepVerifyTransactionRequest) request).getRefNum();
+        sent.add(terminalId + ":" + refNum);
+        return responseType.cast(refNum.equals("NOT_FOUND")
+          ? SepVerifyTransactionResponse.builder().resultCode(-2).success(false).build()
+          : SepVerifyTransactionResponse.builder().resultCode(0).success(true).build());
+      }
+    }, SepClientSettings.of("http://127.0.0.1:1", terminalId));
+    return new TerminalDefinition(name, terminalId,
+      resources -> new SepTerminal(name, terminalId, client, null, null, null, null, null));
+  }
+}
@@ -0,0 +1,199 @@
+package com.kassa.sep.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+class SepJsonCodecTest {
+  private final SepJsonCodec codec = new SepJsonCodec(List.of("2015", "not-a-number"));
+  private final JsonMapper mapper = JsonMapper.builder().build();
+
+  static Stream<String> strings() {
+    return Stream.of(null, "", "plain", "quote \" and back\\slash", "/path?a=1&b=<2>",
+      "controls \n\r\t\b\f \u0000 \u0001 \u001f \u007f", "سلام ۱۲",
+      "emoji 😀 and 𝄞", "separators   ");
+  }
+
+  @ParameterizedTest
+  @MethodSource("strings")
+  void writesTokenRequestsLikeDataBinding(String value) {
+    for (String terminalId : new String[] { "2015", "3001", value }) {
+      for (String action : new String[] { "token", value }) {
+        assertWritesLikeDataBinding(new SepTokenRequest(action, terminalId, 1_000L, value, value, value));
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("strings")
+  void writesVerifyRequestsLikeDataBinding(String value) {
+    for (Integer terminalNumber : new Integer[] { 2015, 3001, -1, null, Integer.MIN_VALUE }) {
+      assertWritesLikeDataBinding(new SepVerifyTransactionRequest(value, terminalNumber));
+    }
+  }
+
+  @Test
+  void writesExtremeAmountsLikeDataBinding() {
+    for (Long amount : new Long[] { null, 0L, -1L, Long.MAX_VALUE, Long.MIN_VALUE }) {
+      assertWritesLikeDataBinding(new SepTokenRequest("token", "2015", amount, "r-1", null, null));
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("strings")
+  void writesAndReadsBackVerifyResponses(String value) {
+    SepVerifyTransactionResponse response = verifyResponse(value);
+
+    byte[] body = codec.writeResponse(response);
+
+    assertThat(mapper.readValue(body, SepVerifyTransactionResponse.class)).usingRecursiveComparison()
+      .isEqualTo(response);
+    assertThat(read(SepVerifyTransactionResponse.class, body)).usingRecursiveComparison().isEqualTo(response);
+  }
+
+  @Test
+  void writesAndReadsBackAVerifyResponseWithoutDetail() {
+    SepVerifyTransactionResponse response = new SepVerifyTransactionResponse(null, -104, null, null);
+
+    byte[] body = codec.writeResponse(response);
+
+    assertThat(mapper.readValue(body, SepVerifyTransactionResponse.class)).usingRecursiveComparison()
+      .isEqualTo(response);
+    assertThat(read(SepVerifyTransactionResponse.class, body)).usingRecursiveComparison().isEqualTo(response);
+  }
+
+  @ParameterizedTest
+  @MethodSource("strings")
+  void readsWhatDataBindingWrites(String value) {
+    SepVerifyTransactionResponse verify = verifyResponse(value);
+    SepTokenResponse token = new SepTokenResponse(-1, value, value, value);
+
+    assertReadsLikeDataBinding(SepVerifyTransactionResponse.class, mapper.writeValueAsString(verify));
+    assertReadsLikeDataBinding(SepTransactionDetail.class, mapper.writeValueAsString(verify.getTransactionDetail()));
+    assertReadsLikeDataBinding(SepTokenResponse.class, mapper.writeValueAsString(token));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "{}",
+    "{\"status\":null,\"token\":null,\"errorCode\":null,\"errorDesc\":null}",
+    "{\"status\":\"1\",\"token\":\"abc\"}",
+    "{\"status\":\" 1 \",\"token\":42,\"errorCode\":5,\"errorDesc\":true}",
+    "{\"status\":\"\",\"token\":1.50}",
+    "{\"status\":1.0,\"token\":\"abc\"}",
+    "{\"status\":-1,\"errorCode\":\"5\",\"errorDesc\":\"\\u0646\\u0627\\u0645 \\ud83d\\ude00 \\u001F\"}",
+    "{\"unknown\":{\"nested\":[1,{\"a\":null}]},\"status\":1,\"more\":[],\"token\":\"t\",\"last\":\"x\"}"
+  })
+  void readsTokenResponsesLikeDataBinding(String json) {
+    assertReadsLikeDataBinding(SepTokenResponse.class, json);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "{}",
+    "{\"TransactionDetail\":null,\"ResultCode\":null,\"ResultDescription\":null,\"Success\":null}",
+    "{\"TransactionDetail\":{},\"ResultCode\":\"0\",\"Success\":\"true\"}",
+    "{\"ResultCode\":\"-104\",\"ResultDescription\":\"\\\"quoted\\\"\",\"Success\":false}",
+    "{\"ResultCode\":0,\"Success\":\"false\"}",
+    "{\"ResultCode\":\"\",\"Success\":\"\"}",
+    "{\"ResultCode\":0,\"Success\":1}",
+    "{\"ResultCode\":0,\"Success\":0}",
+    "{\"ResultCode\":0,\"Success\":2}",
+    "{\"ResultCode\":0,\"Success\":\"TRUE\"}",
+    "{\"ResultCode\":0,\"Success\":\"True\"}",
+    "{\"ResultCode\":0,\"Success\":\" true \"}",
+    "{\"ResultCode\":1.9,\"Success\":true}",
+    "{\"ResultCode\":\" \"}",
+    "{\"TransactionDetail\":{\"OrginalAmount\":1e3}}",
+    "{\"Extra\":{\"TransactionDetail\":{\"RRN\":\"wrong\"}},\"TransactionDetail\":{\"RRN\":\"1\",\"Other\":[{}]},"
+      + "\"ResultCode\":0}",
+    "{\"TransactionDetail\":{\"RRN\":14,\"RefNum\":\"r\",\"TerminalNumber\":\"2015\",\"OrginalAmount\":\"1000\","
+      + "\"AffectiveAmount\":\" 990 \",\"StraceDate\":\"2024-01-01 10:00:00\",\"StraceNo\":123},\"Success\":true}"
+  })
+  void readsVerifyResponsesLikeDataBinding(String json) {
+    assertReadsLikeDataBinding(SepVerifyTransactionResponse.class, json);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "[]",
+    "\"text\"",
+    "{\"status\":[1]}",
+    "{\"status\":{}}",
+    "{\"status\":\"one\"}",
+    "{\"status\":\"1.5\"}",
+    "{\"status\":12345678901}",
+    "{\"token\":{\"a\":1}}",
+    "{\"token\":\"unterminated}"
+  })
+  void rejectsTokenResponsesThatDataBindingRejects(String json) {
+    assertThatThrownBy(() -> mapper.readValue(json, SepTokenResponse.class)).isInstanceOf(JacksonException.class);
+    assertThatThrownBy(() -> read(SepTokenResponse.class, json.getBytes(StandardCharsets.UTF_8)))
+      .isInstanceOf(JacksonException.class);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "{\"Success\":\"yes\"}",
+    "{\"Success\":\"1\"}",
+    "{\"Success\":1.0}",
+    "{\"ResultCode\":\"1.0\"}",
+    "{\"ResultCode\":\"2147483648\"}",
+    "{\"TransactionDetail\":{\"OrginalAmount\":\"1e3\"}}",
+    "{\"TransactionDetail\":{\"OrginalAmount\":\"92233720368547758070\"}}",
+    "{\"TransactionDetail\":\"\"}",
+    "{\"TransactionDetail\":[]}",
+    "{\"TransactionDetail\":{\"RRN\":[\"1\"]}}"
+  })
+  void rejectsVerifyResponsesThatDataBindingRejects(String json) {
+    assertThatThrownBy(() -> mapper.readValue(json, SepVerifyTransactionResponse.class))
+      .isInstanceOf(JacksonException.class);
+    assertThatThrownBy(() -> read(SepVerifyTransactionResponse.class, json.getBytes(StandardCharsets.UTF_8)))
+      .isInstanceOf(JacksonException.class);
+  }
+
+  @Test
+  void readsAnEmptyOrNullBodyAsNull() {
+    assertThat(read(SepTokenResponse.class, new byte[0])).isNull();
+    assertThat(read(SepVerifyTransactionResponse.class, "null".getBytes(StandardCharsets.UTF_8))).isNull();
+  }
+
+  private void assertWritesLikeDataBinding(Object request) {
+    assertThat(new String(codec.write(request), StandardCharsets.UTF_8))
+      .isEqualTo(mapper.writeValueAsString(request));
+  }
+
+  private <T> void assertReadsLikeDataBinding(Class<T> type, String json) {
+    T expected = mapper.readValue(json, type);
+
+    assertThat(read(type, json.getBytes(StandardCharsets.UTF_8))).usingRecursiveComparison().isEqualTo(expected);
+  }
+
+  private <T> T read(Class<T> type, byte[] body) {
+    return codec.read(type, new ByteArrayInputStream(body));
+  }
+
+  private static SepVerifyTransactionResponse verifyResponse(String value) {
+    SepTransactionDetail detail = new SepTransactionDetail(value, value, value, value, 2015, Long.MAX_VALUE,
+      Long.MIN_VALUE, value, value);
+    return new SepVerifyTransactionResponse(detail, 0, value, Boolean.TRUE);
+  }
+}
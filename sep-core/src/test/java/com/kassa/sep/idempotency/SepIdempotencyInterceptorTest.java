@@ -0,0 +1,74 @@
+package com.kassa.sep.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepBulkheadFullException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.idempotency.SepClaim.State;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepIdempotencyInterceptorTest {
+  private static final Duration LEASE = Duration.ofSeconds(30);
+
+  private final SepInMemoryIdempotencyStore store = new SepInMemoryIdempotencyStore();
+  private final SepIdempotencyInterceptor interceptor = new SepIdempotencyInterceptor(store, "node-1", LEASE,
+    Duration.ofHours(1), Duration.ZERO, Duration.ofMillis(10));
+
+  @Test
+  void keepsTheLeaseAfterAReadTimeout() {
+    SepTransportException timeout = new SepTransportException("Read timed out", 0, null);
+
+    assertThatThrownBy(() -> interceptor.intercept(reverse(), call -> {
+      throw timeout;
+    })).isSameAs(timeout);
+
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.HELD);
+  }
+
+  @Test
+  void releasesTheLeaseOfACallRejectedLocally() {
+    SepBulkheadFullException rejection = new SepBulkheadFullException(SepOperation.REVERSE, 4);
+
+    assertThatThrownBy(() -> interceptor.intercept(reverse(), call -> {
+      throw rejection;
+    })).isSameAs(rejection);
+
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.ACQUIRED);
+  }
+
+  @Test
+  void keepsTheLeaseOfACallRejectedLocallyAfterAnAttemptWasSent() {
+    SepBulkheadFullException rejection = new SepBulkheadFullException(SepOperation.REVERSE, 4);
+    rejection.addSuppressed(new SepTransportException("Read timed out", 0, null));
+
+    assertThatThrownBy(() -> interceptor.intercept(reverse(), call -> {
+      throw rejection;
+    })).isSameAs(rejection);
+
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.HELD);
+  }
+
+  @Test
+  void releasesTheLeaseAfterAnUnsuccessfulAnswer() {
+    SepVerifyTransactionResponse failed = SepVerifyTransactionResponse.builder().resultCode(-104).success(false)
+      .build();
+
+    assertThat(interceptor.intercept(reverse(), call -> failed)).isSameAs(failed);
+
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.ACQUIRED);
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> reverse() {
+    return new SepCall<>(SepOperation.REVERSE, "2015", "REF-1",
+      SepVerifyTransactionRequest.builder().refNum("REF-1").terminalNumber(2015).build(),
+      SepVerifyTransactionResponse.class);
+  }
+}
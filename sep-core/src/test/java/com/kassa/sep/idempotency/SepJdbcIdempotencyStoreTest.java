@@ -0,0 +1,207 @@
+package com.kassa.sep.idempotency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.idempotency.SepClaim.State;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepJdbcIdempotencyStoreTest {
+  private static final Duration LEASE = Duration.ofSeconds(30);
+  private static final Duration RETENTION = Duration.ofHours(1);
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+  private JdbcDataSource dataSource;
+  private SepJdbcIdempotencyStore store;
+
+  @BeforeEach
+  void createTable() throws SQLException {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE sep_idempotency ("
+        + " operation VARCHAR(16) NOT NULL, ref_num VARCHAR(64) NOT NULL, holder VARCHAR(128) NOT NULL,"
+        + " expires_at BIGINT NOT NULL, response VARCHAR(2048), PRIMARY KEY (operation, ref_num))");
+    }
+    store = new SepJdbcIdempotencyStore(dataSource, "sep_idempotency", clock);
+  }
+
+  @Test
+  void grantsTheLeaseToTheFirstClaimOnly() {
+    SepClaim first = store.claim(SepOperation.REVERSE, "REF-1", "node-1/1", LEASE);
+    SepClaim second = store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE);
+
+    assertThat(first.state()).isEqualTo(State.ACQUIRED);
+    assertThat(first.expiresAt()).isEqualTo(clock.instant().plus(LEASE));
+    assertThat(second.state()).isEqualTo(State.HELD);
+    assertThat(second.holder()).isEqualTo("node-1/1");
+    assertThat(store.claim(SepOperation.VERIFY, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.ACQUIRED);
+  }
+
+  @Test
+  void takesOverAnExpiredLease() {
+    store.claim(SepOperation.REVERSE, "REF-1", "node-1/1", LEASE);
+    clock.advance(LEASE);
+
+    SepClaim takeOver = store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE);
+
+    assertThat(takeOver.state()).isEqualTo(State.ACQUIRED);
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-3/1", LEASE).holder()).isEqualTo("node-2/1");
+  }
+
+  @Test
+  void answersLaterClaimsWithThePublishedOutcome() {
+    store.claim(SepOperation.VERIFY, "REF-1", "node-1/1", LEASE);
+    store.complete(SepOperation.VERIFY, "REF-1", "node-1/1", success(), RETENTION);
+
+    SepClaim claim = store.claim(SepOperation.VERIFY, "REF-1", "node-2/1", LEASE);
+
+    assertThat(claim.state()).isEqualTo(State.COMPLETED);
+    assertThat(claim.holder()).isEqualTo("node-1/1");
+    assertThat(claim.expiresAt()).isEqualTo(clock.instant().plus(RETENTION));
+    assertThat(claim.response().isSuccess()).isTrue();
+    assertThat(claim.response().getResultDescription()).isEqualTo("OK");
+  }
+
+  @Test
+  void keepsTheEntryOfAnOwnerThatTookOverTheLease() {
+    store.claim(SepOperation.REVERSE, "REF-1", "node-1/1", LEASE);
+    clock.advance(LEASE);
+    store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE);
+
+    store.complete(SepOperation.REVERSE, "REF-1", "node-1/1", success(), RETENTION);
+
+    SepClaim claim = store.claim(SepOperation.REVERSE, "REF-1", "node-3/1", LEASE);
+    assertThat(claim.state()).isEqualTo(State.HELD);
+    assertThat(claim.holder()).isEqualTo("node-2/1");
+  }
+
+  @Test
+  void publishesTheOutcomeOfAPurgedLease() {
+    store.claim(SepOperation.VERIFY, "REF-1", "node-1/1", LEASE);
+    clock.advance(LEASE);
+    store.purgeExpired();
+
+    store.complete(SepOperation.VERIFY, "REF-1", "node-1/1", success(), RETENTION);
+
+    assertThat(store.claim(SepOperation.VERIFY, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.COMPLETED);
+  }
+
+  @Test
+  void releasesOnlyTheOwnersLease() {
+    store.claim(SepOperation.REVERSE, "REF-1", "node-1/1", LEASE);
+
+    store.release(SepOperation.REVERSE, "REF-1", "node-2/1");
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.HELD);
+
+    store.release(SepOperation.REVERSE, "REF-1", "node-1/1");
+    assertThat(store.claim(SepOperation.REVERSE, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.ACQUIRED);
+  }
+
+  @Test
+  void doesNotReleaseAPublishedOutcome() {
+    store.claim(SepOperation.VERIFY, "REF-1", "node-1/1", LEASE);
+    store.complete(SepOperation.VERIFY, "REF-1", "node-1/1", success(), RETENTION);
+
+    store.release(SepOperation.VERIFY, "REF-1", "node-1/1");
+
+    assertThat(store.claim(SepOperation.VERIFY, "REF-1", "node-2/1", LEASE).state()).isEqualTo(State.COMPLETED);
+  }
+
+  @Test
+  void purgesExpiredLeasesAndOutcomesOnly() {
+    store.claim(SepOperation.VERIFY, "REF-1", "node-1/1", LEASE);
+    store.claim(SepOperation.VERIFY, "REF-2", "node-1/2", LEASE);
+    store.complete(SepOperation.VERIFY, "REF-2", "node-1/2", success(), RETENTION);
+    clock.advance(LEASE);
+    store.claim(SepOperation.VERIFY, "REF-3", "node-1/3", LEASE);
+
+    assertThat(store.purgeExpired()).isEqualTo(1);
+    clock.advance(RETENTION);
+    assertThat(store.purgeExpired()).isEqualTo(2);
+    assertThat(store.claim(SepOperation.VERIFY, "REF-2", "node-2/1", LEASE).state()).isEqualTo(State.ACQUIRED);
+  }
+
+  @Test
+  void grantsARacedLeaseToOneClaimant() throws Exception {
+    int rounds = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int round = 0; round < rounds; round++) {
+        String refNum = "REF-" + round;
+        CyclicBarrier start = new CyclicBarrier(2);
+        List<Future<SepClaim>> claims = new ArrayList<>();
+        for (String owner : List.of("node-1/" + round, "node-2/" + round)) {
+          claims.add(executor.submit(() -> {
+            start.await();
+            return store.claim(SepOperation.REVERSE, refNum, owner, LEASE);
+          }));
+        }
+        SepClaim first = claims.get(0).get();
+        SepClaim second = claims.get(1).get();
+
+        assertThat(List.of(first.state(), second.state())).containsExactlyInAnyOrder(State.ACQUIRED, State.HELD);
+        SepClaim winner = first.state() == State.ACQUIRED ? first : second;
+        SepClaim loser = first.state() == State.ACQUIRED ? second : first;
+        assertThat(loser.holder()).isEqualTo(winner.holder());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static SepVerifyTransactionResponse success() {
+    return SepVerifyTransactionResponse.builder()
+      .resultCode(0)
+      .resultDescription("OK")
+      .success(true)
+      .build();
+  }
+
+  private static final class MutableClock extends Clock {
+    private volatile Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.kassa.sep.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class SepOutboxJournalTest {
+  private static final Duration NEVER = Duration.ofHours(1);
+
+  @TempDir
+  Path directory;
+
+  private final List<SepOutboxJournal> journals = new ArrayList<>();
+
+  @AfterEach
+  void close() {
+    journals.forEach(SepOutboxJournal::close);
+  }
+
+  @Test
+  void keepsPaymentsPendingUntilDone() {
+    SepOutboxJournal journal = open();
+
+    journal.appendPending(entry(1), false);
+    journal.appendPending(entry(2), false);
+    journal.appendPending(entry(1), false);
+    journal.appendDone("ref-2");
+    journal.appendDone("unknown");
+
+    assertThat(journal.pending()).containsExactly(entry(1));
+  }
+
+  @Test
+  void replaysTheJournalAfterClose() {
+    SepOutboxJournal journal = open();
+    journal.appendPending(entry(1), false);
+    journal.appendPending(new SepOutboxEntry("ref-2", null, 2), false);
+    journal.appendPending(entry(3), false);
+    journal.appendDone("ref-1");
+    journal.close();
+
+    assertThatThrownBy(() -> journal.appendPending(entry(4), false)).isInstanceOf(IllegalStateException.class);
+    journal.appendDone("ref-3");
+
+    SepOutboxJournal reopened = open();
+    assertThat(reopened.pending()).containsExactly(new SepOutboxEntry("ref-2", null, 2), entry(3));
+    reopened.appendPending(entry(4), false);
+    reopened.close();
+
+    assertThat(open().pending()).containsExactly(new SepOutboxEntry("ref-2", null, 2), entry(3), entry(4));
+  }
+
+  @Test
+  void ignoresATornRecordAndOverwritesItOnReplay() throws IOException {
+    SepOutboxJournal journal = open();
+    journal.appendPending(entry(1), false);
+    journal.appendPending(entry(2), false);
+    journal.close();
+    Path segment = onlySegment();
+    tearLastRecord(segment);
+
+    SepOutboxJournal reopened = open();
+    assertThat(reopened.pending()).containsExactly(entry(1));
+    reopened.appendPending(entry(3), false);
+    reopened.close();
+
+    assertThat(open().pending()).containsExactly(entry(1), entry(3));
+  }
+
+  @Test
+  void tracksPendingAndDoneAcrossSegmentRolls() {
+    SepOutboxJournal journal = open();
+    int sealed = fillUntilSegment(journal, 0, 2);
+    for (int i = 1; i < sealed; i++) {
+      journal.appendDone(ref(i));
+    }
+
+    // the roll to the third segment copies the last entry of the first one and deletes it
+    int last = fillUntilSegment(journal, sealed, 3);
+
+    assertThat(journal.stats().segments()).isEqualTo(2);
+    List<SepOutboxEntry> expected = new ArrayList<>();
+    expected.add(longEntry(0));
+    for (int i = sealed; i < last; i++) {
+      expected.add(longEntry(i));
+    }
+    assertThat(journal.pending()).containsExactlyElementsOf(expected);
+    journal.appendDone(ref(0));
+    journal.appendDone(ref(sealed));
+    expected.remove(0);
+    expected.remove(0);
+    journal.close();
+
+    SepOutboxJournal reopened = open();
+    assertThat(reopened.pending()).containsExactlyElementsOf(expected);
+    assertThat(reopened.stats().segments()).isEqualTo(2);
+  }
+
+  @Test
+  @Timeout(10)
+  void waitsForTheGroupCommitOnlyWhenAskedTo() {
+    SepOutboxJournal journal = open();
+
+    journal.appendPending(entry(1), false);
+    assertThat(journal.stats().commits()).isZero();
+
+    journal.appendPending(entry(2), true);
+    assertThat(journal.stats().commits()).isEqualTo(1);
+
+    // an entry already pending is committed with the first one
+    journal.appendPending(entry(2), true);
+    assertThat(journal.stats().commits()).isEqualTo(1);
+  }
+
+  private SepOutboxJournal open() {
+    SepOutboxJournal journal = SepOutboxJournal.open(directory, SepOutboxJournal.MIN_SEGMENT_SIZE, NEVER);
+    journals.add(journal);
+    return journal;
+  }
+
+  private int fillUntilSegment(SepOutboxJournal journal, int from, long sequence) {
+    Path segment = directory.resolve(String.format("sep-outbox-%016d.log", sequence));
+    int i = from;
+    while (!Files.exists(segment)) {
+      journal.appendPending(longEntry(i++), false);
+    }
+    return i;
+  }
+
+  private Path onlySegment() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      List<Path> segments = files.toList();
+      assertThat(segments).hasSize(1);
+      return segments.get(0);
+    }
+  }
+
+  private static void tearLastRecord(Path segment) throws IOException {
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer content = ByteBuffer.allocate((int) channel.size());
+      channel.read(content, 0);
+      int last = content.capacity() - 1;
+      while (content.get(last) == 0) {
+        last--;
+      }
+      channel.write(ByteBuffer.wrap(new byte[] { (byte) ~content.get(last) }), last);
+    }
+  }
+
+  private static SepOutboxEntry entry(int i) {
+    return new SepOutboxEntry(ref(i), "2015", 1_000 + i);
+  }
+
+  private static SepOutboxEntry longEntry(int i) {
+    return new SepOutboxEntry(ref(i), "2015".repeat(50), 1_000 + i);
+  }
+
+  private static String ref(int i) {
+    return "ref-" + i;
+  }
+}
@@ -0,0 +1,125 @@
+package com.kassa.sep.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SepLedgerReaderTest {
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsCsvColumnsByNameWithQuotesAndLineEndings() throws IOException {
+    String header = "\uFEFFamount,\"Ref\"\"Num\",RESNUM,Note,refnum,TerminalId\r\n";
+    String first = "1000,x,\"res, 1\",\"said \"\"hi\"\"\",R1,3030\r\n";
+    String blank = "  \n";
+    String second = "abc,x,res-2,,R2,\n";
+    String third = "3000,x,,note,\"R3\"";
+    Path ledger = write("ledger.csv", header + first + blank + second + third);
+
+    try (SepLedgerReader reader = SepLedgerReader.open(ledger, SepLedgerFormat.CSV, 0, 0)) {
+      int offset = bytes(header + first);
+      assertThat(reader.next()).isEqualTo(new SepLedgerEntry(1, offset, "res, 1", "R1", 1000L, "3030"));
+      offset += bytes(blank + second);
+      assertThat(reader.next()).isEqualTo(new SepLedgerEntry(2, offset, "res-2", "R2", null, null));
+      offset += bytes(third);
+      assertThat(reader.next()).isEqualTo(new SepLedgerEntry(3, offset, null, "R3", 3000L, null));
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void resumesAtTheOffsetOfAnEarlierRow() throws IOException {
+    Path ledger = write("ledger.csv", "RefNum,Amount\nR1,1\nR2,2\nR3,3\n");
+    SepLedgerEntry first;
+    try (SepLedgerReader reader = SepLedgerReader.open(ledger, SepLedgerFormat.CSV, 0, 0)) {
+      first = reader.next();
+    }
+
+    try (SepLedgerReader reader = SepLedgerReader.open(ledger, SepLedgerFormat.CSV, first.endOffset(), first.row())) {
+      assertThat(reader.next()).extracting(SepLedgerEntry::row, SepLedgerEntry::refNum).containsExactly(2L, "R2");
+      assertThat(reader.next()).extracting(SepLedgerEntry::row, SepLedgerEntry::refNum).containsExactly(3L, "R3");
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void readsRowsAcrossBufferBoundaries() throws IOException {
+    StringBuilder content = new StringBuilder("RefNum,Amount,ResNum\n");
+    List<Long> offsets = new ArrayList<>();
+    for (int i = 0; i < 5_000; i++) {
+      // rows of varying length, one longer than the read buffer
+      content.append("R").append(i).append(',').append(i).append(',').append(i == 2_500 ? "x".repeat(70_000) : "r")
+        .append('\n');
+      offsets.add((long) content.length());
+    }
+    Path ledger = write("ledger.csv", content.toString());
+
+    try (SepLedgerReader reader = SepLedgerReader.open(ledger, SepLedgerFormat.CSV, 0, 0)) {
+      for (int i = 0; i < 5_000; i++) {
+        SepLedgerEntry entry = reader.next();
+        assertThat(entry.refNum()).isEqualTo("R" + i);
+        assertThat(entry.amount()).isEqualTo((long) i);
+        assertThat(entry.endOffset()).isEqualTo(offsets.get(i));
+      }
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void readsJsonLinesAndKeepsCountingPastBadLines() throws IOException {
+    Path ledger = write("ledger.jsonl", String.join("\n",
+      "{\"ResNum\":\"res-1\",\"RefNum\":\"R1\",\"Amount\":1000,\"TerminalId\":3030}",
+      "{\"refnum\":\"R2\",\"amount\":\"2000\",\"extra\":{\"RefNum\":\"nested\"},\"list\":[1,2]}",
+      "not json",
+      "[1]",
+      "{\"RefNum\":\"R5\",\"Amount\":null}",
+      ""));
+
+    try (SepLedgerReader reader = SepLedgerReader.open(ledger, SepLedgerFormat.of(ledger), 0, 0)) {
+      assertThat(reader.next()).extracting(SepLedgerEntry::resNum, SepLedgerEntry::refNum, SepLedgerEntry::amount,
+        SepLedgerEntry::terminalId).containsExactly("res-1", "R1", 1000L, "3030");
+      assertThat(reader.next()).extracting(SepLedgerEntry::refNum, SepLedgerEntry::amount)
+        .containsExactly("R2", 2000L);
+      assertThat(reader.next()).extracting(SepLedgerEntry::row, SepLedgerEntry::isValid).containsExactly(3L, false);
+      assertThat(reader.next()).extracting(SepLedgerEntry::row, SepLedgerEntry::isValid).containsExactly(4L, false);
+      assertThat(reader.next()).extracting(SepLedgerEntry::row, SepLedgerEntry::isValid).containsExactly(5L, false);
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void rejectsCsvWithoutTheRequiredColumns() throws IOException {
+    Path ledger = write("ledger.csv", "ResNum,RefNum\nres-1,R1\n");
+    Path empty = write("empty.csv", "\n\n");
+
+    assertThatIllegalArgumentException().isThrownBy(() -> SepLedgerReader.open(ledger, SepLedgerFormat.CSV, 0, 0))
+      .withMessageContaining("Amount");
+    assertThatIllegalArgumentException().isThrownBy(() -> SepLedgerReader.open(empty, SepLedgerFormat.CSV, 0, 0))
+      .withMessageContaining("no CSV header");
+  }
+
+  @Test
+  void derivesTheFormatFromTheFileName() {
+    assertThat(SepLedgerFormat.of(Path.of("a.JSONL"))).isEqualTo(SepLedgerFormat.JSONL);
+    assertThat(SepLedgerFormat.of(Path.of("a.ndjson"))).isEqualTo(SepLedgerFormat.JSONL);
+    assertThat(SepLedgerFormat.of(Path.of("a.txt"))).isEqualTo(SepLedgerFormat.CSV);
+  }
+
+  private Path write(String name, String content) throws IOException {
+    return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+  }
+
+  private static int bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
@@ -0,0 +1,139 @@
+package com.kassa.sep.reconcile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.routing.SepClientRegistry;
+import com.kassa.sep.routing.SepClientRegistry.TerminalDefinition;
+import com.kassa.sep.routing.SepTerminal;
+import com.kassa.sep.transport.SepTransport;
+
+class SepReconcilerTest {
+  private static final String LEDGER = """
+    ResNum,RefNum,Amount,TerminalId
+    res-1,R1000,1000,
+    res-2,R2000,1500,
+    res-3,UNVERIFIED,3000,
+    res-4,,4000,
+    res-5,R5000,5000,3030
+    res-6,R6000,6000,9999
+    res-7,BROKEN,7000,
+    res-8,R8000,8000,3030
+    """;
+  private static final String MISMATCHES = """
+    Row,ResNum,RefNum,LedgerAmount,OrginalAmount,AffectiveAmount,Reason,Code,Description
+    2,res-2,R2000,1500,2000,2000,AMOUNT_MISMATCH,,
+    3,res-3,UNVERIFIED,3000,,,NOT_VERIFIED,-2,"Not found, or expired"
+    4,res-4,,4000,,,INVALID_ROW,,Missing or malformed RefNum or Amount
+    6,res-6,R6000,6000,,,NOT_VERIFIED,,java.lang.IllegalArgumentException: No SEP terminal with terminal ID 9999
+    7,res-7,BROKEN,7000,,,NOT_VERIFIED,,com.kassa.sep.exception.SepTransportException: Connection reset
+    """;
+
+  @TempDir
+  Path directory;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+  private volatile String interruptAt;
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void writesTheRowsThatDoNotMatchInLedgerOrder() throws IOException {
+    Path ledger = Files.writeString(directory.resolve("ledger.csv"), LEDGER);
+    Path mismatches = directory.resolve("mismatches.csv");
+    Path checkpoint = directory.resolve("checkpoint");
+
+    SepReconciliationReport report = reconciler(executor, 2).reconcile(ledger, mismatches, checkpoint);
+
+    assertThat(report).extracting(SepReconciliationReport::resumedRows, SepReconciliationReport::rows,
+      SepReconciliationReport::matched, SepReconciliationReport::mismatched, SepReconciliationReport::complete)
+      .containsExactly(0L, 8L, 3L, 5L, true);
+    assertThat(mismatches).hasContent(MISMATCHES);
+    assertThat(checkpoint).doesNotExist();
+  }
+
+  @Test
+  void resumesAnInterruptedRunWithoutLosingOrRepeatingMismatches() throws IOException {
+    Path ledger = Files.writeString(directory.resolve("ledger.csv"), LEDGER);
+    Path mismatches = directory.resolve("mismatches.csv");
+    Path checkpoint = directory.resolve("checkpoint");
+    // verify inline on the calling thread, so it is interrupted right after this row
+    interruptAt = "UNVERIFIED";
+
+    SepReconciliationReport first = reconciler(Runnable::run, 1).reconcile(ledger, mismatches, checkpoint);
+
+    assertThat(Thread.interrupted()).isTrue();
+    assertThat(first).extracting(SepReconciliationReport::rows, SepReconciliationReport::complete)
+      .containsExactly(3L, false);
+    assertThat(checkpoint).exists();
+    // rows after the checkpoint already in the file must be dropped on resume
+    Files.writeString(mismatches, "9,stale\n", StandardOpenOption.APPEND);
+
+    interruptAt = null;
+    SepReconciliationReport second = reconciler(executor, 3).reconcile(ledger, mismatches, checkpoint);
+
+    assertThat(second).extracting(SepReconciliationReport::resumedRows, SepReconciliationReport::rows,
+      SepReconciliationReport::complete).containsExactly(3L, 5L, true);
+    assertThat(first.mismatched() + second.mismatched()).isEqualTo(5);
+    assertThat(mismatches).hasContent(MISMATCHES);
+    assertThat(checkpoint).doesNotExist();
+  }
+
+  private SepReconciler reconciler(Executor executor, int parallelism) {
+    SepClientRegistry registry = new SepClientRegistry(List.of(terminal(SepClientRegistry.DEFAULT_TERMINAL, "2015"),
+      terminal("charity", "3030")), (operation, key) -> null);
+    return new SepReconciler(registry, executor, parallelism, Duration.ofHours(1));
+  }
+
+  private TerminalDefinition terminal(String name, String terminalId) {
+    SepClient client = new SepClient(new SepTransport() {
+      @Override
+      public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+        String refNum = ((SepVerifyTransactionRequest) request).getRefNum();
+        if (refNum.equals(interruptAt)) {
+          Thread.currentThread().interrupt();
+        }
+        return responseType.cast(answer(refNum));
+      }
+    }, SepClientSettings.of("http://127.0.0.1:1", terminalId));
+    return new TerminalDefinition(name, terminalId,
+      resources -> new SepTerminal(name, terminalId, client, null, null, null, null, null));
+  }
+
+  private static SepVerifyTransactionResponse answer(String refNum) {
+    return switch (refNum) {
+      case "UNVERIFIED" -> SepVerifyTransactionResponse.builder().resultCode(-2).success(false)
+        .resultDescription("Not found, or expired").build();
+      case "BROKEN" -> throw new SepTransportException("Connection reset", 0, null);
+      default -> {
+        long amount = Long.parseLong(refNum.substring(1));
+        yield SepVerifyTransactionResponse.builder().resultCode(0).success(true)
+          .transactionDetail(SepTransactionDetail.builder().refNum(refNum).orginalAmount(amount)
+            .affectiveAmount(amount).build())
+          .build();
+      }
+    };
+  }
+}
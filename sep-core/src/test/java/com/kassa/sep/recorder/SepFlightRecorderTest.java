@@ -0,0 +1,123 @@
+package com.kassa.sep.recorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepFlightRecorderTest {
+  private static final SepVerifyTransactionResponse VERIFIED =
+    SepVerifyTransactionResponse.builder().resultCode(0).success(true).build();
+  private static final SepVerifyTransactionResponse NOT_FOUND =
+    SepVerifyTransactionResponse.builder().resultCode(-2).success(false).build();
+
+  @Test
+  void keepsTheLatestExchangesOfEachOperation() {
+    SepFlightRecorder recorder = new SepFlightRecorder(3, 1, 1024, List.of(), 0);
+
+    for (int i = 0; i < 6; i++) {
+      exchange(recorder, verify("R" + i), "{}", "{}", VERIFIED);
+    }
+
+    assertThat(recorder.recorded(SepOperation.VERIFY)).isEqualTo(6);
+    assertThat(recorder.exchanges(SepOperation.VERIFY)).extracting(SepExchange::sequence)
+      .containsExactly(5L, 4L, 3L, 2L);
+    assertThat(recorder.exchanges(SepOperation.VERIFY, "R4")).singleElement()
+      .satisfies(exchange -> assertThat(exchange.key()).isEqualTo("R4"));
+    assertThat(recorder.exchanges(SepOperation.REVERSE)).isEmpty();
+  }
+
+  @Test
+  void recordsTheWireLevelViewOfAnExchange() {
+    SepFlightRecorder recorder = new SepFlightRecorder(4, 1, 1024, List.of(), 0);
+
+    exchange(recorder, verify("R1"), "{\"RefNum\":\"R1\"}", "{\"ResultCode\":-2}", NOT_FOUND);
+
+    SepExchange exchange = recorder.exchanges(SepOperation.VERIFY).get(0);
+    assertThat(exchange.terminalId()).isEqualTo("2015");
+    assertThat(exchange.httpStatus()).isEqualTo(200);
+    assertThat(exchange.resultCode()).isEqualTo("-2");
+    assertThat(exchange.success()).isFalse();
+    assertThat(exchange.requestBytes()).isEqualTo(15);
+    assertThat(exchange.responseBytes()).isEqualTo(17);
+    assertThat(exchange.requestBody()).isEqualTo("{\"RefNum\":\"R1\"}");
+    assertThat(exchange.responseBody()).isEqualTo("{\"ResultCode\":-2}");
+  }
+
+  @Test
+  void keepsTheBodiesOfUnsuccessfulExchangesOnlyWhenNotSampled() {
+    SepFlightRecorder recorder = new SepFlightRecorder(4, 0, 1024, List.of(), 0);
+    SepGatewayException error = new SepGatewayException("-104", "Terminal inactive");
+
+    exchange(recorder, verify("R1"), "{}", "{}", VERIFIED);
+    exchange(recorder, verify("R2"), "{}", "{}", NOT_FOUND);
+    assertThatThrownBy(() -> recorder.intercept(verify("R3"), call -> {
+      throw error;
+    })).isSameAs(error);
+
+    assertThat(recorder.exchanges(SepOperation.VERIFY)).extracting(SepExchange::key, SepExchange::requestBody,
+      SepExchange::resultCode, SepExchange::error).containsExactly(
+        tuple("R3", null, "-104", "SepGatewayException: " + error.getMessage()),
+        tuple("R2", "{}", "-2", null),
+        tuple("R1", null, "0", null));
+  }
+
+  @Test
+  void masksFieldValuesIncludingEscapedQuotes() {
+    SepFlightRecorder recorder = new SepFlightRecorder(4, 1, 1024, List.of("CellNumber", "HashedPan"), 0);
+    String request = "{\"cellnumber\" : \"09121234567\",\"RefNum\":\"R1\",\"HashedPan\":\"ab\\\"c\\\\\\\"de,f\\\"gh\","
+      + "\"Other\":\"x\",\"CELLNUMBER\":9121234567,\"HashedPan\":\"short\",\"HashedPan\":\"0123456789\\\"\"}";
+
+    exchange(recorder, verify("R1"), request, "{}", NOT_FOUND);
+
+    assertThat(recorder.exchanges(SepOperation.VERIFY).get(0).requestBody()).isEqualTo(
+      "{\"cellnumber\" : \"*******4567\",\"RefNum\":\"R1\",\"HashedPan\":\"*****************\","
+        + "\"Other\":\"x\",\"CELLNUMBER\":\"******4567\",\"HashedPan\":\"*****\",\"HashedPan\":\"************\"}");
+  }
+
+  @Test
+  void masksValuesCutOffByTheSizeLimit() {
+    SepFlightRecorder recorder = new SepFlightRecorder(4, 1, 30, List.of("HashedPan"), 0);
+
+    // cut off inside an escaped quote, and inside an escaped backslash
+    exchange(recorder, verify("R1"), "{\"RefNum\":\"R1\",\"HashedPan\":\"a\\\"bcdefghij\"}", "{}", NOT_FOUND);
+    exchange(recorder, verify("R2"), "{\"RefNum\":\"R2\",\"HashedPan\":\"\\\\\\\"defgh\"}", "{}", NOT_FOUND);
+
+    assertThat(recorder.exchanges(SepOperation.VERIFY)).extracting(SepExchange::requestBody).containsExactly(
+      "{\"RefNum\":\"R2\",\"HashedPan\":\"**\"", "{\"RefNum\":\"R1\",\"HashedPan\":\"**\"");
+  }
+
+  private static void exchange(SepFlightRecorder recorder, SepCall<SepVerifyTransactionResponse> call,
+      String request, String response, SepVerifyTransactionResponse answer) {
+    recorder.intercept(call, c -> {
+      byte[] body = response.getBytes(StandardCharsets.UTF_8);
+      recorder.wireTap().request(request.getBytes(StandardCharsets.UTF_8));
+      InputStream in = recorder.wireTap().response(200, body.length).apply(new ByteArrayInputStream(body));
+      try (in) {
+        in.readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return answer;
+    });
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> verify(String refNum) {
+    return new SepCall<>(SepOperation.VERIFY, "2015", refNum, new SepVerifyTransactionRequest(refNum, 2015),
+      SepVerifyTransactionResponse.class);
+  }
+}
@@ -0,0 +1,153 @@
+package com.kassa.sep.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepCircuitOpenException;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.resilience.SepCircuitBreaker.State;
+
+class SepCircuitBreakerTest {
+  private static final long FAST = Duration.ofMillis(10).toNanos();
+
+  @Test
+  void opensWhenTheFailureRateReachesTheThreshold() {
+    SepCircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+
+    succeed(breaker);
+    succeed(breaker);
+    fail(breaker);
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+    fail(breaker);
+
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    assertThat(breaker.tryAcquirePermission()).isEqualTo(SepCircuitBreaker.NOT_PERMITTED);
+    assertThat(breaker.stats().notPermitted()).isEqualTo(1);
+  }
+
+  @Test
+  void closesWhenAllProbesSucceed() {
+    SepCircuitBreaker breaker = opened(2);
+
+    long first = breaker.tryAcquirePermission();
+    long second = breaker.tryAcquirePermission();
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    assertThat(breaker.tryAcquirePermission()).isEqualTo(SepCircuitBreaker.NOT_PERMITTED);
+    breaker.onResult(first, FAST, false);
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    breaker.onResult(second, FAST, false);
+
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void reopensWhenAProbeFails() {
+    SepCircuitBreaker breaker = opened(2);
+
+    long probe = breaker.tryAcquirePermission();
+    breaker.onResult(probe, FAST, true);
+
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void reopensWhenAProbeIsSlow() {
+    SepCircuitBreaker breaker = opened(1);
+
+    long probe = breaker.tryAcquirePermission();
+    breaker.onResult(probe, Duration.ofSeconds(5).toNanos(), false);
+
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void ignoresTheLateResultOfACallPermittedWhileClosed() {
+    SepCircuitBreaker breaker = breaker(Duration.ZERO, 1);
+    long closedPermit = breaker.tryAcquirePermission();
+    for (int i = 0; i < 4; i++) {
+      fail(breaker);
+    }
+    long probe = breaker.tryAcquirePermission();
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+    breaker.onResult(closedPermit, FAST, false);
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    breaker.onResult(probe, FAST, true);
+
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void releasingAProbeFreesItsSlotWithoutAnOutcome() {
+    SepCircuitBreaker breaker = opened(1);
+
+    long probe = breaker.tryAcquirePermission();
+    assertThat(breaker.tryAcquirePermission()).isEqualTo(SepCircuitBreaker.NOT_PERMITTED);
+    breaker.release(probe);
+
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+    assertThat(breaker.tryAcquirePermission()).isNotEqualTo(SepCircuitBreaker.NOT_PERMITTED);
+  }
+
+  @Test
+  void aCallWhoseDeadlinePassedIsNoSuccessfulProbe() {
+    SepCircuitBreaker breaker = opened(1);
+    SepCircuitBreakerInterceptor interceptor = new SepCircuitBreakerInterceptor(operation -> breaker);
+
+    assertThatThrownBy(() -> interceptor.intercept(verify(), call -> {
+      throw new SepDeadlineExceededException(call.operation());
+    })).isInstanceOf(SepDeadlineExceededException.class);
+    assertThat(breaker.state()).isEqualTo(State.HALF_OPEN);
+
+    interceptor.intercept(verify(), call -> new SepVerifyTransactionResponse());
+    assertThat(breaker.state()).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void rejectsCallsWhileOpen() {
+    SepCircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+    for (int i = 0; i < 4; i++) {
+      fail(breaker);
+    }
+    SepCircuitBreakerInterceptor interceptor = new SepCircuitBreakerInterceptor(operation -> breaker);
+
+    assertThatThrownBy(() -> interceptor.intercept(verify(), call -> new SepVerifyTransactionResponse()))
+      .isInstanceOf(SepCircuitOpenException.class);
+  }
+
+  /** A breaker that opened and whose open duration has passed, so the next permission makes it half-open. */
+  private static SepCircuitBreaker opened(int halfOpenCalls) {
+    SepCircuitBreaker breaker = breaker(Duration.ZERO, halfOpenCalls);
+    for (int i = 0; i < 4; i++) {
+      fail(breaker);
+    }
+    assertThat(breaker.state()).isEqualTo(State.OPEN);
+    return breaker;
+  }
+
+  private static SepCircuitBreaker breaker(Duration openDuration, int halfOpenCalls) {
+    return new SepCircuitBreaker("verify", 50, 100, Duration.ofSeconds(1), 4, 4, openDuration, halfOpenCalls);
+  }
+
+  private static void succeed(SepCircuitBreaker breaker) {
+    breaker.onResult(breaker.tryAcquirePermission(), FAST, false);
+  }
+
+  private static void fail(SepCircuitBreaker breaker) {
+    breaker.onResult(breaker.tryAcquirePermission(), FAST, true);
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> verify() {
+    return new SepCall<>(SepOperation.VERIFY, "2015", "1001",
+      SepVerifyTransactionRequest.builder().refNum("1001").terminalNumber(2015).build(),
+      SepVerifyTransactionResponse.class);
+  }
+}
@@ -0,0 +1,123 @@
+package com.kassa.sep.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepDeadline;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepHedgingInterceptorTest {
+  private final SepLatencyTracker latencies = new SepLatencyTracker(16, 1);
+  private final SepHedgingInterceptor interceptor = new SepHedgingInterceptor(latencies,
+    Executors.newFixedThreadPool(2), 0.5, Duration.ofMillis(20));
+
+  @AfterEach
+  void close() {
+    interceptor.close();
+  }
+
+  @Test
+  void returnsTheDuplicateAnswerUnchangedWhenTheOtherRequestFails() {
+    latencies.record("2015", SepOperation.VERIFY, Duration.ofMillis(1).toNanos());
+    SepVerifyTransactionResponse duplicate = SepVerifyTransactionResponse.builder()
+      .resultCode(SepResultCode.DUPLICATE_REQUEST.getCode())
+      .resultDescription("duplicate")
+      .success(false)
+      .build();
+    AtomicInteger requests = new AtomicInteger();
+
+    SepVerifyTransactionResponse response = interceptor.intercept(verify(), call -> {
+      if (requests.incrementAndGet() == 1) {
+        sleep(200);
+        throw new SepTransportException("Read timed out", 0, null);
+      }
+      return duplicate;
+    });
+
+    assertThat(response).isSameAs(duplicate);
+    assertThat(response.isSuccess()).isFalse();
+    assertThat(interceptor.hedgedCount()).isEqualTo(1);
+    assertThat(interceptor.duplicateAnswerCount()).isEqualTo(1);
+  }
+
+  @Test
+  void waitsForTheAnswersOnlyUntilTheDeadline() {
+    latencies.record("2015", SepOperation.VERIFY, Duration.ofMillis(1).toNanos());
+    AtomicInteger requests = new AtomicInteger();
+    long start = System.nanoTime();
+
+    assertThatThrownBy(() -> interceptor.intercept(verify(SepDeadline.after(Duration.ofMillis(200))), call -> {
+      requests.incrementAndGet();
+      sleep(2_000);
+      return new SepVerifyTransactionResponse();
+    })).isInstanceOf(SepDeadlineExceededException.class);
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    assertThat(requests).hasValue(2);
+  }
+
+  @Test
+  void runsBothRequestsInTheCallersContext() {
+    ThreadLocal<String> caller = new ThreadLocal<>();
+    SepHedgingInterceptor propagating = new SepHedgingInterceptor(latencies, Executors.newFixedThreadPool(2), 0.5,
+      Duration.ofMillis(20), task -> {
+        String captured = caller.get();
+        return () -> {
+          caller.set(captured);
+          try {
+            task.run();
+          } finally {
+            caller.remove();
+          }
+        };
+      });
+    latencies.record("2015", SepOperation.VERIFY, Duration.ofMillis(1).toNanos());
+    List<String> contexts = new CopyOnWriteArrayList<>();
+    caller.set("payment-42");
+    try {
+      propagating.intercept(verify(), call -> {
+        contexts.add(caller.get());
+        sleep(100);
+        return SepVerifyTransactionResponse.builder().resultCode(0).success(true).build();
+      });
+    } finally {
+      caller.remove();
+      propagating.close();
+    }
+
+    assertThat(contexts).containsExactly("payment-42", "payment-42");
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> verify() {
+    return verify(SepDeadline.none());
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> verify(SepDeadline deadline) {
+    return new SepCall<>(SepOperation.VERIFY, "2015", "REF-1",
+      SepVerifyTransactionRequest.builder().refNum("REF-1").terminalNumber(2015).build(),
+      SepVerifyTransactionResponse.class, deadline);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
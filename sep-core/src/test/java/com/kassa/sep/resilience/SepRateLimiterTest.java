@@ -0,0 +1,130 @@
+package com.kassa.sep.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import com.kassa.sep.resilience.SepRateLimiter.QueueFullPolicy;
+
+@Timeout(10)
+class SepRateLimiterTest {
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void passesABurstAtOnceAndRejectsWithoutAQueue() {
+    SepRateLimiter limiter = limiter(1, 3, 0, Duration.ofSeconds(5), QueueFullPolicy.REJECT);
+
+    long start = System.nanoTime();
+    assertThat(limiter.acquire()).isTrue();
+    assertThat(limiter.acquire()).isTrue();
+    assertThat(limiter.acquire()).isTrue();
+    assertThat(limiter.acquire()).isFalse();
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+    assertThat(limiter.stats()).isEqualTo(new SepRateLimiter.Stats(0, 3, 1, 0));
+  }
+
+  @Test
+  void waitsForTheNextPermitWhenItIsDueInTime() {
+    SepRateLimiter limiter = limiter(20, 1, 1, Duration.ofSeconds(1), QueueFullPolicy.REJECT);
+    assertThat(limiter.acquire()).isTrue();
+
+    long start = System.nanoTime();
+    assertThat(limiter.acquire()).isTrue();
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(40));
+    assertThat(limiter.stats().waitNanos()).isPositive();
+    assertThat(limiter.queueDepth()).isZero();
+  }
+
+  @Test
+  void rejectsAtOnceWhenTheNextPermitIsDueTooLate() {
+    SepRateLimiter limiter = limiter(1, 1, 5, Duration.ofSeconds(5), QueueFullPolicy.REJECT);
+    assertThat(limiter.acquire()).isTrue();
+
+    long start = System.nanoTime();
+    assertThat(limiter.acquire(Duration.ofMillis(100))).isFalse();
+    assertThat(limiter.acquire(Duration.ofMillis(-1))).isFalse();
+
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(500));
+    assertThat(limiter.stats().rejected()).isEqualTo(2);
+  }
+
+  @Test
+  void rejectsWhenTheQueueIsFull() throws Exception {
+    SepRateLimiter limiter = limiter(5, 1, 1, Duration.ofSeconds(5), QueueFullPolicy.REJECT);
+    assertThat(limiter.acquire()).isTrue();
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(limiter::acquire, executor);
+    awaitQueueDepth(limiter, 1);
+
+    assertThat(limiter.acquire()).isFalse();
+
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(limiter.stats()).extracting(SepRateLimiter.Stats::permitted, SepRateLimiter.Stats::rejected)
+      .containsExactly(2L, 1L);
+  }
+
+  @Test
+  void waitsForAQueueSlotWithinTheMaximumWait() throws Exception {
+    SepRateLimiter limiter = limiter(10, 1, 1, Duration.ofSeconds(5), QueueFullPolicy.WAIT);
+    assertThat(limiter.acquire()).isTrue();
+    CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(limiter::acquire, executor);
+    awaitQueueDepth(limiter, 1);
+
+    assertThat(limiter.acquire(Duration.ofMillis(10))).isFalse();
+    assertThat(limiter.acquire()).isTrue();
+
+    assertThat(queued.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(limiter.stats().permitted()).isEqualTo(3);
+  }
+
+  @Test
+  void givesUpTheWaitWhenInterrupted() throws Exception {
+    SepRateLimiter limiter = limiter(0.1, 1, 1, Duration.ofSeconds(30), QueueFullPolicy.REJECT);
+    assertThat(limiter.acquire()).isTrue();
+    CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+    Thread waiter = new Thread(() -> {
+      boolean permitted = limiter.acquire();
+      interrupted.complete(!permitted && Thread.currentThread().isInterrupted());
+    });
+    waiter.start();
+    awaitQueueDepth(limiter, 1);
+
+    waiter.interrupt();
+
+    assertThat(interrupted.get(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(limiter.queueDepth()).isZero();
+  }
+
+  @Test
+  void rejectsInvalidSettings() {
+    assertThatIllegalArgumentException().isThrownBy(() -> limiter(0, 1, 1, Duration.ZERO, QueueFullPolicy.REJECT));
+    assertThatIllegalArgumentException().isThrownBy(() -> limiter(1, 0, 1, Duration.ZERO, QueueFullPolicy.REJECT));
+    assertThatIllegalArgumentException().isThrownBy(() -> limiter(1, 1, -1, Duration.ZERO, QueueFullPolicy.REJECT));
+  }
+
+  private static SepRateLimiter limiter(double permitsPerSecond, int burst, int queueCapacity, Duration maxWait,
+      QueueFullPolicy policy) {
+    return new SepRateLimiter("verify", permitsPerSecond, burst, queueCapacity, maxWait, policy);
+  }
+
+  private static void awaitQueueDepth(SepRateLimiter limiter, int depth) throws InterruptedException {
+    while (limiter.queueDepth() != depth) {
+      Thread.sleep(1);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.kassa.sep.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepOperation;
+
+class SepRetryInterceptorTest {
+  private final SepRetryInterceptor interceptor = new SepRetryInterceptor(3, Duration.ofMillis(1), 2.0,
+    Duration.ofMillis(2), Duration.ofSeconds(10), Set.of(), Set.of());
+
+  @Test
+  void retriesAVerifyAfterAReadTimeout() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(() -> interceptor.intercept(call(SepOperation.VERIFY), call -> {
+      attempts.incrementAndGet();
+      throw new SepTransportException("Read timed out", 0, null);
+    })).isInstanceOf(SepTransportException.class);
+
+    assertThat(attempts).hasValue(3);
+    assertThat(interceptor.retryCount(SepOperation.VERIFY)).isEqualTo(2);
+  }
+
+  @Test
+  void doesNotRetryAReverseAfterAReadTimeout() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(() -> interceptor.intercept(call(SepOperation.REVERSE), call -> {
+      attempts.incrementAndGet();
+      throw new SepTransportException("Read timed out", 0, null);
+    })).isInstanceOf(SepTransportException.class);
+
+    assertThat(attempts).hasValue(1);
+  }
+
+  @Test
+  void doesNotRetryAReverseAfterAServerError() {
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(() -> interceptor.intercept(call(SepOperation.REVERSE), call -> {
+      attempts.incrementAndGet();
+      throw new SepTransportException("502 Bad Gateway", 502, null);
+    })).isInstanceOf(SepTransportException.class);
+
+    assertThat(attempts).hasValue(1);
+  }
+
+  @Test
+  void retriesAReverseThatCouldNotConnect() {
+    AtomicInteger attempts = new AtomicInteger();
+    SepVerifyTransactionResponse reversed = SepVerifyTransactionResponse.builder().resultCode(0).success(true)
+      .build();
+
+    SepVerifyTransactionResponse response = interceptor.intercept(call(SepOperation.REVERSE), call -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new SepTransportException("Connection refused", 0, true, null);
+      }
+      return reversed;
+    });
+
+    assertThat(response).isSameAs(reversed);
+    assertThat(interceptor.retryCount(SepOperation.REVERSE)).isEqualTo(1);
+  }
+
+  @Test
+  void retriesTheConfiguredOperations() {
+    SepRetryInterceptor reverses = new SepRetryInterceptor(2, Duration.ofMillis(1), 2.0, Duration.ofMillis(2),
+      Duration.ofSeconds(10), Set.of(), Set.of(), Set.of(SepOperation.VERIFY, SepOperation.REVERSE));
+    AtomicInteger attempts = new AtomicInteger();
+
+    assertThatThrownBy(() -> reverses.intercept(call(SepOperation.REVERSE), call -> {
+      attempts.incrementAndGet();
+      throw new SepTransportException("Read timed out", 0, null);
+    })).isInstanceOf(SepTransportException.class);
+
+    assertThat(attempts).hasValue(2);
+  }
+
+  private static SepCall<SepVerifyTransactionResponse> call(SepOperation operation) {
+    return new SepCall<>(operation, "2015", "REF-1",
+      SepVerifyTransactionRequest.builder().refNum("REF-1").terminalNumber(2015).build(),
+      SepVerifyTransactionResponse.class);
+  }
+}
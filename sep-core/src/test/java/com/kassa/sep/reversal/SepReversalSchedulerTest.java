@@ -0,0 +1,220 @@
+package com.kassa.sep.reversal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepClientSettings;
+import com.kassa.sep.batch.SepBatchResult;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.routing.SepClientRegistry;
+import com.kassa.sep.routing.SepClientRegistry.TerminalDefinition;
+import com.kassa.sep.routing.SepTerminal;
+import com.kassa.sep.transport.SepTransport;
+
+class SepReversalSchedulerTest {
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  private final Map<String, Integer> failuresLeft = new ConcurrentHashMap<>();
+  private final List<String> sent = new ArrayList<>();
+  private final List<SepBatchResult> results = new ArrayList<>();
+  private final InlineExecutor workers = new InlineExecutor();
+  private final TestClock clock = new TestClock();
+  private final SepClient client = new SepClient(new SepTransport() {
+    @Override
+    public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+      String refNum = ((SepVerifyTransactionRequest) request).getRefNum();
+      sent.add(refNum);
+      if (failuresLeft.merge(refNum, -1, Integer::sum) >= 0) {
+        throw new SepTransportException("Connection refused", 0, true, null);
+      }
+      return responseType.cast(SepVerifyTransactionResponse.builder().resultCode(0).success(true).build());
+    }
+  }, SepClientSettings.of("http://127.0.0.1:1", "2015"));
+  private final SepClientRegistry registry = new SepClientRegistry(List.of(new TerminalDefinition(
+    SepClientRegistry.DEFAULT_TERMINAL, "2015",
+    resources -> new SepTerminal(SepClientRegistry.DEFAULT_TERMINAL, "2015", client, null, null, null, null, null))),
+    (operation, key) -> null);
+  private final SepReversalScheduler scheduler = new SepReversalScheduler(registry, workers, Duration.ofMillis(10),
+    2, Duration.ofSeconds(1), 3, List.of(results::add), clock);
+
+  @Test
+  void reversesPaymentsWhenTheyAreDueInBatchesPerTerminal() {
+    scheduler.schedule("1001", at(100));
+    scheduler.schedule("1002", "2015", at(100));
+    scheduler.schedule("1003", at(100));
+    scheduler.schedule("1004", at(105));
+    scheduler.schedule("1005", at(5_000));
+
+    scheduler.tick(millis(99));
+    assertThat(sent).isEmpty();
+
+    scheduler.tick(millis(110));
+
+    assertThat(sent).containsExactlyInAnyOrder("1001", "1002", "1003", "1004");
+    assertThat(workers.executed).isEqualTo(3);
+    assertThat(results).allSatisfy(result -> assertThat(result.isSuccess()).isTrue());
+    assertThat(scheduler.stats()).isEqualTo(new SepReversalScheduler.Stats(1, 4, 0, 0, 0));
+  }
+
+  @Test
+  void replacesAnEarlierScheduleOfTheSameRefNum() {
+    scheduler.schedule("1001", at(100));
+    scheduler.schedule("1001", at(2_000));
+
+    scheduler.tick(millis(1_000));
+    assertThat(sent).isEmpty();
+
+    scheduler.tick(millis(2_000));
+    assertThat(sent).containsExactly("1001");
+  }
+
+  @Test
+  void cancelsOnlyReversalsThatHaveNotFired() {
+    scheduler.schedule("1001", at(100));
+    scheduler.schedule("1002", at(100));
+
+    assertThat(scheduler.cancel("1001")).isTrue();
+    assertThat(scheduler.cancel("1001")).isFalse();
+    scheduler.tick(millis(100));
+
+    assertThat(scheduler.cancel("1002")).isFalse();
+    assertThat(sent).containsExactly("1002");
+    assertThat(scheduler.pendingCount()).isZero();
+  }
+
+  @Test
+  void defersBatchesTheWorkersReject() {
+    scheduler.schedule("1001", at(100));
+    workers.saturated = true;
+
+    scheduler.tick(millis(100));
+    assertThat(sent).isEmpty();
+    assertThat(scheduler.stats().deferred()).isEqualTo(1);
+    assertThat(scheduler.pendingCount()).isEqualTo(1);
+
+    workers.saturated = false;
+    scheduler.tick(millis(1_099));
+    assertThat(sent).isEmpty();
+    scheduler.tick(millis(1_100));
+    assertThat(sent).containsExactly("1001");
+  }
+
+  @Test
+  void retriesTransientFailuresUpToTheMaximumAttempts() {
+    failuresLeft.put("1001", 1);
+    failuresLeft.put("1002", 5);
+    scheduler.schedule("1001", at(0));
+    scheduler.schedule("1002", at(0));
+
+    scheduler.tick(millis(10));
+    assertThat(results).isEmpty();
+    assertThat(scheduler.stats().retried()).isEqualTo(2);
+
+    for (long now = 1_010; now <= 5_010; now += 1_000) {
+      scheduler.tick(millis(now));
+    }
+
+    assertThat(sent).filteredOn("1001"::equals).hasSize(2);
+    assertThat(sent).filteredOn("1002"::equals).hasSize(3);
+    assertThat(results).extracting(SepBatchResult::refNum, SepBatchResult::isSuccess)
+      .containsExactlyInAnyOrder(tuple("1001", true), tuple("1002", false));
+    assertThat(scheduler.stats()).isEqualTo(new SepReversalScheduler.Stats(0, 1, 1, 3, 0));
+  }
+
+  @Test
+  void failsReversalsOfUnknownTerminals() {
+    scheduler.schedule("1001", "9999", at(0));
+
+    scheduler.tick(millis(10));
+
+    assertThat(sent).isEmpty();
+    assertThat(results).singleElement().satisfies(result -> {
+      assertThat(result.isSuccess()).isFalse();
+      assertThat(result.error()).isInstanceOf(IllegalArgumentException.class);
+    });
+  }
+
+  private static Instant at(long offsetMillis) {
+    return START.plusMillis(offsetMillis);
+  }
+
+  private long millis(long offsetMillis) {
+    clock.now = at(offsetMillis);
+    return clock.millis();
+  }
+
+  private static final class TestClock extends Clock {
+    private Instant now = START;
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+
+  private static final class InlineExecutor extends AbstractExecutorService {
+    private volatile boolean saturated;
+    private int executed;
+
+    @Override
+    public void execute(Runnable command) {
+      if (saturated) {
+        throw new RejectedExecutionException("saturated");
+      }
+      executed++;
+      command.run();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return List.of();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
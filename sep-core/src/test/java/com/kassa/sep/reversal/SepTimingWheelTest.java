@@ -0,0 +1,120 @@
+package com.kassa.sep.reversal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class SepTimingWheelTest {
+  private static final Duration TICK = Duration.ofMillis(10);
+  private static final int WHEEL_SIZE = 4;
+
+  @ParameterizedTest
+  @CsvSource({ "1, 0", "2, 0", "2, 7", "3, 0", "3, 61" })
+  void firesEveryTimerOnTheTickOfItsDeadline(int levels, long startTick) {
+    SepTimingWheel<Long> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, levels, startTick * 10);
+    // spans several turns of the top level, so timers are cascaded and parked
+    long span = (long) Math.pow(WHEEL_SIZE, levels);
+    long last = startTick + 3 * span + 5;
+    for (long tick = startTick + 1; tick <= last; tick++) {
+      wheel.schedule(tick, tick * 10);
+    }
+
+    for (long tick = startTick + 1; tick <= last; tick++) {
+      List<Long> fired = new ArrayList<>();
+      wheel.advance(tick * 10 + 9, fired::add);
+      assertThat(fired).as("tick %d", tick).containsExactly(tick);
+    }
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void neverFiresBeforeTheDeadline() {
+    SepTimingWheel<String> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+    List<String> fired = new ArrayList<>();
+    wheel.schedule("a", 25);
+
+    wheel.advance(29, fired::add);
+    assertThat(fired).isEmpty();
+
+    wheel.advance(30, fired::add);
+    assertThat(fired).containsExactly("a");
+  }
+
+  @Test
+  void firesPastDeadlinesOnTheNextTick() {
+    SepTimingWheel<String> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, 2, 1_000);
+    List<String> fired = new ArrayList<>();
+    wheel.schedule("late", 0);
+
+    wheel.advance(1_009, fired::add);
+    assertThat(fired).isEmpty();
+
+    wheel.advance(1_010, fired::add);
+    assertThat(fired).containsExactly("late");
+  }
+
+  @Test
+  void firesInDeadlineOrderWhenAdvancedPastTheWholeSpan() {
+    SepTimingWheel<Long> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+    List<Long> deadlines = List.of(500L, 30L, 170L, 160L, 10L, 1_000L, 40L);
+    deadlines.forEach(deadline -> wheel.schedule(deadline, deadline));
+
+    List<Long> fired = new ArrayList<>();
+    wheel.advance(10_000, fired::add);
+
+    assertThat(fired).containsExactly(10L, 30L, 40L, 160L, 170L, 500L, 1_000L);
+  }
+
+  @Test
+  void cancelsPendingTimersOnly() {
+    SepTimingWheel<String> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+    SepTimingWheel.Timer<String> near = wheel.schedule("near", 20);
+    SepTimingWheel.Timer<String> cascaded = wheel.schedule("cascaded", 100);
+    SepTimingWheel.Timer<String> parked = wheel.schedule("parked", 1_000);
+    SepTimingWheel.Timer<String> fires = wheel.schedule("fires", 30);
+
+    assertThat(wheel.cancel(near)).isTrue();
+    assertThat(wheel.cancel(near)).isFalse();
+    assertThat(near.isPending()).isFalse();
+    assertThat(wheel.size()).isEqualTo(3);
+
+    List<String> fired = new ArrayList<>();
+    wheel.advance(50, fired::add);
+    assertThat(fired).containsExactly("fires");
+    assertThat(fires.isPending()).isFalse();
+    assertThat(wheel.cancel(fires)).isFalse();
+
+    // cancelled after it was cascaded to level 0 and while parked in the top level
+    wheel.advance(80, fired::add);
+    assertThat(wheel.cancel(cascaded)).isTrue();
+    wheel.advance(500, fired::add);
+    assertThat(wheel.cancel(parked)).isTrue();
+    wheel.advance(10_000, fired::add);
+
+    assertThat(fired).containsExactly("fires");
+    assertThat(wheel.size()).isZero();
+  }
+
+  @Test
+  void reportsTheTimeToTheNextTick() {
+    SepTimingWheel<String> wheel = new SepTimingWheel<>(TICK, WHEEL_SIZE, 2, 0);
+
+    assertThat(wheel.millisToNextTick(1_000)).isEqualTo(10);
+    assertThat(wheel.millisToNextTick(1_003)).isEqualTo(7);
+  }
+
+  @Test
+  void rejectsInvalidShapes() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new SepTimingWheel<>(TICK, 6, 2, 0));
+    assertThatIllegalArgumentException().isThrownBy(() -> new SepTimingWheel<>(TICK, 1, 2, 0));
+    assertThatIllegalArgumentException().isThrownBy(() -> new SepTimingWheel<>(TICK, WHEEL_SIZE, 0, 0));
+    assertThatIllegalArgumentException().isThrownBy(() -> new SepTimingWheel<>(TICK, 1 << 16, 4, 0));
+  }
+}
@@ -0,0 +1,61 @@
+package com.kassa.sep.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.kassa.sep.routing.SepClientRegistry.TerminalDefinition;
+
+class SepClientRegistryTest {
+  private final AtomicInteger builds = new AtomicInteger();
+  private final AtomicInteger closedResources = new AtomicInteger();
+  private final SepClientRegistry registry = new SepClientRegistry(List.of(
+    definition(SepClientRegistry.DEFAULT_TERMINAL, "2015"), definition("charity-a", "3030")),
+    (operation, key) -> null);
+
+  @Test
+  void buildsATerminalOnceOnFirstUse() {
+    assertThat(builds).hasValue(0);
+
+    SepTerminal terminal = registry.terminal("charity-a");
+
+    assertThat(registry.terminal("charity-a")).isSameAs(terminal);
+    assertThat(builds).hasValue(1);
+    assertThat(registry.isBuilt("charity-a")).isTrue();
+    assertThat(registry.isBuilt(SepClientRegistry.DEFAULT_TERMINAL)).isFalse();
+  }
+
+  @Test
+  void notifiesListenersOfBuiltAndLaterTerminals() {
+    registry.terminal(SepClientRegistry.DEFAULT_TERMINAL);
+    List<String> built = new ArrayList<>();
+
+    registry.onTerminalBuilt(terminal -> built.add(terminal.name()));
+    registry.terminal("charity-a");
+
+    assertThat(built).containsExactly(SepClientRegistry.DEFAULT_TERMINAL, "charity-a");
+  }
+
+  @Test
+  void closesTheResourcesOfBuiltTerminalsAndBuildsNoMore() {
+    registry.terminal("charity-a");
+
+    registry.close();
+
+    assertThat(closedResources).hasValue(1);
+    assertThatIllegalStateException().isThrownBy(() -> registry.terminal(SepClientRegistry.DEFAULT_TERMINAL));
+  }
+
+  private TerminalDefinition definition(String name, String terminalId) {
+    return new TerminalDefinition(name, terminalId, resources -> {
+      builds.incrementAndGet();
+      resources.accept(closedResources::incrementAndGet);
+      return new SepTerminal(name, terminalId, null, null, null, null, null, null);
+    });
+  }
+}
@@ -0,0 +1,417 @@
+package com.kassa.sep.simulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+import com.kassa.sep.config.SepExecutors;
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.interceptor.SepOperation;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * In-process simulator of the SEP gateway ({@code sep.shaparak.ir}) for local capacity and failure tests.
+ * <p>
+ * It serves the token, verify and reverse endpoints with the gateway's wire format and keeps the state of every
+ * transaction: a RefNum verifies once, a second verify is answered with {@link SepResultCode#DUPLICATE_REQUEST},
+ * a reversed transaction with {@link SepResultCode#ALREADY_REVERSED}, and a verify after the
+ * {@linkplain SepSimulatorSettings#getVerifyWindow() verify window} with {@link SepResultCode#TRANSACTION_EXPIRED}.
+ * On top of that it adds latency, injects error codes and drops connections as configured in
+ * {@link SepSimulatorSettings}. {@link #completePayment(String)} plays the payer: it pays a token and returns the
+ * callback the merchant would receive.
+ * <pre>
+ * try (SepGatewaySimulator gateway = SepGatewaySimulator.start(SepSimulatorSettings.builder()
+ *     .defaultLatency(SepLatency.logNormal(Duration.ofMillis(80), Duration.ofMillis(400)))
+ *     .verifyError(SepResultCode.TERMINAL_INACTIVE, 0.01)
+ *     .dropRate(0.001)
+ *     .build())) {
+ *   // point sep.base-url at gateway.baseUrl()
+ * }
+ * </pre>
+ */
+@Slf4j
+public class SepGatewaySimulator implements AutoCloseable {
+  private static final String TOKEN_PATH = "/onlinepg/onlinepg";
+  private static final String VERIFY_PATH = "/verifyTxnRandomSessionkey/ipg/VerifyTransaction";
+  private static final String REVERSE_PATH = "/verifyTxnRandomSessionkey/ipg/ReverseTransaction";
+  private static final DateTimeFormatter STRACE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final String MASKED_PAN = "621986****8080";
+  private static final String HASHED_PAN = "a0ed2d5b2a1f9bd5b3c4b2f0e1d9c8b7a6f5e4d3c2b1a0f9e8d7c6b5a4f3e2d1";
+
+  private final SepSimulatorSettings settings;
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final JsonMapper mapper = JsonMapper.builder()
+    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+    .build();
+  private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+  private final Map<String, Payment> payments = new ConcurrentHashMap<>();
+  private final AtomicLong sequence = new AtomicLong(100_000);
+  private final Map<SepOperation, LongAdder> requests = new EnumMap<>(SepOperation.class);
+  private final LongAdder injected = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  private SepGatewaySimulator(SepSimulatorSettings settings) throws IOException {
+    this.settings = settings;
+    for (SepOperation operation : SepOperation.values()) {
+      requests.put(operation, new LongAdder());
+    }
+    // without TCP_NODELAY the server's split header/body writes stall on delayed ACKs
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    this.server = HttpServer.create(new InetSocketAddress(settings.getPort()), 1024);
+    this.executor = SepExecutors.create("sep-simulator", true, settings.getThreads(), 10_000);
+    server.setExecutor(executor);
+    server.createContext(TOKEN_PATH, exchange -> handle(exchange, SepOperation.TOKEN));
+    server.createContext(VERIFY_PATH, exchange -> handle(exchange, SepOperation.VERIFY));
+    server.createContext(REVERSE_PATH, exchange -> handle(exchange, SepOperation.REVERSE));
+  }
+
+  /**
+   * Starts a simulator with default settings: no added latency, no injected errors, any terminal.
+   *
+   * @return the running simulator
+   * @throws IOException if the port cannot be bound
+   */
+  public static SepGatewaySimulator start() throws IOException {
+    return start(SepSimulatorSettings.builder().build());
+  }
+
+  /**
+   * Starts a simulator.
+   *
+   * @param settings behaviour of the simulator
+   * @return the running simulator
+   * @throws IOException if the port cannot be bound
+   */
+  public static SepGatewaySimulator start(SepSimulatorSettings settings) throws IOException {
+    SepGatewaySimulator simulator = new SepGatewaySimulator(settings);
+    simulator.server.start();
+    log.info("SEP gateway simulator listening on {}", simulator.baseUrl());
+    return simulator;
+  }
+
+  /**
+   * Base URL to use as {@code sep.base-url}, e.g. {@code http://localhost:41234}.
+   *
+   * @return the base URL
+   */
+  public String baseUrl() {
+    return "http://localhost:" + port();
+  }
+
+  /**
+   * Port the simulator listens on.
+   *
+   * @return the port
+   */
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Pays a token as the payer would on the gateway page, and returns the callback the merchant receives.
+   * The token is consumed; the returned RefNum can then be verified or reversed.
+   *
+   * @param token token issued by this simulator
+   * @return the callback of a successful payment (state {@code OK}, status 2)
+   * @throws IllegalArgumentException if the token was not issued or is already paid
+   */
+  public SepTransactionResponse completePayment(String token) {
+    Token issued = tokens.remove(token);
+    if (issued == null) {
+      throw new IllegalArgumentException("Unknown or already paid token: " + token);
+    }
+    long trace = sequence.incrementAndGet();
+    Payment payment = new Payment(newRefNum(), issued.amount(), issued.terminalId(), trace);
+    payments.put(payment.refNum, payment);
+    return SepTransactionResponse.builder()
+      .mid(parseLong(issued.terminalId()))
+      .terminalId(parseLong(issued.terminalId()))
+      .state(SepErrorCode.OK.getEnglishName())
+      .status(Integer.valueOf(SepErrorCode.OK.getCode()))
+      .rrn(trace)
+      .refNum(payment.refNum)
+      .resNum(issued.resNum())
+      .traceNo(trace)
+      .amount(issued.amount())
+      .wage(0L)
+      .securePan(MASKED_PAN)
+      .hashedCardNumber(HASHED_PAN)
+      .build();
+  }
+
+  /**
+   * Takes a snapshot of the requests served so far.
+   *
+   * @return the simulator statistics
+   */
+  public Stats stats() {
+    return new Stats(requests.get(SepOperation.TOKEN).sum(), requests.get(SepOperation.VERIFY).sum(),
+      requests.get(SepOperation.REVERSE).sum(), injected.sum(), dropped.sum());
+  }
+
+  /**
+   * Forgets all issued tokens and payments. Long load tests that only request tokens should call this
+   * periodically, since unpaid tokens are kept until paid.
+   */
+  public void reset() {
+    tokens.clear();
+    payments.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange, SepOperation operation) throws IOException {
+    requests.get(operation).increment();
+    RandomGenerator random = ThreadLocalRandom.current();
+    try {
+      byte[] body;
+      try (InputStream in = exchange.getRequestBody()) {
+        body = in.readAllBytes();
+      }
+      sleep(settings.latency(operation).sampleNanos(random));
+      if (random.nextDouble() < settings.getDropRate()) {
+        // closing before the response headers are sent closes the connection
+        dropped.increment();
+        return;
+      }
+      Map<String, Object> response = switch (operation) {
+        case TOKEN -> token(mapper.readValue(body, SepTokenRequest.class), random);
+        case VERIFY -> verify(mapper.readValue(body, SepVerifyTransactionRequest.class), random);
+        case REVERSE -> reverse(mapper.readValue(body, SepVerifyTransactionRequest.class), random);
+      };
+      respond(exchange, 200, mapper.writeValueAsBytes(response));
+    } catch (JacksonException e) {
+      respond(exchange, 400, new byte[0]);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private Map<String, Object> token(SepTokenRequest request, RandomGenerator random) {
+    SepErrorCode error = draw(settings.getTokenErrors(), random);
+    if (error == null && !acceptsTerminal(request.getTerminalId())) {
+      error = SepErrorCode.TERMINAL_NOT_FOUND;
+    }
+    if (error == null && (request.getAmount() == null || request.getAmount() <= 0 || isBlank(request.getResNum())
+        || isBlank(request.getRedirectUrl()))) {
+      error = SepErrorCode.INVALID_PARAMETERS;
+    }
+    Map<String, Object> response = new LinkedHashMap<>();
+    if (error != null) {
+      response.put("status", -1);
+      response.put("errorCode", error.getCode());
+      response.put("errorDesc", error.getPersianDescription());
+      return response;
+    }
+    String token = UUID.randomUUID().toString().replace("-", "");
+    tokens.put(token, new Token(request.getResNum(), request.getAmount(), request.getTerminalId()));
+    response.put("status", 1);
+    response.put("token", token);
+    return response;
+  }
+
+  private Map<String, Object> verify(SepVerifyTransactionRequest request, RandomGenerator random) {
+    SepResultCode injectedCode = draw(settings.getVerifyErrors(), random);
+    if (injectedCode != null) {
+      return result(injectedCode, null);
+    }
+    if (!acceptsTerminal(String.valueOf(request.getTerminalNumber()))) {
+      return result(SepResultCode.TERMINAL_NOT_FOUND, null);
+    }
+    Payment payment = payment(request);
+    if (payment == null) {
+      return result(SepResultCode.TRANSACTION_NOT_FOUND, null);
+    }
+    synchronized (payment) {
+      switch (payment.state) {
+        case REVERSED -> {
+          return result(SepResultCode.ALREADY_REVERSED, payment);
+        }
+        case VERIFIED -> {
+          return result(SepResultCode.DUPLICATE_REQUEST, payment);
+        }
+        default -> {
+          if (System.nanoTime() - payment.paidAt > settings.getVerifyWindow().toNanos()) {
+            return result(SepResultCode.TRANSACTION_EXPIRED, null);
+          }
+          payment.state = PaymentState.VERIFIED;
+          return result(SepResultCode.SUCCESS, payment);
+        }
+      }
+    }
+  }
+
+  private Map<String, Object> reverse(SepVerifyTransactionRequest request, RandomGenerator random) {
+    SepResultCode injectedCode = draw(settings.getReverseErrors(), random);
+    if (injectedCode != null) {
+      return result(injectedCode, null);
+    }
+    if (!acceptsTerminal(String.valueOf(request.getTerminalNumber()))) {
+      return result(SepResultCode.TERMINAL_NOT_FOUND, null);
+    }
+    Payment payment = payment(request);
+    if (payment == null) {
+      return result(SepResultCode.TRANSACTION_NOT_FOUND, null);
+    }
+    synchronized (payment) {
+      if (payment.state == PaymentState.REVERSED) {
+        return result(SepResultCode.DUPLICATE_REQUEST, payment);
+      }
+      payment.state = PaymentState.REVERSED;
+      return result(SepResultCode.SUCCESS, payment);
+    }
+  }
+
+  private Payment payment(SepVerifyTransactionRequest request) {
+    if (isBlank(request.getRefNum())) {
+      return null;
+    }
+    if (!settings.isAcceptUnknownRefNums()) {
+      return payments.get(request.getRefNum());
+    }
+    return payments.computeIfAbsent(request.getRefNum(), refNum -> new Payment(refNum,
+      settings.getDefaultAmount(), String.valueOf(request.getTerminalNumber()), sequence.incrementAndGet()));
+  }
+
+  private static Map<String, Object> result(SepResultCode code, Payment payment) {
+    Map<String, Object> response = new LinkedHashMap<>();
+    if (payment != null) {
+      Map<String, Object> detail = new LinkedHashMap<>();
+      detail.put("RRN", String.valueOf(payment.trace));
+      detail.put("RefNum", payment.refNum);
+      detail.put("MaskedPan", MASKED_PAN);
+      detail.put("HashedPan", HASHED_PAN);
+      detail.put("TerminalNumber", parseLong(payment.terminalId));
+      detail.put("OrginalAmount", payment.amount);
+      detail.put("AffectiveAmount", payment.amount);
+      detail.put("StraceDate", payment.paidOn);
+      detail.put("StraceNo", String.valueOf(payment.trace));
+      response.put("TransactionDetail", detail);
+    }
+    response.put("ResultCode", code.getCode());
+    response.put("ResultDescription", code.getDescription());
+    response.put("Success", code.isSuccess());
+    return response;
+  }
+
+  private <K> K draw(Map<K, Double> probabilities, RandomGenerator random) {
+    if (probabilities.isEmpty()) {
+      return null;
+    }
+    double sample = random.nextDouble();
+    double cumulative = 0;
+    for (Map.Entry<K, Double> entry : probabilities.entrySet()) {
+      cumulative += entry.getValue();
+      if (sample < cumulative) {
+        injected.increment();
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
+  private boolean acceptsTerminal(String terminalId) {
+    return settings.getTerminalId() == null || settings.getTerminalId().equals(terminalId);
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static void sleep(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(nanos);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String newRefNum() {
+    return UUID.randomUUID().toString().replace("-", "").substring(0, 30);
+  }
+
+  private static Long parseLong(String value) {
+    try {
+      return value != null ? Long.valueOf(value) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+
+  private enum PaymentState {
+    PAID, VERIFIED, REVERSED
+  }
+
+  private record Token(String resNum, Long amount, String terminalId) {
+  }
+
+  private static final class Payment {
+    private final String refNum;
+    private final long amount;
+    private final String terminalId;
+    private final long trace;
+    private final long paidAt = System.nanoTime();
+    private final String paidOn = LocalDateTime.now().format(STRACE_DATE);
+    private PaymentState state = PaymentState.PAID;
+
+    private Payment(String refNum, long amount, String terminalId, long trace) {
+      this.refNum = refNum;
+      this.amount = amount;
+      this.terminalId = terminalId;
+      this.trace = trace;
+    }
+  }
+
+  /**
+   * Snapshot of a simulator.
+   *
+   * @param tokenRequests   token requests received
+   * @param verifyRequests  verify requests received
+   * @param reverseRequests reverse requests received
+   * @param injectedErrors  requests answered with an injected error code
+   * @param dropped         requests whose connection was dropped
+   */
+  public record Stats(long tokenRequests, long verifyRequests, long reverseRequests, long injectedErrors,
+      long dropped) {
+  }
+}
@@ -0,0 +1,79 @@
+package com.kassa.sep.simulator;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Distribution of the artificial latency the {@link SepGatewaySimulator} adds before answering a request.
+ */
+@FunctionalInterface
+public interface SepLatency {
+
+  /**
+   * Draws a latency.
+   *
+   * @param random source of randomness
+   * @return the latency in nanoseconds, never negative
+   */
+  long sampleNanos(RandomGenerator random);
+
+  /**
+   * No added latency.
+   *
+   * @return the distribution
+   */
+  static SepLatency none() {
+    return random -> 0;
+  }
+
+  /**
+   * A constant latency.
+   *
+   * @param latency the latency
+   * @return the distribution
+   */
+  static SepLatency fixed(Duration latency) {
+    long nanos = latency.toNanos();
+    return random -> nanos;
+  }
+
+  /**
+   * A latency uniformly distributed between two bounds.
+   *
+   * @param min lower bound, inclusive
+   * @param max upper bound, inclusive
+   * @return the distribution
+   */
+  static SepLatency uniform(Duration min, Duration max) {
+    long minNanos = min.toNanos();
+    long maxNanos = max.toNanos();
+    return random -> random.nextLong(minNanos, maxNanos + 1);
+  }
+
+  /**
+   * A log-normal latency, the usual shape of service response times: most answers close to the median with a
+   * long right tail.
+   *
+   * @param median 50th percentile
+   * @param p99    99th percentile; must not be lower than the median
+   * @return the distribution
+   */
+  static SepLatency logNormal(Duration median, Duration p99) {
+    double mu = Math.log(median.toNanos());
+    // z-score of the 99th percentile of the standard normal distribution
+    double sigma = (Math.log(p99.toNanos()) - mu) / 2.3263;
+    return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+  }
+
+  /**
+   * Adds occasional latency spikes on top of this distribution, e.g. to model gateway GC pauses.
+   *
+   * @param probability probability of a spike per request, between 0 and 1
+   * @param spike       latency added by a spike
+   * @return the distribution
+   */
+  default SepLatency withSpikes(double probability, Duration spike) {
+    long spikeNanos = spike.toNanos();
+    return random -> sampleNanos(random) + (random.nextDouble() < probability ? spikeNanos : 0);
+  }
+}
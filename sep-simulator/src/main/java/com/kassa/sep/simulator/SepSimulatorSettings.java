@@ -0,0 +1,85 @@
+package com.kassa.sep.simulator;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.interceptor.SepOperation;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+/**
+ * Behaviour of a {@link SepGatewaySimulator}.
+ * <p>
+ * Injected errors are drawn independently per request: {@code tokenErrors}, {@code verifyErrors} and
+ * {@code reverseErrors} map a gateway code to its probability (the probabilities of one operation must not add up
+ * to more than 1). Injected errors do not change the state of a transaction. A dropped request has its connection
+ * closed without any response.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class SepSimulatorSettings {
+
+  /** Port to listen on; 0 picks a free port. */
+  @Builder.Default
+  private final int port = 0;
+
+  /** Threads serving requests (platform threads; virtual threads are used on Java 21+). */
+  @Builder.Default
+  private final int threads = 200;
+
+  /** Terminal accepted by the simulator; null accepts any terminal. */
+  private final String terminalId;
+
+  /** Latency of operations without an entry in {@link #latencies}. */
+  @Builder.Default
+  private final SepLatency defaultLatency = SepLatency.none();
+
+  /** Latency per operation. */
+  @Singular
+  private final Map<SepOperation, SepLatency> latencies;
+
+  /** Token error codes to inject, with their probability. */
+  @Singular
+  private final Map<SepErrorCode, Double> tokenErrors;
+
+  /** Verify result codes to inject, with their probability. */
+  @Singular
+  private final Map<SepResultCode, Double> verifyErrors;
+
+  /** Reverse result codes to inject, with their probability. */
+  @Singular
+  private final Map<SepResultCode, Double> reverseErrors;
+
+  /** Probability of closing the connection instead of answering. */
+  @Builder.Default
+  private final double dropRate = 0;
+
+  /** Time after payment within which a transaction can be verified; later verifies are answered as expired. */
+  @Builder.Default
+  private final Duration verifyWindow = Duration.ofMinutes(30);
+
+  /**
+   * Whether verify/reverse of a RefNum the simulator never issued is treated as a fresh payment (handy for load
+   * tests) instead of being answered with {@link SepResultCode#TRANSACTION_NOT_FOUND}.
+   */
+  @Builder.Default
+  private final boolean acceptUnknownRefNums = true;
+
+  /** Amount reported for RefNums accepted without a known payment. */
+  @Builder.Default
+  private final long defaultAmount = 10_000;
+
+  /**
+   * Latency of an operation.
+   *
+   * @param operation the gateway operation
+   * @return the configured latency, or the default latency
+   */
+  public SepLatency latency(SepOperation operation) {
+    return latencies.getOrDefault(operation, defaultLatency);
+  }
+}
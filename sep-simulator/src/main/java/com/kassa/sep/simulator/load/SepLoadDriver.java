@@ -0,0 +1,131 @@
+package com.kassa.sep.simulator.load;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.kassa.sep.config.SepExecutors;
+import com.kassa.sep.exception.SepGatewayException;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Open-loop load generator: starts a {@link SepLoadScenario} at a fixed target rate, independent of how fast
+ * earlier executions complete, and records their latencies in an HdrHistogram.
+ * <p>
+ * At most {@code maxConcurrency} executions run at once; when all slots are taken the schedule falls behind, and
+ * the time waited for a slot counts into the latency of the delayed executions. Executions started during the
+ * warmup are not recorded.
+ * <pre>
+ * SepLoadReport report = SepLoadDriver.builder()
+ *   .scenario(SepLoadScenario.verify(sepClient))
+ *   .ratePerSecond(500)
+ *   .duration(Duration.ofSeconds(60))
+ *   .build()
+ *   .run();
+ * report.print(System.out);
+ * </pre>
+ */
+@Slf4j
+@Builder
+public class SepLoadDriver {
+  @NonNull
+  private final SepLoadScenario scenario;
+
+  /** Scenario executions started per second. */
+  @Builder.Default
+  private final double ratePerSecond = 100;
+
+  /** Duration of the measurement. */
+  @Builder.Default
+  private final Duration duration = Duration.ofSeconds(30);
+
+  /** Duration of the unrecorded warmup before the measurement. */
+  @Builder.Default
+  private final Duration warmup = Duration.ofSeconds(5);
+
+  /** Maximum executions in flight. */
+  @Builder.Default
+  private final int maxConcurrency = 256;
+
+  /**
+   * Runs the warmup and the measurement, then waits for the executions in flight.
+   *
+   * @return the report of the measurement
+   */
+  public SepLoadReport run() {
+    Recorder recorder = new Recorder(3);
+    LongAdder succeeded = new LongAdder();
+    LongAdder gatewayErrors = new LongAdder();
+    LongAdder failures = new LongAdder();
+    Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    Semaphore slots = new Semaphore(maxConcurrency);
+    ExecutorService executor = SepExecutors.create("sep-load", true, maxConcurrency, maxConcurrency);
+
+    long start = System.nanoTime();
+    long measureStart = start + warmup.toNanos();
+    long end = measureStart + duration.toNanos();
+    double intervalNanos = 1_000_000_000.0 / ratePerSecond;
+    long scheduled = 0;
+    log.info("SEP load: {} executions/s for {} after {} warmup, at most {} in flight", ratePerSecond, duration,
+      warmup, maxConcurrency);
+    try {
+      for (long sequence = 0; ; sequence++) {
+        long intendedStart = start + (long) (sequence * intervalNanos);
+        if (intendedStart >= end) {
+          break;
+        }
+        long delay = intendedStart - System.nanoTime();
+        if (delay > 0) {
+          LockSupport.parkNanos(delay);
+        }
+        boolean measured = intendedStart >= measureStart;
+        scheduled += measured ? 1 : 0;
+        slots.acquireUninterruptibly();
+        long id = sequence;
+        executor.execute(() -> {
+          try {
+            scenario.run(id);
+            if (measured) {
+              succeeded.increment();
+            }
+          } catch (SepGatewayException e) {
+            if (measured) {
+              gatewayErrors.increment();
+              errors.computeIfAbsent(e.getErrorCode(), code -> new LongAdder()).increment();
+            }
+          } catch (RuntimeException e) {
+            if (measured) {
+              failures.increment();
+              errors.computeIfAbsent(e.getClass().getSimpleName(), type -> new LongAdder()).increment();
+            }
+          } finally {
+            if (measured) {
+              recorder.recordValue(System.nanoTime() - intendedStart);
+            }
+            slots.release();
+          }
+        });
+      }
+      slots.acquireUninterruptibly(maxConcurrency);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Histogram latency = recorder.getIntervalHistogram();
+    Map<String, Long> errorCounts = new TreeMap<>();
+    errors.forEach((error, count) -> errorCounts.put(error, count.sum()));
+    return new SepLoadReport(scheduled, succeeded.sum(), gatewayErrors.sum(), failures.sum(), errorCounts,
+      Duration.ofNanos(System.nanoTime() - measureStart), latency);
+  }
+}
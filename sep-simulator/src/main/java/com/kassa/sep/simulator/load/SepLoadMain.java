@@ -0,0 +1,112 @@
+package com.kassa.sep.simulator.load;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.simulator.SepGatewaySimulator;
+import com.kassa.sep.simulator.SepLatency;
+import com.kassa.sep.simulator.SepSimulatorSettings;
+
+/**
+ * Command line load test: starts a {@link SepGatewaySimulator}, creates the auto-configured {@link SepClient}
+ * against it and runs a {@link SepLoadDriver}.
+ * <pre>
+ * java -jar sep-simulator-1.0.0-load.jar -scenario=checkout -rate=300 -duration=60s \
+ *   -latency-median=80ms -latency-p99=600ms -drop-rate=0.001 -verify-error=TERMINAL_INACTIVE:0.01
+ * </pre>
+ * Options: {@code -scenario} (token, verify, reverse, checkout), {@code -rate}, {@code -duration},
+ * {@code -warmup}, {@code -concurrency}, {@code -latency-median}, {@code -latency-p99}, {@code -drop-rate},
+ * {@code -token-error=<SepErrorCode>:<probability>}, {@code -verify-error=<SepResultCode>:<probability>},
+ * {@code -reverse-error=<SepResultCode>:<probability>}. Client settings are regular {@code sep.*} properties
+ * passed as system properties, e.g. {@code -Dsep.retry.enabled=false}.
+ */
+public final class SepLoadMain {
+
+  private SepLoadMain() {
+  }
+
+  /**
+   * Runs the load test and prints the report.
+   *
+   * @param args {@code -option=value} pairs
+   * @throws Exception if the simulator cannot start
+   */
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parse(args);
+    // Spring Boot's default logging (INFO) instead of logback's unconfigured DEBUG output
+    LoggingSystem logging = LoggingSystem.get(SepLoadMain.class.getClassLoader());
+    logging.beforeInitialize();
+    logging.initialize(new LoggingInitializationContext(new StandardEnvironment()), null, null);
+    SepSimulatorSettings.SepSimulatorSettingsBuilder settings = SepSimulatorSettings.builder()
+      .dropRate(Double.parseDouble(options.getOrDefault("drop-rate", "0")));
+    if (options.containsKey("latency-median")) {
+      Duration median = DurationStyle.detectAndParse(options.get("latency-median"));
+      settings.defaultLatency(SepLatency.logNormal(median,
+        DurationStyle.detectAndParse(options.getOrDefault("latency-p99", options.get("latency-median")))));
+    }
+    if (options.containsKey("token-error")) {
+      String[] error = options.get("token-error").split(":");
+      settings.tokenError(SepErrorCode.valueOf(error[0]), Double.parseDouble(error[1]));
+    }
+    if (options.containsKey("verify-error")) {
+      String[] error = options.get("verify-error").split(":");
+      settings.verifyError(SepResultCode.valueOf(error[0]), Double.parseDouble(error[1]));
+    }
+    if (options.containsKey("reverse-error")) {
+      String[] error = options.get("reverse-error").split(":");
+      settings.reverseError(SepResultCode.valueOf(error[0]), Double.parseDouble(error[1]));
+    }
+
+    try (SepGatewaySimulator simulator = SepGatewaySimulator.start(settings.build());
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      context.getEnvironment().getPropertySources().addLast(new MapPropertySource("sep-load", Map.of(
+        "sep.base-url", simulator.baseUrl(),
+        "sep.terminal-id", "2015")));
+      context.register(SepConfiguration.class);
+      context.refresh();
+      SepClient client = context.getBean(SepClient.class);
+
+      SepLoadScenario scenario = switch (options.getOrDefault("scenario", "verify")) {
+        case "token" -> SepLoadScenario.token(client);
+        case "verify" -> SepLoadScenario.verify(client);
+        case "reverse" -> SepLoadScenario.reverse(client);
+        case "checkout" -> SepLoadScenario.checkout(client, simulator);
+        default -> throw new IllegalArgumentException("Unknown scenario: " + options.get("scenario"));
+      };
+      SepLoadReport report = SepLoadDriver.builder()
+        .scenario(scenario)
+        .ratePerSecond(Double.parseDouble(options.getOrDefault("rate", "100")))
+        .duration(DurationStyle.detectAndParse(options.getOrDefault("duration", "30s")))
+        .warmup(DurationStyle.detectAndParse(options.getOrDefault("warmup", "5s")))
+        .maxConcurrency(Integer.parseInt(options.getOrDefault("concurrency", "256")))
+        .build()
+        .run();
+      report.print(System.out);
+      System.out.println("simulator: " + simulator.stats());
+    }
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (!arg.startsWith("-") || separator < 0) {
+        throw new IllegalArgumentException("Expected -option=value but got: " + arg);
+      }
+      options.put(arg.substring(1, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+}
@@ -0,0 +1,60 @@
+package com.kassa.sep.simulator.load;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Result of a {@link SepLoadDriver} run. Latencies are measured from the moment a scenario was scheduled to start,
+ * so time spent waiting for a free slot is included (no coordinated omission).
+ *
+ * @param scheduled     scenario executions scheduled during the measurement
+ * @param succeeded     executions that completed normally
+ * @param gatewayErrors executions that ended with a {@link com.kassa.sep.exception.SepGatewayException}
+ * @param failures      executions that ended with any other exception
+ * @param errors        gateway error codes and failure types with their counts
+ * @param elapsed       duration of the measurement, including draining of the last executions
+ * @param latency       latency histogram in nanoseconds
+ */
+public record SepLoadReport(long scheduled, long succeeded, long gatewayErrors, long failures,
+    Map<String, Long> errors, Duration elapsed, Histogram latency) {
+
+  /**
+   * Completed executions per second.
+   *
+   * @return the throughput
+   */
+  public double throughput() {
+    long completed = succeeded + gatewayErrors + failures;
+    return elapsed.isZero() ? 0 : completed * 1_000_000_000.0 / elapsed.toNanos();
+  }
+
+  /**
+   * Latency at a percentile.
+   *
+   * @param percentile percentile between 0 and 100, e.g. 99.9
+   * @return the latency
+   */
+  public Duration percentile(double percentile) {
+    return Duration.ofNanos(latency.getValueAtPercentile(percentile));
+  }
+
+  /**
+   * Prints a summary: counts, throughput, latency percentiles and errors.
+   *
+   * @param out target stream
+   */
+  public void print(PrintStream out) {
+    out.printf("scheduled=%d succeeded=%d gatewayErrors=%d failures=%d elapsed=%.1fs throughput=%.1f/s%n",
+      scheduled, succeeded, gatewayErrors, failures, elapsed.toMillis() / 1000.0, throughput());
+    out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n", millis(50), millis(90), millis(99),
+      millis(99.9), latency.getMaxValue() / 1_000_000.0);
+    errors.forEach((error, count) -> out.printf("  %s: %d%n", error, count));
+  }
+
+  private double millis(double percentile) {
+    return latency.getValueAtPercentile(percentile) / 1_000_000.0;
+  }
+}
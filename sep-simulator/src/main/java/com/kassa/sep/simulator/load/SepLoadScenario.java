@@ -0,0 +1,65 @@
+package com.kassa.sep.simulator.load;
+
+import com.kassa.sep.SepClient;
+import com.kassa.sep.simulator.SepGatewaySimulator;
+
+/**
+ * One unit of work of a load test, e.g. a single verify or a whole checkout. A scenario that returns normally
+ * counts as a success, a {@link com.kassa.sep.exception.SepGatewayException} as a gateway error and any other
+ * exception as a failure.
+ */
+@FunctionalInterface
+public interface SepLoadScenario {
+
+  /**
+   * Runs the scenario once.
+   *
+   * @param sequence number of this execution, unique within a run (e.g. to derive a ResNum or RefNum)
+   */
+  void run(long sequence);
+
+  /**
+   * Requests a token with a fresh ResNum.
+   *
+   * @param client the client under test
+   * @return the scenario
+   */
+  static SepLoadScenario token(SepClient client) {
+    return sequence -> client.requestToken(10_000, "LOAD-" + sequence, "https://shop.example.com/callback", null);
+  }
+
+  /**
+   * Verifies a fresh RefNum; needs a gateway that accepts unknown RefNums, like the default simulator.
+   *
+   * @param client the client under test
+   * @return the scenario
+   */
+  static SepLoadScenario verify(SepClient client) {
+    return sequence -> client.verifyTransaction("LOAD-" + sequence);
+  }
+
+  /**
+   * Reverses a fresh RefNum; needs a gateway that accepts unknown RefNums, like the default simulator.
+   *
+   * @param client the client under test
+   * @return the scenario
+   */
+  static SepLoadScenario reverse(SepClient client) {
+    return sequence -> client.reverseTransaction("LOAD-" + sequence);
+  }
+
+  /**
+   * A whole checkout against a simulator: token, payment on the gateway page, verify.
+   *
+   * @param client    the client under test
+   * @param simulator the simulator the client talks to
+   * @return the scenario
+   */
+  static SepLoadScenario checkout(SepClient client, SepGatewaySimulator simulator) {
+    return sequence -> {
+      String token = client.requestToken(10_000, "LOAD-" + sequence, "https://shop.example.com/callback", null)
+        .getToken();
+      client.verifyTransaction(simulator.completePayment(token).getRefNum());
+    };
+  }
+}
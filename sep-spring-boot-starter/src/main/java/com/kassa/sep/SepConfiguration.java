@@ -0,0 +1,506 @@
+package com.kassa.sep;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.client.RestClient;
+
+import com.kassa.sep.batch.SepBatchClient;
+import com.kassa.sep.cache.SepRequestCoalescer;
+import com.kassa.sep.cache.SepTokenCache;
+import com.kassa.sep.cache.SepVerificationCache;
+import com.kassa.sep.config.RestConfig;
+import com.kassa.sep.config.SepAsyncExecutor;
+import com.kassa.sep.config.SepConnectionPool;
+import com.kassa.sep.config.SepExecutors;
+import com.kassa.sep.config.SepRestClientTransport;
+import com.kassa.sep.config.SepRuntimeHints;
+import com.kassa.sep.idempotency.SepIdempotencyInterceptor;
+import com.kassa.sep.idempotency.SepIdempotencyStore;
+import com.kassa.sep.idempotency.SepInMemoryIdempotencyStore;
+import com.kassa.sep.idempotency.SepJdbcIdempotencyStore;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepContextPropagator;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.outbox.SepOutboxJournal;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.reconcile.SepReconciler;
+import com.kassa.sep.recorder.SepFlightRecorder;
+import com.kassa.sep.resilience.SepBulkheadInterceptor;
+import com.kassa.sep.resilience.SepCircuitBreaker;
+import com.kassa.sep.resilience.SepCircuitBreakerInterceptor;
+import com.kassa.sep.resilience.SepHedgingInterceptor;
+import com.kassa.sep.resilience.SepLatencyTracker;
+import com.kassa.sep.resilience.SepRateLimiter;
+import com.kassa.sep.resilience.SepRateLimiterInterceptor;
+import com.kassa.sep.resilience.SepRetryInterceptor;
+import com.kassa.sep.reversal.SepReversalListener;
+import com.kassa.sep.reversal.SepReversalScheduler;
+import com.kassa.sep.routing.SepClientRegistry;
+import com.kassa.sep.routing.SepTerminal;
+import com.kassa.sep.routing.SepTerminalRouter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spring Boot auto-configuration for the SEP (Shaparak Electronic Payment) integration.
+ * Registers {@link SepProperties} and exposes a {@link SepClient} bean for calling the SEP gateway API.
+ * <p>
+ * Registered through {@code META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports} and
+ * disabled with {@code sep.enabled=false}. Every bean backs off when the application defines its own. The
+ * terminals of the {@link SepClientRegistry} are built on first use. With
+ * {@code spring.main.lazy-initialization=true}, so are the other beans, except for the verification outbox and the
+ * reversal scheduler, which must start with the application.
+ */
+@Slf4j
+@AutoConfiguration
+@ConditionalOnProperty(prefix = "sep", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SepProperties.class)
+@Import(RestConfig.class)
+@ImportRuntimeHints(SepRuntimeHints.class)
+public class SepConfiguration {
+  private final SepProperties properties;
+
+  /**
+   * Creates the configuration with the given SEP properties.
+   *
+   * @param properties the SEP configuration properties (e.g. base URL, terminal ID)
+   */
+  public SepConfiguration(SepProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Defines the {@link SepClient} bean used to perform SEP gateway operations.
+   *
+   * @param restClient   the dedicated SEP RestClient (base URL set from {@link SepProperties#baseUrl()})
+   * @param interceptors the {@link SepCallInterceptor} beans gateway calls pass through
+   * @param latencies    tracker of gateway latencies
+   * @return the SEP client instance
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepClient sepClient(@Qualifier(RestConfig.REST_CLIENT_BEAN) RestClient restClient,
+      ObjectProvider<SepCallInterceptor> interceptors, SepLatencyTracker latencies) {
+    return new SepClient(new SepRestClientTransport(restClient), properties.clientSettings(),
+      interceptors.stream().toList(), latencies);
+  }
+
+  /**
+   * Defines the tracker of gateway latencies per terminal and operation, shared by all terminals' clients. Adaptive
+   * timeouts are enabled with {@code sep.adaptive-timeout.enabled=true}.
+   *
+   * @return the latency tracker
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepLatencyTracker sepLatencyTracker() {
+    SepProperties.AdaptiveTimeout adaptiveTimeout = properties.adaptiveTimeout();
+    return new SepLatencyTracker(adaptiveTimeout.window(), adaptiveTimeout.minSamples());
+  }
+
+  /**
+   * Defines the verification cache answering repeat verifies of a RefNum locally.
+   * Enabled with {@code sep.verify-cache.enabled=true}.
+   *
+   * @return the verification cache
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.verify-cache", name = "enabled", havingValue = "true")
+  public SepVerificationCache sepVerificationCache() {
+    SepProperties.VerifyCache cache = properties.verifyCache();
+    return new SepVerificationCache(cache.maximumSize(), cache.ttl());
+  }
+
+  /**
+   * Defines single-flight coalescing of concurrent verify/reverse calls for the same RefNum.
+   * Disabled with {@code sep.coalesce-requests=false}.
+   *
+   * @return the request coalescer
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep", name = "coalesce-requests", havingValue = "true", matchIfMissing = true)
+  public SepRequestCoalescer sepRequestCoalescer() {
+    return new SepRequestCoalescer();
+  }
+
+  /**
+   * Defines idempotent token issuance keyed by ResNum.
+   * Enabled with {@code sep.token-cache.enabled=true}.
+   *
+   * @return the token cache
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.token-cache", name = "enabled", havingValue = "true")
+  public SepTokenCache sepTokenCache() {
+    SepProperties.TokenCache cache = properties.tokenCache();
+    return new SepTokenCache(cache.maximumSize(), cache.ttl());
+  }
+
+  /**
+   * Defines the retry policy for transient failures of gateway calls.
+   * Disabled with {@code sep.retry.enabled=false}.
+   *
+   * @return the retry interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.retry", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public SepRetryInterceptor sepRetryInterceptor() {
+    return retryInterceptor(properties.retry());
+  }
+
+  /**
+   * Defines a circuit breaker per gateway operation.
+   * Disabled with {@code sep.circuit-breaker.enabled=false}.
+   *
+   * @return the circuit breaker interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.circuit-breaker", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public SepCircuitBreakerInterceptor sepCircuitBreakerInterceptor() {
+    return circuitBreakerInterceptor(properties.circuitBreaker(), "");
+  }
+
+  /**
+   * Defines a concurrency bulkhead per gateway operation.
+   * Disabled with {@code sep.bulkhead.enabled=false}.
+   *
+   * @return the bulkhead interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.bulkhead", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public SepBulkheadInterceptor sepBulkheadInterceptor() {
+    return bulkheadInterceptor(properties.bulkhead());
+  }
+
+  /**
+   * Defines a token-bucket rate limiter per gateway operation.
+   * Enabled with {@code sep.rate-limit.enabled=true}.
+   *
+   * @return the rate limiter interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.rate-limit", name = "enabled", havingValue = "true")
+  public SepRateLimiterInterceptor sepRateLimiterInterceptor() {
+    return rateLimiterInterceptor(properties.rateLimit(), "");
+  }
+
+  /**
+   * Defines the hedging of slow verify calls, on its own executor sized like {@code sep.async}.
+   * Enabled with {@code sep.hedging.enabled=true}.
+   *
+   * @param latencies tracker of gateway latencies
+   * @param context   carries the caller's context to the requests; the MDC only if there is none
+   * @return the hedging interceptor; its executor is shut down with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.hedging", name = "enabled", havingValue = "true")
+  public SepHedgingInterceptor sepHedgingInterceptor(SepLatencyTracker latencies,
+      ObjectProvider<SepContextPropagator> context) {
+    SepProperties.Async async = properties.async();
+    SepProperties.Hedging hedging = properties.hedging();
+    return new SepHedgingInterceptor(latencies,
+      SepExecutors.create("sep-hedging", async.virtualThreads(), async.platformThreads(), async.queueCapacity()),
+      hedging.percentile(), hedging.minDelay(), context.getIfAvailable(SepContextPropagator::mdc));
+  }
+
+  /**
+   * Defines the store shared by the nodes for cluster-wide idempotency: in memory, or in the table
+   * {@code sep.idempotency.jdbc-table} of the application's {@link DataSource}.
+   * Enabled with {@code sep.idempotency.enabled=true}.
+   *
+   * @param dataSource the application's database, required by the {@code jdbc} store
+   * @return the idempotency store
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.idempotency", name = "enabled", havingValue = "true")
+  public SepIdempotencyStore sepIdempotencyStore(ObjectProvider<DataSource> dataSource) {
+    SepProperties.Idempotency idempotency = properties.idempotency();
+    if (idempotency.store() == SepProperties.Idempotency.Store.MEMORY) {
+      return new SepInMemoryIdempotencyStore();
+    }
+    DataSource database = dataSource.getIfAvailable();
+    if (database == null) {
+      throw new IllegalStateException("sep.idempotency.store=jdbc requires a DataSource bean");
+    }
+    return new SepJdbcIdempotencyStore(database, idempotency.jdbcTable());
+  }
+
+  /**
+   * Defines the cluster-wide idempotency of verify and reverse calls, shared by all terminals.
+   * Enabled with {@code sep.idempotency.enabled=true}.
+   *
+   * @param store the store shared by the nodes
+   * @return the idempotency interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.idempotency", name = "enabled", havingValue = "true")
+  public SepIdempotencyInterceptor sepIdempotencyInterceptor(SepIdempotencyStore store) {
+    SepProperties.Idempotency idempotency = properties.idempotency();
+    String nodeId = idempotency.nodeId() != null ? idempotency.nodeId() : UUID.randomUUID().toString();
+    log.info("SEP idempotency enabled: node={}, store={}", nodeId, store.getClass().getSimpleName());
+    return new SepIdempotencyInterceptor(store, nodeId, idempotency.lease(), idempotency.retention(),
+      idempotency.maxWait(), idempotency.pollInterval());
+  }
+
+  /**
+   * Defines the in-memory recorder of recent gateway exchanges.
+   * Disabled with {@code sep.flight-recorder.enabled=false}.
+   *
+   * @return the flight recorder
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.flight-recorder", name = "enabled", havingValue = "true", matchIfMissing = true)
+  public SepFlightRecorder sepFlightRecorder() {
+    SepProperties.FlightRecorder recorder = properties.flightRecorder();
+    return new SepFlightRecorder(recorder.capacity(), recorder.bodySampleRate(),
+      Math.toIntExact(recorder.maxBodySize().toBytes()), recorder.maskedFields(), recorder.dumpSize());
+  }
+
+  /**
+   * Defines the registry of the default terminal and the named terminals under {@code sep.terminals}.
+   * Every named terminal gets its own HTTP connection pool and, where enabled, its own retry budget, circuit
+   * breakers, bulkheads and rate limiters; the other interceptors are shared with {@link SepClient}. Calls are
+   * routed by the {@link SepTerminalRouter} bean, or by the configured ResNum prefixes if there is none.
+   * The terminals are built on their first use.
+   *
+   * @param sepClient       client of the default terminal
+   * @param interceptors    the {@link SepCallInterceptor} beans
+   * @param router          custom routing strategy
+   * @param pool            connection pool of the default terminal
+   * @param retry           retry interceptor of the default terminal
+   * @param circuitBreakers circuit breakers of the default terminal
+   * @param bulkheads       bulkheads of the default terminal
+   * @param rateLimiters    rate limiters of the default terminal
+   * @param flightRecorder  flight recorder, tapping the RestClients of the named terminals
+   * @param latencies       tracker of gateway latencies, keyed by terminal ID
+   * @return the client registry, closing the HTTP clients of the named terminals with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepClientRegistry sepClientRegistry(ObjectProvider<SepClient> sepClient,
+      ObjectProvider<SepCallInterceptor> interceptors, ObjectProvider<SepTerminalRouter> router,
+      ObjectProvider<SepConnectionPool> pool, ObjectProvider<SepRetryInterceptor> retry,
+      ObjectProvider<SepCircuitBreakerInterceptor> circuitBreakers, ObjectProvider<SepBulkheadInterceptor> bulkheads,
+      ObjectProvider<SepRateLimiterInterceptor> rateLimiters, ObjectProvider<SepFlightRecorder> flightRecorder,
+      ObjectProvider<SepLatencyTracker> latencies) {
+    List<SepClientRegistry.TerminalDefinition> terminals = new ArrayList<>();
+    Map<String, String> terminalsByPrefix = new LinkedHashMap<>();
+    terminals.add(new SepClientRegistry.TerminalDefinition(SepClientRegistry.DEFAULT_TERMINAL,
+      properties.terminalId(), resources -> new SepTerminal(SepClientRegistry.DEFAULT_TERMINAL,
+        properties.terminalId(), sepClient.getObject(), pool.getIfAvailable(), retry.getIfAvailable(),
+        circuitBreakers.getIfAvailable(), bulkheads.getIfAvailable(), rateLimiters.getIfAvailable())));
+    properties.terminals().forEach((name, terminal) -> {
+      terminals.add(new SepClientRegistry.TerminalDefinition(name, terminal.terminalId(),
+        resources -> namedTerminal(name, terminal, resources, interceptors, retry, circuitBreakers, bulkheads,
+          flightRecorder, latencies)));
+      terminal.resNumPrefixes().forEach(prefix -> terminalsByPrefix.put(prefix, name));
+    });
+    return new SepClientRegistry(terminals,
+      router.getIfAvailable(() -> SepTerminalRouter.byResNumPrefix(terminalsByPrefix)));
+  }
+
+  private SepTerminal namedTerminal(String name, SepProperties.Terminal terminal, Consumer<AutoCloseable> resources,
+      ObjectProvider<SepCallInterceptor> interceptors, ObjectProvider<SepRetryInterceptor> retry,
+      ObjectProvider<SepCircuitBreakerInterceptor> circuitBreakers, ObjectProvider<SepBulkheadInterceptor> bulkheads,
+      ObjectProvider<SepFlightRecorder> flightRecorder, ObjectProvider<SepLatencyTracker> latencies) {
+    SepProperties terminalProperties = properties.forTerminal(terminal);
+    PoolingHttpClientConnectionManager connectionManager = RestConfig.connectionManager(terminalProperties.http());
+    CloseableHttpClient httpClient = RestConfig.httpClient(connectionManager, terminalProperties.http());
+    resources.accept(httpClient);
+
+    SepRetryInterceptor terminalRetry = retry.getIfAvailable() != null ? retryInterceptor(properties.retry()) : null;
+    SepCircuitBreakerInterceptor terminalBreakers = circuitBreakers.getIfAvailable() != null
+      ? circuitBreakerInterceptor(properties.circuitBreaker(), name + "/") : null;
+    SepBulkheadInterceptor terminalBulkheads = bulkheads.getIfAvailable() != null
+      ? bulkheadInterceptor(properties.bulkhead()) : null;
+    SepRateLimiterInterceptor terminalRateLimiters = terminalProperties.rateLimit().enabled()
+      ? rateLimiterInterceptor(terminalProperties.rateLimit(), name + "/") : null;
+    List<SepCallInterceptor> chain = new ArrayList<>(interceptors.stream()
+      .filter(interceptor -> !(interceptor instanceof SepRetryInterceptor
+        || interceptor instanceof SepCircuitBreakerInterceptor || interceptor instanceof SepBulkheadInterceptor
+        || interceptor instanceof SepRateLimiterInterceptor))
+      .toList());
+    chain.add(terminalRetry);
+    chain.add(terminalBreakers);
+    chain.add(terminalBulkheads);
+    chain.add(terminalRateLimiters);
+    chain.removeIf(interceptor -> interceptor == null);
+
+    SepClient client = new SepClient(new SepRestClientTransport(
+      RestConfig.restClient(terminalProperties, httpClient, flightRecorder.getIfAvailable())),
+      terminalProperties.clientSettings(), chain, latencies.getObject());
+    log.info("SEP terminal {} (terminal ID {}) built", name, terminal.terminalId());
+    return new SepTerminal(name, terminal.terminalId(), client, RestConfig.connectionPool(connectionManager),
+      terminalRetry, terminalBreakers, terminalBulkheads, terminalRateLimiters);
+  }
+
+  /**
+   * Defines the crash-safe verification outbox and verifies the payments its journal still holds.
+   * Enabled with {@code sep.outbox.enabled=true}.
+   *
+   * @param sepClientRegistry clients of the terminals
+   * @return the outbox, closed with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.outbox", name = "enabled", havingValue = "true")
+  @Lazy(false)
+  public SepVerificationOutbox sepVerificationOutbox(SepClientRegistry sepClientRegistry) {
+    SepProperties.Outbox outbox = properties.outbox();
+    SepOutboxJournal journal = SepOutboxJournal.open(Path.of(outbox.directory()),
+      Math.toIntExact(outbox.segmentSize().toBytes()), outbox.flushInterval());
+    SepVerificationOutbox verificationOutbox = new SepVerificationOutbox(journal, sepClientRegistry,
+      Executors.newScheduledThreadPool(outbox.workers(), SepExecutors.daemonThreadFactory("sep-outbox")),
+      outbox.retryDelay(), outbox.verifyWindow());
+    verificationOutbox.start();
+    return verificationOutbox;
+  }
+
+  /**
+   * Defines the scheduler reversing payments at a due time unless cancelled.
+   * Enabled with {@code sep.reversal.enabled=true}.
+   *
+   * @param sepClientRegistry clients of the terminals
+   * @param listeners         the {@link SepReversalListener} beans receiving the outcomes
+   * @return the reversal scheduler, stopped with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "sep.reversal", name = "enabled", havingValue = "true")
+  @Lazy(false)
+  public SepReversalScheduler sepReversalScheduler(SepClientRegistry sepClientRegistry,
+      ObjectProvider<SepReversalListener> listeners) {
+    SepProperties.Reversal reversal = properties.reversal();
+    return new SepReversalScheduler(sepClientRegistry,
+      SepExecutors.create("sep-reversal", false, reversal.workers(), reversal.queueCapacity()), reversal.tick(),
+      reversal.batchSize(), reversal.retryDelay(), reversal.maxAttempts(), listeners.orderedStream().toList());
+  }
+
+  static SepRetryInterceptor retryInterceptor(SepProperties.Retry retry) {
+    return new SepRetryInterceptor(retry.maxAttempts(), retry.initialBackoff(), retry.multiplier(),
+      retry.maxBackoff(), retry.budget(), new HashSet<>(retry.retryableResultCodes()),
+      new HashSet<>(retry.retryableErrorCodes()), retry.operations());
+  }
+
+  static SepCircuitBreakerInterceptor circuitBreakerInterceptor(SepProperties.CircuitBreaker breaker,
+      String namePrefix) {
+    return new SepCircuitBreakerInterceptor(operation -> new SepCircuitBreaker(namePrefix + operation.name(),
+      breaker.failureRateThreshold(), breaker.slowCallRateThreshold(), breaker.slowCallDuration(),
+      breaker.slidingWindowSize(), breaker.minimumCalls(), breaker.openDuration(), breaker.halfOpenCalls()));
+  }
+
+  static SepBulkheadInterceptor bulkheadInterceptor(SepProperties.Bulkhead bulkhead) {
+    return new SepBulkheadInterceptor(Map.of(
+      SepOperation.TOKEN, bulkhead.tokenMaxConcurrent(),
+      SepOperation.VERIFY, bulkhead.verifyMaxConcurrent(),
+      SepOperation.REVERSE, bulkhead.reverseMaxConcurrent()), bulkhead.maxWait());
+  }
+
+  static SepRateLimiterInterceptor rateLimiterInterceptor(SepProperties.RateLimit rateLimit, String namePrefix) {
+    return new SepRateLimiterInterceptor(operation -> {
+      String name = namePrefix + operation.name();
+      return switch (operation) {
+        case TOKEN -> new SepRateLimiter(name, rateLimit.tokenPermitsPerSecond(), rateLimit.tokenBurst(),
+          rateLimit.queueCapacity(), rateLimit.maxWait(), rateLimit.queueFullPolicy());
+        case VERIFY -> new SepRateLimiter(name, rateLimit.verifyPermitsPerSecond(), rateLimit.verifyBurst(),
+          rateLimit.queueCapacity(), rateLimit.maxWait(), rateLimit.queueFullPolicy());
+        case REVERSE -> new SepRateLimiter(name, rateLimit.reversePermitsPerSecond(), rateLimit.reverseBurst(),
+          rateLimit.queueCapacity(), rateLimit.maxWait(), rateLimit.queueFullPolicy());
+      };
+    });
+  }
+
+  /**
+   * Defines the executor running {@link SepAsyncClient} calls: virtual threads on Java 21+,
+   * otherwise a bounded platform thread pool sized from {@link SepProperties.Async}.
+   *
+   * The executor is wrapped in a {@link SepAsyncExecutor} so it does not displace the application's task executor.
+   *
+   * @return the SEP async executor, shut down with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepAsyncExecutor sepAsyncExecutor() {
+    SepProperties.Async async = properties.async();
+    return new SepAsyncExecutor(
+      SepExecutors.create("sep-async", async.virtualThreads(), async.platformThreads(), async.queueCapacity()));
+  }
+
+  /**
+   * Defines the {@link SepAsyncClient} bean returning {@link java.util.concurrent.CompletableFuture}s.
+   *
+   * @param sepClient        the blocking SEP client
+   * @param sepAsyncExecutor the executor running the calls
+   * @return the async SEP client
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepAsyncClient sepAsyncClient(SepClient sepClient,
+      SepAsyncExecutor sepAsyncExecutor) {
+    return new SepAsyncClient(sepClient, sepAsyncExecutor.executor(), properties.async().maxConcurrency());
+  }
+
+  /**
+   * Defines the {@link SepBatchClient} bean for bulk verify/reverse, sharing the async executor.
+   *
+   * @param sepClient        the blocking SEP client
+   * @param sepAsyncExecutor the executor running the calls
+   * @return the bulk SEP client
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepBatchClient sepBatchClient(SepClient sepClient,
+      SepAsyncExecutor sepAsyncExecutor) {
+    SepProperties.Batch batch = properties.batch();
+    return new SepBatchClient(sepClient, sepAsyncExecutor.executor(), batch.parallelism(), batch.callDeadline());
+  }
+
+  /**
+   * Defines the {@link SepReconciler} bean reconciling ledger exports, sharing the async executor.
+   *
+   * @param sepClientRegistry clients of the terminals
+   * @param sepAsyncExecutor  the executor running the verify calls
+   * @return the reconciler
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepReconciler sepReconciler(SepClientRegistry sepClientRegistry,
+      SepAsyncExecutor sepAsyncExecutor) {
+    SepProperties.Reconciliation reconciliation = properties.reconciliation();
+    return new SepReconciler(sepClientRegistry, sepAsyncExecutor.executor(), reconciliation.parallelism(),
+      reconciliation.checkpointInterval());
+  }
+}
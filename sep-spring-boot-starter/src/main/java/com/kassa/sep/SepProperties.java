@@ -0,0 +1,581 @@
+package com.kassa.sep;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.resilience.SepRateLimiter;
+
+/**
+ * Configuration properties for the SEP (Shaparak Electronic Payment) gateway.
+ * Bound to the {@code sep} prefix in application configuration (e.g. {@code sep.base-url}, {@code sep.terminal-id}).
+ */
+@ConfigurationProperties(prefix = "sep")
+public record SepProperties(
+  /** SEP gateway base URL. Defaults to the official Shaparak SEP endpoint. */
+  @DefaultValue("https://sep.shaparak.ir")
+  String baseUrl,
+  /** Terminal identifier assigned by the payment gateway. */
+  String terminalId,
+  /** HTTP transport settings for calls to the gateway ({@code sep.http.*}). */
+  @DefaultValue
+  Http http,
+  /** Executor settings of {@link SepAsyncClient} ({@code sep.async.*}). */
+  @DefaultValue
+  Async async,
+  /** Settings of the WebClient-based {@link com.kassa.sep.reactive.SepReactiveClient} ({@code sep.reactive.*}). */
+  @DefaultValue
+  Reactive reactive,
+  /** Settings of bulk verify/reverse operations of {@link com.kassa.sep.batch.SepBatchClient} ({@code sep.batch.*}). */
+  @DefaultValue
+  Batch batch,
+  /** Cache of successful verify outcomes ({@code sep.verify-cache.*}). */
+  @DefaultValue
+  VerifyCache verifyCache,
+  /** Whether concurrent verify/reverse calls for the same RefNum share one gateway call. */
+  @DefaultValue("true")
+  boolean coalesceRequests,
+  /** Idempotent token issuance keyed by ResNum ({@code sep.token-cache.*}). */
+  @DefaultValue
+  TokenCache tokenCache,
+  /** Retry of transient failures ({@code sep.retry.*}). */
+  @DefaultValue
+  Retry retry,
+  /** Per-operation circuit breakers ({@code sep.circuit-breaker.*}). */
+  @DefaultValue
+  CircuitBreaker circuitBreaker,
+  /** Per-operation concurrency bulkheads ({@code sep.bulkhead.*}). */
+  @DefaultValue
+  Bulkhead bulkhead,
+  /** Client-side per-operation rate limits ({@code sep.rate-limit.*}). */
+  @DefaultValue
+  RateLimit rateLimit,
+  /** Crash-safe verification outbox ({@code sep.outbox.*}). */
+  @DefaultValue
+  Outbox outbox,
+  /** Scheduled reversals ({@code sep.reversal.*}). */
+  @DefaultValue
+  Reversal reversal,
+  /** Auto-configured payment callback endpoint ({@code sep.callback.*}). */
+  @DefaultValue
+  Callback callback,
+  /** Streaming ledger reconciliation ({@code sep.reconciliation.*}). */
+  @DefaultValue
+  Reconciliation reconciliation,
+  /** In-memory recorder of recent gateway exchanges ({@code sep.flight-recorder.*}). */
+  @DefaultValue
+  FlightRecorder flightRecorder,
+  /** Response timeouts derived from observed gateway latency ({@code sep.adaptive-timeout.*}). */
+  @DefaultValue
+  AdaptiveTimeout adaptiveTimeout,
+  /** Hedged verify calls ({@code sep.hedging.*}). */
+  @DefaultValue
+  Hedging hedging,
+  /** Cluster-wide idempotency of verify and reverse calls ({@code sep.idempotency.*}). */
+  @DefaultValue
+  Idempotency idempotency,
+  /** Additional named merchant terminals, each with its own client and connection pool ({@code sep.terminals.*}). */
+  @DefaultValue
+  Map<String, Terminal> terminals) {
+
+  /**
+   * Derives the properties of a named terminal: its terminal ID, base URL, pool size and rate limits replace the
+   * top-level ones, every other setting is shared.
+   *
+   * @param terminal the named terminal
+   * @return the properties used by the terminal's client
+   */
+  public SepProperties forTerminal(Terminal terminal) {
+    Http terminalHttp = terminal.maxConnections() != null ? http.withMaxConnections(terminal.maxConnections()) : http;
+    return new SepProperties(terminal.baseUrl() != null ? terminal.baseUrl() : baseUrl, terminal.terminalId(),
+      terminalHttp, async, reactive, batch, verifyCache, coalesceRequests, tokenCache, retry, circuitBreaker,
+      bulkhead, terminal.rateLimit() != null ? terminal.rateLimit() : rateLimit, outbox, reversal,
+      callback, reconciliation, flightRecorder, adaptiveTimeout, hedging, idempotency, Map.of());
+  }
+
+  /**
+   * Derives the settings of the {@link SepClient} built from these properties.
+   *
+   * @return the base URL, terminal ID, response timeout and adaptive timeout settings
+   */
+  public SepClientSettings clientSettings() {
+    return new SepClientSettings(baseUrl, terminalId, http.responseTimeout(),
+      new SepClientSettings.AdaptiveTimeout(adaptiveTimeout.enabled(), adaptiveTimeout.percentile(),
+        adaptiveTimeout.multiplier(), adaptiveTimeout.minTimeout(), adaptiveTimeout.window(),
+        adaptiveTimeout.minSamples()));
+  }
+
+  /**
+   * Connection pool, timeout and TLS settings of the dedicated SEP HTTP client.
+   */
+  public record Http(
+    /** Maximum number of pooled connections across all routes. */
+    @DefaultValue("50")
+    int maxConnections,
+    /** Maximum number of pooled connections per route (the gateway is normally a single route). */
+    @DefaultValue("50")
+    int maxConnectionsPerRoute,
+    /** Maximum time to establish a TCP/TLS connection to the gateway. */
+    @DefaultValue("5s")
+    Duration connectTimeout,
+    /** Maximum time of inactivity between two data packets on an open connection. */
+    @DefaultValue("15s")
+    Duration readTimeout,
+    /** Maximum time to wait for the gateway to start answering a request. */
+    @DefaultValue("15s")
+    Duration responseTimeout,
+    /** Maximum time to wait for a free connection from the pool. */
+    @DefaultValue("2s")
+    Duration connectionRequestTimeout,
+    /** Keep-alive duration used when the gateway does not send a {@code Keep-Alive} header. */
+    @DefaultValue("30s")
+    Duration keepAlive,
+    /** Idle connections older than this are evicted by a background thread. */
+    @DefaultValue("60s")
+    Duration idleEviction,
+    /** Maximum lifetime of a pooled connection, regardless of activity. */
+    @DefaultValue("10m")
+    Duration timeToLive,
+    /** Number of TLS sessions kept for abbreviated handshakes on reconnect; {@code 0} means unbounded. */
+    @DefaultValue("64")
+    int tlsSessionCacheSize,
+    /** Lifetime of a cached TLS session. */
+    @DefaultValue("1h")
+    Duration tlsSessionTimeout,
+    /** JSON codec of the SEP DTOs: the allocation-light {@code streaming} codec or Jackson data binding. */
+    @DefaultValue("streaming")
+    Codec codec) {
+
+    /**
+     * JSON codecs for SEP request and response bodies.
+     */
+    public enum Codec {
+      /** {@link com.kassa.sep.codec.SepJsonCodec}: hand-written writer and streaming parser. */
+      STREAMING,
+      /** Jackson data binding of the DTOs. */
+      JACKSON
+    }
+
+    /**
+     * Copies these settings with another pool size.
+     *
+     * @param connections maximum pooled connections, in total and per route
+     * @return the copied settings
+     */
+    public Http withMaxConnections(int connections) {
+      return new Http(connections, Math.min(connections, maxConnectionsPerRoute), connectTimeout, readTimeout,
+        responseTimeout, connectionRequestTimeout, keepAlive, idleEviction, timeToLive, tlsSessionCacheSize,
+        tlsSessionTimeout, codec);
+    }
+  }
+
+  /**
+   * A named merchant terminal served by its own {@link SepClient}
+   * (see {@link com.kassa.sep.routing.SepClientRegistry}).
+   */
+  public record Terminal(
+    /** Terminal identifier assigned by the payment gateway. */
+    String terminalId,
+    /** Gateway base URL of this terminal; defaults to {@code sep.base-url}. */
+    String baseUrl,
+    /** Pooled connections of this terminal; defaults to {@code sep.http.max-connections}. */
+    Integer maxConnections,
+    /** ResNum prefixes the default {@link com.kassa.sep.routing.SepTerminalRouter} routes to this terminal. */
+    @DefaultValue
+    List<String> resNumPrefixes,
+    /** Rate limits of this terminal ({@code sep.terminals.<name>.rate-limit.*}); defaults to {@code sep.rate-limit}. */
+    RateLimit rateLimit) {
+  }
+
+  /**
+   * Executor and concurrency settings of the non-blocking {@link SepAsyncClient}.
+   */
+  public record Async(
+    /** Run gateway calls on virtual threads when the JVM supports them (Java 21+). */
+    @DefaultValue("true")
+    boolean virtualThreads,
+    /** Size of the platform thread pool used when virtual threads are disabled or unavailable. */
+    @DefaultValue("32")
+    int platformThreads,
+    /** Maximum number of queued calls of the platform thread pool before new calls are rejected. */
+    @DefaultValue("10000")
+    int queueCapacity,
+    /** Maximum number of gateway calls in flight at the same time; further calls wait for a free slot. */
+    @DefaultValue("256")
+    int maxConcurrency) {
+  }
+
+  /**
+   * Settings of the reactive {@link com.kassa.sep.reactive.SepReactiveClient}, used when WebFlux is on the classpath.
+   */
+  public record Reactive(
+    /** Maximum number of gateway calls in flight for a single {@code Flux} batch operation. */
+    @DefaultValue("64")
+    int maxInFlight) {
+  }
+
+  /**
+   * Settings of bulk verify/reverse operations.
+   */
+  public record Batch(
+    /** Maximum number of gateway calls a bulk operation runs in parallel. */
+    @DefaultValue("16")
+    int parallelism,
+    /** Deadline of a single call within a bulk operation; slower items are reported as timed out. */
+    @DefaultValue("20s")
+    Duration callDeadline) {
+  }
+
+  /**
+   * Settings of the optional {@link com.kassa.sep.cache.SepVerificationCache}.
+   */
+  public record VerifyCache(
+    /** Whether repeat verifies of a RefNum are answered from a local cache. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Maximum number of cached RefNums; the oldest entries are evicted first. */
+    @DefaultValue("10000")
+    int maximumSize,
+    /** How long a verify outcome is kept; defaults to the gateway's 30-minute verify window. */
+    @DefaultValue("30m")
+    Duration ttl) {
+  }
+
+  /**
+   * Settings of the optional {@link com.kassa.sep.cache.SepTokenCache}.
+   */
+  public record TokenCache(
+    /** Whether token requests for the same ResNum, amount and redirect URL share one gateway call. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Maximum number of cached ResNums; the oldest entries are evicted first. */
+    @DefaultValue("10000")
+    int maximumSize,
+    /** How long an issued token is reused; keep it well below the gateway's token lifetime. */
+    @DefaultValue("2m")
+    Duration ttl) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.resilience.SepRetryInterceptor}.
+   * Transport errors, timeouts, HTTP 5xx/429 and missing responses are retried for the listed {@code operations};
+   * other operations only when no connection could be established. Gateway result codes are retried only when
+   * listed in {@code retryableResultCodes} / {@code retryableErrorCodes}.
+   */
+  public record Retry(
+    /** Whether transient failures are retried. */
+    @DefaultValue("true")
+    boolean enabled,
+    /** Maximum number of attempts per call, including the first one. */
+    @DefaultValue("3")
+    int maxAttempts,
+    /** Upper bound of the backoff before the first retry; each retry waits a random time up to the bound. */
+    @DefaultValue("200ms")
+    Duration initialBackoff,
+    /** Growth factor of the backoff bound per retry. */
+    @DefaultValue("2.0")
+    double multiplier,
+    /** Maximum backoff bound. */
+    @DefaultValue("2s")
+    Duration maxBackoff,
+    /** Total time budget of a call including all attempts and backoffs; no retry starts after it is spent. */
+    @DefaultValue("10s")
+    Duration budget,
+    /** Verify/reverse result codes ({@code ResultCode}) that are retried in addition to transport failures. */
+    @DefaultValue
+    List<Integer> retryableResultCodes,
+    /** Token error codes ({@code errorCode}) that are retried in addition to transport failures. */
+    @DefaultValue
+    List<String> retryableErrorCodes,
+    /**
+     * Operations retried after failures the gateway may have acted on, such as read timeouts. Verify is answered
+     * idempotently by the gateway; a repeated reverse or token request is not.
+     */
+    @DefaultValue("VERIFY")
+    Set<SepOperation> operations) {
+  }
+
+  /**
+   * Settings of the per-operation {@link com.kassa.sep.resilience.SepCircuitBreaker}s.
+   */
+  public record CircuitBreaker(
+    /** Whether token, verify and reverse calls are guarded by circuit breakers. */
+    @DefaultValue("true")
+    boolean enabled,
+    /** Failure rate in percent (transport errors, timeouts) that opens a breaker. */
+    @DefaultValue("50")
+    double failureRateThreshold,
+    /** Rate of slow calls in percent that opens a breaker. */
+    @DefaultValue("80")
+    double slowCallRateThreshold,
+    /** Calls taking at least this long count as slow. */
+    @DefaultValue("5s")
+    Duration slowCallDuration,
+    /** Number of recent calls the rates are computed over. */
+    @DefaultValue("50")
+    int slidingWindowSize,
+    /** Minimum number of recorded calls before a breaker can open. */
+    @DefaultValue("20")
+    int minimumCalls,
+    /** How long an open breaker rejects calls before letting probe calls through. */
+    @DefaultValue("30s")
+    Duration openDuration,
+    /** Number of probe calls in half-open state; all must succeed to close the breaker. */
+    @DefaultValue("5")
+    int halfOpenCalls) {
+  }
+
+  /**
+   * Settings of the per-operation {@link com.kassa.sep.resilience.SepBulkheadInterceptor}.
+   */
+  public record Bulkhead(
+    /** Whether concurrent calls are limited per operation. */
+    @DefaultValue("true")
+    boolean enabled,
+    /** Maximum concurrent token requests. */
+    @DefaultValue("20")
+    int tokenMaxConcurrent,
+    /** Maximum concurrent verify calls. */
+    @DefaultValue("40")
+    int verifyMaxConcurrent,
+    /** Maximum concurrent reverse calls. */
+    @DefaultValue("10")
+    int reverseMaxConcurrent,
+    /** How long a call waits for a free slot before failing; {@code 0} fails immediately. */
+    @DefaultValue("1s")
+    Duration maxWait) {
+  }
+
+  /**
+   * Settings of the per-operation {@link com.kassa.sep.resilience.SepRateLimiter}s. Each operation has a token
+   * bucket refilled at its permits-per-second rate and holding up to its burst; calls beyond that wait in a bounded
+   * queue for their permit.
+   */
+  public record RateLimit(
+    /** Whether outbound calls are rate limited per operation. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Sustained token requests per second. */
+    @DefaultValue("20")
+    double tokenPermitsPerSecond,
+    /** Token requests passed at once after an idle period. */
+    @DefaultValue("20")
+    int tokenBurst,
+    /** Sustained verify calls per second. */
+    @DefaultValue("50")
+    double verifyPermitsPerSecond,
+    /** Verify calls passed at once after an idle period. */
+    @DefaultValue("50")
+    int verifyBurst,
+    /** Sustained reverse calls per second. */
+    @DefaultValue("10")
+    double reversePermitsPerSecond,
+    /** Reverse calls passed at once after an idle period. */
+    @DefaultValue("10")
+    int reverseBurst,
+    /** Maximum number of calls per operation waiting for a permit. */
+    @DefaultValue("200")
+    int queueCapacity,
+    /** How long a call may wait for its permit before failing; {@code 0} fails immediately when the bucket is empty. */
+    @DefaultValue("2s")
+    Duration maxWait,
+    /** Whether a call finding the queue full fails at once or waits for a slot within {@code max-wait}. */
+    @DefaultValue("reject")
+    SepRateLimiter.QueueFullPolicy queueFullPolicy) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.outbox.SepVerificationOutbox}, which records every callback in a local
+   * journal before verifying it, and verifies what is left pending after a restart.
+   */
+  public record Outbox(
+    /** Whether the outbox is enabled. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Directory of the journal segment files; must be on a local, persistent disk. */
+    @DefaultValue("sep-outbox")
+    String directory,
+    /** Size of a journal segment file. */
+    @DefaultValue("16MB")
+    DataSize segmentSize,
+    /** How often appended records are forced to disk when no callback waits for a group commit. */
+    @DefaultValue("200ms")
+    Duration flushInterval,
+    /** Number of threads verifying recorded payments. */
+    @DefaultValue("4")
+    int workers,
+    /** Delay before a verify that failed in transport is attempted again. */
+    @DefaultValue("5s")
+    Duration retryDelay,
+    /** How long after the callback the gateway accepts a verify; pending entries are given up after it. */
+    @DefaultValue("30m")
+    Duration verifyWindow) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.reversal.SepReversalScheduler}.
+   */
+  public record Reversal(
+    /** Whether the reversal scheduler is enabled. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Resolution of the schedule; reversals fire at most this late. */
+    @DefaultValue("1s")
+    Duration tick,
+    /** Maximum reversals per batch handed to a worker. */
+    @DefaultValue("50")
+    int batchSize,
+    /** Number of threads running reversal batches. */
+    @DefaultValue("4")
+    int workers,
+    /** Maximum number of batches waiting for a worker; further due batches are deferred. */
+    @DefaultValue("100")
+    int queueCapacity,
+    /** Delay before a transiently failed or deferred reversal is tried again. */
+    @DefaultValue("30s")
+    Duration retryDelay,
+    /** Maximum attempts per reversal. */
+    @DefaultValue("5")
+    int maxAttempts) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.callback.SepCallbackController} endpoint the gateway redirects the payer to.
+   */
+  public record Callback(
+    /** Whether the callback endpoint is enabled. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Request path of the endpoint; use it as the {@code redirectUrl} of token requests. */
+    @DefaultValue("/sep/callback")
+    String path,
+    /** Page the payer is redirected to while a successful payment is verified. */
+    @DefaultValue("/payment/pending")
+    String acceptedRedirect,
+    /** Page the payer is redirected to when the payment was cancelled or failed. */
+    @DefaultValue("/payment/failed")
+    String rejectedRedirect) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.reconcile.SepReconciler}.
+   */
+  public record Reconciliation(
+    /** Maximum number of verify calls a reconciliation runs in parallel. */
+    @DefaultValue("16")
+    int parallelism,
+    /** How often progress is written to the checkpoint file. */
+    @DefaultValue("5s")
+    Duration checkpointInterval) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.recorder.SepFlightRecorder}.
+   */
+  public record FlightRecorder(
+    /** Whether recent gateway exchanges are recorded. */
+    @DefaultValue("true")
+    boolean enabled,
+    /** Number of exchanges kept per operation; rounded up to a power of two. */
+    @DefaultValue("256")
+    int capacity,
+    /** Fraction of the successful exchanges whose bodies are kept; bodies of unsuccessful ones are always kept. */
+    @DefaultValue("0.01")
+    double bodySampleRate,
+    /** Maximum size kept of a request or response body. */
+    @DefaultValue("4KB")
+    DataSize maxBodySize,
+    /** JSON fields whose values are masked in kept bodies, matched ignoring case. */
+    @DefaultValue({"token", "CellNumber", "HashedPan"})
+    List<String> maskedFields,
+    /** Number of recent exchanges logged with a call failing with a gateway error; {@code 0} disables the dump. */
+    @DefaultValue("10")
+    int dumpSize) {
+  }
+
+  /**
+   * Settings of the response timeouts {@link SepClient} derives from the latency percentiles of each terminal and
+   * operation, tracked by the {@link com.kassa.sep.resilience.SepLatencyTracker}.
+   */
+  public record AdaptiveTimeout(
+    /** Whether attempts wait for the response as long as observed latency suggests rather than the fixed timeout. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Latency percentile the timeout is derived from. */
+    @DefaultValue("0.99")
+    double percentile,
+    /** Factor applied to the percentile. */
+    @DefaultValue("2.0")
+    double multiplier,
+    /** Lower bound of the timeout; {@code sep.http.response-timeout} is the upper bound. */
+    @DefaultValue("1s")
+    Duration minTimeout,
+    /** Number of recent attempts per terminal and operation the percentiles are computed over. */
+    @DefaultValue("1024")
+    int window,
+    /** Attempts needed before percentiles are used; until then the fixed timeout applies and no verify is hedged. */
+    @DefaultValue("100")
+    int minSamples) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.resilience.SepHedgingInterceptor}. Latency is tracked with the window of
+   * {@code sep.adaptive-timeout}.
+   */
+  public record Hedging(
+    /** Whether a verify without an answer after the latency percentile is sent a second time. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Latency percentile after which a verify is hedged. */
+    @DefaultValue("0.95")
+    double percentile,
+    /** Minimum wait before a verify is hedged. */
+    @DefaultValue("100ms")
+    Duration minDelay) {
+  }
+
+  /**
+   * Settings of the {@link com.kassa.sep.idempotency.SepIdempotencyInterceptor} and its store.
+   */
+  public record Idempotency(
+    /** Whether verify and reverse calls claim a lease in a store shared by the nodes before calling the gateway. */
+    @DefaultValue("false")
+    boolean enabled,
+    /** Identifies this node in lease owners; a random UUID if not set. */
+    String nodeId,
+    /** Store shared by the nodes: {@code memory} (single node only) or {@code jdbc} (the application's DataSource). */
+    @DefaultValue("memory")
+    Store store,
+    /** Table of the {@code jdbc} store. */
+    @DefaultValue("sep_idempotency")
+    String jdbcTable,
+    /** How long a lease is held by a call that neither completes nor releases it, e.g. because its node died. */
+    @DefaultValue("30s")
+    Duration lease,
+    /** How long a successful outcome answers the same call on every node. */
+    @DefaultValue("1h")
+    Duration retention,
+    /** How long a call waits for the outcome of a lease held by another node. */
+    @DefaultValue("5s")
+    Duration maxWait,
+    /** How often a waiting call reads the store. */
+    @DefaultValue("100ms")
+    Duration pollInterval) {
+
+    /**
+     * Implementations of {@link com.kassa.sep.idempotency.SepIdempotencyStore}.
+     */
+    public enum Store {
+      /** {@link com.kassa.sep.idempotency.SepInMemoryIdempotencyStore}. */
+      MEMORY,
+      /** {@link com.kassa.sep.idempotency.SepJdbcIdempotencyStore}. */
+      JDBC
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.kassa.sep.callback;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.SepProperties;
+import com.kassa.sep.config.SepAsyncExecutor;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.routing.SepClientRegistry;
+
+/**
+ * Auto-configuration of the payment callback endpoint, enabled with {@code sep.callback.enabled=true} in servlet
+ * web applications.
+ */
+@AutoConfiguration(after = SepConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "sep", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnProperty(prefix = "sep.callback", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SepProperties.class)
+public class SepCallbackConfiguration {
+  private final SepProperties properties;
+
+  /**
+   * Creates the configuration with the given SEP properties.
+   *
+   * @param properties the SEP configuration properties
+   */
+  public SepCallbackConfiguration(SepProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Defines the dispatcher verifying callbacks off the request thread, through the verification outbox when it is
+   * enabled and otherwise on the shared async executor.
+   *
+   * @param sepClientRegistry clients of the terminals
+   * @param outbox            the verification outbox, if enabled
+   * @param sepAsyncExecutor  the executor running verify calls and listeners
+   * @param listeners         the {@link SepCallbackListener} beans receiving the outcomes
+   * @return the callback dispatcher
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepCallbackDispatcher sepCallbackDispatcher(SepClientRegistry sepClientRegistry,
+      ObjectProvider<SepVerificationOutbox> outbox, SepAsyncExecutor sepAsyncExecutor,
+      ObjectProvider<SepCallbackListener> listeners) {
+    return new SepCallbackDispatcher(sepClientRegistry, outbox.getIfAvailable(), sepAsyncExecutor.executor(),
+      listeners.orderedStream().toList());
+  }
+
+  /**
+   * Defines the handler of the callback endpoint.
+   *
+   * @param sepCallbackDispatcher the callback dispatcher
+   * @return the callback controller
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepCallbackController sepCallbackController(SepCallbackDispatcher sepCallbackDispatcher) {
+    SepProperties.Callback callback = properties.callback();
+    return new SepCallbackController(sepCallbackDispatcher, callback.acceptedRedirect(),
+      callback.rejectedRedirect());
+  }
+
+  /**
+   * Routes {@code sep.callback.path} to the callback controller.
+   *
+   * @param sepCallbackController the callback controller
+   * @return the callback routes
+   */
+  @Bean
+  @ConditionalOnMissingBean(name = "sepCallbackRoutes")
+  public RouterFunction<ServerResponse> sepCallbackRoutes(SepCallbackController sepCallbackController) {
+    return sepCallbackController.routes(properties.callback().path());
+  }
+}
@@ -0,0 +1,72 @@
+package com.kassa.sep.callback;
+
+import java.net.URI;
+
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.kassa.sep.dto.SepTransactionResponse;
+
+/**
+ * Endpoint the gateway redirects the payer to after payment ({@code sep.callback.path}, default
+ * {@code /sep/callback}). Binds the callback into a {@link SepTransactionResponse}, hands it to the
+ * {@link SepCallbackDispatcher} and answers the browser at once with a {@code 303} redirect to the accepted or
+ * rejected page, with the {@code ResNum} and {@code RefNum} as query parameters.
+ * <p>
+ * Exposed as a functional {@link RouterFunction} rather than an annotated controller, so component scanning never
+ * registers it outside its auto-configuration.
+ */
+public class SepCallbackController {
+  private final SepCallbackDispatcher dispatcher;
+  private final String acceptedRedirect;
+  private final String rejectedRedirect;
+
+  /**
+   * Creates the controller.
+   *
+   * @param dispatcher       dispatcher verifying the callbacks
+   * @param acceptedRedirect page the payer is sent to while the payment is verified
+   * @param rejectedRedirect page the payer is sent to when the payment was not successful
+   */
+  public SepCallbackController(SepCallbackDispatcher dispatcher, String acceptedRedirect, String rejectedRedirect) {
+    this.dispatcher = dispatcher;
+    this.acceptedRedirect = acceptedRedirect;
+    this.rejectedRedirect = rejectedRedirect;
+  }
+
+  /**
+   * Routes GET and POST requests of a path to {@link #callback(ServerRequest)}.
+   *
+   * @param path request path of the endpoint
+   * @return the routes
+   */
+  public RouterFunction<ServerResponse> routes(String path) {
+    return RouterFunctions.route()
+      .POST(path, this::callback)
+      .GET(path, this::callback)
+      .build();
+  }
+
+  /**
+   * Handles a gateway callback.
+   *
+   * @param request the callback request, with the form (or query) parameters of the gateway
+   * @return a redirect to the accepted or rejected page
+   */
+  public ServerResponse callback(ServerRequest request) {
+    SepTransactionResponse callback = SepTransactionResponse.fromParameters(request.params().toSingleValueMap());
+    String target = dispatcher.dispatch(callback) ? acceptedRedirect : rejectedRedirect;
+    UriComponentsBuilder location = UriComponentsBuilder.fromUriString(target);
+    if (callback.getResNum() != null) {
+      location.queryParam("ResNum", callback.getResNum());
+    }
+    if (callback.getRefNum() != null) {
+      location.queryParam("RefNum", callback.getRefNum());
+    }
+    URI uri = location.encode().build().toUri();
+    return ServerResponse.seeOther(uri).build();
+  }
+}
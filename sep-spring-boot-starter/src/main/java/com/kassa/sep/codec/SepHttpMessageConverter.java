@@ -0,0 +1,96 @@
+package com.kassa.sep.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import tools.jackson.core.JacksonException;
+
+/**
+ * {@link HttpMessageConverter} for the SEP DTOs backed by {@link SepJsonCodec}. It is registered ahead of the
+ * Jackson converter of the SEP {@code RestClient}, which still handles every other type.
+ * <p>
+ * Request bodies are sent with a {@code Content-Length} and without an extra copy into the request's own buffer.
+ */
+public class SepHttpMessageConverter implements HttpMessageConverter<Object> {
+  private static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+    new MediaType("application", "*+json"));
+
+  private final SepJsonCodec codec;
+
+  /**
+   * Creates the converter.
+   *
+   * @param codec the SEP codec
+   */
+  public SepHttpMessageConverter(SepJsonCodec codec) {
+    this.codec = codec;
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return codec.canRead(clazz) && supports(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return codec.canWrite(clazz) && supports(mediaType);
+  }
+
+  @Override
+  public List<MediaType> getSupportedMediaTypes() {
+    return MEDIA_TYPES;
+  }
+
+  @Override
+  public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    Object response;
+    try {
+      response = codec.read(clazz, inputMessage.getBody());
+    } catch (JacksonException | IllegalArgumentException e) {
+      throw new HttpMessageNotReadableException("Invalid SEP response: " + e.getMessage(), e, inputMessage);
+    }
+    if (response == null) {
+      throw new HttpMessageNotReadableException("No content in SEP response", inputMessage);
+    }
+    return response;
+  }
+
+  @Override
+  public void write(Object request, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+    byte[] body = codec.write(request);
+    HttpHeaders headers = outputMessage.getHeaders();
+    headers.setContentType(contentType != null && contentType.isConcrete() ? contentType : MediaType.APPLICATION_JSON);
+    headers.setContentLength(body.length);
+    if (outputMessage instanceof StreamingHttpOutputMessage streaming) {
+      streaming.setBody(new StreamingHttpOutputMessage.Body() {
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+          outputStream.write(body);
+        }
+
+        @Override
+        public boolean repeatable() {
+          return true;
+        }
+      });
+    } else {
+      outputMessage.getBody().write(body);
+    }
+  }
+
+  private static boolean supports(MediaType mediaType) {
+    if (mediaType == null || MediaType.ALL.equalsTypeAndSubtype(mediaType)) {
+      return true;
+    }
+    return MEDIA_TYPES.stream().anyMatch(supported -> supported.includes(mediaType));
+  }
+}
@@ -0,0 +1,227 @@
+package com.kassa.sep.config;
+
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.client.RestClient;
+
+import com.kassa.sep.SepProperties;
+import com.kassa.sep.codec.SepHttpMessageConverter;
+import com.kassa.sep.codec.SepJsonCodec;
+import com.kassa.sep.recorder.SepFlightRecorder;
+
+/**
+ * Configures the {@link RestClient} used by the SEP integration.
+ * <p>
+ * The client runs on its own pooled, keep-alive Apache HttpClient so SEP calls reuse TLS connections instead of
+ * opening a new one per request, and every call is bounded by the connect/response timeouts from
+ * {@link SepProperties.Http}. All beans are qualified with a {@code sep} prefix so they never clash with an
+ * application's own {@code RestClient} or {@code HttpClient}.
+ * <p>
+ * Imported by {@link com.kassa.sep.SepConfiguration} only. It is deliberately not a {@code @Configuration}, so
+ * component scanning of {@code com.kassa.sep} neither picks it up nor bypasses the auto-configuration's conditions.
+ */
+public class RestConfig {
+  /** Bean name of the {@link RestClient} dedicated to SEP gateway calls. */
+  public static final String REST_CLIENT_BEAN = "sepRestClient";
+
+  private final SepProperties properties;
+
+  /**
+   * Creates the config with the given SEP properties.
+   *
+   * @param properties the SEP configuration (used for {@link SepProperties#baseUrl()} and {@link SepProperties#http()})
+   */
+  public RestConfig(SepProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Builds the connection pool shared by all SEP calls.
+   *
+   * @return a pooling connection manager sized and timed from {@link SepProperties.Http}
+   */
+  @Bean
+  @ConditionalOnMissingBean(name = "sepConnectionManager")
+  public PoolingHttpClientConnectionManager sepConnectionManager() {
+    return connectionManager(properties.http());
+  }
+
+  /**
+   * Exposes utilisation of the SEP connection pool.
+   *
+   * @param connectionManager the SEP connection pool
+   * @return a view over the pool statistics
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepConnectionPool sepConnectionPool(
+      @Qualifier("sepConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+    return connectionPool(connectionManager);
+  }
+
+  /**
+   * Builds the keep-alive HTTP client on top of the SEP connection pool.
+   * Idle and expired connections are evicted in the background. The client's own retries are disabled; retries
+   * are decided by {@link com.kassa.sep.resilience.SepRetryInterceptor}, which knows the SEP result codes.
+   *
+   * @param connectionManager the SEP connection pool
+   * @return the HTTP client; closed together with the application context
+   */
+  @Bean
+  @ConditionalOnMissingBean(name = "sepHttpClient")
+  public CloseableHttpClient sepHttpClient(
+      @Qualifier("sepConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+    return httpClient(connectionManager, properties.http());
+  }
+
+  /**
+   * Builds and registers the RestClient bean for SEP API calls.
+   * With the {@link SepProperties.Http.Codec#STREAMING streaming} codec the SEP DTOs are encoded by
+   * {@link SepHttpMessageConverter}; all other bodies still go through Jackson.
+   *
+   * @param httpClient     the pooled SEP HTTP client
+   * @param flightRecorder the flight recorder, if enabled
+   * @return a RestClient with base URL set from {@link SepProperties#baseUrl()}
+   */
+  @Bean(REST_CLIENT_BEAN)
+  @ConditionalOnMissingBean(name = REST_CLIENT_BEAN)
+  public RestClient sepRestClient(@Qualifier("sepHttpClient") CloseableHttpClient httpClient,
+      ObjectProvider<SepFlightRecorder> flightRecorder) {
+    return restClient(properties, httpClient, flightRecorder.getIfAvailable());
+  }
+
+  /**
+   * Builds a SEP connection pool; also used for the pools of named terminals.
+   *
+   * @param http transport settings
+   * @return a pooling connection manager sized and timed from the settings
+   */
+  public static PoolingHttpClientConnectionManager connectionManager(SepProperties.Http http) {
+    return PoolingHttpClientConnectionManagerBuilder.create()
+      .setMaxConnTotal(http.maxConnections())
+      .setMaxConnPerRoute(http.maxConnectionsPerRoute())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setConnectTimeout(timeout(http.connectTimeout()))
+        .setSocketTimeout(timeout(http.readTimeout()))
+        .setTimeToLive(TimeValue.of(http.timeToLive()))
+        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+        .build())
+      .setTlsSocketStrategy(new DefaultClientTlsStrategy(sslContext(http)))
+      .build();
+  }
+
+  /**
+   * Exposes utilisation of a SEP connection pool; also used for the pools of named terminals.
+   *
+   * @param connectionManager the connection pool
+   * @return a view over the pool statistics
+   */
+  public static SepConnectionPool connectionPool(PoolingHttpClientConnectionManager connectionManager) {
+    return new SepConnectionPool(() -> {
+      PoolStats stats = connectionManager.getTotalStats();
+      return new SepConnectionPool.Stats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+    });
+  }
+
+  /**
+   * Builds a keep-alive SEP HTTP client on top of a connection pool; also used for named terminals.
+   *
+   * @param connectionManager the connection pool, closed together with the client
+   * @param http              transport settings
+   * @return the HTTP client
+   */
+  public static CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager,
+      SepProperties.Http http) {
+    return HttpClients.custom()
+      .setConnectionManager(connectionManager)
+      .setDefaultRequestConfig(RequestConfig.custom()
+        .setConnectionRequestTimeout(timeout(http.connectionRequestTimeout()))
+        .setResponseTimeout(timeout(http.responseTimeout()))
+        .build())
+      .setKeepAliveStrategy(keepAliveStrategy(http.keepAlive()))
+      .disableAutomaticRetries()
+      .evictExpiredConnections()
+      .evictIdleConnections(TimeValue.of(http.idleEviction()))
+      .build();
+  }
+
+  /**
+   * Builds a SEP RestClient; also used for named terminals.
+   *
+   * @param properties SEP configuration of the terminal (base URL, terminal ID, codec)
+   * @param httpClient the pooled HTTP client
+   * @return the RestClient
+   */
+  public static RestClient restClient(SepProperties properties, CloseableHttpClient httpClient) {
+    return restClient(properties, httpClient, null);
+  }
+
+  /**
+   * Builds a SEP RestClient whose exchanges are tapped by a flight recorder; also used for named terminals.
+   *
+   * @param properties     SEP configuration of the terminal (base URL, terminal ID, codec)
+   * @param httpClient     the pooled HTTP client
+   * @param flightRecorder the flight recorder, or null
+   * @return the RestClient
+   */
+  public static RestClient restClient(SepProperties properties, CloseableHttpClient httpClient,
+      SepFlightRecorder flightRecorder) {
+    RestClient.Builder builder = RestClient.builder()
+      .baseUrl(properties.baseUrl())
+      .requestFactory(new SepRequestFactory(httpClient));
+    if (properties.http().codec() == SepProperties.Http.Codec.STREAMING) {
+      SepJsonCodec codec = new SepJsonCodec(
+        properties.terminalId() != null ? List.of(properties.terminalId()) : List.of());
+      builder.configureMessageConverters(
+        converters -> converters.registerDefaults().addCustomConverter(new SepHttpMessageConverter(codec)));
+    }
+    if (flightRecorder != null) {
+      builder.requestInterceptor(new SepWireTapInterceptor(flightRecorder.wireTap()));
+    }
+    return builder.build();
+  }
+
+  private static ConnectionKeepAliveStrategy keepAliveStrategy(Duration fallback) {
+    TimeValue defaultKeepAlive = TimeValue.of(fallback);
+    return (response, context) -> response.containsHeader("Keep-Alive")
+      ? DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context)
+      : defaultKeepAlive;
+  }
+
+  private static SSLContext sslContext(SepProperties.Http http) {
+    try {
+      SSLContext context = SSLContext.getInstance("TLS");
+      context.init(null, null, null);
+      context.getClientSessionContext().setSessionCacheSize(http.tlsSessionCacheSize());
+      context.getClientSessionContext().setSessionTimeout((int) http.tlsSessionTimeout().toSeconds());
+      return context;
+    } catch (NoSuchAlgorithmException | KeyManagementException e) {
+      throw new IllegalStateException("No default TLS context available for SEP client", e);
+    }
+  }
+
+  private static Timeout timeout(Duration duration) {
+    return Timeout.of(duration);
+  }
+}
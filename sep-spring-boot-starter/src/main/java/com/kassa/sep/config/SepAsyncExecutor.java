@@ -0,0 +1,41 @@
+package com.kassa.sep.config;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Holds the executor shared by the {@link com.kassa.sep.SepAsyncClient}, the batch client, the reconciler and the
+ * callback dispatcher.
+ * <p>
+ * The executor is deliberately not exposed as an {@link java.util.concurrent.Executor} bean: Spring Boot backs its
+ * {@code applicationTaskExecutor}, used by {@code @Async} and asynchronous MVC requests, off when the context
+ * already contains one, so a SEP executor bean would silently replace it in the host application.
+ */
+public final class SepAsyncExecutor implements AutoCloseable {
+  private final ExecutorService executor;
+
+  /**
+   * Wraps an executor.
+   *
+   * @param executor the executor running SEP calls; shut down by {@link #close()}
+   */
+  public SepAsyncExecutor(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * The executor running SEP calls.
+   *
+   * @return the executor
+   */
+  public ExecutorService executor() {
+    return executor;
+  }
+
+  /**
+   * Shuts down the executor, letting calls already submitted complete.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,67 @@
+package com.kassa.sep.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Request factory of SEP RestClients that lets a single gateway call run with a shorter response timeout than
+ * the client's default.
+ * <p>
+ * {@link com.kassa.sep.SepClient} derives the timeout of each attempt from observed latency and the caller's
+ * deadline, and passes it down through {@link #withResponseTimeout(long, Supplier)}: the RestClient call runs on
+ * the calling thread, so a thread-local reaches the Apache request without changing the RestClient API. Requests
+ * made outside that scope keep the client's configured timeouts.
+ */
+public class SepRequestFactory extends HttpComponentsClientHttpRequestFactory {
+  private static final long MIN_TIMEOUT_MILLIS = 1;
+  private static final ThreadLocal<Timeout> RESPONSE_TIMEOUT = new ThreadLocal<>();
+
+  /**
+   * Creates the factory.
+   *
+   * @param httpClient the pooled SEP HTTP client
+   */
+  public SepRequestFactory(HttpClient httpClient) {
+    super(httpClient);
+  }
+
+  /**
+   * Runs a RestClient call whose requests wait at most the given time for the response.
+   *
+   * @param nanos response timeout; negative to keep the client's own
+   * @param call  the RestClient call
+   * @param <T>   result type
+   * @return the call's result
+   */
+  public static <T> T withResponseTimeout(long nanos, Supplier<T> call) {
+    if (nanos < 0) {
+      return call.get();
+    }
+    Timeout outer = RESPONSE_TIMEOUT.get();
+    RESPONSE_TIMEOUT.set(Timeout.ofMilliseconds(Math.max(MIN_TIMEOUT_MILLIS, TimeUnit.NANOSECONDS.toMillis(nanos))));
+    try {
+      return call.get();
+    } finally {
+      // restored rather than removed: the timeout is set on every call, remove() would only add work
+      RESPONSE_TIMEOUT.set(outer);
+    }
+  }
+
+  @Override
+  protected void postProcessHttpRequest(ClassicHttpRequest request) {
+    Timeout timeout = RESPONSE_TIMEOUT.get();
+    if (timeout != null && request instanceof HttpUriRequestBase configurable) {
+      RequestConfig defaults = createRequestConfig(getHttpClient());
+      configurable.setConfig(RequestConfig.copy(defaults != null ? defaults : RequestConfig.DEFAULT)
+        .setResponseTimeout(timeout)
+        .build());
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.kassa.sep.config;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import com.kassa.sep.exception.SepTransportException;
+import com.kassa.sep.transport.SepTransport;
+
+/**
+ * {@link SepTransport} on a SEP {@link RestClient} built by {@link RestConfig}. Per-call response timeouts are
+ * applied through {@link SepRequestFactory}; {@link RestClientException}s are translated into
+ * {@link SepTransportException}s carrying the HTTP status, if there was one, and whether the connection failed.
+ */
+public class SepRestClientTransport implements SepTransport {
+  private final RestClient restClient;
+
+  /**
+   * Creates a transport.
+   *
+   * @param restClient the SEP RestClient, with the gateway's base URL set and a {@link SepRequestFactory}
+   */
+  public SepRestClientTransport(RestClient restClient) {
+    this.restClient = restClient;
+  }
+
+  @Override
+  public <T> T post(String path, Object request, Class<T> responseType, long responseTimeoutNanos) {
+    try {
+      return SepRequestFactory.withResponseTimeout(responseTimeoutNanos,
+        () -> restClient.post().uri(path).body(request).retrieve().body(responseType));
+    } catch (RestClientResponseException e) {
+      throw new SepTransportException(e.getMessage(), e.getStatusCode().value(), e);
+    } catch (RestClientException e) {
+      throw new SepTransportException(e.getMessage(), 0, isConnectFailure(e), e);
+    }
+  }
+
+  private static boolean isConnectFailure(RestClientException e) {
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+      // a connection request timeout means no pooled connection was leased, so nothing was sent either
+      if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException
+          || cause instanceof ConnectionRequestTimeoutException || cause instanceof UnknownHostException
+          || cause instanceof NoRouteToHostException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
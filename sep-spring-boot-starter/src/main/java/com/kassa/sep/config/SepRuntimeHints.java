@@ -0,0 +1,47 @@
+package com.kassa.sep.config;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+/**
+ * Reflection hints for Spring AOT and GraalVM native images, so the starter needs no hand-written reflection
+ * config.
+ * <p>
+ * With the default {@link com.kassa.sep.SepProperties.Http.Codec#JACKSON Jackson} codec, and in the reactive
+ * client, the SEP DTOs and their result and error code enums are bound by Jackson through reflection.
+ * {@link SepExecutors} looks up the Java 21 virtual-thread executor reflectively, so it still compiles on Java 17.
+ */
+public class SepRuntimeHints implements RuntimeHintsRegistrar {
+  private static final Class<?>[] BOUND_TYPES = {
+    SepTokenRequest.class,
+    SepTokenResponse.class,
+    SepVerifyTransactionRequest.class,
+    SepVerifyTransactionResponse.class,
+    SepTransactionDetail.class,
+    SepTransactionResponse.class,
+    SepResultCode.class,
+    SepErrorCode.class
+  };
+
+  @Override
+  public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+    new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), BOUND_TYPES);
+    hints.reflection().registerType(TypeReference.of(Executors.class),
+      type -> type.withMethod("newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+  }
+}
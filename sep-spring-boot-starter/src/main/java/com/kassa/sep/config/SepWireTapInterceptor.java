@@ -0,0 +1,76 @@
+package com.kassa.sep.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.UnaryOperator;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import com.kassa.sep.recorder.SepWireTap;
+
+/**
+ * RestClient interceptor reporting each exchange to the {@link SepWireTap} of a flight recorder. The response is
+ * never buffered: its body is wrapped when the message converter first asks for it.
+ */
+class SepWireTapInterceptor implements ClientHttpRequestInterceptor {
+  private final SepWireTap wireTap;
+
+  SepWireTapInterceptor(SepWireTap wireTap) {
+    this.wireTap = wireTap;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+      throws IOException {
+    // the body is a fresh buffer of the request; keeping the reference costs no copy
+    wireTap.request(body);
+    ClientHttpResponse response = execution.execute(request, body);
+    UnaryOperator<InputStream> tap = wireTap.response(response.getStatusCode().value(),
+      response.getHeaders().getContentLength());
+    return tap != null ? new TappedResponse(response, tap) : response;
+  }
+
+  private static final class TappedResponse implements ClientHttpResponse {
+    private final ClientHttpResponse delegate;
+    private final UnaryOperator<InputStream> tap;
+    private InputStream body;
+
+    TappedResponse(ClientHttpResponse delegate, UnaryOperator<InputStream> tap) {
+      this.delegate = delegate;
+      this.tap = tap;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() throws IOException {
+      return delegate.getStatusCode();
+    }
+
+    @Override
+    public String getStatusText() throws IOException {
+      return delegate.getStatusText();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return delegate.getHeaders();
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      if (body == null) {
+        body = tap.apply(delegate.getBody());
+      }
+      return body;
+    }
+
+    @Override
+    public void close() {
+      delegate.close();
+    }
+  }
+}
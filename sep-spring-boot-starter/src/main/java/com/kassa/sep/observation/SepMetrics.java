@@ -0,0 +1,194 @@
+package com.kassa.sep.observation;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.kassa.sep.cache.SepTokenCache;
+import com.kassa.sep.cache.SepVerificationCache;
+import com.kassa.sep.config.SepConnectionPool;
+import com.kassa.sep.idempotency.SepIdempotencyInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+import com.kassa.sep.outbox.SepOutboxJournal;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.resilience.SepBulkheadInterceptor;
+import com.kassa.sep.resilience.SepCircuitBreaker;
+import com.kassa.sep.resilience.SepCircuitBreakerInterceptor;
+import com.kassa.sep.resilience.SepHedgingInterceptor;
+import com.kassa.sep.resilience.SepRateLimiter;
+import com.kassa.sep.resilience.SepRateLimiterInterceptor;
+import com.kassa.sep.resilience.SepRetryInterceptor;
+import com.kassa.sep.reversal.SepReversalScheduler;
+import com.kassa.sep.routing.SepClientRegistry;
+import com.kassa.sep.routing.SepTerminal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Registers gauges and counters for the state of the SEP client components: calls in flight, connection pool,
+ * circuit breakers, bulkheads, rate limiters, retries, verify hedging, cluster-wide idempotency, caches, the
+ * verification outbox and the reversal scheduler. Components that are not configured (null) are skipped. Pool,
+ * breaker, bulkhead, rate limiter and retry meters are tagged with the {@code terminal} name of the
+ * {@link SepClientRegistry} ({@code default} for {@code sep.terminal-id}) and registered when the terminal is built.
+ * Latency and outcome metrics come from the {@link SepObservationInterceptor} observations.
+ */
+public class SepMetrics implements MeterBinder {
+  private final SepObservationInterceptor observation;
+  private final SepClientRegistry terminals;
+  private final SepVerificationCache verificationCache;
+  private final SepTokenCache tokenCache;
+  private final SepVerificationOutbox outbox;
+  private final SepReversalScheduler reversals;
+  private final SepHedgingInterceptor hedging;
+  private final SepIdempotencyInterceptor idempotency;
+
+  /**
+   * Creates the binder; every argument may be null.
+   *
+   * @param observation       observation interceptor tracking calls in flight
+   * @param terminals         the terminals with their pools, circuit breakers, bulkheads, rate limiters and retries
+   * @param verificationCache verification cache
+   * @param tokenCache        token cache
+   * @param outbox            verification outbox
+   * @param reversals         reversal scheduler
+   * @param hedging           verify hedging
+   * @param idempotency       cluster-wide idempotency
+   */
+  public SepMetrics(SepObservationInterceptor observation, SepClientRegistry terminals,
+      SepVerificationCache verificationCache, SepTokenCache tokenCache, SepVerificationOutbox outbox,
+      SepReversalScheduler reversals, SepHedgingInterceptor hedging, SepIdempotencyInterceptor idempotency) {
+    this.observation = observation;
+    this.terminals = terminals;
+    this.verificationCache = verificationCache;
+    this.tokenCache = tokenCache;
+    this.outbox = outbox;
+    this.reversals = reversals;
+    this.hedging = hedging;
+    this.idempotency = idempotency;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    if (observation != null) {
+      for (SepOperation operation : SepOperation.values()) {
+        Gauge.builder("sep.client.in.flight", observation, o -> o.inFlight(operation))
+          .description("SEP gateway calls in flight").tag("operation", tag(operation)).register(registry);
+      }
+    }
+    if (terminals != null) {
+      terminals.onTerminalBuilt(terminal -> bindTerminal(registry, terminal));
+    }
+    if (verificationCache != null) {
+      FunctionCounter.builder("sep.cache.hits", verificationCache, c -> c.stats().hits())
+        .tag("cache", "verify").register(registry);
+      FunctionCounter.builder("sep.cache.misses", verificationCache, c -> c.stats().misses())
+        .tag("cache", "verify").register(registry);
+    }
+    if (tokenCache != null) {
+      FunctionCounter.builder("sep.cache.hits", tokenCache, c -> c.stats().hits())
+        .tag("cache", "token").register(registry);
+      FunctionCounter.builder("sep.cache.misses", tokenCache, c -> c.stats().misses())
+        .tag("cache", "token").register(registry);
+    }
+    if (outbox != null) {
+      SepOutboxJournal journal = outbox.journal();
+      Gauge.builder("sep.outbox.pending", journal, j -> j.stats().pending())
+        .description("Payments recorded in the outbox and not verified yet").register(registry);
+      Gauge.builder("sep.outbox.segments", journal, j -> j.stats().segments())
+        .description("Outbox journal segment files").register(registry);
+      FunctionCounter.builder("sep.outbox.appended", journal, j -> j.stats().appended())
+        .description("Bytes appended to the outbox journal").baseUnit("bytes").register(registry);
+      FunctionCounter.builder("sep.outbox.commits", journal, j -> j.stats().commits())
+        .description("Group commits of the outbox journal").register(registry);
+    }
+    if (reversals != null) {
+      Gauge.builder("sep.reversal.pending", reversals, SepReversalScheduler::pendingCount)
+        .description("Reversals scheduled and not fired yet").register(registry);
+      FunctionCounter.builder("sep.reversal.completed", reversals, r -> r.stats().reversed())
+        .description("Fired reversals by final outcome").tag("outcome", "reversed").register(registry);
+      FunctionCounter.builder("sep.reversal.completed", reversals, r -> r.stats().failed())
+        .description("Fired reversals by final outcome").tag("outcome", "failed").register(registry);
+      FunctionCounter.builder("sep.reversal.retried", reversals, r -> r.stats().retried())
+        .description("Reversal attempts that failed transiently and were scheduled again").register(registry);
+      FunctionCounter.builder("sep.reversal.deferred", reversals, r -> r.stats().deferred())
+        .description("Reversals deferred because the worker pool was saturated").register(registry);
+    }
+    if (hedging != null) {
+      FunctionCounter.builder("sep.hedging.hedged", hedging, SepHedgingInterceptor::hedgedCount)
+        .description("Verify calls sent a second time after the latency percentile").register(registry);
+      FunctionCounter.builder("sep.hedging.wins", hedging, SepHedgingInterceptor::hedgeWinCount)
+        .description("Hedged verify calls answered first by the second request").register(registry);
+      FunctionCounter.builder("sep.hedging.duplicates", hedging, SepHedgingInterceptor::duplicateAnswerCount)
+        .description("Hedged verify calls answered DUPLICATE_REQUEST because the other request failed")
+        .register(registry);
+    }
+    if (idempotency != null) {
+      FunctionCounter.builder("sep.idempotency.shared", idempotency, SepIdempotencyInterceptor::sharedCount)
+        .description("Verify/reverse calls answered with an outcome published by another call").register(registry);
+      FunctionCounter.builder("sep.idempotency.in.progress", idempotency, SepIdempotencyInterceptor::inProgressCount)
+        .description("Verify/reverse calls rejected while another node held the lease").register(registry);
+      FunctionCounter.builder("sep.idempotency.store.errors", idempotency, SepIdempotencyInterceptor::storeErrorCount)
+        .description("Failures of the idempotency store; the call proceeded without a lease").register(registry);
+    }
+  }
+
+  private static void bindTerminal(MeterRegistry registry, SepTerminal terminal) {
+    String name = terminal.name();
+    SepCircuitBreakerInterceptor circuitBreakers = terminal.circuitBreakers();
+    SepBulkheadInterceptor bulkheads = terminal.bulkheads();
+    SepRateLimiterInterceptor rateLimiters = terminal.rateLimiters();
+    SepRetryInterceptor retry = terminal.retry();
+    for (SepOperation operation : SepOperation.values()) {
+      String tag = tag(operation);
+      if (circuitBreakers != null) {
+        SepCircuitBreaker breaker = circuitBreakers.breaker(operation);
+        Gauge.builder("sep.circuit.breaker.state", breaker, b -> b.state().ordinal())
+          .description("Circuit breaker state: 0 closed, 1 open, 2 half-open").tag("operation", tag)
+          .tag("terminal", name).register(registry);
+        FunctionCounter.builder("sep.circuit.breaker.not.permitted", breaker, b -> b.stats().notPermitted())
+          .description("Calls rejected by an open circuit breaker").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+      }
+      if (bulkheads != null) {
+        Gauge.builder("sep.bulkhead.in.flight", bulkheads, b -> b.inFlight(operation))
+          .description("Calls holding a bulkhead slot").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+        FunctionCounter.builder("sep.bulkhead.rejected", bulkheads, b -> b.rejectedCount(operation))
+          .description("Calls rejected by a full bulkhead").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+      }
+      if (rateLimiters != null) {
+        SepRateLimiter limiter = rateLimiters.limiter(operation);
+        Gauge.builder("sep.rate.limiter.queue.depth", limiter, SepRateLimiter::queueDepth)
+          .description("Calls waiting for a rate limiter permit").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+        FunctionTimer.builder("sep.rate.limiter.wait", limiter, l -> l.stats().permitted(),
+            l -> l.stats().waitNanos(), TimeUnit.NANOSECONDS)
+          .description("Time calls waited for a rate limiter permit").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+        FunctionCounter.builder("sep.rate.limiter.rejected", limiter, l -> l.stats().rejected())
+          .description("Calls rejected by a rate limiter").tag("operation", tag).tag("terminal", name)
+          .register(registry);
+      }
+      if (retry != null) {
+        FunctionCounter.builder("sep.client.retries", retry, r -> r.retryCount(operation))
+          .description("Retried gateway calls").tag("operation", tag).tag("terminal", name).register(registry);
+      }
+    }
+    SepConnectionPool pool = terminal.pool();
+    if (pool != null) {
+      Gauge.builder("sep.http.pool.leased", pool, p -> p.stats().leased()).tag("terminal", name).register(registry);
+      Gauge.builder("sep.http.pool.pending", pool, p -> p.stats().pending()).tag("terminal", name).register(registry);
+      Gauge.builder("sep.http.pool.available", pool, p -> p.stats().available()).tag("terminal", name)
+        .register(registry);
+      Gauge.builder("sep.http.pool.max", pool, p -> p.stats().max()).tag("terminal", name).register(registry);
+    }
+  }
+
+  private static String tag(SepOperation operation) {
+    return operation.name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,120 @@
+package com.kassa.sep.observation;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.cache.SepTokenCache;
+import com.kassa.sep.cache.SepVerificationCache;
+import com.kassa.sep.idempotency.SepIdempotencyInterceptor;
+import com.kassa.sep.interceptor.SepContextPropagator;
+import com.kassa.sep.outbox.SepVerificationOutbox;
+import com.kassa.sep.resilience.SepHedgingInterceptor;
+import com.kassa.sep.reversal.SepReversalScheduler;
+import com.kassa.sep.routing.SepClientRegistry;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Auto-configuration of Micrometer instrumentation for SEP gateway calls, active when an
+ * {@link ObservationRegistry} is available (e.g. with Spring Boot Actuator).
+ */
+@AutoConfiguration(after = SepConfiguration.class, afterName = {
+  "org.springframework.boot.micrometer.observation.autoconfigure.ObservationAutoConfiguration",
+  "org.springframework.boot.micrometer.metrics.autoconfigure.CompositeMeterRegistryAutoConfiguration" })
+@ConditionalOnClass(ObservationRegistry.class)
+@ConditionalOnBean(ObservationRegistry.class)
+@ConditionalOnProperty(prefix = "sep", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Import(SepObservationConfiguration.SepMeterConfiguration.class)
+public class SepObservationConfiguration {
+
+  /**
+   * Defines the interceptor observing every SEP gateway call.
+   *
+   * @param observationRegistry the application's observation registry
+   * @return the observation interceptor
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepObservationInterceptor sepObservationInterceptor(ObservationRegistry observationRegistry) {
+    return new SepObservationInterceptor(observationRegistry);
+  }
+
+  /**
+   * Defines the propagation of the caller's MDC and current observation to the requests the
+   * {@link SepHedgingInterceptor} runs on its executor.
+   *
+   * @param observationRegistry the application's observation registry
+   * @return the context propagator
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepContextPropagator sepContextPropagator(ObservationRegistry observationRegistry) {
+    SepContextPropagator mdc = SepContextPropagator.mdc();
+    return task -> {
+      Observation current = observationRegistry.getCurrentObservation();
+      Runnable withMdc = mdc.wrap(task);
+      return current != null ? current.wrap(withMdc) : withMdc;
+    };
+  }
+
+  /**
+   * Meter registrations, active when Micrometer metrics are on the classpath. Imported rather than annotated with
+   * {@code @Configuration}, so component scanning never registers it outside this auto-configuration.
+   */
+  @ConditionalOnClass(MeterRegistry.class)
+  static class SepMeterConfiguration {
+
+    /**
+     * Publishes p50/p95/p99 and a percentile histogram for the {@value SepObservationInterceptor#OBSERVATION_NAME}
+     * timer.
+     *
+     * @return the meter filter
+     */
+    @Bean
+    @ConditionalOnMissingBean(name = "sepClientLatencyMeterFilter")
+    MeterFilter sepClientLatencyMeterFilter() {
+      return new MeterFilter() {
+        @Override
+        public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+          if (!id.getName().equals(SepObservationInterceptor.OBSERVATION_NAME)) {
+            return config;
+          }
+          return DistributionStatisticConfig.builder()
+            .percentiles(0.5, 0.95, 0.99)
+            .percentilesHistogram(true)
+            .build()
+            .merge(config);
+        }
+      };
+    }
+
+    /**
+     * Binds gauges and counters of the SEP client components that are configured.
+     *
+     * @return the meter binder
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    SepMetrics sepMetrics(ObjectProvider<SepObservationInterceptor> observation,
+        ObjectProvider<SepClientRegistry> terminals, ObjectProvider<SepVerificationCache> verificationCache,
+        ObjectProvider<SepTokenCache> tokenCache, ObjectProvider<SepVerificationOutbox> outbox,
+        ObjectProvider<SepReversalScheduler> reversals, ObjectProvider<SepHedgingInterceptor> hedging,
+        ObjectProvider<SepIdempotencyInterceptor> idempotency) {
+      return new SepMetrics(observation.getIfAvailable(), terminals.getIfAvailable(),
+        verificationCache.getIfAvailable(), tokenCache.getIfAvailable(), outbox.getIfAvailable(),
+        reversals.getIfAvailable(), hedging.getIfAvailable(), idempotency.getIfAvailable());
+    }
+  }
+}
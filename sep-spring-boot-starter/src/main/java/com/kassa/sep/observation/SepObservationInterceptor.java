@@ -0,0 +1,141 @@
+package com.kassa.sep.observation;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepBulkheadFullException;
+import com.kassa.sep.exception.SepCallInProgressException;
+import com.kassa.sep.exception.SepCircuitOpenException;
+import com.kassa.sep.exception.SepDeadlineExceededException;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepRateLimitedException;
+import com.kassa.sep.interceptor.SepCall;
+import com.kassa.sep.interceptor.SepCallExecution;
+import com.kassa.sep.interceptor.SepCallInterceptor;
+import com.kassa.sep.interceptor.SepOperation;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Wraps every SEP gateway call in a Micrometer {@link Observation} named {@value #OBSERVATION_NAME}.
+ * <p>
+ * Low-cardinality keys: {@code operation} (token/verify/reverse), {@code terminal} (the terminal ID),
+ * {@code outcome} ({@link Outcome}) and {@code code} (the gateway's {@code ResultCode} / {@code errorCode}, or
+ * {@code NONE}). The RefNum/ResNum is a high-cardinality key. With a meter observation handler registered this
+ * yields a latency timer and an active long-task timer per operation; the number of calls in flight is additionally
+ * tracked per operation here.
+ * This interceptor is the outermost of the chain, so the observed latency includes retries and local answers.
+ */
+public class SepObservationInterceptor implements SepCallInterceptor {
+  /** Name of the observation, and of the resulting timer. */
+  public static final String OBSERVATION_NAME = "sep.client.requests";
+
+  private static final String NONE = "NONE";
+
+  private final ObservationRegistry registry;
+  private final Map<SepOperation, AtomicInteger> inFlight = new EnumMap<>(SepOperation.class);
+
+  /**
+   * Outcome of an observed call.
+   */
+  public enum Outcome {
+    /** The gateway answered successfully. */
+    SUCCESS,
+    /** The gateway answered with an error result code. */
+    GATEWAY_ERROR,
+    /** The call was rejected locally by a circuit breaker, bulkhead or rate limiter, or its deadline passed. */
+    REJECTED,
+    /** The call failed in transport: connection error, timeout or unreadable response. */
+    TRANSPORT_ERROR
+  }
+
+  /**
+   * Creates the interceptor.
+   *
+   * @param registry the observation registry
+   */
+  public SepObservationInterceptor(ObservationRegistry registry) {
+    this.registry = registry;
+    for (SepOperation operation : SepOperation.values()) {
+      inFlight.put(operation, new AtomicInteger());
+    }
+  }
+
+  @Override
+  public <T> T intercept(SepCall<T> call, SepCallExecution<T> execution) {
+    Observation observation = Observation.createNotStarted(OBSERVATION_NAME, registry)
+      .contextualName("sep " + call.operation().name().toLowerCase(Locale.ROOT))
+      .lowCardinalityKeyValue("operation", call.operation().name().toLowerCase(Locale.ROOT))
+      .lowCardinalityKeyValue("terminal", call.terminalId() != null ? call.terminalId() : NONE)
+      .highCardinalityKeyValue("sep.key", String.valueOf(call.key()));
+    AtomicInteger active = inFlight.get(call.operation());
+    active.incrementAndGet();
+    observation.start();
+    try (Observation.Scope scope = observation.openScope()) {
+      T response = execution.execute(call);
+      tag(observation, outcomeOf(response), codeOf(response));
+      return response;
+    } catch (RuntimeException e) {
+      tag(observation, outcomeOf(e), e instanceof SepGatewayException gateway ? gateway.getErrorCode() : NONE);
+      observation.error(e);
+      throw e;
+    } finally {
+      active.decrementAndGet();
+      observation.stop();
+    }
+  }
+
+  @Override
+  public int getOrder() {
+    return ORDER_OBSERVATION;
+  }
+
+  /**
+   * Number of calls of an operation currently in flight.
+   *
+   * @param operation the gateway operation
+   * @return calls in flight
+   */
+  public int inFlight(SepOperation operation) {
+    return inFlight.get(operation).get();
+  }
+
+  private static void tag(Observation observation, Outcome outcome, String code) {
+    observation.lowCardinalityKeyValue("outcome", outcome.name())
+      .lowCardinalityKeyValue("code", code != null ? code : NONE);
+  }
+
+  private static Outcome outcomeOf(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify) {
+      return verify.isSuccess() ? Outcome.SUCCESS : Outcome.GATEWAY_ERROR;
+    }
+    if (response instanceof SepTokenResponse token) {
+      return token.isSuccess() ? Outcome.SUCCESS : Outcome.GATEWAY_ERROR;
+    }
+    return Outcome.SUCCESS;
+  }
+
+  private static Outcome outcomeOf(RuntimeException error) {
+    if (error instanceof SepCircuitOpenException || error instanceof SepBulkheadFullException
+        || error instanceof SepRateLimitedException || error instanceof SepDeadlineExceededException
+        || error instanceof SepCallInProgressException) {
+      return Outcome.REJECTED;
+    }
+    return Outcome.TRANSPORT_ERROR;
+  }
+
+  private static String codeOf(Object response) {
+    if (response instanceof SepVerifyTransactionResponse verify && verify.getResultCode() != null) {
+      return String.valueOf(verify.getResultCode());
+    }
+    if (response instanceof SepTokenResponse token) {
+      return token.isSuccess() ? NONE : token.getErrorCode();
+    }
+    return NONE;
+  }
+}
@@ -0,0 +1,197 @@
+package com.kassa.sep.reactive;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+
+import org.reactivestreams.Publisher;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.kassa.sep.SepProperties;
+import com.kassa.sep.batch.SepBatchResult;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepTransportException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link com.kassa.sep.SepClient} built on {@link WebClient}.
+ * <p>
+ * Uses the same DTOs and signals the same exceptions as the blocking transports: {@link SepGatewayException} for
+ * gateway errors and {@link SepTransportException} for failed exchanges, with the HTTP status and whether the
+ * connection failed, so it can be used from event-loop threads without blocking on SEP I/O. The {@code Flux}
+ * operators honour downstream demand and never have more than {@code maxInFlight} gateway calls outstanding.
+ * <p>
+ * The calls do not pass through the {@link com.kassa.sep.interceptor.SepCallInterceptor} chain of
+ * {@link com.kassa.sep.SepClient}, whose interceptors block the calling thread.
+ */
+@Slf4j
+public class SepReactiveClient {
+  private static final String TOKEN_PATH = "/onlinepg/onlinepg";
+  private static final String VERIFY_PATH = "/verifyTxnRandomSessionkey/ipg/VerifyTransaction";
+  private static final String REVERSE_PATH = "/verifyTxnRandomSessionkey/ipg/ReverseTransaction";
+  private static final String ACTION_TOKEN = "token";
+
+  private final WebClient webClient;
+  private final SepProperties properties;
+  private final int maxInFlight;
+  private final Integer terminalNumber;
+
+  /**
+   * Creates the reactive client.
+   *
+   * @param webClient   WebClient with the SEP base URL
+   * @param properties  SEP configuration
+   * @param maxInFlight maximum number of concurrent gateway calls of a {@code Flux} operation
+   */
+  public SepReactiveClient(WebClient webClient, SepProperties properties, int maxInFlight) {
+    this.webClient = webClient;
+    this.properties = properties;
+    this.maxInFlight = maxInFlight;
+    this.terminalNumber = parseTerminalNumber(properties.terminalId());
+  }
+
+  /**
+   * Requests a payment token. See {@link com.kassa.sep.SepClient#requestToken(long, String, String, String)}.
+   *
+   * @param amount      transaction amount in Rials
+   * @param resNum      merchant reservation/reference number (unique per transaction)
+   * @param redirectUrl URL to which the user is redirected after payment
+   * @param cellNumber  optional payer mobile number, may be null
+   * @return a Mono emitting the token response, or erroring with {@link SepGatewayException} or
+   *     {@link SepTransportException}
+   */
+  public Mono<SepTokenResponse> requestToken(long amount, String resNum, String redirectUrl, String cellNumber) {
+    var request = SepTokenRequest.builder()
+      .action(ACTION_TOKEN)
+      .terminalId(properties.terminalId())
+      .amount(amount)
+      .resNum(resNum)
+      .redirectUrl(redirectUrl)
+      .cellNumber(cellNumber)
+      .build();
+
+    return webClient.post()
+      .uri(TOKEN_PATH)
+      .bodyValue(request)
+      .retrieve()
+      .bodyToMono(SepTokenResponse.class)
+      .onErrorMap(WebClientException.class, SepReactiveClient::transportError)
+      .switchIfEmpty(Mono.error(() -> new SepGatewayException("UNKNOWN", "No response received from gateway")))
+      .flatMap(response -> {
+        if (!response.isSuccess()) {
+          log.error("SEP Gateway error: code={}, desc={}", response.getErrorCode(), response.getErrorDesc());
+          return Mono.error(new SepGatewayException(response.getErrorCode(), response.getErrorDesc()));
+        }
+        return Mono.just(response);
+      });
+  }
+
+  /**
+   * Verifies a transaction. See {@link com.kassa.sep.SepClient#verifyTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway callback
+   * @return a Mono emitting the verify response, or erroring with {@link SepGatewayException} or
+   *     {@link SepTransportException}
+   */
+  public Mono<SepVerifyTransactionResponse> verifyTransaction(String refNum) {
+    return post(VERIFY_PATH, refNum, "Verify");
+  }
+
+  /**
+   * Reverses a transaction. See {@link com.kassa.sep.SepClient#reverseTransaction(String)}.
+   *
+   * @param refNum reference number (RefNum) from the gateway
+   * @return a Mono emitting the reverse response, or erroring with {@link SepGatewayException} or
+   *     {@link SepTransportException}
+   */
+  public Mono<SepVerifyTransactionResponse> reverseTransaction(String refNum) {
+    return post(REVERSE_PATH, refNum, "Reverse");
+  }
+
+  /**
+   * Verifies a stream of reference numbers with at most {@code maxInFlight} calls outstanding.
+   * A failed item is emitted as a failed {@link SepBatchResult}; the stream itself does not error.
+   *
+   * @param refNums reference numbers to verify
+   * @return one result per reference number, in completion order
+   */
+  public Flux<SepBatchResult> verifyTransactions(Publisher<String> refNums) {
+    return Flux.from(refNums).flatMap(refNum -> toResult(refNum, verifyTransaction(refNum)), maxInFlight, 1);
+  }
+
+  /**
+   * Reverses a stream of reference numbers with at most {@code maxInFlight} calls outstanding.
+   * A failed item is emitted as a failed {@link SepBatchResult}; the stream itself does not error.
+   *
+   * @param refNums reference numbers to reverse
+   * @return one result per reference number, in completion order
+   */
+  public Flux<SepBatchResult> reverseTransactions(Publisher<String> refNums) {
+    return Flux.from(refNums).flatMap(refNum -> toResult(refNum, reverseTransaction(refNum)), maxInFlight, 1);
+  }
+
+  private Mono<SepVerifyTransactionResponse> post(String path, String refNum, String operation) {
+    // a non-numeric terminal id errors the Mono, as the blocking client throws on the call
+    return Mono.fromSupplier(() -> SepVerifyTransactionRequest.builder()
+        .refNum(refNum)
+        .terminalNumber(terminalNumber != null ? terminalNumber : Integer.valueOf(properties.terminalId()))
+        .build())
+      .flatMap(request -> webClient.post()
+        .uri(path)
+        .bodyValue(request)
+        .retrieve()
+        .bodyToMono(SepVerifyTransactionResponse.class)
+        .onErrorMap(WebClientException.class, SepReactiveClient::transportError))
+      .switchIfEmpty(Mono.error(() -> new SepGatewayException("UNKNOWN", "No response received from gateway")))
+      .flatMap(response -> {
+        if (!response.isSuccess()) {
+          String code = response.getResultCode() != null ? String.valueOf(response.getResultCode()) : "UNKNOWN";
+          String desc = response.getResultDescription() != null ? response.getResultDescription() : operation + " failed";
+          log.error("SEP {} error: code={}, desc={}", operation, code, desc);
+          return Mono.error(new SepGatewayException(code, desc));
+        }
+        return Mono.just(response);
+      });
+  }
+
+  private static Mono<SepBatchResult> toResult(String refNum, Mono<SepVerifyTransactionResponse> call) {
+    return call
+      .map(response -> SepBatchResult.success(refNum, response))
+      .onErrorResume(error -> Mono.just(SepBatchResult.failure(refNum, error)));
+  }
+
+  private static SepTransportException transportError(WebClientException e) {
+    if (e instanceof WebClientResponseException response) {
+      return new SepTransportException(e.getMessage(), response.getStatusCode().value(), e);
+    }
+    return new SepTransportException(e.getMessage(), 0, isConnectFailure(e), e);
+  }
+
+  private static boolean isConnectFailure(WebClientException e) {
+    for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException
+          || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Integer parseTerminalNumber(String terminalId) {
+    try {
+      return terminalId != null ? Integer.valueOf(terminalId) : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
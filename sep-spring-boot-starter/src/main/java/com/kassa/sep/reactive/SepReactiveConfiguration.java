@@ -0,0 +1,71 @@
+package com.kassa.sep.reactive;
+
+import java.net.http.HttpClient;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.SepProperties;
+
+/**
+ * Auto-configuration of the reactive SEP client, active only when WebFlux is on the classpath.
+ * The {@link WebClient} runs on the JDK {@link HttpClient}, so no additional HTTP library is required.
+ */
+@AutoConfiguration(after = SepConfiguration.class)
+@ConditionalOnClass(WebClient.class)
+@ConditionalOnProperty(prefix = "sep", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SepProperties.class)
+public class SepReactiveConfiguration {
+  /** Bean name of the {@link WebClient} dedicated to SEP gateway calls. */
+  public static final String WEB_CLIENT_BEAN = "sepWebClient";
+
+  private final SepProperties properties;
+
+  /**
+   * Creates the configuration with the given SEP properties.
+   *
+   * @param properties the SEP configuration properties
+   */
+  public SepReactiveConfiguration(SepProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Builds the WebClient used for SEP calls, with connect and read timeouts from {@link SepProperties.Http}.
+   *
+   * @return a WebClient with base URL set from {@link SepProperties#baseUrl()}
+   */
+  @Bean(WEB_CLIENT_BEAN)
+  @ConditionalOnMissingBean(name = WEB_CLIENT_BEAN)
+  public WebClient sepWebClient() {
+    HttpClient httpClient = HttpClient.newBuilder()
+      .connectTimeout(properties.http().connectTimeout())
+      .build();
+    JdkClientHttpConnector connector = new JdkClientHttpConnector(httpClient);
+    connector.setReadTimeout(properties.http().responseTimeout());
+    return WebClient.builder()
+      .baseUrl(properties.baseUrl())
+      .clientConnector(connector)
+      .build();
+  }
+
+  /**
+   * Defines the {@link SepReactiveClient} bean.
+   *
+   * @param webClient the dedicated SEP WebClient
+   * @return the reactive SEP client
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepReactiveClient sepReactiveClient(@Qualifier(WEB_CLIENT_BEAN) WebClient webClient) {
+    return new SepReactiveClient(webClient, properties, properties.reactive().maxInFlight());
+  }
+}
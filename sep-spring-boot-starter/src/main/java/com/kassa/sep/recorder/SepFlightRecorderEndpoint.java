@@ -0,0 +1,55 @@
+package com.kassa.sep.recorder;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import com.kassa.sep.interceptor.SepOperation;
+
+/**
+ * Actuator endpoint {@code sepexchanges} exposing the exchanges held by the {@link SepFlightRecorder}, most recent
+ * first: {@code /actuator/sepexchanges} lists them per operation, {@code /actuator/sepexchanges/{operation}} those
+ * of one operation (e.g. {@code verify}).
+ */
+@Endpoint(id = "sepexchanges")
+public class SepFlightRecorderEndpoint {
+  private final SepFlightRecorder flightRecorder;
+
+  /**
+   * Creates the endpoint.
+   *
+   * @param flightRecorder the flight recorder
+   */
+  public SepFlightRecorderEndpoint(SepFlightRecorder flightRecorder) {
+    this.flightRecorder = flightRecorder;
+  }
+
+  /**
+   * Exchanges of all operations.
+   *
+   * @return the exchanges per operation, most recent first
+   */
+  @ReadOperation
+  public Map<SepOperation, List<SepExchange>> exchanges() {
+    Map<SepOperation, List<SepExchange>> exchanges = new EnumMap<>(SepOperation.class);
+    for (SepOperation operation : SepOperation.values()) {
+      exchanges.put(operation, flightRecorder.exchanges(operation));
+    }
+    return exchanges;
+  }
+
+  /**
+   * Exchanges of one operation.
+   *
+   * @param operation the gateway operation
+   * @return the exchanges, most recent first
+   */
+  @ReadOperation
+  public List<SepExchange> operationExchanges(@Selector SepOperation operation) {
+    return flightRecorder.exchanges(operation);
+  }
+}
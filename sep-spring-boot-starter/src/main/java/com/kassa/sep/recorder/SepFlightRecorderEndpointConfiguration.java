@@ -0,0 +1,36 @@
+package com.kassa.sep.recorder;
+
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+import com.kassa.sep.SepConfiguration;
+
+/**
+ * Auto-configuration of the {@link SepFlightRecorderEndpoint}, active with Spring Boot Actuator when the endpoint is
+ * exposed (e.g. {@code management.endpoints.web.exposure.include=sepexchanges}).
+ */
+@AutoConfiguration(after = SepConfiguration.class)
+@ConditionalOnClass(Endpoint.class)
+@ConditionalOnBean(SepFlightRecorder.class)
+@ConditionalOnAvailableEndpoint(SepFlightRecorderEndpoint.class)
+@ConditionalOnProperty(prefix = "sep", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SepFlightRecorderEndpointConfiguration {
+
+  /**
+   * Defines the endpoint exposing the recorded exchanges.
+   *
+   * @param sepFlightRecorder the flight recorder
+   * @return the endpoint
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public SepFlightRecorderEndpoint sepFlightRecorderEndpoint(SepFlightRecorder sepFlightRecorder) {
+    return new SepFlightRecorderEndpoint(sepFlightRecorder);
+  }
+}
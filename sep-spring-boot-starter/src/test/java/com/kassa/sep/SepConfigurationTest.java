@@ -0,0 +1,89 @@
+package com.kassa.sep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.annotation.ImportCandidates;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import com.kassa.sep.cache.SepVerificationCache;
+import com.kassa.sep.config.SepRuntimeHints;
+import com.kassa.sep.resilience.SepCircuitBreakerInterceptor;
+import com.kassa.sep.resilience.SepLatencyTracker;
+import com.kassa.sep.resilience.SepRateLimiterInterceptor;
+import com.kassa.sep.resilience.SepRetryInterceptor;
+import com.kassa.sep.routing.SepClientRegistry;
+
+class SepConfigurationTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+    .withConfiguration(AutoConfigurations.of(SepConfiguration.class))
+    .withPropertyValues("sep.base-url=http://127.0.0.1:1", "sep.terminal-id=2015");
+
+  @Test
+  void isRegisteredThroughTheImportsFile() {
+    assertThat(ImportCandidates.load(AutoConfiguration.class, getClass().getClassLoader()))
+      .contains(SepConfiguration.class.getName());
+  }
+
+  @Test
+  void definesTheClientsByDefault() {
+    contextRunner.run(context -> assertThat(context)
+      .hasSingleBean(SepProperties.class)
+      .hasSingleBean(SepClient.class)
+      .hasSingleBean(SepClientRegistry.class)
+      .hasSingleBean(SepRetryInterceptor.class)
+      .hasSingleBean(SepCircuitBreakerInterceptor.class)
+      .doesNotHaveBean(SepVerificationCache.class)
+      .doesNotHaveBean(SepRateLimiterInterceptor.class));
+  }
+
+  @Test
+  void isDisabledBySepEnabledFalse() {
+    contextRunner.withPropertyValues("sep.enabled=false")
+      .run(context -> assertThat(context)
+        .doesNotHaveBean(SepProperties.class)
+        .doesNotHaveBean(SepClient.class)
+        .doesNotHaveBean(SepClientRegistry.class));
+  }
+
+  @Test
+  void enablesOptionalComponentsByProperty() {
+    contextRunner.withPropertyValues("sep.verify-cache.enabled=true", "sep.rate-limit.enabled=true",
+        "sep.retry.enabled=false", "sep.circuit-breaker.enabled=false")
+      .run(context -> assertThat(context)
+        .hasSingleBean(SepVerificationCache.class)
+        .hasSingleBean(SepRateLimiterInterceptor.class)
+        .doesNotHaveBean(SepRetryInterceptor.class)
+        .doesNotHaveBean(SepCircuitBreakerInterceptor.class));
+  }
+
+  @Test
+  void backsOffWhenTheApplicationDefinesTheBean() {
+    SepLatencyTracker latencies = new SepLatencyTracker(64, 8);
+    contextRunner.withBean(SepLatencyTracker.class, () -> latencies)
+      .run(context -> assertThat(context).getBean(SepLatencyTracker.class).isSameAs(latencies));
+  }
+
+  @Test
+  void buildsTheTerminalsOnFirstUse() {
+    contextRunner.withPropertyValues("sep.terminals.charity-a.terminal-id=3030")
+      .run(context -> {
+        SepClientRegistry registry = context.getBean(SepClientRegistry.class);
+        assertThat(registry.isBuilt("charity-a")).isFalse();
+        assertThat(registry.isBuilt(SepClientRegistry.DEFAULT_TERMINAL)).isFalse();
+
+        assertThat(registry.clientForTerminalId("3030")).isNotSameAs(context.getBean(SepClient.class));
+        assertThat(registry.isBuilt("charity-a")).isTrue();
+        assertThat(registry.client(SepClientRegistry.DEFAULT_TERMINAL)).isSameAs(context.getBean(SepClient.class));
+      });
+  }
+
+  @Test
+  void importsTheRuntimeHints() {
+    assertThat(SepConfiguration.class.getAnnotation(ImportRuntimeHints.class).value())
+      .containsExactly(SepRuntimeHints.class);
+  }
+}
@@ -0,0 +1,35 @@
+package com.kassa.sep.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.Executor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.kassa.sep.SepAsyncClient;
+import com.kassa.sep.SepConfiguration;
+
+class SepAsyncExecutorTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+    .withConfiguration(AutoConfigurations.of(SepConfiguration.class, TaskExecutionAutoConfiguration.class))
+    .withPropertyValues("sep.base-url=http://127.0.0.1:1", "sep.terminal-id=2015");
+
+  @Test
+  void keepsTheApplicationTaskExecutor() {
+    contextRunner.run(context -> {
+      assertThat(context).hasSingleBean(SepAsyncExecutor.class).hasSingleBean(SepAsyncClient.class);
+      assertThat(context.getBeansOfType(Executor.class)).containsOnlyKeys("applicationTaskExecutor");
+    });
+  }
+
+  @Test
+  void shutsDownTheExecutorWithTheContext() {
+    SepAsyncExecutor[] executor = new SepAsyncExecutor[1];
+    contextRunner.run(context -> executor[0] = context.getBean(SepAsyncExecutor.class));
+
+    assertThat(executor[0].executor().isShutdown()).isTrue();
+  }
+}
@@ -0,0 +1,69 @@
+package com.kassa.sep.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeHint;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import com.kassa.sep.dto.SepErrorCode;
+import com.kassa.sep.dto.SepResultCode;
+import com.kassa.sep.dto.SepTokenRequest;
+import com.kassa.sep.dto.SepTokenResponse;
+import com.kassa.sep.dto.SepTransactionDetail;
+import com.kassa.sep.dto.SepTransactionResponse;
+import com.kassa.sep.dto.SepVerifyTransactionRequest;
+import com.kassa.sep.dto.SepVerifyTransactionResponse;
+
+class SepRuntimeHintsTest {
+  private final RuntimeHints hints = new RuntimeHints();
+
+  SepRuntimeHintsTest() {
+    new SepRuntimeHints().registerHints(hints, getClass().getClassLoader());
+  }
+
+  @Test
+  void registersTheDtosForJacksonBinding() {
+    for (Class<?> type : new Class<?>[] {SepTokenRequest.class, SepTokenResponse.class,
+        SepVerifyTransactionRequest.class, SepVerifyTransactionResponse.class, SepTransactionDetail.class,
+        SepTransactionResponse.class}) {
+      assertThat(RuntimeHintsPredicates.reflection().onType(type)).as(type.getSimpleName()).accepts(hints);
+      assertThat(RuntimeHintsPredicates.reflection().onConstructorInvocation(noArgsConstructor(type)))
+        .as(type.getSimpleName()).accepts(hints);
+    }
+    assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(SepTokenResponse.class, "getToken"))
+      .accepts(hints);
+    assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(SepTransactionResponse.class, "getRefNum"))
+      .accepts(hints);
+  }
+
+  @Test
+  void registersTheCodeEnums() {
+    assertThat(RuntimeHintsPredicates.reflection().onType(SepResultCode.class)).accepts(hints);
+    assertThat(RuntimeHintsPredicates.reflection().onType(SepErrorCode.class)).accepts(hints);
+  }
+
+  @Test
+  void registersTheVirtualThreadExecutorLookup() {
+    TypeHint executors = hints.reflection().getTypeHint(Executors.class);
+
+    assertThat(executors).isNotNull();
+    assertThat(executors.methods()).anySatisfy(method -> {
+      assertThat(method.getName()).isEqualTo("newVirtualThreadPerTaskExecutor");
+      assertThat(method.getMode()).isEqualTo(ExecutableMode.INVOKE);
+    });
+  }
+
+  private static Constructor<?> noArgsConstructor(Class<?> type) {
+    try {
+      return type.getDeclaredConstructor();
+    } catch (NoSuchMethodException e) {
+      throw new AssertionError(type + " has no no-args constructor", e);
+    }
+  }
+}
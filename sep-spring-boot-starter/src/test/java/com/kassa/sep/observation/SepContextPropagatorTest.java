@@ -0,0 +1,54 @@
+package com.kassa.sep.observation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.kassa.sep.SepConfiguration;
+import com.kassa.sep.interceptor.SepContextPropagator;
+import com.kassa.sep.resilience.SepHedgingInterceptor;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+class SepContextPropagatorTest {
+  private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+    .withConfiguration(AutoConfigurations.of(SepConfiguration.class, SepObservationConfiguration.class))
+    .withPropertyValues("sep.base-url=http://127.0.0.1:1", "sep.terminal-id=2015", "sep.hedging.enabled=true")
+    .withBean(ObservationRegistry.class, ObservationRegistry::create);
+
+  @Test
+  void carriesTheCurrentObservationAndMdcToAnotherThread() {
+    contextRunner.run(context -> {
+      assertThat(context).hasSingleBean(SepHedgingInterceptor.class);
+      ObservationRegistry registry = context.getBean(ObservationRegistry.class);
+      registry.observationConfig().observationHandler(observationContext -> true);
+      SepContextPropagator propagator = context.getBean(SepContextPropagator.class);
+      Observation observation = Observation.start("payment", registry);
+      AtomicReference<Observation> seen = new AtomicReference<>();
+      AtomicReference<String> seenMdc = new AtomicReference<>();
+
+      Runnable task;
+      MDC.put("payment", "42");
+      try (Observation.Scope scope = observation.openScope()) {
+        task = propagator.wrap(() -> {
+          seen.set(registry.getCurrentObservation());
+          seenMdc.set(MDC.get("payment"));
+        });
+      } finally {
+        MDC.remove("payment");
+      }
+      CompletableFuture.runAsync(task).join();
+      observation.stop();
+
+      assertThat(seen.get()).isSameAs(observation);
+      assertThat(seenMdc.get()).isEqualTo("42");
+    });
+  }
+}
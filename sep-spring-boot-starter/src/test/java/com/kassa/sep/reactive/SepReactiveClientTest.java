@@ -0,0 +1,83 @@
+package com.kassa.sep.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.kassa.sep.SepProperties;
+import com.kassa.sep.exception.SepGatewayException;
+import com.kassa.sep.exception.SepTransportException;
+
+import reactor.core.publisher.Mono;
+
+class SepReactiveClientTest {
+  @Test
+  void mapsARefusedConnectionToAConnectFailure() {
+    SepProperties properties = properties("2015");
+    SepReactiveClient client = new SepReactiveClient(new SepReactiveConfiguration(properties).sepWebClient(),
+      properties, 4);
+
+    assertThatThrownBy(() -> client.verifyTransaction("1001").block())
+      .isInstanceOfSatisfying(SepTransportException.class, e -> {
+        assertThat(e.isConnectFailure()).isTrue();
+        assertThat(e.getStatusCode()).isZero();
+      });
+    assertThatThrownBy(() -> client.requestToken(10_000, "R-1", "https://example.org/back", null).block())
+      .isInstanceOfSatisfying(SepTransportException.class, e -> assertThat(e.isConnectFailure()).isTrue());
+  }
+
+  @Test
+  void mapsAnHttpErrorStatusToATransportException() {
+    SepReactiveClient client = client(properties("2015"), HttpStatus.SERVICE_UNAVAILABLE, "");
+
+    assertThatThrownBy(() -> client.reverseTransaction("1001").block())
+      .isInstanceOfSatisfying(SepTransportException.class, e -> {
+        assertThat(e.isConnectFailure()).isFalse();
+        assertThat(e.getStatusCode()).isEqualTo(503);
+      });
+  }
+
+  @Test
+  void keepsGatewayErrorsAsGatewayExceptions() {
+    SepReactiveClient client = client(properties("2015"), HttpStatus.OK,
+      "{\"ResultCode\":-2,\"ResultDescription\":\"not found\",\"Success\":false}");
+
+    assertThatThrownBy(() -> client.verifyTransaction("1001").block())
+      .isInstanceOfSatisfying(SepGatewayException.class, e -> assertThat(e.getErrorCode()).isEqualTo("-2"));
+  }
+
+  @Test
+  void signalsANonNumericTerminalIdThroughTheMono() {
+    SepReactiveClient client = client(properties("not-a-number"), HttpStatus.OK, "{}");
+
+    Mono<?> verify = client.verifyTransaction("1001");
+
+    assertThatThrownBy(verify::block).isInstanceOf(NumberFormatException.class);
+  }
+
+  private static SepReactiveClient client(SepProperties properties, HttpStatus status, String body) {
+    WebClient webClient = WebClient.builder()
+      .exchangeFunction(request -> Mono.just(ClientResponse.create(status)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .body(body)
+        .build()))
+      .build();
+    return new SepReactiveClient(webClient, properties, 4);
+  }
+
+  private static SepProperties properties(String terminalId) {
+    return new Binder(new MapConfigurationPropertySource(Map.of(
+      "sep.base-url", "http://127.0.0.1:1", "sep.terminal-id", terminalId)))
+      .bindOrCreate("sep", SepProperties.class);
+  }
+}